@@ -10,36 +10,35 @@ import javafx.scene.transform.Rotate;
 /**
  * User: allight
  * Date: 28.01.2016 1:57
+ * <p>
+ * Отрисовка машины: узел <code>ImageView</code>, который только отображает
+ * снимки {@link CarSnapshot}. Физика машины - в {@link CarPhysics}
+ * <p>
+ * Поворот задаётся одним преобразованием <code>Rotate</code> вокруг центра
+ * изображения, угол которого перезаписывается из снимка. Список
+ * преобразований узла не растёт, и стоимость кадра не зависит от
+ * длительности поездки
  */
 
 public class CarModel {
 
-    public static final double DELTA_ROUTE_DEGREE = 3;
-    public static final double ACCELERATION = 1;
-    public static final double FRICTION = 0.1;
-    public static final double MIN_SENSIBLE_SPEED = 1;
-    public static final double START_ANGLE = Math.PI / 2;
-    public static final double START_SPEED = 0;
-    public static final double DEGREES_IN_PI = Math.PI / 180;
-
     private ImageView car;
-    private double curAngle = START_ANGLE;
-    private double curSpeedY = START_SPEED;
-    private double curSpeedX = START_SPEED;
+    private final Rotate rotation;
     private DoubleProperty sceneWidth = new SimpleDoubleProperty();
     private DoubleProperty sceneHeight = new SimpleDoubleProperty();
-    private AccelerationType lastAccGranted = AccelerationType.FORWARD;
-
-    public enum Direction {
-        LEFT, RIGHT
-    }
 
-    public enum AccelerationType {
-        FORWARD, BACKWARD
+    public CarModel(Image img) {
+        this(new ImageView(img), img.getWidth(), img.getHeight());
     }
 
-    public CarModel(Image img) {
-        this.car = new ImageView(img);
+    /**
+     * @param width  ширина изображения, половина - ось поворота
+     * @param height высота изображения
+     */
+    CarModel(ImageView view, double width, double height) {
+        this.car = view;
+        this.rotation = new Rotate(0, width / 2, height / 2);
+        car.getTransforms().add(rotation);
 
         sceneWidth.addListener(observable ->
                 getImageView().setLayoutX((sceneWidth.get() - getImageView().getImage().getWidth()) / 2));
@@ -55,49 +54,13 @@ public class CarModel {
         return car.getImage();
     }
 
-    public void setRoute(Direction direction) {
-        double sign = direction == Direction.LEFT ? -1 : 1;
-        curAngle += sign * DEGREES_IN_PI * DELTA_ROUTE_DEGREE;
-        car.getTransforms().add(new Rotate(sign * DELTA_ROUTE_DEGREE,
-                getImage().getWidth() / 2, getImage().getHeight() / 2));
-    }
-
-    public void setSpeed(AccelerationType acceleration) {
-        double sign = acceleration == AccelerationType.FORWARD ? -1 : 1;
-        curSpeedX += sign * Math.cos(curAngle) * ACCELERATION;
-        curSpeedY += sign * Math.sin(curAngle) * ACCELERATION;
-        lastAccGranted = acceleration;
-    }
-
-    public void makeMove() {
-        double curPosX = car.getTranslateX() + curSpeedX;
-        if (Math.abs(curPosX) > (sceneWidth.get() / 2))
-            curPosX = -Math.signum(curPosX) * (sceneWidth.get() / 2 - 1);
-        car.setTranslateX(curPosX);
-
-        double curPosY = car.getTranslateY() + curSpeedY;
-        if (Math.abs(curPosY) > (sceneHeight.get() / 2))
-            curPosY = -Math.signum(curPosY) * (sceneHeight.get() / 2 - 1);
-        car.setTranslateY(curPosY);
-
-    }
-
-    public void decreaseSpeed() {
-        curSpeedX *= 1 - FRICTION;
-        curSpeedY *= 1 - FRICTION;
-    }
-
-    public boolean isMoving() {
-        return lastAccGranted != null &&
-                (Math.abs(curSpeedX) > MIN_SENSIBLE_SPEED ||
-                        Math.abs(curSpeedY) > MIN_SENSIBLE_SPEED);
-    }
-
     /**
-     * @return null - до старта
+     * Переносит состояние из снимка на узел сцены
      */
-    public AccelerationType lastAccGranted() {
-        return lastAccGranted;
+    public void render(CarSnapshot snapshot) {
+        car.setTranslateX(snapshot.getPosX());
+        car.setTranslateY(snapshot.getPosY());
+        rotation.setAngle(snapshot.getRotation());
     }
 
     public void bindSceneWidth(ReadOnlyDoubleProperty sceneWidth) {
@@ -107,11 +70,4 @@ public class CarModel {
     public void bindSceneHeight(ReadOnlyDoubleProperty sceneHeight) {
         this.sceneHeight.bind(sceneHeight);
     }
-
-    public void printCurrentState() {
-        System.out.println("curPosX: " + car.getTranslateX()
-                + "\tcurPosY: " + car.getTranslateX()
-                + "\tangle: " + curAngle
-        );
-    }
 }
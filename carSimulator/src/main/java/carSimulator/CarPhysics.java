@@ -0,0 +1,181 @@
+package carSimulator;
+
+/**
+ * Кинематика машины без JavaFX: состояние хранится в примитивных полях,
+ * время дискретно - один вызов {@link #tick(boolean, boolean, boolean, boolean)}
+ * соответствует одному шагу {@link FixedTimestep}. Скорости и повороты
+ * заданы в пикселях и градусах за шаг, поэтому результат не зависит от
+ * частоты кадров, а без сцены шаги можно выполнять сколь угодно быстро.
+ * <p>
+ * Положение отсчитывается от центра мира, при выходе за половину ширины
+ * или высоты машина появляется у противоположного края.
+ */
+public class CarPhysics {
+
+    public static final double DELTA_ROUTE_DEGREE = 3;
+    public static final double ACCELERATION = 1;
+    public static final double FRICTION = 0.1;
+    public static final double MIN_SENSIBLE_SPEED = 1;
+    public static final double START_ANGLE = Math.PI / 2;
+    public static final double START_SPEED = 0;
+    public static final double DEGREES_IN_PI = Math.PI / 180;
+
+    // биты состояния клавиш управления за один шаг
+    public static final int UP = 1;
+    public static final int DOWN = 1 << 1;
+    public static final int LEFT = 1 << 2;
+    public static final int RIGHT = 1 << 3;
+
+    private double posX;
+    private double posY;
+    private double angle = START_ANGLE;
+    private double speedX = START_SPEED;
+    private double speedY = START_SPEED;
+    private double worldWidth;
+    private double worldHeight;
+    private AccelerationType lastAccGranted = AccelerationType.FORWARD;
+
+    public enum Direction {
+        LEFT, RIGHT
+    }
+
+    public enum AccelerationType {
+        FORWARD, BACKWARD
+    }
+
+    public CarPhysics() {
+    }
+
+    public CarPhysics(double worldWidth, double worldHeight) {
+        setWorldSize(worldWidth, worldHeight);
+    }
+
+    public void setWorldSize(double worldWidth, double worldHeight) {
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+    }
+
+    /**
+     * Один шаг симуляции по состоянию клавиш управления: поворот, ускорение,
+     * перемещение и трение
+     */
+    public void tick(boolean upPressed, boolean downPressed, boolean leftPressed, boolean rightPressed) {
+        boolean leftOrRightOnly = leftPressed ^ rightPressed;
+        boolean upOrDownOnly = upPressed ^ downPressed;
+        boolean movingWithNoAcceleration = !upPressed && !downPressed && isMoving();
+
+        if (leftOrRightOnly) {
+            Direction direction = null;
+            if (upOrDownOnly) {
+                direction = (upPressed && leftPressed || downPressed && rightPressed) ?
+                        Direction.LEFT : Direction.RIGHT;
+            } else if (movingWithNoAcceleration) {
+                direction = (lastAccGranted == AccelerationType.FORWARD && leftPressed) ||
+                        (lastAccGranted == AccelerationType.BACKWARD && rightPressed) ?
+                        Direction.LEFT : Direction.RIGHT;
+            }
+            if (direction != null) setRoute(direction);
+        }
+
+        if (upOrDownOnly)
+            setSpeed(upPressed ? AccelerationType.FORWARD : AccelerationType.BACKWARD);
+
+        makeMove();
+        decreaseSpeed();
+    }
+
+    /**
+     * Один шаг симуляции по маске клавиш {@link #UP}, {@link #DOWN},
+     * {@link #LEFT}, {@link #RIGHT}
+     */
+    public void tick(int controls) {
+        tick((controls & UP) != 0, (controls & DOWN) != 0,
+                (controls & LEFT) != 0, (controls & RIGHT) != 0);
+    }
+
+    public void setRoute(Direction direction) {
+        double sign = direction == Direction.LEFT ? -1 : 1;
+        angle += sign * DEGREES_IN_PI * DELTA_ROUTE_DEGREE;
+    }
+
+    public void setSpeed(AccelerationType acceleration) {
+        double sign = acceleration == AccelerationType.FORWARD ? -1 : 1;
+        speedX += sign * Math.cos(angle) * ACCELERATION;
+        speedY += sign * Math.sin(angle) * ACCELERATION;
+        lastAccGranted = acceleration;
+    }
+
+    public void makeMove() {
+        posX = wrap(posX + speedX, worldWidth);
+        posY = wrap(posY + speedY, worldHeight);
+    }
+
+    /**
+     * Перенос к противоположному краю мира размера <code>size</code>
+     */
+    static double wrap(double position, double size) {
+        if (Math.abs(position) > (size / 2))
+            position = -Math.signum(position) * (size / 2 - 1);
+        return position;
+    }
+
+    public void decreaseSpeed() {
+        speedX *= 1 - FRICTION;
+        speedY *= 1 - FRICTION;
+    }
+
+    public boolean isMoving() {
+        return lastAccGranted != null &&
+                (Math.abs(speedX) > MIN_SENSIBLE_SPEED ||
+                        Math.abs(speedY) > MIN_SENSIBLE_SPEED);
+    }
+
+    /**
+     * @return null - до старта
+     */
+    public AccelerationType lastAccGranted() {
+        return lastAccGranted;
+    }
+
+    /**
+     * @return текущее состояние для отрисовки
+     */
+    public CarSnapshot snapshot() {
+        return new CarSnapshot(posX, posY, angle);
+    }
+
+    public double getPosX() {
+        return posX;
+    }
+
+    public double getPosY() {
+        return posY;
+    }
+
+    public double getAngle() {
+        return angle;
+    }
+
+    public double getSpeedX() {
+        return speedX;
+    }
+
+    public double getSpeedY() {
+        return speedY;
+    }
+
+    public double getWorldWidth() {
+        return worldWidth;
+    }
+
+    public double getWorldHeight() {
+        return worldHeight;
+    }
+
+    @Override
+    public String toString() {
+        return "curPosX: " + posX
+                + "\tcurPosY: " + posY
+                + "\tangle: " + angle;
+    }
+}
@@ -0,0 +1,46 @@
+package carSimulator;
+
+/**
+ * Неизменяемый снимок состояния машины, который передаётся от
+ * {@link CarPhysics} к отрисовке
+ */
+public final class CarSnapshot {
+    private final double posX;
+    private final double posY;
+    private final double angle;
+
+    public CarSnapshot(double posX, double posY, double angle) {
+        this.posX = posX;
+        this.posY = posY;
+        this.angle = angle;
+    }
+
+    /**
+     * @return смещение от центра мира по горизонтали
+     */
+    public double getPosX() {
+        return posX;
+    }
+
+    /**
+     * @return смещение от центра мира по вертикали
+     */
+    public double getPosY() {
+        return posY;
+    }
+
+    /**
+     * @return направление в радианах, {@link CarPhysics#START_ANGLE} - исходное
+     */
+    public double getAngle() {
+        return angle;
+    }
+
+    /**
+     * @return поворот изображения относительно исходного направления в
+     * градусах, приведённый к <code>(-360, 360)</code>
+     */
+    public double getRotation() {
+        return ((angle - CarPhysics.START_ANGLE) / CarPhysics.DEGREES_IN_PI) % 360;
+    }
+}
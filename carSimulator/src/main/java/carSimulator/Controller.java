@@ -1,25 +1,35 @@
 package carSimulator;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.AnimationTimer;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.stage.Stage;
-import javafx.util.Duration;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Состояние клавиш управления переводится в шаги {@link CarPhysics} с
+ * фиксированной частотой {@link FixedTimestep#STEPS_PER_SECOND}, после
+ * каждого кадра {@link CarModel} отрисовывает снимок состояния.
+ * Если задан {@link InputRecorder}, нажатия каждого шага записываются
+ */
 public class Controller {
-    public static final int FRAMES_PER_SECOND = 60;
     private Stage eventHolder;
-    private Timeline repeatable;
+    private AnimationTimer repeatable;
     private CarModel car;
+    private CarPhysics physics;
+    private FixedTimestep timestep = new FixedTimestep();
+    private InputRecorder recorder;
     private boolean upPressed = false;
     private boolean downPressed = false;
     private boolean leftPressed = false;
     private boolean rightPressed = false;
 
-    public Controller(Stage eventHolder, CarModel car) {
+    public Controller(Stage eventHolder, CarModel car, CarPhysics physics) {
         this.eventHolder = eventHolder;
         this.car = car;
+        this.physics = physics;
 
         this.eventHolder.addEventHandler(KeyEvent.KEY_PRESSED, event -> {
             KeyCode code = event.getCode();
@@ -63,38 +73,61 @@ public class Controller {
     }
 
     private void initializeTimeline() {
-        repeatable = new Timeline(new KeyFrame(Duration.seconds(1d / FRAMES_PER_SECOND), event -> {
-            boolean leftOrRightOnly = leftPressed ^ rightPressed;
-            boolean upOrDownOnly = upPressed ^ downPressed;
-            boolean movingWithNoAcceleration = !upPressed && !downPressed && car.isMoving();
+        repeatable = new AnimationTimer() {
+            private long lastFrame = -1;
 
-            if (leftOrRightOnly) {
-                CarModel.Direction direction = null;
-                if (upOrDownOnly) {
-                    direction = (upPressed && leftPressed || downPressed && rightPressed) ?
-                            CarModel.Direction.LEFT : CarModel.Direction.RIGHT;
-                } else if (movingWithNoAcceleration) {
-                    direction = (car.lastAccGranted() == CarModel.AccelerationType.FORWARD && leftPressed) ||
-                            (car.lastAccGranted() == CarModel.AccelerationType.BACKWARD && rightPressed) ?
-                            CarModel.Direction.LEFT : CarModel.Direction.RIGHT;
+            @Override
+            public void handle(long now) {
+                int steps = lastFrame < 0 ? 0 : timestep.advance(now - lastFrame);
+                lastFrame = now;
+                for (int i = 0; i < steps; i++) {
+                    int controls = controls();
+                    record(controls);
+                    physics.tick(controls);
                 }
-                if (direction != null) car.setRoute(direction);
+                car.render(physics.snapshot());
             }
+        };
+    }
 
-            if (upOrDownOnly) {
-                CarModel.AccelerationType acceleration =
-                        upPressed ? CarModel.AccelerationType.FORWARD : CarModel.AccelerationType.BACKWARD;
-                car.setSpeed(acceleration);
-            }
+    private int controls() {
+        return (upPressed ? CarPhysics.UP : 0) | (downPressed ? CarPhysics.DOWN : 0)
+                | (leftPressed ? CarPhysics.LEFT : 0) | (rightPressed ? CarPhysics.RIGHT : 0);
+    }
 
-            car.makeMove();
-            car.decreaseSpeed();
-        }));
+    /**
+     * Записывает шаг; при ошибке записи запись закрывается и прекращается,
+     * ошибка передаётся обработчику неперехваченных исключений потока,
+     * а симуляция продолжается
+     */
+    private void record(int controls) {
+        if (recorder == null)
+            return;
+        try {
+            recorder.setWorldSize(physics.getWorldWidth(), physics.getWorldHeight());
+            recorder.record(controls);
+        } catch (IOException e) {
+            InputRecorder failed = recorder;
+            recorder = null;
+            try {
+                failed.close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread,
+                    new UncheckedIOException("Input recording stopped", e));
+        }
+    }
 
-        repeatable.setCycleCount(Timeline.INDEFINITE);
+    /**
+     * @param recorder запись нажатий с текущего шага; <code>null</code> - не записывать
+     */
+    public void setRecorder(InputRecorder recorder) {
+        this.recorder = recorder;
     }
 
     public void playTimeline() {
-        repeatable.play();
+        repeatable.start();
     }
 }
@@ -0,0 +1,54 @@
+package carSimulator;
+
+/**
+ * Фиксированный шаг симуляции: реальное время между кадрами накапливается и
+ * переводится в целое число шагов физики, остаток переносится на следующий
+ * кадр. Так физика идёт с одной и той же частотой при любой частоте кадров,
+ * а без отрисовки шаги можно выполнять подряд без ожидания
+ */
+public class FixedTimestep {
+    public static final int STEPS_PER_SECOND = 60;
+    public static final long NANOS_PER_SECOND = 1_000_000_000L;
+    // после долгой паузы (свёрнутое окно, отладчик) не догоняем всё пропущенное
+    public static final int MAX_STEPS_PER_FRAME = 10;
+
+    private final long stepNanos;
+    private long accumulated;
+
+    public FixedTimestep() {
+        this(NANOS_PER_SECOND / STEPS_PER_SECOND);
+    }
+
+    public FixedTimestep(long stepNanos) {
+        if (stepNanos < 1)
+            throw new IllegalArgumentException("Expected positive value");
+        this.stepNanos = stepNanos;
+    }
+
+    /**
+     * @param elapsedNanos время, прошедшее с предыдущего кадра
+     * @return число шагов физики, которые нужно выполнить в этом кадре
+     */
+    public int advance(long elapsedNanos) {
+        if (elapsedNanos > 0)
+            accumulated += elapsedNanos;
+        long steps = accumulated / stepNanos;
+        accumulated -= steps * stepNanos;
+        if (steps > MAX_STEPS_PER_FRAME) {
+            steps = MAX_STEPS_PER_FRAME;
+            accumulated = 0;
+        }
+        return (int) steps;
+    }
+
+    /**
+     * @return доля шага, накопленная после последнего выполненного шага, от 0 до 1
+     */
+    public double alpha() {
+        return (double) accumulated / stepNanos;
+    }
+
+    public long getStepNanos() {
+        return stepNanos;
+    }
+}
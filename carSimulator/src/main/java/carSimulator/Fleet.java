@@ -0,0 +1,226 @@
+package carSimulator;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Симуляция множества машин по тем же правилам, что и {@link CarPhysics}.
+ * Состояние хранится столбцами (struct-of-arrays): отдельные массивы
+ * координат, скоростей, направлений и масок клавиш, элемент <code>i</code>
+ * каждого массива относится к машине <code>i</code>. На шаге нет объектов
+ * на машину и узлов JavaFX, циклы идут по массивам подряд.
+ * <p>
+ * Машины независимы, поэтому шаг для большого парка делится на участки
+ * подряд идущих машин, которые обрабатываются потоками
+ * <code>ForkJoinPool</code>. Результат шага не зависит от деления: каждая
+ * машина проходит ту же последовательность операций, что и в
+ * {@link CarPhysics#tick(int)}, и её траектория побитово совпадает с
+ * траекторией отдельной машины при тех же нажатиях.
+ */
+public class Fleet {
+    // минимальное число машин в одной подзадаче
+    private static final int MIN_CHUNK = 4096;
+    // число машин, начиная с которого шаг выполняется параллельно
+    private static final int PARALLEL_THRESHOLD = 2 * MIN_CHUNK;
+
+    // поворот за шаг в радианах, как в CarPhysics.setRoute
+    private static final double TURN = CarPhysics.DEGREES_IN_PI * CarPhysics.DELTA_ROUTE_DEGREE;
+
+    private final int size;
+    private double worldWidth;
+    private double worldHeight;
+
+    final double[] posX;
+    final double[] posY;
+    final double[] angle;
+    final double[] speedX;
+    final double[] speedY;
+    // последнее ускорение назад, иначе вперёд
+    final boolean[] backward;
+    // маски клавиш CarPhysics.UP | DOWN | LEFT | RIGHT
+    final byte[] controls;
+
+    /**
+     * Все машины стоят в центре мира в исходном направлении
+     *
+     * @param size число машин
+     */
+    public Fleet(int size, double worldWidth, double worldHeight) {
+        if (size < 0)
+            throw new IllegalArgumentException("Expected positive value");
+        this.size = size;
+        this.posX = new double[size];
+        this.posY = new double[size];
+        this.angle = new double[size];
+        this.speedX = new double[size];
+        this.speedY = new double[size];
+        this.backward = new boolean[size];
+        this.controls = new byte[size];
+        Arrays.fill(angle, CarPhysics.START_ANGLE);
+        Arrays.fill(speedX, CarPhysics.START_SPEED);
+        Arrays.fill(speedY, CarPhysics.START_SPEED);
+        setWorldSize(worldWidth, worldHeight);
+    }
+
+    public void setWorldSize(double worldWidth, double worldHeight) {
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getWorldWidth() {
+        return worldWidth;
+    }
+
+    public double getWorldHeight() {
+        return worldHeight;
+    }
+
+    /**
+     * Задаёт клавиши, нажатые у машины <code>car</code> на следующих шагах
+     */
+    public void setControls(int car, int mask) {
+        controls[car] = (byte) mask;
+    }
+
+    public void setAllControls(int mask) {
+        Arrays.fill(controls, (byte) mask);
+    }
+
+    public int getControls(int car) {
+        return controls[car];
+    }
+
+    public void setPosition(int car, double x, double y) {
+        posX[car] = x;
+        posY[car] = y;
+    }
+
+    public void setAngle(int car, double angle) {
+        this.angle[car] = angle;
+    }
+
+    public double getPosX(int car) {
+        return posX[car];
+    }
+
+    public double getPosY(int car) {
+        return posY[car];
+    }
+
+    public double getAngle(int car) {
+        return angle[car];
+    }
+
+    public double getSpeedX(int car) {
+        return speedX[car];
+    }
+
+    public double getSpeedY(int car) {
+        return speedY[car];
+    }
+
+    /**
+     * @return состояние машины <code>car</code> для отрисовки
+     */
+    public CarSnapshot snapshot(int car) {
+        return new CarSnapshot(posX[car], posY[car], angle[car]);
+    }
+
+    /**
+     * Один шаг всех машин, параллельно для большого парка
+     */
+    public void step() {
+        step(true);
+    }
+
+    /**
+     * Один шаг всех машин
+     *
+     * @param parallel делить машины между потоками, если их не меньше
+     *                 порога параллельного выполнения
+     */
+    public void step(boolean parallel) {
+        if (!parallel || size < PARALLEL_THRESHOLD)
+            stepRange(0, size);
+        else
+            ForkJoinPool.commonPool().invoke(new StepTask(0, size));
+    }
+
+    /**
+     * Шаг машин <code>[from, to)</code>: поворот, ускорение, перемещение и
+     * трение в порядке {@link CarPhysics#tick(boolean, boolean, boolean, boolean)}
+     */
+    private void stepRange(int from, int to) {
+        double halfWidth = worldWidth / 2;
+        double halfHeight = worldHeight / 2;
+        double decay = 1 - CarPhysics.FRICTION;
+        for (int i = from; i < to; i++) {
+            int mask = controls[i];
+            boolean up = (mask & CarPhysics.UP) != 0;
+            boolean down = (mask & CarPhysics.DOWN) != 0;
+            boolean left = (mask & CarPhysics.LEFT) != 0;
+            boolean right = (mask & CarPhysics.RIGHT) != 0;
+            double vx = speedX[i];
+            double vy = speedY[i];
+            double a = angle[i];
+
+            if (left ^ right) {
+                boolean moving = Math.abs(vx) > CarPhysics.MIN_SENSIBLE_SPEED
+                        || Math.abs(vy) > CarPhysics.MIN_SENSIBLE_SPEED;
+                if (up ^ down)
+                    a += (up && left || down && right) ? -TURN : TURN;
+                else if (!up && !down && moving)
+                    a += (!backward[i] && left || backward[i] && right) ? -TURN : TURN;
+                angle[i] = a;
+            }
+
+            if (up ^ down) {
+                double sign = up ? -1 : 1;
+                vx += sign * Math.cos(a) * CarPhysics.ACCELERATION;
+                vy += sign * Math.sin(a) * CarPhysics.ACCELERATION;
+                backward[i] = down;
+            }
+
+            double x = posX[i] + vx;
+            if (Math.abs(x) > halfWidth)
+                x = -Math.signum(x) * (halfWidth - 1);
+            posX[i] = x;
+            double y = posY[i] + vy;
+            if (Math.abs(y) > halfHeight)
+                y = -Math.signum(y) * (halfHeight - 1);
+            posY[i] = y;
+
+            speedX[i] = vx * decay;
+            speedY[i] = vy * decay;
+        }
+    }
+
+    /**
+     * Деление машин между потоками
+     */
+    private final class StepTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        StepTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            int count = to - from;
+            if (count < 2 * MIN_CHUNK) {
+                stepRange(from, to);
+                return;
+            }
+            int mid = from + count / 2;
+            invokeAll(new StepTask(from, mid), new StepTask(mid, to));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package carSimulator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Запись нажатий клавиш по шагам симуляции для воспроизведения
+ * {@link InputReplayer}. На шаг приходится маска {@link CarPhysics#UP},
+ * {@link CarPhysics#DOWN}, {@link CarPhysics#LEFT}, {@link CarPhysics#RIGHT};
+ * одинаковые маски подряд сжимаются в одну запись (RLE): байт маски и
+ * число шагов в формате varint. Клавиши меняются редко, поэтому час езды
+ * занимает единицы килобайт.
+ * <p>
+ * Траектория зависит и от размера мира, поэтому его изменения тоже
+ * записываются: байт {@link #RESIZE} и два <code>double</code>.
+ * <p>
+ * Записи накапливаются в буфере и пишутся в канал крупными блоками.
+ * Незавершённая серия дописывается при {@link #close()}.
+ */
+public class InputRecorder implements Closeable {
+    static final int MAGIC = 0x43415249;
+    static final int VERSION = 1;
+    static final int RESIZE = 0xFF;
+    static final int CONTROLS = CarPhysics.UP | CarPhysics.DOWN | CarPhysics.LEFT | CarPhysics.RIGHT;
+    static final int BUFFER_SIZE = 1 << 16;
+    // наибольший размер одной записи: байт маски и varint длины серии
+    private static final int MAX_RECORD = 1 + 10;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private int controls = -1;
+    private long run;
+    private long ticks;
+    private double worldWidth = Double.NaN;
+    private double worldHeight = Double.NaN;
+
+    public InputRecorder(WritableByteChannel channel) throws IOException {
+        if (channel == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        this.channel = channel;
+        buffer.putInt(MAGIC).put((byte) VERSION);
+    }
+
+    /**
+     * Создаёт или перезаписывает файл записи
+     */
+    public static InputRecorder open(Path path) throws IOException {
+        return new InputRecorder(FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    /**
+     * Запоминает размер мира для следующих шагов; пишется только изменение
+     */
+    public void setWorldSize(double worldWidth, double worldHeight) throws IOException {
+        if (Double.doubleToLongBits(worldWidth) == Double.doubleToLongBits(this.worldWidth)
+                && Double.doubleToLongBits(worldHeight) == Double.doubleToLongBits(this.worldHeight))
+            return;
+        finishRun();
+        ensure(1 + 2 * Double.BYTES);
+        buffer.put((byte) RESIZE).putDouble(worldWidth).putDouble(worldHeight);
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+    }
+
+    /**
+     * Записывает клавиши, нажатые на очередном шаге
+     *
+     * @param controls маска из битов <code>CarPhysics.UP | DOWN | LEFT | RIGHT</code>
+     */
+    public void record(int controls) throws IOException {
+        if ((controls & ~CONTROLS) != 0)
+            throw new IllegalArgumentException("Unexpected controls mask: " + controls);
+        ticks++;
+        if (controls == this.controls) {
+            run++;
+            return;
+        }
+        finishRun();
+        this.controls = controls;
+        run = 1;
+    }
+
+    /**
+     * @return число записанных шагов
+     */
+    public long ticks() {
+        return ticks;
+    }
+
+    /**
+     * Дописывает незавершённую серию и закрывает канал; повторный вызов
+     * ничего не делает
+     */
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen())
+            return;
+        try {
+            finishRun();
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void finishRun() throws IOException {
+        if (run == 0)
+            return;
+        ensure(MAX_RECORD);
+        buffer.put((byte) controls);
+        long value = run;
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+        run = 0;
+        controls = -1;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes)
+            flush();
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+}
@@ -0,0 +1,133 @@
+package carSimulator;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Воспроизведение записи {@link InputRecorder} без отрисовки: шаги
+ * {@link CarPhysics} выполняются подряд, без ожидания кадров. Физика
+ * детерминирована, поэтому машина, начавшая из того же состояния, проходит
+ * побитово ту же траекторию, что и при записи. Так часы езды проверяются
+ * и замеряются за секунды.
+ */
+public class InputReplayer implements Closeable {
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(InputRecorder.BUFFER_SIZE);
+    private boolean endOfChannel;
+    private int controls;
+    private long remaining;
+    private long ticks;
+
+    public InputReplayer(ReadableByteChannel channel) throws IOException {
+        if (channel == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        this.channel = channel;
+        buffer.flip();
+        if (!ensure(Integer.BYTES + 1) || buffer.getInt() != InputRecorder.MAGIC)
+            throw new IOException("Not an input record");
+        int version = buffer.get();
+        if (version != InputRecorder.VERSION)
+            throw new IOException("Unsupported input record version: " + version);
+    }
+
+    public static InputReplayer open(Path path) throws IOException {
+        return new InputReplayer(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * Выполняет один записанный шаг, применяя перед ним записанные
+     * изменения размера мира
+     *
+     * @return <code>false</code>, если запись закончилась
+     */
+    public boolean step(CarPhysics physics) throws IOException {
+        if (physics == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        while (remaining == 0)
+            if (!readRecord(physics))
+                return false;
+        physics.tick(controls);
+        remaining--;
+        ticks++;
+        return true;
+    }
+
+    /**
+     * Выполняет все оставшиеся шаги записи
+     *
+     * @return число выполненных шагов
+     */
+    public long replay(CarPhysics physics) throws IOException {
+        long before = ticks;
+        while (step(physics))
+            ;
+        return ticks - before;
+    }
+
+    /**
+     * @return число воспроизведённых шагов
+     */
+    public long ticks() {
+        return ticks;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Читает следующую запись: серию шагов или изменение размера мира
+     *
+     * @return <code>false</code> в конце записи
+     * @throws IOException если запись повреждена
+     */
+    private boolean readRecord(CarPhysics physics) throws IOException {
+        if (!ensure(1))
+            return false;
+        int tag = buffer.get() & 0xFF;
+        if (tag == InputRecorder.RESIZE) {
+            if (!ensure(2 * Double.BYTES))
+                throw new EOFException("Truncated input record");
+            physics.setWorldSize(buffer.getDouble(), buffer.getDouble());
+            return true;
+        }
+        if ((tag & ~InputRecorder.CONTROLS) != 0)
+            throw new IOException("Corrupted input record, unexpected tag: " + tag);
+        long run = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 63 || !ensure(1))
+                throw new EOFException("Truncated input record");
+            byte b = buffer.get();
+            run |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                break;
+        }
+        controls = tag;
+        remaining = run;
+        return true;
+    }
+
+    /**
+     * Дочитывает канал, пока в буфере не окажется <code>bytes</code> байт
+     *
+     * @return <code>false</code>, если канал закончился раньше
+     */
+    private boolean ensure(int bytes) throws IOException {
+        while (buffer.remaining() < bytes) {
+            if (endOfChannel)
+                return false;
+            buffer.compact();
+            if (channel.read(buffer) < 0)
+                endOfChannel = true;
+            buffer.flip();
+        }
+        return true;
+    }
+}
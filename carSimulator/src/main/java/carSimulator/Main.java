@@ -8,6 +8,8 @@ import javafx.scene.paint.ImagePattern;
 import javafx.scene.shape.Rectangle;
 import javafx.stage.Stage;
 
+import java.nio.file.Paths;
+
 public class Main extends Application {
 
     private static final String APP_TITLE = "CarSimulator";
@@ -18,6 +20,8 @@ public class Main extends Application {
     private Stage primaryStage;
     private AnchorPane rootLayout;
     private CarModel carModel;
+    private CarPhysics carPhysics;
+    private InputRecorder recorder;
 
     @Override
     public void start(Stage primaryStage) throws Exception {
@@ -43,12 +47,30 @@ public class Main extends Application {
         carModel.bindSceneHeight(scene.heightProperty());
         rootLayout.getChildren().add(carModel.getImageView());
 
-        Controller controller = new Controller(primaryStage, carModel);
+        carPhysics = new CarPhysics();
+        scene.widthProperty().addListener(observable ->
+                carPhysics.setWorldSize(scene.getWidth(), scene.getHeight()));
+        scene.heightProperty().addListener(observable ->
+                carPhysics.setWorldSize(scene.getWidth(), scene.getHeight()));
+
+        Controller controller = new Controller(primaryStage, carModel, carPhysics);
+        // --record=<файл> - записать нажатия для InputReplayer
+        String recordPath = getParameters().getNamed().get("record");
+        if (recordPath != null) {
+            recorder = InputRecorder.open(Paths.get(recordPath));
+            controller.setRecorder(recorder);
+        }
         controller.playTimeline();
 
         this.primaryStage.show();
     }
 
+    @Override
+    public void stop() throws Exception {
+        if (recorder != null)
+            recorder.close();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
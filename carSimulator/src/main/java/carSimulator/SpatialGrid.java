@@ -0,0 +1,220 @@
+package carSimulator;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Равномерная сетка для поиска соседей и столкновений машин {@link Fleet}.
+ * Мир делится на клетки не меньше заданного размера; мир замкнут, как в
+ * {@link CarPhysics#makeMove()}: клетки у правого края соседствуют с
+ * клетками у левого, расстояния считаются с учётом переноса через край.
+ * <p>
+ * Машины одной клетки связаны двусвязным списком на массивах
+ * <code>head</code>, <code>next</code>, <code>prev</code>, поэтому
+ * {@link #update()} после шага парка переносит только машины, сменившие
+ * клетку, без выделения памяти. Запрос просматривает только клетки,
+ * пересекающие квадрат вокруг точки; при клетке не меньше радиуса запроса
+ * это 9 клеток, и поиск всех столкновений за шаг линеен по числу машин при
+ * равномерной плотности.
+ */
+public class SpatialGrid {
+    private static final int NONE = -1;
+
+    private final Fleet fleet;
+    private final double width;
+    private final double height;
+    private final int columns;
+    private final int rows;
+    private final double cellWidth;
+    private final double cellHeight;
+
+    // первая машина клетки
+    private final int[] head;
+    // соседние машины той же клетки
+    private final int[] next;
+    private final int[] prev;
+    // текущая клетка машины
+    private final int[] cellOf;
+
+    /**
+     * Строит сетку по текущим координатам машин. При изменении размера мира
+     * сетку нужно построить заново
+     *
+     * @param cellSize наименьшая сторона клетки, обычно не меньше расстояния
+     *                 столкновения и радиуса частых запросов
+     */
+    public SpatialGrid(Fleet fleet, double cellSize) {
+        if (fleet == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (!(cellSize > 0) || !(fleet.getWorldWidth() > 0) || !(fleet.getWorldHeight() > 0))
+            throw new IllegalArgumentException("Expected positive value");
+        this.fleet = fleet;
+        this.width = fleet.getWorldWidth();
+        this.height = fleet.getWorldHeight();
+        this.columns = (int) Math.max(1, Math.min(1 << 15, Math.floor(width / cellSize)));
+        this.rows = (int) Math.max(1, Math.min(1 << 15, Math.floor(height / cellSize)));
+        this.cellWidth = width / columns;
+        this.cellHeight = height / rows;
+        int size = fleet.size();
+        this.head = new int[columns * rows];
+        this.next = new int[size];
+        this.prev = new int[size];
+        this.cellOf = new int[size];
+        Arrays.fill(head, NONE);
+        for (int car = 0; car < size; car++)
+            link(car, cell(fleet.posX[car], fleet.posY[car]));
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Переносит машины, сменившие клетку после шага парка
+     *
+     * @return число перенесённых машин
+     */
+    public int update() {
+        double[] posX = fleet.posX;
+        double[] posY = fleet.posY;
+        int moved = 0;
+        for (int car = 0; car < cellOf.length; car++) {
+            int cell = cell(posX[car], posY[car]);
+            if (cell != cellOf[car]) {
+                unlink(car);
+                link(car, cell);
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Перебирает машины на расстоянии не больше <code>radius</code> от точки
+     *
+     * @param visitor получает номера машин в произвольном порядке
+     */
+    public void range(double x, double y, double radius, IntConsumer visitor) {
+        if (visitor == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        double limit = radius * radius;
+        int column0 = (int) Math.floor((x - radius + width / 2) / cellWidth);
+        int columnCount = Math.min(columns,
+                (int) Math.floor((x + radius + width / 2) / cellWidth) - column0 + 1);
+        int row0 = (int) Math.floor((y - radius + height / 2) / cellHeight);
+        int rowCount = Math.min(rows,
+                (int) Math.floor((y + radius + height / 2) / cellHeight) - row0 + 1);
+        double[] posX = fleet.posX;
+        double[] posY = fleet.posY;
+        for (int r = 0; r < rowCount; r++) {
+            int row = Math.floorMod(row0 + r, rows);
+            for (int c = 0; c < columnCount; c++) {
+                int column = Math.floorMod(column0 + c, columns);
+                for (int car = head[row * columns + column]; car != NONE; car = next[car])
+                    if (distanceSquared(x, y, posX[car], posY[car]) <= limit)
+                        visitor.accept(car);
+            }
+        }
+    }
+
+    /**
+     * Перебирает другие машины на расстоянии не больше <code>radius</code>
+     * от машины <code>car</code>
+     */
+    public void neighbours(int car, double radius, IntConsumer visitor) {
+        range(fleet.posX[car], fleet.posY[car], radius, other -> {
+            if (other != car)
+                visitor.accept(other);
+        });
+    }
+
+    /**
+     * Находит все пары машин, расстояние между которыми меньше
+     * <code>distance</code>. Каждая пара сообщается один раз, меньший номер
+     * первым
+     *
+     * @return число столкновений
+     */
+    public int collisions(double distance, CollisionListener listener) {
+        if (listener == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        double limit = distance * distance;
+        int columnSpan = Math.min(columns, 2 * (int) Math.ceil(distance / cellWidth) + 1);
+        int rowSpan = Math.min(rows, 2 * (int) Math.ceil(distance / cellHeight) + 1);
+        double[] posX = fleet.posX;
+        double[] posY = fleet.posY;
+        int count = 0;
+        for (int car = 0; car < cellOf.length; car++) {
+            double x = posX[car];
+            double y = posY[car];
+            int column0 = cellOf[car] % columns - columnSpan / 2;
+            int row0 = cellOf[car] / columns - rowSpan / 2;
+            for (int r = 0; r < rowSpan; r++) {
+                int row = Math.floorMod(row0 + r, rows);
+                for (int c = 0; c < columnSpan; c++) {
+                    int column = Math.floorMod(column0 + c, columns);
+                    for (int other = head[row * columns + column]; other != NONE; other = next[other])
+                        if (other > car && distanceSquared(x, y, posX[other], posY[other]) < limit) {
+                            listener.collision(car, other);
+                            count++;
+                        }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Квадрат расстояния с учётом переноса через края мира
+     */
+    double distanceSquared(double x1, double y1, double x2, double y2) {
+        // остаток от деления дробных чисел медленный, а координаты внутри
+        // мира отличаются меньше чем на его размер
+        double dx = Math.abs(x1 - x2);
+        if (dx > width)
+            dx %= width;
+        dx = Math.min(dx, width - dx);
+        double dy = Math.abs(y1 - y2);
+        if (dy > height)
+            dy %= height;
+        dy = Math.min(dy, height - dy);
+        return dx * dx + dy * dy;
+    }
+
+    private int cell(double x, double y) {
+        int column = Math.floorMod((int) Math.floor((x + width / 2) / cellWidth), columns);
+        int row = Math.floorMod((int) Math.floor((y + height / 2) / cellHeight), rows);
+        return row * columns + column;
+    }
+
+    private void link(int car, int cell) {
+        int first = head[cell];
+        next[car] = first;
+        prev[car] = NONE;
+        if (first != NONE)
+            prev[first] = car;
+        head[cell] = car;
+        cellOf[car] = cell;
+    }
+
+    private void unlink(int car) {
+        if (prev[car] != NONE)
+            next[prev[car]] = next[car];
+        else
+            head[cellOf[car]] = next[car];
+        if (next[car] != NONE)
+            prev[next[car]] = prev[car];
+    }
+
+    /**
+     * Получатель столкновений
+     */
+    @FunctionalInterface
+    public interface CollisionListener {
+        void collision(int first, int second);
+    }
+}
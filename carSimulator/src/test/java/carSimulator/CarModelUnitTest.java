@@ -0,0 +1,53 @@
+package carSimulator;
+
+import javafx.scene.image.ImageView;
+import javafx.scene.transform.Rotate;
+import javafx.scene.transform.Transform;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Тест использует узлы JavaFX без запуска платформы: <code>ImageView</code>
+ * без изображения и <code>Rotate</code> создаются и изменяются без окна,
+ * поэтому нужен только JavaFX в classpath
+ */
+public class CarModelUnitTest extends Assert {
+    private static final double WIDTH = 800;
+    private static final double HEIGHT = 600;
+    private static final double IMAGE_WIDTH = 40;
+    private static final double IMAGE_HEIGHT = 80;
+
+    /**
+     * Длительная поездка с отрисовкой каждого шага: у узла остаётся одно
+     * преобразование поворота вокруг центра изображения, угол которого
+     * соответствует последнему снимку, поэтому стоимость кадра не растёт
+     */
+    @Test
+    public void soakRenderKeepsSingleRotate() {
+        ImageView view = new ImageView();
+        CarModel model = new CarModel(view, IMAGE_WIDTH, IMAGE_HEIGHT);
+        CarPhysics physics = new CarPhysics(WIDTH, HEIGHT);
+        List<Transform> transforms = view.getTransforms();
+        assertEquals(1, transforms.size());
+        Transform rotation = transforms.get(0);
+
+        // шесть часов при 60 шагах в секунду, по кадру на шаг
+        CarSnapshot snapshot = null;
+        for (int i = 0; i < 60 * 60 * 60 * 6; i++) {
+            physics.tick(true, false, i % 500 < 300, i % 1300 < 100);
+            snapshot = physics.snapshot();
+            model.render(snapshot);
+            assertEquals(1, transforms.size());
+        }
+        assertSame(rotation, transforms.get(0));
+        Rotate rotate = (Rotate) rotation;
+        assertEquals(snapshot.getRotation(), rotate.getAngle(), 0);
+        assertTrue(Math.abs(rotate.getAngle()) < 360);
+        assertEquals(IMAGE_WIDTH / 2, rotate.getPivotX(), 0);
+        assertEquals(IMAGE_HEIGHT / 2, rotate.getPivotY(), 0);
+        assertEquals(snapshot.getPosX(), view.getTranslateX(), 0);
+        assertEquals(snapshot.getPosY(), view.getTranslateY(), 0);
+    }
+}
@@ -0,0 +1,122 @@
+package carSimulator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CarPhysicsUnitTest extends Assert {
+    private static final double WIDTH = 800;
+    private static final double HEIGHT = 600;
+
+    /**
+     * Проверка разгона вперёд: машина в исходном направлении едет вверх,
+     * после отпускания клавиши останавливается трением
+     */
+    @Test
+    public void accelerateAndStop() {
+        CarPhysics car = new CarPhysics(WIDTH, HEIGHT);
+        assertFalse(car.isMoving());
+        for (int i = 0; i < 10; i++)
+            car.tick(true, false, false, false);
+        assertTrue(car.isMoving());
+        assertTrue(car.getPosY() < 0);
+        assertEquals(0, car.getPosX(), 1e-9);
+        assertEquals(CarPhysics.AccelerationType.FORWARD, car.lastAccGranted());
+
+        for (int i = 0; i < 100; i++)
+            car.tick(false, false, false, false);
+        assertFalse(car.isMoving());
+    }
+
+    /**
+     * Проверка поворота: без движения руль не действует, при движении
+     * задним ходом направление поворота меняется
+     */
+    @Test
+    public void steering() {
+        CarPhysics car = new CarPhysics(WIDTH, HEIGHT);
+        car.tick(false, false, true, false);
+        assertEquals(CarPhysics.START_ANGLE, car.getAngle(), 0);
+
+        car.tick(true, false, true, false);
+        double left = CarPhysics.START_ANGLE - CarPhysics.DELTA_ROUTE_DEGREE * CarPhysics.DEGREES_IN_PI;
+        assertEquals(left, car.getAngle(), 1e-12);
+        car.tick(false, true, true, false);
+        assertEquals(CarPhysics.START_ANGLE, car.getAngle(), 1e-12);
+    }
+
+    /**
+     * Проверка переноса к противоположному краю мира
+     */
+    @Test
+    public void wrapAround() {
+        CarPhysics car = new CarPhysics(WIDTH, HEIGHT);
+        double minY = 0;
+        boolean wrapped = false;
+        for (int i = 0; i < 1000; i++) {
+            double before = car.getPosY();
+            car.tick(true, false, false, false);
+            assertTrue(Math.abs(car.getPosY()) <= HEIGHT / 2);
+            if (car.getPosY() > before)
+                wrapped = true;
+            minY = Math.min(minY, car.getPosY());
+        }
+        assertTrue(wrapped);
+        assertTrue(minY < -HEIGHT / 2 + 20);
+    }
+
+    /**
+     * Проверка, что симуляция детерминирована и снимок совпадает с состоянием
+     */
+    @Test
+    public void deterministicHeadless() {
+        CarPhysics first = new CarPhysics(WIDTH, HEIGHT);
+        CarPhysics second = new CarPhysics(WIDTH, HEIGHT);
+        // час езды при 60 шагах в секунду
+        int steps = 60 * 60 * 60;
+        for (int i = 0; i < steps; i++) {
+            boolean up = i % 300 < 200;
+            boolean left = i % 170 < 40;
+            first.tick(up, !up, left, false);
+            second.tick(up, !up, left, false);
+        }
+        CarSnapshot snapshot = first.snapshot();
+        assertEquals(second.getPosX(), snapshot.getPosX(), 0);
+        assertEquals(second.getPosY(), snapshot.getPosY(), 0);
+        assertEquals(second.getAngle(), snapshot.getAngle(), 0);
+    }
+
+    /**
+     * Проверка перевода реального времени в шаги
+     */
+    @Test
+    public void fixedTimestep() {
+        FixedTimestep timestep = new FixedTimestep(10);
+        assertEquals(0, timestep.advance(5));
+        assertEquals(0.5, timestep.alpha(), 0);
+        assertEquals(1, timestep.advance(5));
+        assertEquals(3, timestep.advance(35));
+        assertEquals(0.5, timestep.alpha(), 0);
+        // после долгой паузы число шагов ограничено
+        assertEquals(FixedTimestep.MAX_STEPS_PER_FRAME, timestep.advance(10000));
+        assertEquals(0, timestep.alpha(), 0);
+    }
+
+    /**
+     * Проверка, что поворот для отрисовки остаётся ограниченным и совпадает
+     * с накопленной суммой поворотов. Отрисовка проверяется в
+     * {@link CarModelUnitTest}
+     */
+    @Test
+    public void rotationBounded() {
+        CarPhysics car = new CarPhysics(WIDTH, HEIGHT);
+        // час езды при 60 шагах в секунду
+        double rotation = 0;
+        for (int i = 0; i < 60 * 60 * 60; i++) {
+            car.tick(true, false, i % 500 < 300, false);
+            rotation = car.snapshot().getRotation();
+            assertTrue(Math.abs(rotation) < 360);
+        }
+        double expected = (car.getAngle() - CarPhysics.START_ANGLE) / CarPhysics.DEGREES_IN_PI;
+        assertEquals(0, Math.IEEEremainder(expected - rotation, 360), 1e-6);
+    }
+}
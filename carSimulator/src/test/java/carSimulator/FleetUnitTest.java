@@ -0,0 +1,89 @@
+package carSimulator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class FleetUnitTest extends Assert {
+    private static final double WIDTH = 800;
+    private static final double HEIGHT = 600;
+
+    /**
+     * Проверка, что траектории машин парка побитово совпадают с
+     * траекториями отдельных машин {@link CarPhysics} при тех же нажатиях
+     */
+    @Test
+    public void sameAsCarPhysics() {
+        int size = 64;
+        Fleet fleet = new Fleet(size, WIDTH, HEIGHT);
+        CarPhysics[] cars = new CarPhysics[size];
+        for (int i = 0; i < size; i++)
+            cars[i] = new CarPhysics(WIDTH, HEIGHT);
+        Random random = new Random(21);
+        for (int step = 0; step < 20000; step++) {
+            if (step % 37 == 0)
+                for (int i = 0; i < size; i++)
+                    fleet.setControls(i, random.nextInt(16));
+            fleet.step(false);
+            for (int i = 0; i < size; i++)
+                cars[i].tick(fleet.getControls(i));
+        }
+        for (int i = 0; i < size; i++) {
+            assertEquals(cars[i].getPosX(), fleet.getPosX(i), 0);
+            assertEquals(cars[i].getPosY(), fleet.getPosY(i), 0);
+            assertEquals(cars[i].getAngle(), fleet.getAngle(i), 0);
+            assertEquals(cars[i].getSpeedX(), fleet.getSpeedX(i), 0);
+            assertEquals(cars[i].getSpeedY(), fleet.getSpeedY(i), 0);
+        }
+    }
+
+    /**
+     * Проверка, что параллельный шаг даёт тот же результат, что и
+     * последовательный
+     */
+    @Test
+    public void parallelSameAsSerial() {
+        int size = 100_000;
+        Fleet serial = new Fleet(size, WIDTH, HEIGHT);
+        Fleet parallel = new Fleet(size, WIDTH, HEIGHT);
+        Random random = new Random(23);
+        for (int step = 0; step < 200; step++) {
+            if (step % 20 == 0)
+                for (int i = 0; i < size; i++) {
+                    int mask = random.nextInt(16);
+                    serial.setControls(i, mask);
+                    parallel.setControls(i, mask);
+                }
+            serial.step(false);
+            parallel.step(true);
+        }
+        assertArrayEquals(serial.posX, parallel.posX, 0);
+        assertArrayEquals(serial.posY, parallel.posY, 0);
+        assertArrayEquals(serial.angle, parallel.angle, 0);
+        assertArrayEquals(serial.speedX, parallel.speedX, 0);
+        assertArrayEquals(serial.speedY, parallel.speedY, 0);
+    }
+
+    /**
+     * Проверка начального состояния и перемещения машин с заданной позиции
+     */
+    @Test
+    public void positionsAndWrap() {
+        Fleet fleet = new Fleet(3, WIDTH, HEIGHT);
+        assertEquals(3, fleet.size());
+        assertEquals(CarPhysics.START_ANGLE, fleet.getAngle(1), 0);
+        fleet.setPosition(2, 0, -HEIGHT / 2 + 0.5);
+        fleet.setControls(2, CarPhysics.UP);
+        fleet.step();
+        assertEquals(0, fleet.getPosY(0), 0);
+        assertEquals(HEIGHT / 2 - 1, fleet.getPosY(2), 0);
+        CarSnapshot snapshot = fleet.snapshot(2);
+        assertEquals(fleet.getPosY(2), snapshot.getPosY(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeSize() {
+        new Fleet(-1, WIDTH, HEIGHT);
+    }
+}
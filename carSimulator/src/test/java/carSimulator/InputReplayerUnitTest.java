@@ -0,0 +1,148 @@
+package carSimulator;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class InputReplayerUnitTest extends Assert {
+    private static final double WIDTH = 800;
+    private static final double HEIGHT = 600;
+    // час езды
+    private static final int TICKS = FixedTimestep.STEPS_PER_SECOND * 60 * 60;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Нажатия меняются в среднем раз в полсекунды, иногда меняется размер окна
+     */
+    private static int nextControls(Random random, int controls) {
+        return random.nextInt(30) == 0 ? random.nextInt(16) : controls;
+    }
+
+    /**
+     * Проверка, что воспроизведение повторяет траекторию записи побитово на
+     * каждом шаге, в том числе после изменения размера мира
+     */
+    @Test
+    public void bitIdenticalReplay() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CarPhysics recorded = new CarPhysics(WIDTH, HEIGHT);
+        long[] trajectory = new long[3 * TICKS];
+        Random random = new Random(25);
+        int controls = 0;
+        try (InputRecorder recorder = new InputRecorder(Channels.newChannel(out))) {
+            for (int t = 0; t < TICKS; t++) {
+                if (t % 50000 == 49999)
+                    recorded.setWorldSize(WIDTH + random.nextInt(400), HEIGHT + random.nextInt(300));
+                controls = nextControls(random, controls);
+                recorder.setWorldSize(recorded.getWorldWidth(), recorded.getWorldHeight());
+                recorder.record(controls);
+                recorded.tick(controls);
+                trajectory[3 * t] = Double.doubleToRawLongBits(recorded.getPosX());
+                trajectory[3 * t + 1] = Double.doubleToRawLongBits(recorded.getPosY());
+                trajectory[3 * t + 2] = Double.doubleToRawLongBits(recorded.getAngle());
+            }
+            assertEquals(TICKS, recorder.ticks());
+        }
+        // серии нажатий занимают несколько байт
+        assertTrue(out.size() < TICKS / 5);
+
+        CarPhysics replayed = new CarPhysics();
+        try (InputReplayer replayer = new InputReplayer(
+                Channels.newChannel(new ByteArrayInputStream(out.toByteArray())))) {
+            for (int t = 0; t < TICKS; t++) {
+                assertTrue(replayer.step(replayed));
+                assertEquals(trajectory[3 * t], Double.doubleToRawLongBits(replayed.getPosX()));
+                assertEquals(trajectory[3 * t + 1], Double.doubleToRawLongBits(replayed.getPosY()));
+                assertEquals(trajectory[3 * t + 2], Double.doubleToRawLongBits(replayed.getAngle()));
+            }
+            assertFalse(replayer.step(replayed));
+            assertEquals(TICKS, replayer.ticks());
+        }
+    }
+
+    /**
+     * Проверка записи в файл и воспроизведения нескольких часов подряд
+     */
+    @Test
+    public void fileRoundTrip() throws IOException {
+        Path path = folder.newFile("drive.rec").toPath();
+        int ticks = 5 * TICKS;
+        CarPhysics recorded = new CarPhysics(WIDTH, HEIGHT);
+        Random random = new Random(26);
+        int controls = 0;
+        try (InputRecorder recorder = InputRecorder.open(path)) {
+            recorder.setWorldSize(WIDTH, HEIGHT);
+            for (int t = 0; t < ticks; t++) {
+                controls = nextControls(random, controls);
+                recorder.record(controls);
+                recorded.tick(controls);
+            }
+        }
+        CarPhysics replayed = new CarPhysics();
+        try (InputReplayer replayer = InputReplayer.open(path)) {
+            assertEquals(ticks, replayer.replay(replayed));
+        }
+        assertEquals(recorded.getPosX(), replayed.getPosX(), 0);
+        assertEquals(recorded.getPosY(), replayed.getPosY(), 0);
+        assertEquals(recorded.getAngle(), replayed.getAngle(), 0);
+        assertEquals(recorded.getSpeedX(), replayed.getSpeedX(), 0);
+        assertEquals(recorded.getSpeedY(), replayed.getSpeedY(), 0);
+    }
+
+    /**
+     * Проверка длинной серии одинаковых нажатий
+     */
+    @Test
+    public void longRun() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputRecorder recorder = new InputRecorder(Channels.newChannel(out))) {
+            for (int t = 0; t < 1_000_000; t++)
+                recorder.record(CarPhysics.UP | CarPhysics.LEFT);
+            recorder.record(0);
+        }
+        // заголовок, серия из 1 000 000 шагов и серия из одного шага
+        assertEquals(5 + 1 + 3 + 1 + 1, out.size());
+        try (InputReplayer replayer = new InputReplayer(
+                Channels.newChannel(new ByteArrayInputStream(out.toByteArray())))) {
+            assertEquals(1_000_001, replayer.replay(new CarPhysics(WIDTH, HEIGHT)));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void notARecord() throws IOException {
+        new InputReplayer(Channels.newChannel(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5})));
+    }
+
+    /**
+     * Проверка повреждённой записи: байт серии с битами вне маски клавиш
+     */
+    @Test(expected = IOException.class)
+    public void corruptedTag() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputRecorder recorder = new InputRecorder(Channels.newChannel(out))) {
+            recorder.record(CarPhysics.UP);
+        }
+        byte[] record = out.toByteArray();
+        // заголовок занимает 5 байт, за ним идёт маска серии
+        record[5] = 0x37;
+        try (InputReplayer replayer = new InputReplayer(
+                Channels.newChannel(new ByteArrayInputStream(record)))) {
+            replayer.replay(new CarPhysics(WIDTH, HEIGHT));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongMask() throws IOException {
+        new InputRecorder(Channels.newChannel(new ByteArrayOutputStream())).record(16);
+    }
+}
@@ -0,0 +1,112 @@
+package carSimulator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class SpatialGridUnitTest extends Assert {
+    private static final double WIDTH = 800;
+    private static final double HEIGHT = 600;
+
+    private static Fleet randomFleet(int size, long seed) {
+        Fleet fleet = new Fleet(size, WIDTH, HEIGHT);
+        Random random = new Random(seed);
+        for (int i = 0; i < size; i++) {
+            fleet.setPosition(i, (random.nextDouble() - 0.5) * WIDTH, (random.nextDouble() - 0.5) * HEIGHT);
+            fleet.setAngle(i, random.nextDouble() * 2 * Math.PI);
+            fleet.setControls(i, random.nextInt(16));
+        }
+        return fleet;
+    }
+
+    /**
+     * Проверка столкновений и запросов по радиусу сравнением с полным
+     * перебором пар на нескольких шагах с обновлением сетки
+     */
+    @Test
+    public void sameAsBruteForce() {
+        Fleet fleet = randomFleet(2000, 24);
+        SpatialGrid grid = new SpatialGrid(fleet, 10);
+        double distance = 8;
+        for (int step = 0; step < 20; step++) {
+            fleet.step();
+            grid.update();
+
+            List<Long> expected = new ArrayList<>();
+            for (int i = 0; i < fleet.size(); i++)
+                for (int j = i + 1; j < fleet.size(); j++)
+                    if (grid.distanceSquared(fleet.getPosX(i), fleet.getPosY(i),
+                            fleet.getPosX(j), fleet.getPosY(j)) < distance * distance)
+                        expected.add((long) i << 32 | j);
+            List<Long> actual = new ArrayList<>();
+            int count = grid.collisions(distance, (first, second) -> {
+                assertTrue(first < second);
+                actual.add((long) first << 32 | second);
+            });
+            assertEquals(expected.size(), count);
+            Collections.sort(actual);
+            assertEquals(expected, actual);
+
+            List<Integer> expectedRange = new ArrayList<>();
+            double x = WIDTH / 2 - 5;
+            double y = -HEIGHT / 2 + 3;
+            double radius = 40;
+            for (int i = 0; i < fleet.size(); i++)
+                if (grid.distanceSquared(x, y, fleet.getPosX(i), fleet.getPosY(i)) <= radius * radius)
+                    expectedRange.add(i);
+            List<Integer> actualRange = new ArrayList<>();
+            grid.range(x, y, radius, actualRange::add);
+            Collections.sort(actualRange);
+            assertEquals(expectedRange, actualRange);
+        }
+    }
+
+    /**
+     * Проверка, что соседи находятся через край мира
+     */
+    @Test
+    public void neighboursAcrossEdge() {
+        Fleet fleet = new Fleet(3, WIDTH, HEIGHT);
+        fleet.setPosition(0, WIDTH / 2 - 1, 0);
+        fleet.setPosition(1, -WIDTH / 2 + 1, 0);
+        fleet.setPosition(2, 0, HEIGHT / 2 - 2);
+        SpatialGrid grid = new SpatialGrid(fleet, 50);
+        List<Integer> found = new ArrayList<>();
+        grid.neighbours(0, 5, found::add);
+        assertEquals(Collections.singletonList(1), found);
+        found.clear();
+        grid.range(0, -HEIGHT / 2, 5, found::add);
+        assertEquals(Collections.singletonList(2), found);
+        assertEquals(1, grid.collisions(3, (first, second) -> {
+            assertEquals(0, first);
+            assertEquals(1, second);
+        }));
+    }
+
+    /**
+     * Проверка, что обновление переносит только машины, сменившие клетку
+     */
+    @Test
+    public void incrementalUpdate() {
+        Fleet fleet = new Fleet(2, WIDTH, HEIGHT);
+        SpatialGrid grid = new SpatialGrid(fleet, 100);
+        assertEquals(0, grid.update());
+        fleet.setPosition(1, 250, 0);
+        assertEquals(1, grid.update());
+        List<Integer> found = new ArrayList<>();
+        grid.range(250, 0, 1, found::add);
+        assertEquals(Collections.singletonList(1), found);
+        found.clear();
+        grid.range(0, 0, 1, found::add);
+        assertEquals(Collections.singletonList(0), found);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveCell() {
+        new SpatialGrid(new Fleet(1, WIDTH, HEIGHT), 0);
+    }
+}
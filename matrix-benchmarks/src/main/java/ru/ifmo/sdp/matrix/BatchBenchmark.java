@@ -0,0 +1,80 @@
+package ru.ifmo.sdp.matrix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Перемножение пакета из {@link #COUNT} маленьких матриц: поштучно через
+ * {@link Matrix#mulMatrix(Matrix)} против {@link BatchMultiplication}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+    private static final int COUNT = 10000;
+
+    @Param({"3", "4", "8"})
+    private int size;
+
+    private Matrix[] left;
+    private Matrix[] right;
+    private double[] packedLeft;
+    private double[] packedRight;
+    private double[] packedResult;
+
+    @Setup
+    public void setUp() {
+        left = new Matrix[COUNT];
+        right = new Matrix[COUNT];
+        int elements = size * size;
+        packedLeft = new double[COUNT * elements];
+        packedRight = new double[COUNT * elements];
+        packedResult = new double[COUNT * elements];
+        for (int i = 0; i < COUNT; i++) {
+            left[i] = MatrixShape.SQUARE.random(size, 2 * i);
+            right[i] = MatrixShape.SQUARE.random(size, 2 * i + 1);
+            System.arraycopy(left[i].data, 0, packedLeft, i * elements, elements);
+            System.arraycopy(right[i].data, 0, packedRight, i * elements, elements);
+        }
+    }
+
+    @Benchmark
+    public void perCall(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++)
+            blackhole.consume(left[i].mulMatrix(right[i]));
+    }
+
+    @Benchmark
+    public Matrix[] batch() {
+        return BatchMultiplication.multiply(left, right, false);
+    }
+
+    @Benchmark
+    public double[] packed() {
+        BatchMultiplication.multiply(COUNT, size, size, size,
+                packedLeft, 0, packedRight, 0, packedResult, 0, false);
+        return packedResult;
+    }
+
+    @Benchmark
+    public double[] packedParallel() {
+        BatchMultiplication.multiply(COUNT, size, size, size,
+                packedLeft, 0, packedRight, 0, packedResult, 0, true);
+        return packedResult;
+    }
+}
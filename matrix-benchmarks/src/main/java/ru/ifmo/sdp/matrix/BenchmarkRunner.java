@@ -0,0 +1,54 @@
+package ru.ifmo.sdp.matrix;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Точка входа <code>benchmarks.jar</code>. Запускает тесты производительности
+ * с профилировщиком сборки мусора (скорость выделения памяти) и сохраняет
+ * результаты в JSON. Без аргументов запускаются все тесты модуля, что
+ * занимает несколько часов. Принимает обычные аргументы командной строки
+ * JMH, в том числе регулярное выражение для выбора тестов, например
+ * <code>java -jar benchmarks.jar MatrixBenchmark.transpose -p size=1024</code>
+ * <p>
+ * Если в сборку вошли векторные ядра (профиль <code>vector</code>), к
+ * аргументам дочерних JVM добавляется модуль <code>jdk.incubator.vector</code>,
+ * без которого {@link MatrixKernels} молча выбирает скалярные ядра. Сравнить
+ * их со скалярными можно, передав
+ * <code>-jvmArgsAppend -Dru.ifmo.sdp.matrix.kernels=scalar</code>
+ */
+public final class BenchmarkRunner {
+    private static final String RESULT_FILE = "matrix-benchmarks.json";
+    private static final String KERNELS_SERVICE = "META-INF/services/" + MatrixKernels.class.getName();
+    private static final String VECTOR_MODULE = "--add-modules=jdk.incubator.vector";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON);
+        if (!commandLine.getResult().hasValue())
+            options.result(RESULT_FILE);
+        if (BenchmarkRunner.class.getClassLoader().getResource(KERNELS_SERVICE) != null) {
+            List<String> jvmArgs = new ArrayList<>();
+            if (commandLine.getJvmArgsAppend().hasValue())
+                jvmArgs.addAll(commandLine.getJvmArgsAppend().get());
+            jvmArgs.add(VECTOR_MODULE);
+            options.jvmArgsAppend(jvmArgs.toArray(new String[0]));
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,59 @@
+package ru.ifmo.sdp.matrix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цепочка <code>(a + b) * 2 - c</code>: немедленное вычисление против
+ * отложенного выражения {@link MatrixExpression}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionBenchmark {
+
+    @Param({"64", "256", "1024", "4096"})
+    private int size;
+
+    private Matrix a;
+    private Matrix b;
+    private Matrix c;
+    private Matrix destination;
+
+    @Setup
+    public void setUp() {
+        a = MatrixShape.SQUARE.random(size, 1);
+        b = MatrixShape.SQUARE.random(size, 2);
+        c = MatrixShape.SQUARE.random(size, 3);
+        destination = new Matrix(size, size);
+    }
+
+    @Benchmark
+    public Matrix eager() {
+        return a.addMatrix(b).mulScalar(2).subMatrix(c);
+    }
+
+    @Benchmark
+    public Matrix fused() {
+        return a.lazy().addMatrix(b).mulScalar(2).subMatrix(c).evaluate();
+    }
+
+    @Benchmark
+    public Matrix fusedToDestination() {
+        return a.lazy().addMatrix(b).mulScalar(2).subMatrix(c).evaluate(destination);
+    }
+}
@@ -0,0 +1,64 @@
+package ru.ifmo.sdp.matrix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Умножение матрицы на вектор: общее перемножение
+ * {@link Matrix#mulMatrix(Matrix)} против {@link Matrix#mulVector(Matrix)}
+ * и его варианта с приёмником
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GemvBenchmark {
+    @Param({"256", "2048"})
+    private int size;
+
+    private Matrix a;
+    private Matrix x;
+    private Matrix y;
+
+    @Setup
+    public void setUp() {
+        a = MatrixShape.SQUARE.random(size, 1);
+        x = new Matrix(size);
+        for (int i = 0; i < size; i++)
+            x.setElement(i, i % 7 - 3);
+        y = new Matrix(size);
+    }
+
+    @Benchmark
+    public Matrix mulMatrix() {
+        return a.mulMatrix(x);
+    }
+
+    @Benchmark
+    public Matrix mulVector() {
+        return a.mulVector(x);
+    }
+
+    @Benchmark
+    public Matrix mulVectorDestination() {
+        return a.mulVector(x, y);
+    }
+
+    @Benchmark
+    public Matrix mulVectorTransposed() {
+        return a.mulVectorTransposed(x, y);
+    }
+}
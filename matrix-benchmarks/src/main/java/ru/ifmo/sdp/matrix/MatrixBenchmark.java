@@ -0,0 +1,101 @@
+package ru.ifmo.sdp.matrix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Производительность операций {@link Matrix} в зависимости от формы и размера
+ * матриц. Умножение выполняется на квадратную матрицу с числом строк, равным
+ * числу столбцов первого операнда, т.е. для вектора это умножение на 1x1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixBenchmark {
+
+    @Param({"16", "64", "256", "1024", "4096"})
+    private int size;
+
+    @Param({"SQUARE", "TALL_SKINNY", "VECTOR"})
+    private MatrixShape shape;
+
+    private Matrix first;
+    private Matrix second;
+    private Matrix right;
+    // копии first для сравнения: равная и отличающаяся только последним
+    // элементом, так что оба сравнения просматривают все элементы. Отпечатки
+    // не вычисляются, поэтому быстрая проверка отпечатков в equals не срабатывает
+    private Matrix firstCopy;
+    private Matrix lastDiffers;
+
+    /**
+     * Отдельное состояние для перебора операций, чтобы не умножать число
+     * запусков остальных тестов
+     */
+    @State(Scope.Benchmark)
+    public static class OperationState {
+        @Param({"SUM", "SUBTRACT", "MULTIPLY", "DIVIDE"})
+        private Matrix.Operation operation;
+    }
+
+    @Setup
+    public void setUp() {
+        first = shape.random(size, 1);
+        second = shape.random(size, 2);
+        right = MatrixShape.random(first.columns(), first.columns(), 3);
+        firstCopy = new Matrix(first);
+        lastDiffers = new Matrix(first);
+        int row = first.rows() - 1;
+        int column = first.columns() - 1;
+        lastDiffers.setElement(row, column, first.getElement(row, column) + 1);
+    }
+
+    @Benchmark
+    public Matrix matrixMultiply() {
+        return Matrix.matrixMultiply(first, right);
+    }
+
+    @Benchmark
+    public Matrix matrixMultiplyTransposedView() {
+        return Matrix.matrixMultiply(first, true, first, false);
+    }
+
+    @Benchmark
+    public Matrix transpose() {
+        return first.transpose();
+    }
+
+    @Benchmark
+    public Matrix matrixElementWiseOperation(OperationState state) {
+        return Matrix.matrixElementWiseOperation(first, second, state.operation);
+    }
+
+    @Benchmark
+    public Matrix scalarOperation(OperationState state) {
+        return Matrix.scalarOperation(first, 1.5, state.operation);
+    }
+
+    @Benchmark
+    public boolean equals() {
+        return first.equals(lastDiffers);
+    }
+
+    @Benchmark
+    public boolean equalsSelfCopy() {
+        return first.equals(firstCopy);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.ifmo.sdp.matrix;
+
+import java.util.Random;
+
+/**
+ * Формы матриц, на которых измеряется производительность
+ */
+public enum MatrixShape {
+    /**
+     * Квадратная матрица <code>size x size</code>
+     */
+    SQUARE,
+    /**
+     * Высокая узкая матрица <code>size x 16</code>
+     */
+    TALL_SKINNY,
+    /**
+     * Вектор-столбец <code>size x 1</code>
+     */
+    VECTOR;
+
+    private static final int TALL_SKINNY_COLUMNS = 16;
+
+    public int rows(int size) {
+        return size;
+    }
+
+    public int columns(int size) {
+        switch (this) {
+            case SQUARE:
+                return size;
+            case TALL_SKINNY:
+                return Math.min(size, TALL_SKINNY_COLUMNS);
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Матрица заданной формы, заполненная ненулевыми случайными значениями
+     */
+    public Matrix random(int size, long seed) {
+        return random(rows(size), columns(size), seed);
+    }
+
+    static Matrix random(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        double[] data = new double[rows * columns];
+        for (int i = 0; i < data.length; i++)
+            data[i] = 0.5 + random.nextDouble();
+        return new Matrix(rows, columns, data);
+    }
+}
@@ -0,0 +1,123 @@
+package ru.ifmo.sdp.matrix;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Реализация {@link MatrixKernels} на <code>jdk.incubator.vector</code>:
+ * за одну инструкцию обрабатывается {@link #SPECIES} элементов (4 для AVX2,
+ * 8 для AVX-512). Хвост, не кратный ширине вектора, обрабатывается скалярными
+ * ядрами. Требует запуска с <code>--add-modules jdk.incubator.vector</code>,
+ * иначе загрузка класса завершится ошибкой и {@link Matrix} останется на
+ * скалярных ядрах.
+ * <p>
+ * Каждая операция записана отдельным циклом с явным методом вектора:
+ * JIT заменяет вызовы на инструкции только при константном операторе
+ */
+public final class VectorKernels implements MatrixKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void elementWise(Matrix.Operation operation, double[] a, int aOffset,
+                            double[] b, int bOffset, double[] result, int resultOffset, int length) {
+        int step = SPECIES.length();
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        switch (operation) {
+            case SUM:
+                for (; i < bound; i += step)
+                    DoubleVector.fromArray(SPECIES, a, aOffset + i)
+                            .add(DoubleVector.fromArray(SPECIES, b, bOffset + i))
+                            .intoArray(result, resultOffset + i);
+                break;
+            case SUBTRACT:
+                for (; i < bound; i += step)
+                    DoubleVector.fromArray(SPECIES, a, aOffset + i)
+                            .sub(DoubleVector.fromArray(SPECIES, b, bOffset + i))
+                            .intoArray(result, resultOffset + i);
+                break;
+            case MULTIPLY:
+                for (; i < bound; i += step)
+                    DoubleVector.fromArray(SPECIES, a, aOffset + i)
+                            .mul(DoubleVector.fromArray(SPECIES, b, bOffset + i))
+                            .intoArray(result, resultOffset + i);
+                break;
+            case DIVIDE:
+                for (; i < bound; i += step)
+                    DoubleVector.fromArray(SPECIES, a, aOffset + i)
+                            .div(DoubleVector.fromArray(SPECIES, b, bOffset + i))
+                            .intoArray(result, resultOffset + i);
+                break;
+        }
+        ScalarKernels.INSTANCE.elementWise(operation, a, aOffset + i, b, bOffset + i,
+                result, resultOffset + i, length - i);
+    }
+
+    @Override
+    public void scalar(Matrix.Operation operation, double[] a, int aOffset, double scalar,
+                       double[] result, int resultOffset, int length) {
+        int step = SPECIES.length();
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        switch (operation) {
+            case SUM:
+                for (; i < bound; i += step)
+                    DoubleVector.fromArray(SPECIES, a, aOffset + i).add(scalar)
+                            .intoArray(result, resultOffset + i);
+                break;
+            case SUBTRACT:
+                for (; i < bound; i += step)
+                    DoubleVector.fromArray(SPECIES, a, aOffset + i).sub(scalar)
+                            .intoArray(result, resultOffset + i);
+                break;
+            case MULTIPLY:
+                for (; i < bound; i += step)
+                    DoubleVector.fromArray(SPECIES, a, aOffset + i).mul(scalar)
+                            .intoArray(result, resultOffset + i);
+                break;
+            case DIVIDE:
+                for (; i < bound; i += step)
+                    DoubleVector.fromArray(SPECIES, a, aOffset + i).div(scalar)
+                            .intoArray(result, resultOffset + i);
+                break;
+        }
+        ScalarKernels.INSTANCE.scalar(operation, a, aOffset + i, scalar,
+                result, resultOffset + i, length - i);
+    }
+
+    /**
+     * Умножение и сложение выполняются раздельно, а не через <code>fma</code>,
+     * чтобы результат побитово совпадал со скалярным
+     */
+    @Override
+    public void axpy(int length, double alpha, double[] x, int xOffset, double[] y, int yOffset) {
+        int step = SPECIES.length();
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += step)
+            DoubleVector.fromArray(SPECIES, x, xOffset + i).mul(alpha)
+                    .add(DoubleVector.fromArray(SPECIES, y, yOffset + i))
+                    .intoArray(y, yOffset + i);
+        for (; i < length; i++)
+            y[yOffset + i] += alpha * x[xOffset + i];
+    }
+
+    @Override
+    public boolean equalsDelta(double[] a, double[] b, int length, double delta) {
+        int step = SPECIES.length();
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += step)
+            if (DoubleVector.fromArray(SPECIES, a, i)
+                    .sub(DoubleVector.fromArray(SPECIES, b, i))
+                    .abs()
+                    .compare(VectorOperators.GT, delta)
+                    .anyTrue())
+                return false;
+        for (; i < length; i++)
+            if (Math.abs(a[i] - b[i]) > delta)
+                return false;
+        return true;
+    }
+}
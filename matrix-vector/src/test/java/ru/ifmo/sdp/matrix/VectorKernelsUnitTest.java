@@ -0,0 +1,111 @@
+package ru.ifmo.sdp.matrix;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class VectorKernelsUnitTest extends Assert {
+    private final VectorKernels vector = new VectorKernels();
+    private final ScalarKernels scalar = ScalarKernels.INSTANCE;
+
+    private static double[] randomArray(Random random, int length) {
+        double[] result = new double[length];
+        for (int i = 0; i < length; i++)
+            result[i] = random.nextDouble() * 200 - 100;
+        return result;
+    }
+
+    private static void assertBitEquals(double[] expected, double[] actual) {
+        for (int i = 0; i < expected.length; i++)
+            assertEquals("index " + i, Double.doubleToLongBits(expected[i]),
+                    Double.doubleToLongBits(actual[i]));
+    }
+
+    /**
+     * Проверка подключения через ServiceLoader: при наличии модуля
+     * <code>jdk.incubator.vector</code> матрицы используют векторные ядра
+     */
+    @Test
+    public void vectorKernelsAreActive() {
+        assertTrue(Kernels.ACTIVE instanceof VectorKernels);
+        assertTrue(Kernels.matchesScalar(vector));
+    }
+
+    /**
+     * Проверка побитового совпадения поэлементных и скалярных операций
+     * со скалярной реализацией на длинах, не кратных ширине вектора, и со смещениями
+     */
+    @Test
+    public void elementWiseAndScalarMatchScalarKernels() {
+        Random random = new Random(1);
+        for (int length : new int[]{0, 1, 3, 7, 8, 31, 1000}) {
+            double[] a = randomArray(random, length + 3);
+            double[] b = randomArray(random, length + 2);
+            for (Matrix.Operation operation : Matrix.Operation.values()) {
+                double[] expected = new double[length + 1];
+                double[] actual = new double[length + 1];
+                scalar.elementWise(operation, a, 3, b, 2, expected, 1, length);
+                vector.elementWise(operation, a, 3, b, 2, actual, 1, length);
+                assertBitEquals(expected, actual);
+
+                scalar.scalar(operation, a, 1, 1.7, expected, 0, length);
+                vector.scalar(operation, a, 1, 1.7, actual, 0, length);
+                assertBitEquals(expected, actual);
+            }
+        }
+    }
+
+    /**
+     * Проверка побитового совпадения axpy со скалярной реализацией
+     */
+    @Test
+    public void axpyMatchesScalarKernels() {
+        Random random = new Random(2);
+        for (int length : new int[]{1, 5, 64, 67}) {
+            double[] x = randomArray(random, length + 1);
+            double[] expected = randomArray(random, length + 2);
+            double[] actual = expected.clone();
+            scalar.axpy(length, -0.3, x, 1, expected, 2);
+            vector.axpy(length, -0.3, x, 1, actual, 2);
+            assertBitEquals(expected, actual);
+        }
+    }
+
+    /**
+     * Проверка сравнения с дельтой, в т.ч. расхождения в векторной части и в хвосте
+     */
+    @Test
+    public void equalsDeltaMatchesScalarKernels() {
+        Random random = new Random(3);
+        double[] a = randomArray(random, 37);
+        for (int index : new int[]{0, 17, 36}) {
+            double[] b = a.clone();
+            b[index] += 0.5;
+            assertFalse(vector.equalsDelta(a, b, a.length, 0.25));
+            assertTrue(vector.equalsDelta(a, b, a.length, 0.75));
+            assertEquals(scalar.equalsDelta(a, b, index, 0), vector.equalsDelta(a, b, index, 0));
+        }
+    }
+
+    /**
+     * Проверка операций над матрицами с векторными ядрами против наивного умножения
+     */
+    @Test
+    public void matrixOperationsMatchNaive() {
+        Random random = new Random(4);
+        Matrix a = new Matrix(randomArray2(random, 45, 70));
+        Matrix b = new Matrix(randomArray2(random, 70, 33));
+        assertArrayEquals(Matrix.matrixMultiply(a, b, Matrix.Multiplication.NAIVE).getDataClone(),
+                Matrix.matrixMultiply(a, b, Matrix.Multiplication.BLOCKED).getDataClone());
+        Matrix sum = a.addMatrix(a);
+        assertEquals(sum, a.mulScalar(2));
+    }
+
+    private static double[][] randomArray2(Random random, int rows, int columns) {
+        double[][] result = new double[rows][];
+        for (int i = 0; i < rows; i++)
+            result[i] = randomArray(random, columns);
+        return result;
+    }
+}
@@ -0,0 +1,300 @@
+package ru.ifmo.sdp.matrix;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Пакетное перемножение множества небольших матриц одинаковой формы, например
+ * 3x3 или 4x4. При поштучном вызове {@link Matrix#mulMatrix(Matrix)} время
+ * уходит на проверки аргументов и создание объектов, а не на вычисления.
+ * Здесь формы проверяются один раз на весь пакет, для квадратных матриц
+ * 2x2, 3x3, 4x4 и 8x8 используются развёрнутые ядра, а пакет при
+ * необходимости делится между ядрами процессора.
+ * <p>
+ * Операнды принимаются массивами матриц или упакованными буферами: матрицы
+ * пакета уложены построчно одна за другой, <code>i</code>-я матрица
+ * <code>rows x columns</code> начинается с <code>offset + i * rows * columns</code>.
+ */
+public final class BatchMultiplication {
+    // объём вычислений одной параллельной задачи, умножений
+    private static final long LEAF_VOLUME = 1L << 16;
+
+    private BatchMultiplication() {
+    }
+
+    /**
+     * Попарное перемножение матриц двух массивов:
+     * <code>result[i] = left[i] * right[i]</code>
+     *
+     * @param left     левые операнды одинакового размера <code>rows x common</code>
+     * @param right    правые операнды одинакового размера <code>common x columns</code>
+     * @param parallel разделить пакет между ядрами процессора
+     * @return массив новых матриц
+     * @throws IllegalArgumentException если один из массивов или их элементов
+     *                                  равен <code>null</code>, длины массивов
+     *                                  различаются или формы матриц не совпадают
+     */
+    public static Matrix[] multiply(Matrix[] left, Matrix[] right, boolean parallel) {
+        if (left == null || right == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        if (left.length != right.length)
+            throw new IllegalArgumentException("Batches have different lengths.");
+        Matrix[] result = new Matrix[left.length];
+        if (left.length == 0)
+            return result;
+        if (left[0] == null || right[0] == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        int rows = left[0].rows();
+        int common = left[0].columns();
+        int columns = right[0].columns();
+        if (right[0].rows() != common)
+            throw new IllegalArgumentException(
+                    "First matrix should have rowNum equal to second matrix colNum.");
+        for (int i = 0; i < left.length; i++) {
+            checkShape(left[i], rows, common);
+            checkShape(right[i], common, columns);
+            result[i] = new Matrix(rows, columns, new double[rows * columns]);
+        }
+        run(new MatrixBatch(rows, common, columns, left, right, result), left.length, parallel);
+        return result;
+    }
+
+    /**
+     * Попарное перемножение упакованных матриц:
+     * <code>C[i] = A[i] * B[i]</code> для <code>i</code> от <code>0</code>
+     * до <code>count</code>. Результат перезаписывает буфер <code>c</code>,
+     * который не должен пересекаться с операндами
+     *
+     * @param count    число пар матриц
+     * @param rows     число строк <code>A[i]</code> и <code>C[i]</code>
+     * @param common   число столбцов <code>A[i]</code> и строк <code>B[i]</code>
+     * @param columns  число столбцов <code>B[i]</code> и <code>C[i]</code>
+     * @param a        упакованные левые операнды
+     * @param b        упакованные правые операнды
+     * @param c        буфер для упакованных результатов
+     * @param parallel разделить пакет между ядрами процессора
+     * @throws IllegalArgumentException если один из буферов равен <code>null</code>,
+     *                                  размеры меньше единицы или буферы
+     *                                  слишком коротки
+     */
+    public static void multiply(int count, int rows, int common, int columns,
+                                double[] a, int aOffset, double[] b, int bOffset,
+                                double[] c, int cOffset, boolean parallel) {
+        if (a == null || b == null || c == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        if (count < 0 || rows < 1 || common < 1 || columns < 1)
+            throw new IllegalArgumentException("Expected positive sizes.");
+        checkBuffer(a, aOffset, count, (long) rows * common);
+        checkBuffer(b, bOffset, count, (long) common * columns);
+        checkBuffer(c, cOffset, count, (long) rows * columns);
+        run(new PackedBatch(rows, common, columns, a, aOffset, b, bOffset, c, cOffset), count, parallel);
+    }
+
+    private static void checkShape(Matrix m, int rows, int columns) {
+        if (m == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        if (m.rows() != rows || m.columns() != columns)
+            throw new IllegalArgumentException("All matrices in a batch should have the same sizes.");
+    }
+
+    private static void checkBuffer(double[] buffer, int offset, int count, long size) {
+        if (offset < 0 || offset + count * size > buffer.length)
+            throw new IllegalArgumentException("Buffer is too short for the batch.");
+    }
+
+    private static void run(Batch batch, int count, boolean parallel) {
+        long volume = (long) batch.rows * batch.common * batch.columns;
+        if (parallel && count * volume > LEAF_VOLUME)
+            ForkJoinPool.commonPool().invoke(new BatchTask(batch, 0, count));
+        else
+            batch.multiplyRange(0, count);
+    }
+
+    /**
+     * Перемножение одной пары с выбором развёрнутого ядра по размеру
+     */
+    static void multiply(int rows, int common, int columns,
+                         double[] a, int ao, double[] b, int bo, double[] c, int co) {
+        if (rows == common && common == columns) {
+            switch (rows) {
+                case 2:
+                    multiply2(a, ao, b, bo, c, co);
+                    return;
+                case 3:
+                    multiply3(a, ao, b, bo, c, co);
+                    return;
+                case 4:
+                    multiply4(a, ao, b, bo, c, co);
+                    return;
+                case 8:
+                    multiply8(a, ao, b, bo, c, co);
+                    return;
+            }
+        }
+        for (int i = 0; i < rows; i++) {
+            int cRow = co + i * columns;
+            for (int j = 0; j < columns; j++)
+                c[cRow + j] = 0;
+            for (int k = 0; k < common; k++) {
+                double aik = a[ao + i * common + k];
+                int bRow = bo + k * columns;
+                for (int j = 0; j < columns; j++)
+                    c[cRow + j] += aik * b[bRow + j];
+            }
+        }
+    }
+
+    // развёрнутые ядра для квадратных матриц: строки A и матрица B читаются
+    // в локальные переменные, которые JIT размещает в регистрах
+
+    private static void multiply2(double[] a, int ao, double[] b, int bo, double[] c, int co) {
+        c[co] = a[ao] * b[bo] + a[ao + 1] * b[bo + 2];
+        c[co + 1] = a[ao] * b[bo + 1] + a[ao + 1] * b[bo + 3];
+        c[co + 2] = a[ao + 2] * b[bo] + a[ao + 3] * b[bo + 2];
+        c[co + 3] = a[ao + 2] * b[bo + 1] + a[ao + 3] * b[bo + 3];
+    }
+
+    private static void multiply3(double[] a, int ao, double[] b, int bo, double[] c, int co) {
+        double b00 = b[bo], b01 = b[bo + 1], b02 = b[bo + 2];
+        double b10 = b[bo + 3], b11 = b[bo + 4], b12 = b[bo + 5];
+        double b20 = b[bo + 6], b21 = b[bo + 7], b22 = b[bo + 8];
+        for (int i = 0; i < 9; i += 3) {
+            double a0 = a[ao + i], a1 = a[ao + i + 1], a2 = a[ao + i + 2];
+            c[co + i] = a0 * b00 + a1 * b10 + a2 * b20;
+            c[co + i + 1] = a0 * b01 + a1 * b11 + a2 * b21;
+            c[co + i + 2] = a0 * b02 + a1 * b12 + a2 * b22;
+        }
+    }
+
+    private static void multiply4(double[] a, int ao, double[] b, int bo, double[] c, int co) {
+        double b00 = b[bo], b01 = b[bo + 1], b02 = b[bo + 2], b03 = b[bo + 3];
+        double b10 = b[bo + 4], b11 = b[bo + 5], b12 = b[bo + 6], b13 = b[bo + 7];
+        double b20 = b[bo + 8], b21 = b[bo + 9], b22 = b[bo + 10], b23 = b[bo + 11];
+        double b30 = b[bo + 12], b31 = b[bo + 13], b32 = b[bo + 14], b33 = b[bo + 15];
+        for (int i = 0; i < 16; i += 4) {
+            double a0 = a[ao + i], a1 = a[ao + i + 1], a2 = a[ao + i + 2], a3 = a[ao + i + 3];
+            c[co + i] = a0 * b00 + a1 * b10 + a2 * b20 + a3 * b30;
+            c[co + i + 1] = a0 * b01 + a1 * b11 + a2 * b21 + a3 * b31;
+            c[co + i + 2] = a0 * b02 + a1 * b12 + a2 * b22 + a3 * b32;
+            c[co + i + 3] = a0 * b03 + a1 * b13 + a2 * b23 + a3 * b33;
+        }
+    }
+
+    private static void multiply8(double[] a, int ao, double[] b, int bo, double[] c, int co) {
+        for (int i = 0; i < 64; i += 8) {
+            double c0 = 0, c1 = 0, c2 = 0, c3 = 0, c4 = 0, c5 = 0, c6 = 0, c7 = 0;
+            for (int k = 0; k < 8; k++) {
+                double aik = a[ao + i + k];
+                int bk = bo + k * 8;
+                c0 += aik * b[bk];
+                c1 += aik * b[bk + 1];
+                c2 += aik * b[bk + 2];
+                c3 += aik * b[bk + 3];
+                c4 += aik * b[bk + 4];
+                c5 += aik * b[bk + 5];
+                c6 += aik * b[bk + 6];
+                c7 += aik * b[bk + 7];
+            }
+            c[co + i] = c0;
+            c[co + i + 1] = c1;
+            c[co + i + 2] = c2;
+            c[co + i + 3] = c3;
+            c[co + i + 4] = c4;
+            c[co + i + 5] = c5;
+            c[co + i + 6] = c6;
+            c[co + i + 7] = c7;
+        }
+    }
+
+    /**
+     * Пакет операндов
+     */
+    private abstract static class Batch {
+        final int rows;
+        final int common;
+        final int columns;
+
+        Batch(int rows, int common, int columns) {
+            this.rows = rows;
+            this.common = common;
+            this.columns = columns;
+        }
+
+        /**
+         * Последовательное перемножение пар <code>[from, to)</code>
+         */
+        abstract void multiplyRange(int from, int to);
+    }
+
+    private static final class PackedBatch extends Batch {
+        private final double[] a;
+        private final int aOffset;
+        private final double[] b;
+        private final int bOffset;
+        private final double[] c;
+        private final int cOffset;
+
+        PackedBatch(int rows, int common, int columns,
+                    double[] a, int aOffset, double[] b, int bOffset, double[] c, int cOffset) {
+            super(rows, common, columns);
+            this.a = a;
+            this.aOffset = aOffset;
+            this.b = b;
+            this.bOffset = bOffset;
+            this.c = c;
+            this.cOffset = cOffset;
+        }
+
+        @Override
+        void multiplyRange(int from, int to) {
+            int aSize = rows * common;
+            int bSize = common * columns;
+            int cSize = rows * columns;
+            for (int i = from; i < to; i++)
+                multiply(rows, common, columns, a, aOffset + i * aSize,
+                        b, bOffset + i * bSize, c, cOffset + i * cSize);
+        }
+    }
+
+    private static final class MatrixBatch extends Batch {
+        private final Matrix[] left;
+        private final Matrix[] right;
+        private final Matrix[] result;
+
+        MatrixBatch(int rows, int common, int columns, Matrix[] left, Matrix[] right, Matrix[] result) {
+            super(rows, common, columns);
+            this.left = left;
+            this.right = right;
+            this.result = result;
+        }
+
+        @Override
+        void multiplyRange(int from, int to) {
+            for (int i = from; i < to; i++)
+                multiply(rows, common, columns, left[i].data, 0, right[i].data, 0, result[i].data, 0);
+        }
+    }
+
+    private static final class BatchTask extends RecursiveAction {
+        private final Batch batch;
+        private final int from;
+        private final int to;
+
+        BatchTask(Batch batch, int from, int to) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            long volume = (long) batch.rows * batch.common * batch.columns;
+            if (to - from < 2 || (to - from) * volume <= LEAF_VOLUME) {
+                batch.multiplyRange(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BatchTask(batch, from, mid), new BatchTask(batch, mid, to));
+        }
+    }
+}
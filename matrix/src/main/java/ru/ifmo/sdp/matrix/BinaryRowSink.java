@@ -0,0 +1,71 @@
+package ru.ifmo.sdp.matrix;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Запись строк матрицы в файл формата {@link MatrixFile}. Заголовок
+ * записывается при закрытии, когда известно число строк
+ */
+final class BinaryRowSink implements RowSink {
+    private final FileChannel channel;
+    private final Path path;
+    private ByteBuffer bytes;       // буфер записи, создаётся при первой записи
+    private int columns = -1;       // число столбцов первой записи
+    private long rows;              // число записанных строк
+
+    BinaryRowSink(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        channel.position(MatrixFile.HEADER_SIZE);
+    }
+
+    @Override
+    public void write(double[] buffer, int rows, int columns) throws IOException {
+        if (this.columns < 0) {
+            this.columns = columns;
+            bytes = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        } else if (this.columns != columns) {
+            throw new IllegalArgumentException("Expected " + this.columns + " columns.");
+        }
+        if (this.rows + rows > Integer.MAX_VALUE)
+            throw new IOException("Too many rows for matrix file: " + path);
+        int total = rows * columns;
+        int capacity = bytes.capacity() / 8;
+        for (int from = 0; from < total; from += capacity) {
+            int length = Math.min(capacity, total - from);
+            bytes.clear();
+            bytes.asDoubleBuffer().put(buffer, from, length);
+            bytes.limit(length * 8);
+            while (bytes.hasRemaining())
+                channel.write(bytes);
+        }
+        this.rows += rows;
+    }
+
+    /**
+     * Записывает заголовок и закрывает файл
+     *
+     * @throws IOException если не было записано ни одной строки или при
+     *                     ошибке ввода-вывода
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rows == 0)
+                throw new IOException("No rows were written to " + path);
+            ByteBuffer header = MatrixFile.encodeHeader(new MatrixFile.Header((int) rows, columns,
+                    MatrixFile.DataType.FLOAT64, MatrixFile.Layout.ROW_MAJOR));
+            channel.position(0);
+            while (header.hasRemaining())
+                channel.write(header);
+        } finally {
+            channel.close();
+        }
+    }
+}
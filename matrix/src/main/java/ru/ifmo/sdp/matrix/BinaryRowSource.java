@@ -0,0 +1,74 @@
+package ru.ifmo.sdp.matrix;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Чтение строк матрицы из потока в формате {@link MatrixFile}
+ */
+final class BinaryRowSource implements RowSource {
+    private final InputStream input;
+    private final MatrixFile.Header header;
+    private final byte[] bytes;     // буфер чтения одной порции строк
+    private int remaining;          // строк осталось прочитать
+
+    BinaryRowSource(InputStream input) throws IOException {
+        this.input = input;
+        byte[] head = new byte[MatrixFile.HEADER_SIZE];
+        if (readFully(head, head.length) < head.length)
+            throw new IOException("Not a matrix file: " + input);
+        this.header = MatrixFile.decodeHeader(ByteBuffer.wrap(head), input);
+        if (header.layout() != MatrixFile.Layout.ROW_MAJOR)
+            throw new IOException("Only row-major matrix files can be streamed by rows.");
+        this.remaining = header.rows();
+        int rowBytes = header.columns() * header.dataType().size();
+        this.bytes = new byte[Math.max(rowBytes, 64 * 1024 / rowBytes * rowBytes)];
+    }
+
+    @Override
+    public int columns() {
+        return header.columns();
+    }
+
+    @Override
+    public int read(double[] buffer, int maxRows) throws IOException {
+        int columns = header.columns();
+        int size = header.dataType().size();
+        int rows = 0;
+        while (rows < maxRows && remaining > 0) {
+            int count = Math.min(Math.min(maxRows - rows, remaining), bytes.length / (columns * size));
+            int length = count * columns * size;
+            if (readFully(bytes, length) < length)
+                throw new IOException("Unexpected end of matrix file.");
+            ByteBuffer values = ByteBuffer.wrap(bytes, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+            int offset = rows * columns;
+            if (header.dataType() == MatrixFile.DataType.FLOAT64) {
+                values.asDoubleBuffer().get(buffer, offset, count * columns);
+            } else {
+                for (int i = 0; i < count * columns; i++)
+                    buffer[offset + i] = values.getFloat();
+            }
+            rows += count;
+            remaining -= count;
+        }
+        return rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private int readFully(byte[] target, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int count = input.read(target, read, length - read);
+            if (count < 0)
+                break;
+            read += count;
+        }
+        return read;
+    }
+}
@@ -0,0 +1,343 @@
+package ru.ifmo.sdp.matrix;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Блочное (cache-blocked) перемножение матриц. Результат разбивается на
+ * прямоугольные диапазоны строк и столбцов, которые обрабатываются параллельно
+ * в <code>ForkJoinPool</code>; внутри диапазона вычисления идут квадратными
+ * блоками размера {@link #BLOCK_SIZE}, чтобы рабочие данные помещались в кэш.
+ * Порядок суммирования по общему измерению совпадает с наивным алгоритмом,
+ * поэтому результат побитово идентичен.
+ */
+public final class BlockedMultiplication {
+    /**
+     * Сторона блока. 64x64 <code>double</code> - 32 Кб, что соответствует
+     * типичному размеру L1-кэша данных
+     */
+    static final int BLOCK_SIZE = 64;
+
+    // объём вычислений (rows * columns * common), ниже которого используется
+    // последовательный алгоритм
+    private static long parallelThreshold = 128L * 128 * 128;
+
+    private BlockedMultiplication() {
+    }
+
+    /**
+     * @return текущий порог объёма вычислений (произведение трёх размеров),
+     * начиная с которого умножение выполняется параллельно
+     */
+    public static long parallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Задаёт порог объёма вычислений (произведение числа строк первой матрицы,
+     * числа столбцов второй и общего измерения), ниже которого используется
+     * последовательный алгоритм
+     *
+     * @param parallelThreshold новое значение порога
+     * @throws IllegalArgumentException если аргумент меньше <code>0</code>
+     */
+    public static void setParallelThreshold(long parallelThreshold) {
+        if (parallelThreshold < 0)
+            throw new IllegalArgumentException("Expected positive value");
+        BlockedMultiplication.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Перемножение матриц, уложенных построчно в одномерные массивы:
+     * <code>C += op(A) * op(B)</code>, где <code>op</code> - тождественное
+     * преобразование или транспонирование. Каждая матрица задаётся массивом,
+     * смещением первого элемента и шагом между строками хранения (leading
+     * dimension), что позволяет работать с подматрицами и транспонированными
+     * матрицами без копирования. Размеры должны быть проверены вызывающим
+     *
+     * @param rows       число строк <code>op(A)</code> и <code>C</code>
+     * @param columns    число столбцов <code>op(B)</code> и <code>C</code>
+     * @param common     число столбцов <code>op(A)</code> и строк <code>op(B)</code>
+     * @param transposeA использовать <code>A</code> транспонированной
+     * @param transposeB использовать <code>B</code> транспонированной
+     */
+    static void multiply(int rows, int columns, int common,
+                         double[] a, int aOffset, int aStride, boolean transposeA,
+                         double[] b, int bOffset, int bStride, boolean transposeB,
+                         double[] c, int cOffset, int cStride) {
+        if ((long) rows * columns * common < parallelThreshold)
+            multiplyRange(common, a, aOffset, aStride, transposeA, b, bOffset, bStride, transposeB,
+                    c, cOffset, cStride, 0, rows, 0, columns);
+        else
+            ForkJoinPool.commonPool().invoke(new MultiplyTask(
+                    new DoubleOperands(common, a, aOffset, aStride, transposeA,
+                            b, bOffset, bStride, transposeB, c, cOffset, cStride),
+                    0, rows, 0, columns));
+    }
+
+    /**
+     * То же, что
+     * {@link #multiply(int, int, int, double[], int, int, boolean, double[], int, int, boolean, double[], int, int)},
+     * но параллельное выполнение можно запретить независимо от порога
+     *
+     * @param parallel разрешить параллельное выполнение выше порога
+     */
+    static void multiply(int rows, int columns, int common,
+                         double[] a, int aOffset, int aStride, boolean transposeA,
+                         double[] b, int bOffset, int bStride, boolean transposeB,
+                         double[] c, int cOffset, int cStride, boolean parallel) {
+        if (parallel)
+            multiply(rows, columns, common, a, aOffset, aStride, transposeA,
+                    b, bOffset, bStride, transposeB, c, cOffset, cStride);
+        else
+            multiplyRange(common, a, aOffset, aStride, transposeA, b, bOffset, bStride, transposeB,
+                    c, cOffset, cStride, 0, rows, 0, columns);
+    }
+
+    /**
+     * Последовательное блочное умножение для прямоугольника результата
+     * <code>[rowFrom, rowTo) x [colFrom, colTo)</code>. Блок транспонированной
+     * <code>B</code> перед использованием копируется в непрерывный буфер, чтобы
+     * внутренний цикл шёл по памяти подряд
+     */
+    static void multiplyRange(int common, double[] a, int aOffset, int aStride, boolean transposeA,
+                              double[] b, int bOffset, int bStride, boolean transposeB,
+                              double[] c, int cOffset, int cStride,
+                              int rowFrom, int rowTo, int colFrom, int colTo) {
+        // элемент op(A)[i][k] лежит в a[aOffset + i * aRowStep + k * aColumnStep]
+        int aRowStep = transposeA ? 1 : aStride;
+        int aColumnStep = transposeA ? aStride : 1;
+        double[] packed = transposeB ? new double[BLOCK_SIZE * BLOCK_SIZE] : null;
+        MatrixKernels kernels = Kernels.ACTIVE;
+        for (int ii = rowFrom; ii < rowTo; ii += BLOCK_SIZE) {
+            int iMax = Math.min(ii + BLOCK_SIZE, rowTo);
+            for (int kk = 0; kk < common; kk += BLOCK_SIZE) {
+                int kMax = Math.min(kk + BLOCK_SIZE, common);
+                for (int jj = colFrom; jj < colTo; jj += BLOCK_SIZE) {
+                    int jMax = Math.min(jj + BLOCK_SIZE, colTo);
+                    // элемент op(B)[k][j] лежит в bData[bBase + k * bStep + j]
+                    double[] bData = b;
+                    int bBase = bOffset;
+                    int bStep = bStride;
+                    if (transposeB) {
+                        for (int j = jj; j < jMax; j++) {
+                            int from = bOffset + j * bStride;
+                            for (int k = kk; k < kMax; k++)
+                                packed[(k - kk) * BLOCK_SIZE + (j - jj)] = b[from + k];
+                        }
+                        bData = packed;
+                        bBase = -kk * BLOCK_SIZE - jj;
+                        bStep = BLOCK_SIZE;
+                    }
+                    for (int i = ii; i < iMax; i++) {
+                        int aRow = aOffset + i * aRowStep;
+                        int cRow = cOffset + i * cStride;
+                        for (int k = kk; k < kMax; k++)
+                            kernels.axpy(jMax - jj, a[aRow + k * aColumnStep],
+                                    bData, bBase + k * bStep + jj, c, cRow + jj);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Перемножение матриц одинарной точности, аналог
+     * {@link #multiply(int, int, int, double[], int, int, boolean, double[], int, int, boolean, double[], int, int)}
+     */
+    static void multiply(int rows, int columns, int common,
+                         float[] a, int aOffset, int aStride, boolean transposeA,
+                         float[] b, int bOffset, int bStride, boolean transposeB,
+                         float[] c, int cOffset, int cStride) {
+        if ((long) rows * columns * common < parallelThreshold)
+            multiplyRange(common, a, aOffset, aStride, transposeA, b, bOffset, bStride, transposeB,
+                    c, cOffset, cStride, 0, rows, 0, columns);
+        else
+            ForkJoinPool.commonPool().invoke(new MultiplyTask(
+                    new FloatOperands(common, a, aOffset, aStride, transposeA,
+                            b, bOffset, bStride, transposeB, c, cOffset, cStride),
+                    0, rows, 0, columns));
+    }
+
+    /**
+     * Последовательное блочное умножение матриц одинарной точности
+     */
+    static void multiplyRange(int common, float[] a, int aOffset, int aStride, boolean transposeA,
+                              float[] b, int bOffset, int bStride, boolean transposeB,
+                              float[] c, int cOffset, int cStride,
+                              int rowFrom, int rowTo, int colFrom, int colTo) {
+        int aRowStep = transposeA ? 1 : aStride;
+        int aColumnStep = transposeA ? aStride : 1;
+        float[] packed = transposeB ? new float[BLOCK_SIZE * BLOCK_SIZE] : null;
+        for (int ii = rowFrom; ii < rowTo; ii += BLOCK_SIZE) {
+            int iMax = Math.min(ii + BLOCK_SIZE, rowTo);
+            for (int kk = 0; kk < common; kk += BLOCK_SIZE) {
+                int kMax = Math.min(kk + BLOCK_SIZE, common);
+                for (int jj = colFrom; jj < colTo; jj += BLOCK_SIZE) {
+                    int jMax = Math.min(jj + BLOCK_SIZE, colTo);
+                    float[] bData = b;
+                    int bBase = bOffset;
+                    int bStep = bStride;
+                    if (transposeB) {
+                        for (int j = jj; j < jMax; j++) {
+                            int from = bOffset + j * bStride;
+                            for (int k = kk; k < kMax; k++)
+                                packed[(k - kk) * BLOCK_SIZE + (j - jj)] = b[from + k];
+                        }
+                        bData = packed;
+                        bBase = -kk * BLOCK_SIZE - jj;
+                        bStep = BLOCK_SIZE;
+                    }
+                    for (int i = ii; i < iMax; i++) {
+                        int aRow = aOffset + i * aRowStep;
+                        int cRow = cOffset + i * cStride;
+                        for (int k = kk; k < kMax; k++) {
+                            float aik = a[aRow + k * aColumnStep];
+                            int bRow = bBase + k * bStep;
+                            for (int j = jj; j < jMax; j++)
+                                c[cRow + j] += aik * bData[bRow + j];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Операнды умножения, общие для всех подзадач
+     */
+    private abstract static class Operands {
+        final int common;
+
+        Operands(int common) {
+            this.common = common;
+        }
+
+        /**
+         * Последовательное умножение для прямоугольника результата
+         */
+        abstract void multiplyRange(int rowFrom, int rowTo, int colFrom, int colTo);
+    }
+
+    private static final class DoubleOperands extends Operands {
+        private final double[] a;
+        private final int aOffset;
+        private final int aStride;
+        private final boolean transposeA;
+        private final double[] b;
+        private final int bOffset;
+        private final int bStride;
+        private final boolean transposeB;
+        private final double[] c;
+        private final int cOffset;
+        private final int cStride;
+
+        DoubleOperands(int common, double[] a, int aOffset, int aStride, boolean transposeA,
+                       double[] b, int bOffset, int bStride, boolean transposeB,
+                       double[] c, int cOffset, int cStride) {
+            super(common);
+            this.a = a;
+            this.aOffset = aOffset;
+            this.aStride = aStride;
+            this.transposeA = transposeA;
+            this.b = b;
+            this.bOffset = bOffset;
+            this.bStride = bStride;
+            this.transposeB = transposeB;
+            this.c = c;
+            this.cOffset = cOffset;
+            this.cStride = cStride;
+        }
+
+        @Override
+        void multiplyRange(int rowFrom, int rowTo, int colFrom, int colTo) {
+            BlockedMultiplication.multiplyRange(common, a, aOffset, aStride, transposeA,
+                    b, bOffset, bStride, transposeB, c, cOffset, cStride,
+                    rowFrom, rowTo, colFrom, colTo);
+        }
+    }
+
+    private static final class FloatOperands extends Operands {
+        private final float[] a;
+        private final int aOffset;
+        private final int aStride;
+        private final boolean transposeA;
+        private final float[] b;
+        private final int bOffset;
+        private final int bStride;
+        private final boolean transposeB;
+        private final float[] c;
+        private final int cOffset;
+        private final int cStride;
+
+        FloatOperands(int common, float[] a, int aOffset, int aStride, boolean transposeA,
+                      float[] b, int bOffset, int bStride, boolean transposeB,
+                      float[] c, int cOffset, int cStride) {
+            super(common);
+            this.a = a;
+            this.aOffset = aOffset;
+            this.aStride = aStride;
+            this.transposeA = transposeA;
+            this.b = b;
+            this.bOffset = bOffset;
+            this.bStride = bStride;
+            this.transposeB = transposeB;
+            this.c = c;
+            this.cOffset = cOffset;
+            this.cStride = cStride;
+        }
+
+        @Override
+        void multiplyRange(int rowFrom, int rowTo, int colFrom, int colTo) {
+            BlockedMultiplication.multiplyRange(common, a, aOffset, aStride, transposeA,
+                    b, bOffset, bStride, transposeB, c, cOffset, cStride,
+                    rowFrom, rowTo, colFrom, colTo);
+        }
+    }
+
+    /**
+     * Задача, делящая прямоугольник результата пополам по большей стороне,
+     * пока объём вычислений не станет меньше порога
+     */
+    private static final class MultiplyTask extends RecursiveAction {
+        private final Operands operands;
+        private final int rowFrom;
+        private final int rowTo;
+        private final int colFrom;
+        private final int colTo;
+
+        MultiplyTask(Operands operands, int rowFrom, int rowTo, int colFrom, int colTo) {
+            this.operands = operands;
+            this.rowFrom = rowFrom;
+            this.rowTo = rowTo;
+            this.colFrom = colFrom;
+            this.colTo = colTo;
+        }
+
+        @Override
+        protected void compute() {
+            int rowCount = rowTo - rowFrom;
+            int colCount = colTo - colFrom;
+            boolean small = (long) rowCount * colCount * operands.common < parallelThreshold;
+            if (small || (rowCount <= BLOCK_SIZE && colCount <= BLOCK_SIZE)) {
+                operands.multiplyRange(rowFrom, rowTo, colFrom, colTo);
+                return;
+            }
+            // граница деления выравнивается по блокам
+            if (rowCount >= colCount) {
+                int mid = rowFrom + split(rowCount);
+                invokeAll(new MultiplyTask(operands, rowFrom, mid, colFrom, colTo),
+                        new MultiplyTask(operands, mid, rowTo, colFrom, colTo));
+            } else {
+                int mid = colFrom + split(colCount);
+                invokeAll(new MultiplyTask(operands, rowFrom, rowTo, colFrom, mid),
+                        new MultiplyTask(operands, rowFrom, rowTo, mid, colTo));
+            }
+        }
+
+        private static int split(int count) {
+            int half = (count / 2 + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+            return Math.min(Math.max(half, BLOCK_SIZE), count - 1);
+        }
+    }
+}
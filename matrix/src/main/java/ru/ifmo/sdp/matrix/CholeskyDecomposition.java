@@ -0,0 +1,159 @@
+package ru.ifmo.sdp.matrix;
+
+/**
+ * Разложение Холецкого симметричной положительно определённой матрицы:
+ * <code>A = L L^T</code>, где <code>L</code> - нижняя треугольная матрица с
+ * положительной диагональю. Разложение вдвое дешевле LU и не требует
+ * перестановок; после построения его можно использовать для решения
+ * любого числа систем с той же матрицей. Объект разложения неизменяем.
+ * <p>
+ * Алгоритм блочный right-looking, как в {@link LUDecomposition}: полоса из
+ * {@link LUDecomposition#PANEL_SIZE} столбцов раскладывается обычным
+ * алгоритмом, а оставшаяся часть обновляется перемножением
+ * <code>A22 -= L21 L21^T</code>. Обновляется только нижний треугольник
+ * остатка - по блокам строк, каждый до своей диагонали.
+ * <p>
+ * Используется только нижний треугольник исходной матрицы, симметричность
+ * не проверяется.
+ */
+public final class CholeskyDecomposition {
+    private final int size;
+    // L построчно; элементы выше диагонали не используются
+    private final double[] l;
+
+    private CholeskyDecomposition(int size, double[] l) {
+        this.size = size;
+        this.l = l;
+    }
+
+    /**
+     * Выполняет разложение, параллельно для больших матриц
+     *
+     * @see #of(Matrix, boolean)
+     */
+    public static CholeskyDecomposition of(Matrix m) {
+        return of(m, true);
+    }
+
+    /**
+     * Выполняет разложение матрицы. Исходная матрица не изменяется
+     *
+     * @param m        симметричная положительно определённая матрица
+     * @param parallel обновлять остаток параллельно, если объём вычислений
+     *                 превышает {@link BlockedMultiplication#parallelThreshold()}
+     * @return разложение матрицы
+     * @throws IllegalArgumentException если матрица равна <code>null</code>
+     * @throws IllegalStateException    если матрица не квадратная или не
+     *                                  является положительно определённой
+     */
+    public static CholeskyDecomposition of(Matrix m, boolean parallel) {
+        if (m == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (m.rows() != m.columns())
+            throw new IllegalStateException("Method only defined for square matrices");
+        int n = m.rows();
+        double[] a = m.data.clone();
+        double[] negated = new double[n * LUDecomposition.PANEL_SIZE];
+
+        for (int k0 = 0; k0 < n; k0 += LUDecomposition.PANEL_SIZE) {
+            int k1 = Math.min(k0 + LUDecomposition.PANEL_SIZE, n);
+            // разложение полосы столбцов [k0, k1) для строк [k0, n)
+            for (int j = k0; j < k1; j++) {
+                double diagonal = a[j * n + j];
+                if (!(diagonal > 0))
+                    throw new IllegalStateException("Matrix is not positive definite.");
+                diagonal = Math.sqrt(diagonal);
+                a[j * n + j] = diagonal;
+                for (int i = j + 1; i < n; i++)
+                    a[i * n + j] /= diagonal;
+                for (int i = j + 1; i < n; i++) {
+                    double lij = a[i * n + j];
+                    int to = Math.min(i + 1, k1);
+                    for (int c = j + 1; c < to; c++)
+                        a[i * n + c] -= lij * a[c * n + j];
+                }
+            }
+            if (k1 == n)
+                break;
+
+            // A22 -= L21 L21^T, блоками строк до диагонали
+            int panel = k1 - k0;
+            int rest = n - k1;
+            for (int i = 0; i < rest; i++)
+                for (int c = 0; c < panel; c++)
+                    negated[i * panel + c] = -a[(k1 + i) * n + k0 + c];
+            for (int r0 = 0; r0 < rest; r0 += LUDecomposition.PANEL_SIZE) {
+                int r1 = Math.min(r0 + LUDecomposition.PANEL_SIZE, rest);
+                BlockedMultiplication.multiply(r1 - r0, r1, panel,
+                        negated, r0 * panel, panel, false,
+                        a, k1 * n + k0, n, true,
+                        a, (k1 + r0) * n + k1, n, parallel);
+            }
+        }
+        return new CholeskyDecomposition(n, a);
+    }
+
+    /**
+     * @return размер разложенной матрицы
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return нижняя треугольная матрица <code>L</code>
+     */
+    public Matrix getL() {
+        double[] result = new double[size * size];
+        for (int i = 0; i < size; i++)
+            System.arraycopy(l, i * size, result, i * size, i + 1);
+        return new Matrix(size, size, result);
+    }
+
+    /**
+     * @return определитель разложенной матрицы
+     */
+    public double determinant() {
+        double result = 1;
+        for (int i = 0; i < size; i++) {
+            double diagonal = l[i * size + i];
+            result *= diagonal * diagonal;
+        }
+        return result;
+    }
+
+    /**
+     * Решает систему <code>A X = B</code>. Каждый столбец <code>B</code> -
+     * отдельная правая часть
+     *
+     * @param b матрица правых частей с числом строк, равным размеру разложения
+     * @return новая матрица решений того же размера, что и <code>b</code>
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     *                                  или число его строк не равно размеру
+     */
+    public Matrix solve(Matrix b) {
+        if (b == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (b.rows() != size)
+            throw new IllegalArgumentException(
+                    "Entered matrix should have rowNum equal to decomposed matrix size.");
+        int columns = b.columns();
+        double[] x = b.data.clone();
+        MatrixKernels kernels = Kernels.ACTIVE;
+        // L y = b
+        for (int k = 0; k < size; k++) {
+            kernels.scalar(Matrix.Operation.DIVIDE, x, k * columns, l[k * size + k],
+                    x, k * columns, columns);
+            for (int i = k + 1; i < size; i++)
+                kernels.axpy(columns, -l[i * size + k], x, k * columns, x, i * columns);
+        }
+        // L^T x = y
+        for (int k = size - 1; k >= 0; k--) {
+            kernels.scalar(Matrix.Operation.DIVIDE, x, k * columns, l[k * size + k],
+                    x, k * columns, columns);
+            for (int i = 0; i < k; i++)
+                kernels.axpy(columns, -l[k * size + i], x, k * columns, x, i * columns);
+        }
+        return new Matrix(size, columns, x);
+    }
+}
@@ -0,0 +1,85 @@
+package ru.ifmo.sdp.matrix;
+
+/**
+ * Метод сопряжённых градиентов с предобуславливанием для систем с
+ * симметричной положительно определённой матрицей. Каждая итерация - одно
+ * умножение на матрицу, одно применение предобуславливателя, два скалярных
+ * произведения и три операции axpy. Предобуславливатель также должен быть
+ * симметричным положительно определённым (Якоби подходит всегда).
+ * <p>
+ * Если матрица не является положительно определённой, метод может
+ * остановиться досрочно без достижения точности, см.
+ * {@link #converged()}.
+ */
+public final class ConjugateGradient extends IterativeSolver {
+    private final Matrix r;     // невязка
+    private final Matrix z;     // предобусловленная невязка
+    private final Matrix p;     // направление спуска
+    private final Matrix q;     // A p
+
+    /**
+     * @param operator оператор симметричной положительно определённой матрицы
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     */
+    public ConjugateGradient(LinearOperator operator) {
+        super(operator);
+        r = new Matrix(size);
+        z = new Matrix(size);
+        p = new Matrix(size);
+        q = new Matrix(size);
+    }
+
+    /**
+     * @param matrix симметричная положительно определённая матрица. Не копируется
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     * @throws IllegalStateException    если матрица не квадратная
+     */
+    public ConjugateGradient(Matrix matrix) {
+        this(LinearOperator.of(matrix));
+    }
+
+    /**
+     * @param matrix симметричная положительно определённая разреженная матрица
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     * @throws IllegalStateException    если матрица не квадратная
+     */
+    public ConjugateGradient(SparseMatrix matrix) {
+        this(LinearOperator.of(matrix));
+    }
+
+    @Override
+    void run(Matrix b, Matrix x, double tolerance, int maxIterations) {
+        double norm = computeResidual(b, x, r);
+        int total = 0;
+        boolean breakdown = false;
+        while (norm > tolerance && total < maxIterations && !breakdown) {
+            preconditioner.apply(r, z);
+            System.arraycopy(z.data, 0, p.data, 0, size);
+            double rz = r.dot(z);
+            while (total < maxIterations) {
+                operator.apply(p, q);
+                double pq = p.dot(q);
+                if (!(pq > 0)) {
+                    breakdown = true;
+                    break;
+                }
+                double alpha = rz / pq;
+                x.axpyInPlace(alpha, p);
+                r.axpyInPlace(-alpha, q);
+                total++;
+                if (step(r.norm(), tolerance))
+                    break;
+                preconditioner.apply(r, z);
+                double rzNext = r.dot(z);
+                // p = z + beta p
+                p.mulScalarInPlace(rzNext / rz).addInPlace(z);
+                rz = rzNext;
+            }
+            // пересчитанная невязка r накапливает ошибки округления, поэтому
+            // точность проверяется по настоящей b - A x; если она не
+            // достигнута, метод перезапускается с неё
+            norm = computeResidual(b, x, r);
+        }
+        finish(norm, tolerance);
+    }
+}
@@ -0,0 +1,37 @@
+package ru.ifmo.sdp.matrix;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+
+/**
+ * Запись строк матрицы в формате CSV, см. {@link RowSink#csv}
+ */
+final class CsvRowSink implements RowSink {
+    private final BufferedWriter writer;
+    private int columns = -1;       // число столбцов первой записи
+
+    CsvRowSink(BufferedWriter writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void write(double[] buffer, int rows, int columns) throws IOException {
+        if (this.columns < 0)
+            this.columns = columns;
+        else if (this.columns != columns)
+            throw new IllegalArgumentException("Expected " + this.columns + " columns.");
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                if (j > 0)
+                    writer.write(',');
+                writer.write(Double.toString(buffer[i * columns + j]));
+            }
+            writer.newLine();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,75 @@
+package ru.ifmo.sdp.matrix;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Чтение строк матрицы в формате CSV, см. {@link RowSource#csv}
+ */
+final class CsvRowSource implements RowSource {
+    private final BufferedReader reader;
+    private final int columns;
+    private String pending;         // первая строка, прочитанная для определения числа столбцов
+    private long line;              // номер последней прочитанной строки текста
+
+    CsvRowSource(BufferedReader reader) throws IOException {
+        this.reader = reader;
+        this.pending = nextLine();
+        if (pending == null)
+            throw new IOException("Empty CSV input.");
+        int count = 1;
+        for (int i = pending.indexOf(','); i >= 0; i = pending.indexOf(',', i + 1))
+            count++;
+        this.columns = count;
+    }
+
+    @Override
+    public int columns() {
+        return columns;
+    }
+
+    @Override
+    public int read(double[] buffer, int maxRows) throws IOException {
+        int rows = 0;
+        while (rows < maxRows) {
+            String text = pending != null ? pending : nextLine();
+            pending = null;
+            if (text == null)
+                break;
+            parse(text, buffer, rows * columns);
+            rows++;
+        }
+        return rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String nextLine() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            line++;
+        } while (text != null && text.trim().isEmpty());
+        return text;
+    }
+
+    private void parse(String text, double[] buffer, int offset) throws IOException {
+        int from = 0;
+        for (int j = 0; j < columns; j++) {
+            int to = text.indexOf(',', from);
+            if ((to < 0) != (j == columns - 1))
+                throw new IOException("Line " + line + ": expected " + columns + " values.");
+            if (to < 0)
+                to = text.length();
+            try {
+                buffer[offset + j] = Double.parseDouble(text.substring(from, to));
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + line + ": " + e.getMessage(), e);
+            }
+            from = to + 1;
+        }
+    }
+}
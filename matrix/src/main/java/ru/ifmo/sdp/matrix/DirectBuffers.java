@@ -0,0 +1,63 @@
+package ru.ifmo.sdp.matrix;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Немедленное освобождение прямых и отображённых в память буферов. Штатно
+ * такие буферы освобождаются только сборщиком мусора, что для файлов в
+ * несколько гигабайт означает удержание отображения неопределённо долго.
+ * На JDK 9+ используется <code>sun.misc.Unsafe.invokeCleaner</code>, на JDK 8 -
+ * <code>DirectBuffer.cleaner()</code>; если ни то, ни другое недоступно,
+ * освобождение остаётся за сборщиком мусора
+ */
+final class DirectBuffers {
+    private static final Object UNSAFE;            // sun.misc.Unsafe для JDK 9+, иначе null
+    private static final Method INVOKE_CLEANER;    // Unsafe.invokeCleaner(ByteBuffer)
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private DirectBuffers() {
+    }
+
+    /**
+     * Освобождает память прямого буфера. После вызова любое обращение
+     * к буферу или его представлениям приводит к аварийному завершению JVM,
+     * поэтому вызывающий обязан гарантировать, что буфер больше не используется
+     *
+     * @param buffer прямой буфер, полученный из <code>allocateDirect</code>
+     *               или <code>FileChannel.map</code>, но не его представление
+     */
+    static void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect())
+            return;
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } else {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null)
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            // буфер будет освобождён сборщиком мусора
+        }
+    }
+}
@@ -0,0 +1,854 @@
+package ru.ifmo.sdp.matrix;
+
+import ru.ifmo.sdp.matrix.Matrix.Operation;
+
+/**
+ * Матрица одинарной точности. Повторяет интерфейс {@link Matrix}, но хранит
+ * значения в <code>float[]</code>: вдвое меньше памяти и вдвое больше элементов
+ * в строке кэша, ценой точности около <code>1e-7</code> относительной ошибки.
+ * Перемножение и транспонирование используют те же блочные ядра, что и
+ * {@link Matrix}. Для перехода между точностями служат {@link #fromMatrix(Matrix)}
+ * и {@link #toMatrix()}
+ */
+public final class FloatMatrix {
+    private final int rows;                 // число строк. неименно
+    private final int columns;              // число столбцов. неизнно
+    final float[] data;                    // хранимые значения, построчно: [i][j] -> [i * columns + j]
+
+    private static float equalsDelta = 0;  // допустимая разница при сравнении чисел
+
+    /**
+     * Базовый конструктор. Созданная матрица заполняется значениями по-умолчанию,
+     * для <code>float</code> это - <code>0.0</code>. Минимальный размер матрицы
+     * - 1х1
+     *
+     * @param rows    число строк создаваемой матрицы. Неизменно после создания
+     * @param columns число столбцов. Неизменно после создания
+     * @throws IllegalArgumentException если один из переданных размеров матрицы
+     *                                  меньше единицы
+     */
+    FloatMatrix(int rows, int columns) {
+        if (rows < 1 || columns < 1)
+            throw new IllegalArgumentException(
+                    "One of entered matrix sizes is less then one.");
+        this.rows = rows;
+        this.columns = columns;
+        this.data = new float[checkedLength(rows, columns)];
+    }
+
+    /**
+     * Конструктор вектора. Отличается возможностью не указывать значение второго
+     * измерения для стандартного типа векторов - векторов-столбцов
+     *
+     * @param rows число строк создаваемого вектора. Неизменно после создания
+     * @throws IllegalArgumentException если переданный размер вектора
+     *                                  меньше единицы
+     */
+    public FloatMatrix(int rows) {
+        if (rows < 1)
+            throw new IllegalArgumentException(
+                    "Entered vector length is less then one.");
+        this.rows = rows;
+        this.columns = 1;
+        this.data = new float[rows];
+    }
+
+    /**
+     * Конструктор на основе массива данных
+     *
+     * @param data двумерный массив данных. Длина как основного, так и вложенных
+     *             массивов должна быть больше <code>0</code>. Вложенные массивы
+     *             должны иметь одинаковую длину
+     * @throws NullPointerException     если один из массивов равен <code>null</code>
+     * @throws IllegalArgumentException если длина одного из массивов меньше
+     *                                  единицы или если часть вложенных массивов
+     *                                  имеют разную длину
+     */
+    FloatMatrix(float[][] data) {
+        if (data == null || data.length < 1 || data[0].length < 1)
+            throw new IllegalArgumentException(
+                    "One of sizes in imported data is less then one.");
+        /**
+         * В java разрешены в т.ч. треугольные двумерные массивы
+         * Проверяем, что аргумент имеет одинаковую длину внутренних массивов
+         */
+        int yCheck = data[0].length;
+        for (float[] subData : data)
+            if (subData == null || subData.length != yCheck)
+                throw new IllegalArgumentException(
+                        "All inner arrays should have equal sizes.");
+
+        this.rows = data.length;
+        this.columns = data[0].length;
+        this.data = new float[checkedLength(rows, columns)];
+        for (int i = 0; i < rows; i++)
+            System.arraycopy(data[i], 0, this.data, i * columns, columns);
+    }
+
+    /**
+     * Конструктор копирования
+     *
+     * @param toClone непустая ссылка на экземпляр класса <code>FloatMatrix</code>
+     * @throws NullPointerException аргумент равен <code>null</code>
+     */
+    FloatMatrix(FloatMatrix toClone) {
+        this(toClone.rows, toClone.columns, toClone.data.clone());
+    }
+
+    /**
+     * Конструктор, принимающий во владение одномерный массив данных, уложенных
+     * построчно. Массив не копируется, размеры не проверяются
+     *
+     * @param rows    число строк
+     * @param columns число столбцов
+     * @param data    массив длины <code>rows * columns</code>
+     */
+    FloatMatrix(int rows, int columns, float[] data) {
+        this.rows = rows;
+        this.columns = columns;
+        this.data = data;
+    }
+
+    /**
+     * @return длина одномерного массива для матрицы заданного размера
+     * @throws IllegalArgumentException если число элементов не помещается в массив
+     */
+    private static int checkedLength(int rows, int columns) {
+        long length = (long) rows * columns;
+        if (length > Integer.MAX_VALUE)
+            throw new IllegalArgumentException(
+                    "FloatMatrix is too large: " + rows + "x" + columns + ".");
+        return (int) length;
+    }
+
+    /**
+     * Создаёт матрицу одинарной точности из матрицы двойной точности.
+     * Значения округляются до ближайшего <code>float</code>
+     *
+     * @param m исходная матрица
+     * @return новый экземпляр <code>FloatMatrix</code> того же размера
+     * @throws IllegalArgumentException если матрица равна <code>null</code>
+     */
+    public static FloatMatrix fromMatrix(Matrix m) {
+        if (m == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        float[] data = new float[m.data.length];
+        for (int i = 0; i < data.length; i++)
+            data[i] = (float) m.data[i];
+        return new FloatMatrix(m.rows(), m.columns(), data);
+    }
+
+    /**
+     * Преобразует матрицу к двойной точности. Преобразование точное
+     *
+     * @return новый экземпляр <code>Matrix</code> того же размера
+     */
+    public Matrix toMatrix() {
+        double[] result = new double[data.length];
+        for (int i = 0; i < data.length; i++)
+            result[i] = data[i];
+        return new Matrix(rows, columns, result);
+    }
+
+    /**
+     * Метод для получения текущего значения дельты - допустимой разницы
+     * при сравнении чисел
+     *
+     * @return текущеее значение дельты
+     */
+    public static float equalsDelta() {
+        return equalsDelta;
+    }
+
+    /**
+     * Метод для задания значения дельты - допустимой разницы при сравнении чисел
+     *
+     * @param equalsDelta новое значение дельты
+     * @throws IllegalArgumentException если аргумент меньше <code>0</code>
+     */
+    public static void setEqualsDelta(float equalsDelta) {
+        if (equalsDelta < 0)
+            throw new IllegalArgumentException("Expected positive value");
+        FloatMatrix.equalsDelta = equalsDelta;
+    }
+
+    /**
+     * @return количество строк матрицы (первого измерения)
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * @return количество столбцов матрицы (второго измерения)
+     */
+    public int columns() {
+        return columns;
+    }
+
+    /**
+     * @return копия массива данных матрицы
+     */
+    public float[][] getDataClone() {
+        float[][] dataClone = new float[rows][columns];
+        for (int i = 0; i < rows; i++)
+            System.arraycopy(data, i * columns, dataClone[i], 0, columns);
+        return dataClone;
+    }
+
+    /**
+     * Получение зачения элемента матрицы по его индексу
+     *
+     * @param row    индекс строки <code>0:rows-1</code>
+     * @param column индекс столбца <code>0:column-1</code>
+     * @return зачение элемента матрицы
+     * @throws IndexOutOfBoundsException если индекс меньше <code>0</code> или
+     *                                   больше соотв границы
+     */
+    public float getElement(int row, int column) {
+        Indices.check(row, column, rows, columns);
+        return data[row * columns + column];
+    }
+
+    /**
+     * Получение зачения элемента вектора по его индексу. Отличается возможностью
+     * не указывать значение второго измерения для стандартного типа векторов -
+     * векторов-столбцов
+     *
+     * @param row индекс строки <code>0:rows-1</code>
+     * @return зачение элемента матрицы
+     * @throws IllegalStateException     при вызове от матрицы с неск столбцами
+     * @throws IndexOutOfBoundsException если индекс меньше <code>0</code> или
+     *                                   больше длины вектора
+     */
+    public float getElement(int row) {
+        Indices.checkVector(columns);
+        Indices.checkRow(row, rows);
+        return data[row];
+    }
+
+    /**
+     * Устанавливает заданое значение по указанным индексам матрицы, возвращая
+     * предыдущее значение
+     *
+     * @param row    индекс строки
+     * @param column индекс столбца
+     * @param value  устанавливаемое значение
+     * @return предыдущее значение <code>value</code>
+     * @throws IndexOutOfBoundsException если индекс меньше <code>0</code> или
+     *                                   больше соотв границы
+     */
+    public float setElement(int row, int column, float value) {
+        Indices.check(row, column, rows, columns);
+
+        int index = row * columns + column;
+        float result = data[index];
+        data[index] = value;
+        return result;
+    }
+
+    /**
+     * Устанавливает заданое значение по указанным индексам матрицы, возвращая
+     * предыдущее значение. Отличается возможностью не указывать значение
+     * второго измерения для стандартного типа векторов - векторов-столбцов
+     *
+     * @param row   индекс строки
+     * @param value устанавливаемое значение
+     * @return предыдущее значение <code>value</code>
+     * @throws IllegalStateException     при вызове от матрицы с неск столбцами
+     * @throws IndexOutOfBoundsException если индекс меньше <code>0</code> или
+     *                                   больше соотв границы
+     */
+    public float setElement(int row, float value) {
+        Indices.checkVector(columns);
+        Indices.checkRow(row, rows);
+
+        float result = data[row];
+        data[row] = value;
+        return result;
+    }
+
+    /**
+     * Поэлементные операции над матрицами. Включает сложение, вычетание,
+     * умножение и деление
+     *
+     * @param m1        Первая матрица
+     * @param m2        Вторая матрица, совпадающая по размерам с первой
+     * @param operation Одна из четырех доступных операций. Например,
+     *                  <code>Operation.MULTIPLY</code>
+     * @return новая матрица, являющаяся результатом операции
+     * @throws IllegalArgumentException если одна из матриц равна <code>null</code>,
+     *                                  если матрицы не совпадают по размерам
+     *                                  или если во второй матрице присутствуют
+     *                                  нулевые элементы и выбрана операция деления
+     */
+    public static FloatMatrix matrixElementWiseOperation(FloatMatrix m1, FloatMatrix m2,
+                                                         Operation operation) {
+        if (m1 == null || m2 == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        if (m1.rows() != m2.rows() || m1.columns() != m2.columns())
+            throw new IllegalArgumentException("Matrices have different sizes.");
+
+        float[] data = new float[m1.data.length];
+        elementWise(m1.data, m2.data, data, operation);
+        return new FloatMatrix(m1.rows, m1.columns, data);
+    }
+
+    /**
+     * Поэлементные операции над матрицами с записью результата в заданную
+     * матрицу. Матрица-приёмник может совпадать с одним из операндов, тогда
+     * операция выполняется на месте. Новых объектов не создаётся
+     *
+     * @param m1          Первая матрица
+     * @param m2          Вторая матрица, совпадающая по размерам с первой
+     * @param operation   Одна из четырех доступных операций
+     * @param destination матрица того же размера для записи результата
+     * @return матрица <code>destination</code>
+     * @throws IllegalArgumentException если одна из матриц равна <code>null</code>,
+     *                                  если матрицы не совпадают по размерам
+     *                                  или если во второй матрице присутствуют
+     *                                  нулевые элементы и выбрана операция деления.
+     *                                  В последнем случае приёмник не изменяется
+     */
+    public static FloatMatrix matrixElementWiseOperation(FloatMatrix m1, FloatMatrix m2,
+                                                         Operation operation, FloatMatrix destination) {
+        if (m1 == null || m2 == null || destination == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        if (m1.rows() != m2.rows() || m1.columns() != m2.columns())
+            throw new IllegalArgumentException("Matrices have different sizes.");
+        checkDestination(m1, destination);
+
+        elementWise(m1.data, m2.data, destination.data, operation);
+        return destination;
+    }
+
+    /**
+     * Поэлементная операция над массивами одинаковой длины. Массив результата
+     * может совпадать с одним из операндов
+     */
+    private static void elementWise(float[] a, float[] b, float[] result,
+                                    Operation operation) {
+        switch (operation) {
+            case SUM:
+                for (int i = 0; i < result.length; i++)
+                    result[i] = a[i] + b[i];
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < result.length; i++)
+                    result[i] = a[i] - b[i];
+                break;
+            case MULTIPLY:
+                for (int i = 0; i < result.length; i++)
+                    result[i] = a[i] * b[i];
+                break;
+            case DIVIDE:
+                // проверка до начала записи, чтобы не испортить приёмник
+                for (float value : b)
+                    if (value == 0)
+                        throw new IllegalArgumentException(
+                                "Second matrix shouldn't contain zero elements" +
+                                        " for division operation");
+                for (int i = 0; i < result.length; i++)
+                    result[i] = a[i] / b[i];
+                break;
+        }
+    }
+
+    /**
+     * Проверка размеров матрицы-приёмника
+     *
+     * @throws IllegalArgumentException если размеры не совпадают с образцом
+     */
+    private static void checkDestination(FloatMatrix pattern, FloatMatrix destination) {
+        if (pattern.rows != destination.rows || pattern.columns != destination.columns)
+            throw new IllegalArgumentException(
+                    "Destination matrix should have the same sizes as operands.");
+    }
+
+    /**
+     * Нестатический метод поэлементного сложения с матрицей
+     *
+     * @param m матрица, второй операнд операции
+     * @return новая матрица, являющаяся результатом операции
+     */
+    public FloatMatrix addMatrix(FloatMatrix m) {
+        return FloatMatrix.matrixElementWiseOperation(this, m, Operation.SUM);
+    }
+
+    /**
+     * Нестатический метод поэлементного сложения с матрицей с записью результата в заданную матрицу
+     *
+     * @param m           матрица, второй операнд операции
+     * @param destination матрица для записи результата
+     * @return матрица <code>destination</code>
+     */
+    public FloatMatrix addMatrix(FloatMatrix m, FloatMatrix destination) {
+        return FloatMatrix.matrixElementWiseOperation(this, m, Operation.SUM, destination);
+    }
+
+    /**
+     * Поэлементное сложение с матрицей на месте: результат записывается в вызывающую матрицу
+     *
+     * @param m матрица, второй операнд операции
+     * @return эта же матрица
+     */
+    public FloatMatrix addInPlace(FloatMatrix m) {
+        return FloatMatrix.matrixElementWiseOperation(this, m, Operation.SUM, this);
+    }
+
+    /**
+     * Нестатический метод поэлементного вычитания матрицей
+     *
+     * @param m матрица, второй операнд операции
+     * @return новая матрица, являющаяся результатом операции
+     */
+    public FloatMatrix subMatrix(FloatMatrix m) {
+        return FloatMatrix.matrixElementWiseOperation(this, m, Operation.SUBTRACT);
+    }
+
+    /**
+     * Нестатический метод поэлементного вычитания матрицей с записью результата в заданную матрицу
+     *
+     * @param m           матрица, второй операнд операции
+     * @param destination матрица для записи результата
+     * @return матрица <code>destination</code>
+     */
+    public FloatMatrix subMatrix(FloatMatrix m, FloatMatrix destination) {
+        return FloatMatrix.matrixElementWiseOperation(this, m, Operation.SUBTRACT, destination);
+    }
+
+    /**
+     * Поэлементное вычитание матрицы на месте: результат записывается в вызывающую матрицу
+     *
+     * @param m матрица, второй операнд операции
+     * @return эта же матрица
+     */
+    public FloatMatrix subInPlace(FloatMatrix m) {
+        return FloatMatrix.matrixElementWiseOperation(this, m, Operation.SUBTRACT, this);
+    }
+
+    /**
+     * Нестатический метод поэлементного умножения на матрицу
+     *
+     * @param m матрица, второй операнд операции
+     * @return новая матрица, являющаяся результатом операции
+     */
+    public FloatMatrix mulMatrixElementWise(FloatMatrix m) {
+        return FloatMatrix.matrixElementWiseOperation(this, m, Operation.MULTIPLY);
+    }
+
+    /**
+     * Нестатический метод поэлементного умножения на матрицу с записью результата в заданную матрицу
+     *
+     * @param m           матрица, второй операнд операции
+     * @param destination матрица для записи результата
+     * @return матрица <code>destination</code>
+     */
+    public FloatMatrix mulMatrixElementWise(FloatMatrix m, FloatMatrix destination) {
+        return FloatMatrix.matrixElementWiseOperation(this, m, Operation.MULTIPLY, destination);
+    }
+
+    /**
+     * Поэлементное умножение на матрицу на месте: результат записывается в вызывающую матрицу
+     *
+     * @param m матрица, второй операнд операции
+     * @return эта же матрица
+     */
+    public FloatMatrix mulElementWiseInPlace(FloatMatrix m) {
+        return FloatMatrix.matrixElementWiseOperation(this, m, Operation.MULTIPLY, this);
+    }
+
+    /**
+     * Нестатический метод поэлементного деления на матрицу
+     *
+     * @param m матрица, второй операнд операции
+     * @return новая матрица, являющаяся результатом операции
+     */
+    public FloatMatrix divMatrixElementWise(FloatMatrix m) {
+        return FloatMatrix.matrixElementWiseOperation(this, m, Operation.DIVIDE);
+    }
+
+    /**
+     * Нестатический метод поэлементного деления на матрицу с записью результата в заданную матрицу
+     *
+     * @param m           матрица, второй операнд операции
+     * @param destination матрица для записи результата
+     * @return матрица <code>destination</code>
+     */
+    public FloatMatrix divMatrixElementWise(FloatMatrix m, FloatMatrix destination) {
+        return FloatMatrix.matrixElementWiseOperation(this, m, Operation.DIVIDE, destination);
+    }
+
+    /**
+     * Поэлементное деление на матрицу на месте: результат записывается в вызывающую матрицу
+     *
+     * @param m матрица, второй операнд операции
+     * @return эта же матрица
+     */
+    public FloatMatrix divElementWiseInPlace(FloatMatrix m) {
+        return FloatMatrix.matrixElementWiseOperation(this, m, Operation.DIVIDE, this);
+    }
+
+    /**
+     * Статический метод перемножения матриц
+     *
+     * @param m1 первая матрица
+     * @param m2 вторая матрица, число строк в которой совпадает с числом
+     *           столбцов в первой
+     * @return новая матрица, являющаяся результатом операции
+     * @throws IllegalArgumentException если одна из матриц равна <code>null</code>
+     *                                  или если число столбцов в первой не совпадает
+     *                                  с числом строк во второй
+     */
+    public static FloatMatrix matrixMultiply(FloatMatrix m1, FloatMatrix m2) {
+        return matrixMultiply(m1, false, m2, false);
+    }
+
+    /**
+     * Статический метод перемножения матриц, каждая из которых может быть
+     * использована в транспонированном виде. Транспонирование не выполняется:
+     * блочный алгоритм читает исходные данные как транспонированное
+     * представление, поэтому, например, <code>A * A^T</code> не требует
+     * создания <code>A^T</code>
+     *
+     * @param m1              первая матрица
+     * @param transposeFirst  использовать первую матрицу транспонированной
+     * @param m2              вторая матрица
+     * @param transposeSecond использовать вторую матрицу транспонированной
+     * @return новая матрица, являющаяся результатом операции
+     * @throws IllegalArgumentException если одна из матриц равна <code>null</code>
+     *                                  или если размеры операндов с учётом
+     *                                  транспонирования не согласованы
+     */
+    public static FloatMatrix matrixMultiply(FloatMatrix m1, boolean transposeFirst,
+                                             FloatMatrix m2, boolean transposeSecond) {
+        if (m1 == null || m2 == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        int newRow = transposeFirst ? m1.columns : m1.rows;
+        int common = transposeFirst ? m1.rows : m1.columns;
+        int newCol = transposeSecond ? m2.rows : m2.columns;
+        if (common != (transposeSecond ? m2.columns : m2.rows))
+            throw new IllegalArgumentException(
+                    "First matrix should have rowNum equal to second matrix colNum.");
+        float[] data = new float[checkedLength(newRow, newCol)];
+        BlockedMultiplication.multiply(newRow, newCol, common,
+                m1.data, 0, m1.columns, transposeFirst,
+                m2.data, 0, m2.columns, transposeSecond, data, 0, newCol);
+        return new FloatMatrix(newRow, newCol, data);
+    }
+
+    /**
+     * Нестатический метод перемножения матриц
+     *
+     * @param m второй операнд умножения - матрица, число строк в которой
+     *          совпадает с числом столбцов в вызывающей
+     * @return новая матрица, являющаяся результатом операции
+     * @throws IllegalArgumentException если матрица равна <code>null</code>
+     *                                  или если число её строк не совпадает
+     *                                  с числом столбцов в исходной
+     */
+    public FloatMatrix mulMatrix(FloatMatrix m) {
+        if (m == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (this.columns() != m.rows())
+            throw new IllegalArgumentException(
+                    "Entered matrix should have rowNum equal to base matrix colNum.");
+        return FloatMatrix.matrixMultiply(this, m);
+    }
+
+    /**
+     * Статический метод для выполения скалярных операций над матрицами.
+     * Включает сложение, вычетание, умножение и деление на скалярное число
+     *
+     * @param m         Матрица
+     * @param scalar    Скалярное число
+     * @param operation Одна из четырех доступных операций
+     *                  Например, <code>Operation.MULTIPLY</code>
+     * @return новая матрица, являющаяся результатом операции
+     * @throws IllegalArgumentException если матрица равна <code>null</code>
+     *                                  или скаляр равен нулю и выбрано деление
+     */
+    public static FloatMatrix scalarOperation(FloatMatrix m, float scalar, Operation operation) {
+        if (m == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        float[] data = new float[m.data.length];
+        scalar(m.data, scalar, data, operation);
+        return new FloatMatrix(m.rows, m.columns, data);
+    }
+
+    /**
+     * Скалярные операции над матрицей с записью результата в заданную матрицу.
+     * Матрица-приёмник может совпадать с исходной, тогда операция выполняется
+     * на месте. Новых объектов не создаётся
+     *
+     * @param m           Матрица
+     * @param scalar      Скалярное число
+     * @param operation   Одна из четырех доступных операций
+     * @param destination матрица того же размера для записи результата
+     * @return матрица <code>destination</code>
+     * @throws IllegalArgumentException если одна из матриц равна <code>null</code>,
+     *                                  если размеры приёмника не совпадают
+     *                                  с исходной или скаляр равен нулю и выбрано
+     *                                  деление
+     */
+    public static FloatMatrix scalarOperation(FloatMatrix m, float scalar, Operation operation,
+                                              FloatMatrix destination) {
+        if (m == null || destination == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        checkDestination(m, destination);
+        scalar(m.data, scalar, destination.data, operation);
+        return destination;
+    }
+
+    /**
+     * Скалярная операция над массивом. Массив результата может совпадать
+     * с исходным
+     */
+    private static void scalar(float[] a, float scalar, float[] result,
+                               Operation operation) {
+        switch (operation) {
+            case SUM:
+                for (int i = 0; i < result.length; i++)
+                    result[i] = a[i] + scalar;
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < result.length; i++)
+                    result[i] = a[i] - scalar;
+                break;
+            case MULTIPLY:
+                for (int i = 0; i < result.length; i++)
+                    result[i] = a[i] * scalar;
+                break;
+            case DIVIDE:
+                if (scalar == 0)
+                    throw new IllegalArgumentException(
+                            "Scalar shouldn't be a zero for division operation");
+                for (int i = 0; i < result.length; i++)
+                    result[i] = a[i] / scalar;
+                break;
+        }
+    }
+
+    /**
+     * Нестатический метод сложения матрицы со скалярным числом
+     *
+     * @param scalar Скалярное число
+     * @return новая матрица, являющаяся результатом операции
+     */
+    public FloatMatrix addScalar(float scalar) {
+        return FloatMatrix.scalarOperation(this, scalar, Operation.SUM);
+    }
+
+    /**
+     * Нестатический метод сложения матрицы со скалярным числом с записью результата в заданную матрицу
+     *
+     * @param scalar      скалярное число
+     * @param destination матрица для записи результата
+     * @return матрица <code>destination</code>
+     */
+    public FloatMatrix addScalar(float scalar, FloatMatrix destination) {
+        return FloatMatrix.scalarOperation(this, scalar, Operation.SUM, destination);
+    }
+
+    /**
+     * Сложение со скалярным числом на месте: результат записывается в вызывающую матрицу
+     *
+     * @param scalar скалярное число
+     * @return эта же матрица
+     */
+    public FloatMatrix addScalarInPlace(float scalar) {
+        return FloatMatrix.scalarOperation(this, scalar, Operation.SUM, this);
+    }
+
+    /**
+     * Нестатический метод вычитания из матрицы скалярного числа
+     *
+     * @param scalar скалярное число
+     * @return новая матрица, являющаяся результатом операции
+     */
+    public FloatMatrix subScalar(float scalar) {
+        return FloatMatrix.scalarOperation(this, scalar, Operation.SUBTRACT);
+    }
+
+    /**
+     * Нестатический метод вычитания из матрицы скалярного числа с записью результата в заданную матрицу
+     *
+     * @param scalar      скалярное число
+     * @param destination матрица для записи результата
+     * @return матрица <code>destination</code>
+     */
+    public FloatMatrix subScalar(float scalar, FloatMatrix destination) {
+        return FloatMatrix.scalarOperation(this, scalar, Operation.SUBTRACT, destination);
+    }
+
+    /**
+     * Вычитание скалярного числа на месте: результат записывается в вызывающую матрицу
+     *
+     * @param scalar скалярное число
+     * @return эта же матрица
+     */
+    public FloatMatrix subScalarInPlace(float scalar) {
+        return FloatMatrix.scalarOperation(this, scalar, Operation.SUBTRACT, this);
+    }
+
+    /**
+     * Нестатический метод умножения матрицы на скалярное число
+     *
+     * @param scalar скалярное число
+     * @return новая матрица, являющаяся результатом операции
+     */
+    public FloatMatrix mulScalar(float scalar) {
+        return FloatMatrix.scalarOperation(this, scalar, Operation.MULTIPLY);
+    }
+
+    /**
+     * Нестатический метод умножения матрицы на скалярное число с записью результата в заданную матрицу
+     *
+     * @param scalar      скалярное число
+     * @param destination матрица для записи результата
+     * @return матрица <code>destination</code>
+     */
+    public FloatMatrix mulScalar(float scalar, FloatMatrix destination) {
+        return FloatMatrix.scalarOperation(this, scalar, Operation.MULTIPLY, destination);
+    }
+
+    /**
+     * Умножение на скалярное число на месте: результат записывается в вызывающую матрицу
+     *
+     * @param scalar скалярное число
+     * @return эта же матрица
+     */
+    public FloatMatrix mulScalarInPlace(float scalar) {
+        return FloatMatrix.scalarOperation(this, scalar, Operation.MULTIPLY, this);
+    }
+
+    /**
+     * Нестатический метод деления матрицы на скалярное число
+     *
+     * @param scalar скалярное число
+     * @return новая матрица, являющаяся результатом операции
+     */
+    public FloatMatrix divScalar(float scalar) {
+        return FloatMatrix.scalarOperation(this, scalar, Operation.DIVIDE);
+    }
+
+    /**
+     * Нестатический метод деления матрицы на скалярное число с записью результата в заданную матрицу
+     *
+     * @param scalar      скалярное число
+     * @param destination матрица для записи результата
+     * @return матрица <code>destination</code>
+     */
+    public FloatMatrix divScalar(float scalar, FloatMatrix destination) {
+        return FloatMatrix.scalarOperation(this, scalar, Operation.DIVIDE, destination);
+    }
+
+    /**
+     * Деление на скалярное число на месте: результат записывается в вызывающую матрицу
+     *
+     * @param scalar скалярное число
+     * @return эта же матрица
+     */
+    public FloatMatrix divScalarInPlace(float scalar) {
+        return FloatMatrix.scalarOperation(this, scalar, Operation.DIVIDE, this);
+    }
+
+    /**
+     * Сравнивает матрицу на идентичность с заданным объектом. Результатом
+     * будет <code>true</code> тогда и только тогда, когда когда аргументом
+     * не равен <code>null</code>, является объектом класса <code>FloatMatrix</code>
+     * и представляет тот же набор данных, что и вызывающий объект
+     *
+     * @param anObject объект, с которым нужно сравнить эту <code>FloatMatrix</code>
+     * @return <code>true</code>, если переданный объект представляет собой
+     * <code>FloatMatrix</code> с тем же набором данных, что и вызывающий объект
+     * @throws NullPointerException если объект равен <code>null</code>
+     */
+    @Override
+    public boolean equals(Object anObject) {
+        if (this == anObject)
+            return true;
+        if (anObject instanceof FloatMatrix) {
+            FloatMatrix matrix = (FloatMatrix) anObject;
+            if (this.rows == matrix.rows && this.columns == matrix.columns) {
+                float[] a = this.data;
+                float[] b = matrix.data;
+                for (int i = 0; i < a.length; i++)
+                    if (Math.abs(a[i] - b[i]) > equalsDelta)
+                        return false;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Хэш-код, согласованный с {@link #equals(Object)}: при нулевой
+     * {@link #equalsDelta()} зависит от размеров и значений
+     * (<code>0.0f</code> и <code>-0.0f</code> не различаются), при ненулевой -
+     * только от размеров. Значения не кэшируются, вычисление просматривает
+     * все элементы. Для матриц с <code>NaN</code> согласованность не
+     * гарантируется
+     *
+     * @return хэш-код матрицы
+     */
+    @Override
+    public int hashCode() {
+        if (equalsDelta != 0)
+            return 31 * rows + columns;
+        long sum = 0;
+        for (int i = 0; i < data.length; i++)
+            sum += Matrix.elementHash(i, data[i]);
+        long hash = Matrix.mix(sum + Matrix.mix(((long) rows << 32) | columns));
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Возвращает новую матрицу, транспонированную относительно исходной.
+     * Используется кэш-независимый рекурсивный алгоритм, большие матрицы
+     * транспонируются параллельно, см. {@link Transposition}
+     *
+     * @return новый экземпляр <code>FloatMatrix</code>, являющийся транспонированной
+     * относительно исходной
+     */
+    public FloatMatrix transpose() {
+        float[] resData = new float[data.length];
+        Transposition.transpose(data, rows, columns, resData);
+        return new FloatMatrix(columns, rows, resData);
+    }
+
+    /**
+     * Транспонирование с записью результата в заданную матрицу. Если приёмник
+     * совпадает с вызывающей квадратной матрицей, транспонирование выполняется
+     * на месте
+     *
+     * @param destination матрица размера <code>columns x rows</code>
+     * @return матрица <code>destination</code>
+     * @throws IllegalArgumentException если приёмник равен <code>null</code>
+     *                                  или имеет неподходящий размер
+     */
+    public FloatMatrix transpose(FloatMatrix destination) {
+        if (destination == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (destination.rows != columns || destination.columns != rows)
+            throw new IllegalArgumentException(
+                    "Destination matrix should have sizes of transposed matrix.");
+        if (destination == this)
+            return transposeInPlace();
+        Transposition.transpose(data, rows, columns, destination.data);
+        return destination;
+    }
+
+    /**
+     * Транспонирование квадратной матрицы на месте, без выделения памяти
+     *
+     * @return эта же матрица
+     * @throws IllegalStateException при вызове от неквадратной матрицы
+     */
+    public FloatMatrix transposeInPlace() {
+        if (rows != columns)
+            throw new IllegalStateException("Method only defined for square matrices");
+        Transposition.transposeSquare(data, rows);
+        return this;
+    }
+}
@@ -0,0 +1,157 @@
+package ru.ifmo.sdp.matrix;
+
+import java.util.Arrays;
+
+/**
+ * Обобщённый метод минимальных невязок с перезапуском, GMRES(m), для систем
+ * с произвольной невырожденной матрицей. За цикл из не более чем
+ * {@link #restart()} итераций строится ортонормированный базис
+ * подпространства Крылова (модифицированный процесс Грама-Шмидта), а
+ * решение выбирается минимизацией невязки в этом подпространстве с помощью
+ * вращений Гивенса. Затем метод перезапускается с найденного приближения.
+ * <p>
+ * Используется правое предобуславливание: решается
+ * <code>A M^-1 u = b</code>, <code>x = M^-1 u</code>, поэтому норма,
+ * передаваемая {@link ResidualListener}, - норма настоящей невязки
+ * <code>b - A x</code> (без учёта ошибок округления).
+ * <p>
+ * Память: <code>restart + 1</code> векторов базиса и матрица Хессенберга
+ * <code>(restart + 1) x restart</code>.
+ */
+public final class GMRES extends IterativeSolver {
+    /**
+     * Число итераций между перезапусками по умолчанию
+     */
+    public static final int DEFAULT_RESTART = 30;
+
+    private final int restart;
+    private final Matrix[] basis;   // ортонормированный базис V
+    private final double[] h;       // матрица Хессенберга построчно, restart столбцов
+    private final double[] cosines;
+    private final double[] sines;
+    private final double[] g;       // правая часть задачи наименьших квадратов
+    private final double[] y;
+    private final Matrix w;         // рабочий вектор
+    private final Matrix z;         // рабочий вектор
+
+    /**
+     * @param operator оператор невырожденной матрицы
+     * @param restart  число итераций между перезапусками
+     * @throws IllegalArgumentException если оператор равен <code>null</code>
+     *                                  или <code>restart</code> меньше <code>1</code>
+     */
+    public GMRES(LinearOperator operator, int restart) {
+        super(operator);
+        if (restart < 1)
+            throw new IllegalArgumentException("Expected positive value");
+        this.restart = Math.min(restart, size);
+        basis = new Matrix[this.restart + 1];
+        for (int i = 0; i < basis.length; i++)
+            basis[i] = new Matrix(size);
+        h = new double[(this.restart + 1) * this.restart];
+        cosines = new double[this.restart];
+        sines = new double[this.restart];
+        g = new double[this.restart + 1];
+        y = new double[this.restart];
+        w = new Matrix(size);
+        z = new Matrix(size);
+    }
+
+    /**
+     * @param operator оператор невырожденной матрицы
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     */
+    public GMRES(LinearOperator operator) {
+        this(operator, DEFAULT_RESTART);
+    }
+
+    /**
+     * @param matrix невырожденная матрица. Не копируется
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     * @throws IllegalStateException    если матрица не квадратная
+     */
+    public GMRES(Matrix matrix) {
+        this(LinearOperator.of(matrix));
+    }
+
+    /**
+     * @param matrix невырожденная разреженная матрица
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     * @throws IllegalStateException    если матрица не квадратная
+     */
+    public GMRES(SparseMatrix matrix) {
+        this(LinearOperator.of(matrix));
+    }
+
+    /**
+     * @return число итераций между перезапусками
+     */
+    public int restart() {
+        return restart;
+    }
+
+    @Override
+    void run(Matrix b, Matrix x, double tolerance, int maxIterations) {
+        MatrixKernels kernels = Kernels.ACTIVE;
+        int m = restart;
+        int total = 0;
+        double norm = computeResidual(b, x, basis[0]);
+        while (norm > tolerance && total < maxIterations) {
+            basis[0].mulScalarInPlace(1 / norm);
+            g[0] = norm;
+            int k = 0;
+            boolean done = false;
+            while (k < m && total < maxIterations && !done) {
+                // w = A M^-1 v_k
+                preconditioner.apply(basis[k], z);
+                operator.apply(z, w);
+                for (int i = 0; i <= k; i++) {
+                    double hik = w.dot(basis[i]);
+                    h[i * m + k] = hik;
+                    w.axpyInPlace(-hik, basis[i]);
+                }
+                double next = w.norm();
+                h[(k + 1) * m + k] = next;
+                if (next != 0)
+                    kernels.scalar(Matrix.Operation.DIVIDE, w.data, 0, next,
+                            basis[k + 1].data, 0, size);
+                // предыдущие вращения и новое, обнуляющее h[k + 1][k]
+                for (int i = 0; i < k; i++) {
+                    double a = h[i * m + k];
+                    double c = h[(i + 1) * m + k];
+                    h[i * m + k] = cosines[i] * a + sines[i] * c;
+                    h[(i + 1) * m + k] = -sines[i] * a + cosines[i] * c;
+                }
+                double diagonal = h[k * m + k];
+                double radius = Math.hypot(diagonal, next);
+                cosines[k] = diagonal / radius;
+                sines[k] = next / radius;
+                h[k * m + k] = radius;
+                h[(k + 1) * m + k] = 0;
+                g[k + 1] = -sines[k] * g[k];
+                g[k] = cosines[k] * g[k];
+                norm = Math.abs(g[k + 1]);
+                k++;
+                total++;
+                // next == 0 - подпространство инвариантно, решение точное
+                done = step(norm, tolerance) || next == 0;
+            }
+            // H y = g, x += M^-1 V y
+            for (int i = k - 1; i >= 0; i--) {
+                double sum = g[i];
+                for (int j = i + 1; j < k; j++)
+                    sum -= h[i * m + j] * y[j];
+                y[i] = sum / h[i * m + i];
+            }
+            Arrays.fill(w.data, 0);
+            for (int i = 0; i < k; i++)
+                w.axpyInPlace(y[i], basis[i]);
+            preconditioner.apply(w, z);
+            x.addInPlace(z);
+            // оценка g[k] не учитывает ошибок округления, точность
+            // проверяется по настоящей невязке
+            norm = computeResidual(b, x, basis[0]);
+        }
+        finish(norm, tolerance);
+    }
+}
@@ -0,0 +1,91 @@
+package ru.ifmo.sdp.matrix;
+
+import java.util.Arrays;
+
+/**
+ * Неполное LU-разложение без заполнения, ILU(0). Множители хранятся в
+ * CSR-структуре исходной матрицы: элементы левее диагонали - <code>L</code>
+ * (с единичной диагональю), остальные - <code>U</code>. Разложение строится
+ * построчно (вариант IKJ), обновляются только позиции, ненулевые в исходной
+ * матрице
+ */
+final class IncompleteLUPreconditioner implements Preconditioner {
+    private final int size;
+    private final int[] pointers;
+    private final int[] indices;
+    private final double[] values;
+    // позиции диагональных элементов в values
+    private final int[] diagonal;
+
+    private IncompleteLUPreconditioner(int size, int[] pointers, int[] indices,
+                                       double[] values, int[] diagonal) {
+        this.size = size;
+        this.pointers = pointers;
+        this.indices = indices;
+        this.values = values;
+        this.diagonal = diagonal;
+    }
+
+    /**
+     * @param matrix квадратная матрица в формате CSR. Не изменяется
+     * @throws IllegalStateException если матрица не квадратная или ведущий
+     *                               элемент отсутствует или равен нулю
+     */
+    static IncompleteLUPreconditioner of(SparseMatrix matrix) {
+        if (matrix.rows() != matrix.columns())
+            throw new IllegalStateException("Method only defined for square matrices");
+        int n = matrix.rows();
+        int[] pointers = matrix.pointers;
+        int[] indices = matrix.indices;
+        double[] values = matrix.values.clone();
+        int[] diagonal = new int[n];
+        // position[j] - позиция элемента (i, j) текущей строки или -1
+        int[] position = new int[n];
+        Arrays.fill(position, -1);
+        for (int i = 0; i < n; i++) {
+            int from = pointers[i];
+            int to = pointers[i + 1];
+            for (int p = from; p < to; p++)
+                position[indices[p]] = p;
+            for (int p = from; p < to && indices[p] < i; p++) {
+                int k = indices[p];
+                double l = values[p] / values[diagonal[k]];
+                values[p] = l;
+                for (int q = diagonal[k] + 1; q < pointers[k + 1]; q++) {
+                    int target = position[indices[q]];
+                    if (target >= 0)
+                        values[target] -= l * values[q];
+                }
+            }
+            int d = position[i];
+            if (d < 0 || values[d] == 0)
+                throw new IllegalStateException(
+                        "Zero pivot in incomplete LU decomposition.");
+            diagonal[i] = d;
+            for (int p = from; p < to; p++)
+                position[indices[p]] = -1;
+        }
+        return new IncompleteLUPreconditioner(n, pointers, indices, values, diagonal);
+    }
+
+    @Override
+    public void apply(Matrix r, Matrix z) {
+        double[] x = z.data;
+        double[] b = r.data;
+        // L y = r
+        for (int i = 0; i < size; i++) {
+            double sum = b[i];
+            for (int p = pointers[i]; p < diagonal[i]; p++)
+                sum -= values[p] * x[indices[p]];
+            x[i] = sum;
+        }
+        // U z = y
+        for (int i = size - 1; i >= 0; i--) {
+            double sum = x[i];
+            for (int p = diagonal[i] + 1; p < pointers[i + 1]; p++)
+                sum -= values[p] * x[indices[p]];
+            x[i] = sum / values[diagonal[i]];
+        }
+        z.contentChanged();
+    }
+}
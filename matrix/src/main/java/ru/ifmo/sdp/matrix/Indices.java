@@ -0,0 +1,49 @@
+package ru.ifmo.sdp.matrix;
+
+/**
+ * Проверки индексов для методов доступа к элементам. Сами проверки малы и
+ * встраиваются JIT в вызывающий код, а сообщения об ошибках собираются
+ * в отдельных методах, которые выполняются только при ошибке и не
+ * увеличивают размер горячего кода
+ */
+final class Indices {
+
+    private Indices() {
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException если один из индексов вне допустимых границ
+     */
+    static void check(int row, int column, int rows, int columns) {
+        if (row < 0 || row >= rows)
+            throw wrongIndex("row", rows);
+        if (column < 0 || column >= columns)
+            throw wrongIndex("column", columns);
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException если индекс строки вне допустимых границ
+     */
+    static void checkRow(int row, int rows) {
+        if (row < 0 || row >= rows)
+            throw wrongIndex("row", rows);
+    }
+
+    /**
+     * @throws IllegalStateException если матрица не является вектором-столбцом
+     */
+    static void checkVector(int columns) {
+        if (columns != 1)
+            throw notVector();
+    }
+
+    private static IndexOutOfBoundsException wrongIndex(String kind, int bound) {
+        return new IndexOutOfBoundsException("Wrong " + kind +
+                " index. Expected index value between 0 and " + bound + " (excluded).");
+    }
+
+    private static IllegalStateException notVector() {
+        return new IllegalStateException(
+                "Method only defined for vectors or matrices with 1 column");
+    }
+}
@@ -0,0 +1,222 @@
+package ru.ifmo.sdp.matrix;
+
+/**
+ * Итерационный метод решения системы <code>A x = b</code> с квадратной
+ * матрицей. Матрица задаётся оператором умножения на вектор
+ * {@link LinearOperator}, поэтому подходит и разреженная матрица.
+ * <p>
+ * Все рабочие векторы создаются вместе с решателем и переиспользуются:
+ * итерации не выделяют память, если её не выделяют оператор и
+ * предобуславливатель. Поэтому один экземпляр не может использоваться
+ * из нескольких потоков одновременно.
+ * <p>
+ * Итерации прекращаются, когда евклидова норма невязки
+ * <code>b - A x</code> не превышает {@link #tolerance()}. По умолчанию это
+ * {@link Matrix#equalsDelta()}: поскольку ни один элемент вектора не больше
+ * его нормы, решение, для которого {@link #converged()}, удовлетворяет
+ * <code>A.mulVector(x).equals(b)</code>. При нулевой точности итерации
+ * продолжаются до {@link #maxIterations()}.
+ * <p>
+ * Внутри итераций методы оценивают невязку рекуррентно, и из-за округлений
+ * оценка расходится с настоящей. Поэтому при остановке невязка
+ * пересчитывается по определению: {@link #residual()} и
+ * {@link #converged()} относятся к ней, а если точность не достигнута,
+ * итерации продолжаются с пересчитанной невязки.
+ */
+public abstract class IterativeSolver {
+    final LinearOperator operator;
+    final int size;
+    Preconditioner preconditioner = Preconditioner.identity();
+    private ResidualListener listener;
+    // отрицательное значение - использовать Matrix.equalsDelta()
+    private double tolerance = -1;
+    private int maxIterations;
+
+    private int iterations;
+    private double residual;
+    private boolean converged;
+
+    IterativeSolver(LinearOperator operator) {
+        if (operator == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        this.operator = operator;
+        this.size = operator.size();
+        this.maxIterations = Math.max(10 * size, 100);
+    }
+
+    /**
+     * @return размер системы
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Задаёт предобуславливатель, см. {@link Preconditioner}
+     *
+     * @param preconditioner предобуславливатель для матрицы этой системы
+     * @return этот же решатель
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     */
+    public IterativeSolver setPreconditioner(Preconditioner preconditioner) {
+        if (preconditioner == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        this.preconditioner = preconditioner;
+        return this;
+    }
+
+    /**
+     * @param listener наблюдатель, вызываемый после каждой итерации, или
+     *                 <code>null</code>
+     * @return этот же решатель
+     */
+    public IterativeSolver setListener(ResidualListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * @return допустимая евклидова норма невязки
+     */
+    public double tolerance() {
+        return tolerance < 0 ? Matrix.equalsDelta() : tolerance;
+    }
+
+    /**
+     * Задаёт допустимую норму невязки вместо {@link Matrix#equalsDelta()}
+     *
+     * @param tolerance новое значение
+     * @return этот же решатель
+     * @throws IllegalArgumentException если аргумент меньше <code>0</code>
+     */
+    public IterativeSolver setTolerance(double tolerance) {
+        if (!(tolerance >= 0))
+            throw new IllegalArgumentException("Expected positive value");
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    /**
+     * @return наибольшее число итераций одного решения
+     */
+    public int maxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * @param maxIterations наибольшее число итераций одного решения
+     * @return этот же решатель
+     * @throws IllegalArgumentException если аргумент меньше <code>1</code>
+     */
+    public IterativeSolver setMaxIterations(int maxIterations) {
+        if (maxIterations < 1)
+            throw new IllegalArgumentException("Expected positive value");
+        this.maxIterations = maxIterations;
+        return this;
+    }
+
+    /**
+     * @return число итераций последнего решения
+     */
+    public int iterations() {
+        return iterations;
+    }
+
+    /**
+     * @return норма невязки после последнего решения
+     */
+    public double residual() {
+        return residual;
+    }
+
+    /**
+     * @return <code>true</code>, если последнее решение достигло заданной точности
+     */
+    public boolean converged() {
+        return converged;
+    }
+
+    /**
+     * Решение системы с нулевым начальным приближением
+     *
+     * @param b вектор правой части длины {@link #size()}
+     * @return новый вектор - найденное решение
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     *                                  или не является вектором нужной длины
+     */
+    public Matrix solve(Matrix b) {
+        return solve(b, new Matrix(checkVector(b).rows()));
+    }
+
+    /**
+     * Решение системы с заданным начальным приближением. Результат
+     * записывается на место приближения; после вызова стоит проверить
+     * {@link #converged()}
+     *
+     * @param b вектор правой части длины {@link #size()}
+     * @param x начальное приближение той же длины, не совпадающее с <code>b</code>
+     * @return вектор <code>x</code>
+     * @throws IllegalArgumentException если аргументы равны <code>null</code>,
+     *                                  не являются векторами нужной длины
+     *                                  или совпадают
+     */
+    public Matrix solve(Matrix b, Matrix x) {
+        checkVector(b);
+        checkVector(x);
+        if (b == x)
+            throw new IllegalArgumentException(
+                    "Initial guess shouldn't be the right-hand side vector.");
+        iterations = 0;
+        converged = false;
+        run(b, x, tolerance(), maxIterations);
+        return x;
+    }
+
+    private Matrix checkVector(Matrix v) {
+        if (v == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (v.columns() != 1 || v.rows() != size)
+            throw new IllegalArgumentException(
+                    "Entered vector should have length equal to system size.");
+        return v;
+    }
+
+    /**
+     * Итерации метода. Реализация вызывает {@link #step(double, double)} после
+     * каждой итерации и {@link #finish(double, double)} при остановке
+     */
+    abstract void run(Matrix b, Matrix x, double tolerance, int maxIterations);
+
+    /**
+     * Учёт итерации
+     *
+     * @return <code>true</code>, если достигнута точность
+     */
+    boolean step(double residual, double tolerance) {
+        iterations++;
+        this.residual = residual;
+        if (listener != null)
+            listener.iteration(iterations, residual);
+        return residual <= tolerance;
+    }
+
+    /**
+     * Учёт результата решения
+     */
+    void finish(double residual, double tolerance) {
+        this.residual = residual;
+        this.converged = residual <= tolerance;
+    }
+
+    /**
+     * <code>r = b - A x</code>
+     *
+     * @return норма невязки
+     */
+    double computeResidual(Matrix b, Matrix x, Matrix r) {
+        operator.apply(x, r);
+        Kernels.ACTIVE.elementWise(Matrix.Operation.SUBTRACT, b.data, 0, r.data, 0,
+                r.data, 0, size);
+        return r.norm();
+    }
+}
@@ -0,0 +1,27 @@
+package ru.ifmo.sdp.matrix;
+
+/**
+ * Диагональный предобуславливатель: <code>z[i] = r[i] / a[i][i]</code>
+ */
+final class JacobiPreconditioner implements Preconditioner {
+    private final double[] diagonal;
+
+    /**
+     * @param diagonal диагональ матрицы системы. Принимается во владение
+     * @throws IllegalArgumentException если на диагонали есть нули
+     */
+    JacobiPreconditioner(double[] diagonal) {
+        for (double value : diagonal)
+            if (value == 0)
+                throw new IllegalArgumentException(
+                        "Matrix diagonal shouldn't contain zero elements.");
+        this.diagonal = diagonal;
+    }
+
+    @Override
+    public void apply(Matrix r, Matrix z) {
+        Kernels.ACTIVE.elementWise(Matrix.Operation.DIVIDE, r.data, 0, diagonal, 0,
+                z.data, 0, diagonal.length);
+        z.contentChanged();
+    }
+}
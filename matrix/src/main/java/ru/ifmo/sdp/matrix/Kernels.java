@@ -0,0 +1,82 @@
+package ru.ifmo.sdp.matrix;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Выбор активной реализации {@link MatrixKernels}
+ */
+final class Kernels {
+    static final String PROPERTY = "ru.ifmo.sdp.matrix.kernels";   // "scalar" отключает поиск реализаций
+    static final MatrixKernels ACTIVE = load();                      // ядра, используемые матрицами
+
+    private Kernels() {
+    }
+
+    /**
+     * Первая найденная реализация, прошедшая самопроверку, иначе скалярная.
+     * Отсутствие модуля <code>jdk.incubator.vector</code> проявляется как
+     * {@link LinkageError} при загрузке класса реализации
+     */
+    private static MatrixKernels load() {
+        if ("scalar".equals(System.getProperty(PROPERTY)))
+            return ScalarKernels.INSTANCE;
+        try {
+            Iterator<MatrixKernels> providers = ServiceLoader.load(
+                    MatrixKernels.class, MatrixKernels.class.getClassLoader()).iterator();
+            while (providers.hasNext()) {
+                MatrixKernels candidate = providers.next();
+                if (matchesScalar(candidate))
+                    return candidate;
+            }
+        } catch (ServiceConfigurationError | LinkageError | RuntimeException ignored) {
+            // реализация недоступна в этом окружении
+        }
+        return ScalarKernels.INSTANCE;
+    }
+
+    /**
+     * Самопроверка реализации: все ядра на длине, не кратной ширине вектора,
+     * должны побитово совпадать со скалярными
+     */
+    static boolean matchesScalar(MatrixKernels candidate) {
+        final int length = 67;
+        double[] a = new double[length];
+        double[] b = new double[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = (i * 0.37 - 11) / 3;
+            b[i] = (i % 13 + 1) * 1.1;
+        }
+        ScalarKernels scalar = ScalarKernels.INSTANCE;
+        double[] expected = new double[length];
+        double[] actual = new double[length];
+        for (Matrix.Operation operation : Matrix.Operation.values()) {
+            scalar.elementWise(operation, a, 0, b, 0, expected, 0, length);
+            candidate.elementWise(operation, a, 0, b, 0, actual, 0, length);
+            if (!bitEquals(expected, actual))
+                return false;
+            scalar.scalar(operation, a, 1, 0.7, expected, 0, length - 1);
+            candidate.scalar(operation, a, 1, 0.7, actual, 0, length - 1);
+            if (!bitEquals(expected, actual))
+                return false;
+        }
+        System.arraycopy(b, 0, expected, 0, length);
+        System.arraycopy(b, 0, actual, 0, length);
+        scalar.axpy(length - 2, 1.3, a, 2, expected, 1);
+        candidate.axpy(length - 2, 1.3, a, 2, actual, 1);
+        if (!bitEquals(expected, actual))
+            return false;
+        b[length - 1] = a[length - 1] + 0.5;
+        return candidate.equalsDelta(a, a, length, 0)
+                && !candidate.equalsDelta(a, b, length, 0.25)
+                && candidate.equalsDelta(a, b, length - 1, 0) == scalar.equalsDelta(a, b, length - 1, 0);
+    }
+
+    private static boolean bitEquals(double[] expected, double[] actual) {
+        for (int i = 0; i < expected.length; i++)
+            if (Double.doubleToLongBits(expected[i]) != Double.doubleToLongBits(actual[i]))
+                return false;
+        return true;
+    }
+}
@@ -0,0 +1,265 @@
+package ru.ifmo.sdp.matrix;
+
+/**
+ * LU-разложение квадратной матрицы с частичным выбором ведущего элемента:
+ * <code>P A = L U</code>, где <code>P</code> - матрица перестановки строк,
+ * <code>L</code> - нижняя треугольная с единицами на диагонали,
+ * <code>U</code> - верхняя треугольная. Разложение позволяет решать системы
+ * <code>A x = b</code>, вычислять определитель и обратную матрицу.
+ * <p>
+ * Используется блочный right-looking алгоритм. Матрица обрабатывается
+ * вертикальными полосами шириной {@link #PANEL_SIZE}: полоса раскладывается
+ * обычным алгоритмом с выбором ведущего элемента по столбцу, затем
+ * вычисляется соответствующая полоса строк <code>U</code>, и оставшаяся
+ * правая нижняя часть обновляется одним перемножением
+ * <code>A22 -= L21 U12</code>. На это перемножение приходится почти вся
+ * работа; оно выполняется блочным алгоритмом {@link BlockedMultiplication},
+ * который для больших матриц распараллеливается по ядрам.
+ * <p>
+ * Вырожденность определяется по точно нулевому ведущему элементу: такое
+ * разложение строится до конца, определитель равен нулю, а решение систем
+ * и обращение недоступны. Почти вырожденные матрицы не распознаются.
+ */
+public final class LUDecomposition {
+    /**
+     * Ширина полосы блочного алгоритма, совпадает со стороной блока
+     * перемножения
+     */
+    static final int PANEL_SIZE = BlockedMultiplication.BLOCK_SIZE;
+
+    private final int size;
+    // L (без единичной диагонали) и U, уложенные построчно в одну матрицу
+    private final double[] lu;
+    // строка i матрицы P A является строкой pivot[i] матрицы A
+    private final int[] pivot;
+    // знак перестановки: +1 для чётного числа перестановок строк, иначе -1
+    private final int sign;
+    private final boolean singular;
+
+    private LUDecomposition(int size, double[] lu, int[] pivot, int sign, boolean singular) {
+        this.size = size;
+        this.lu = lu;
+        this.pivot = pivot;
+        this.sign = sign;
+        this.singular = singular;
+    }
+
+    /**
+     * Выполняет разложение, параллельно для больших матриц
+     *
+     * @see #of(Matrix, boolean)
+     */
+    public static LUDecomposition of(Matrix m) {
+        return of(m, true);
+    }
+
+    /**
+     * Выполняет разложение матрицы. Исходная матрица не изменяется
+     *
+     * @param m        квадратная матрица
+     * @param parallel обновлять остаток параллельно, если объём вычислений
+     *                 превышает {@link BlockedMultiplication#parallelThreshold()}
+     * @return разложение матрицы
+     * @throws IllegalArgumentException если матрица равна <code>null</code>
+     * @throws IllegalStateException    если матрица не квадратная
+     */
+    public static LUDecomposition of(Matrix m, boolean parallel) {
+        if (m == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (m.rows() != m.columns())
+            throw new IllegalStateException("Method only defined for square matrices");
+        int n = m.rows();
+        double[] a = m.data.clone();
+        int[] pivot = new int[n];
+        for (int i = 0; i < n; i++)
+            pivot[i] = i;
+        int sign = 1;
+        boolean singular = false;
+        double[] row = new double[n];
+        double[] negated = new double[n * PANEL_SIZE];
+
+        for (int k0 = 0; k0 < n; k0 += PANEL_SIZE) {
+            int k1 = Math.min(k0 + PANEL_SIZE, n);
+            // разложение полосы столбцов [k0, k1) для строк [k0, n)
+            for (int j = k0; j < k1; j++) {
+                int p = j;
+                double max = Math.abs(a[j * n + j]);
+                for (int i = j + 1; i < n; i++) {
+                    double value = Math.abs(a[i * n + j]);
+                    if (value > max) {
+                        max = value;
+                        p = i;
+                    }
+                }
+                if (max == 0) {
+                    // столбец уже исключён, ведущий элемент остаётся нулевым
+                    singular = true;
+                    continue;
+                }
+                if (p != j) {
+                    // строки переставляются целиком, вместе с уже вычисленной частью L
+                    System.arraycopy(a, p * n, row, 0, n);
+                    System.arraycopy(a, j * n, a, p * n, n);
+                    System.arraycopy(row, 0, a, j * n, n);
+                    int t = pivot[p];
+                    pivot[p] = pivot[j];
+                    pivot[j] = t;
+                    sign = -sign;
+                }
+                double diagonal = a[j * n + j];
+                for (int i = j + 1; i < n; i++) {
+                    double l = a[i * n + j] / diagonal;
+                    a[i * n + j] = l;
+                    for (int c = j + 1; c < k1; c++)
+                        a[i * n + c] -= l * a[j * n + c];
+                }
+            }
+            if (k1 == n)
+                break;
+
+            // U12 = L11^-1 A12 - строки [k0, k1), столбцы [k1, n)
+            MatrixKernels kernels = Kernels.ACTIVE;
+            for (int j = k0; j < k1; j++)
+                for (int i = j + 1; i < k1; i++)
+                    kernels.axpy(n - k1, -a[i * n + j], a, j * n + k1, a, i * n + k1);
+
+            // A22 -= L21 U12. Перемножение только прибавляет, поэтому
+            // вычитаемое берётся с обратным знаком из копии L21
+            int panel = k1 - k0;
+            int rest = n - k1;
+            for (int i = 0; i < rest; i++)
+                for (int c = 0; c < panel; c++)
+                    negated[i * panel + c] = -a[(k1 + i) * n + k0 + c];
+            BlockedMultiplication.multiply(rest, rest, panel,
+                    negated, 0, panel, false,
+                    a, k0 * n + k1, n, false,
+                    a, k1 * n + k1, n, parallel);
+        }
+        return new LUDecomposition(n, a, pivot, sign, singular);
+    }
+
+    /**
+     * @return размер разложенной матрицы
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return <code>true</code>, если один из ведущих элементов равен нулю
+     */
+    public boolean isSingular() {
+        return singular;
+    }
+
+    /**
+     * @return нижняя треугольная матрица <code>L</code> с единицами на диагонали
+     */
+    public Matrix getL() {
+        double[] result = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(lu, i * size, result, i * size, i);
+            result[i * size + i] = 1;
+        }
+        return new Matrix(size, size, result);
+    }
+
+    /**
+     * @return верхняя треугольная матрица <code>U</code>
+     */
+    public Matrix getU() {
+        double[] result = new double[size * size];
+        for (int i = 0; i < size; i++)
+            System.arraycopy(lu, i * size + i, result, i * size + i, size - i);
+        return new Matrix(size, size, result);
+    }
+
+    /**
+     * @return перестановка строк: строка <code>i</code> матрицы
+     * <code>P A</code> является строкой <code>pivot[i]</code> матрицы
+     * <code>A</code>
+     */
+    public int[] getPivot() {
+        return pivot.clone();
+    }
+
+    /**
+     * @return определитель разложенной матрицы
+     */
+    public double determinant() {
+        double result = sign;
+        for (int i = 0; i < size; i++)
+            result *= lu[i * size + i];
+        return result;
+    }
+
+    /**
+     * Решает систему <code>A X = B</code>. Каждый столбец <code>B</code> -
+     * отдельная правая часть, так что вектор-столбец задаёт одну систему
+     *
+     * @param b матрица правых частей с числом строк, равным размеру разложения
+     * @return новая матрица решений того же размера, что и <code>b</code>
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     *                                  или число его строк не равно размеру
+     * @throws IllegalStateException    если матрица вырождена
+     */
+    public Matrix solve(Matrix b) {
+        if (b == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (b.rows() != size)
+            throw new IllegalArgumentException(
+                    "Entered matrix should have rowNum equal to decomposed matrix size.");
+        checkNonSingular();
+        int columns = b.columns();
+        double[] x = new double[size * columns];
+        for (int i = 0; i < size; i++)
+            System.arraycopy(b.data, pivot[i] * columns, x, i * columns, columns);
+        substitute(x, columns);
+        return new Matrix(size, columns, x);
+    }
+
+    /**
+     * @return обратная матрица
+     * @throws IllegalStateException если матрица вырождена
+     */
+    public Matrix inverse() {
+        checkNonSingular();
+        // единичная матрица с переставленными строками
+        double[] x = new double[size * size];
+        for (int i = 0; i < size; i++)
+            x[i * size + pivot[i]] = 1;
+        substitute(x, size);
+        return new Matrix(size, size, x);
+    }
+
+    private void checkNonSingular() {
+        if (singular)
+            throw new IllegalStateException("Matrix is singular.");
+    }
+
+    /**
+     * Прямая и обратная подстановка на месте для переставленных правых частей.
+     * Строки решения обновляются целиком, поэтому внутренний цикл идёт по
+     * памяти подряд для любого числа правых частей
+     */
+    private void substitute(double[] x, int columns) {
+        MatrixKernels kernels = Kernels.ACTIVE;
+        // L y = P b
+        for (int k = 0; k < size; k++)
+            for (int i = k + 1; i < size; i++) {
+                double l = lu[i * size + k];
+                if (l != 0)
+                    kernels.axpy(columns, -l, x, k * columns, x, i * columns);
+            }
+        // U x = y
+        for (int k = size - 1; k >= 0; k--) {
+            kernels.scalar(Matrix.Operation.DIVIDE, x, k * columns, lu[k * size + k],
+                    x, k * columns, columns);
+            for (int i = 0; i < k; i++) {
+                double u = lu[i * size + k];
+                if (u != 0)
+                    kernels.axpy(columns, -u, x, k * columns, x, i * columns);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ru.ifmo.sdp.matrix;
+
+/**
+ * Квадратная матрица системы для итерационных методов, см.
+ * {@link IterativeSolver}. Методу нужно только умножение на вектор, поэтому
+ * матрица может быть плотной, разреженной или вовсе не храниться явно
+ */
+public interface LinearOperator {
+
+    /**
+     * @return размер матрицы и длина векторов
+     */
+    int size();
+
+    /**
+     * Умножение на вектор без выделения памяти: <code>y = A x</code>
+     *
+     * @param x вектор длины {@link #size()}
+     * @param y вектор той же длины для записи результата, не совпадающий с <code>x</code>
+     */
+    void apply(Matrix x, Matrix y);
+
+    /**
+     * @param matrix квадратная плотная матрица. Не копируется
+     * @return оператор умножения на матрицу
+     * @throws IllegalArgumentException если матрица равна <code>null</code>
+     * @throws IllegalStateException    если матрица не квадратная
+     */
+    static LinearOperator of(final Matrix matrix) {
+        if (matrix == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (matrix.rows() != matrix.columns())
+            throw new IllegalStateException("Method only defined for square matrices");
+        return new LinearOperator() {
+            @Override
+            public int size() {
+                return matrix.rows();
+            }
+
+            @Override
+            public void apply(Matrix x, Matrix y) {
+                matrix.mulVector(x, y);
+            }
+        };
+    }
+
+    /**
+     * @param matrix квадратная разреженная матрица в любом формате
+     * @return оператор умножения на матрицу
+     * @throws IllegalArgumentException если матрица равна <code>null</code>
+     * @throws IllegalStateException    если матрица не квадратная
+     */
+    static LinearOperator of(final SparseMatrix matrix) {
+        if (matrix == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (matrix.rows() != matrix.columns())
+            throw new IllegalStateException("Method only defined for square matrices");
+        return new LinearOperator() {
+            @Override
+            public int size() {
+                return matrix.rows();
+            }
+
+            @Override
+            public void apply(Matrix x, Matrix y) {
+                matrix.multiply(x.data, y.data);
+                y.contentChanged();
+            }
+        };
+    }
+}
@@ -7,9 +7,13 @@ package ru.ifmo.sdp.matrix;
 public final class Matrix {
     private final int rows;                 // число строк. неименно
     private final int columns;              // число столбцов. неизнно
-    private double[][] data;                // хранимые значения
+    final double[] data;                    // хранимые значения, построчно: [i][j] -> [i * columns + j]
+    private long contentHash;               // сумма хэшей элементов, см. fingerprint()
+    private int contentNaNs;                // число NaN среди элементов, вместе с contentHash
+    private boolean contentHashValid;       // contentHash соответствует data
 
     private static double equalsDelta = 0;  // допустимая разница при сравнении чисел
+    private static Multiplication multiplication = Multiplication.BLOCKED; // алгоритм умножения
 
     /**
      * Допустимые операции (в java нет перегрузки операторов)
@@ -18,6 +22,27 @@ public final class Matrix {
         SUM, SUBTRACT, MULTIPLY, DIVIDE
     }
 
+    /**
+     * Доступные алгоритмы перемножения матриц
+     */
+    public enum Multiplication {
+        /**
+         * Классический алгоритм i-j-k без разбиения на блоки
+         */
+        NAIVE,
+        /**
+         * Блочный алгоритм с параллельной обработкой больших матриц,
+         * см. {@link BlockedMultiplication}
+         */
+        BLOCKED,
+        /**
+         * Рекурсивный алгоритм Штрассена-Винограда, асимптотически быстрее
+         * классического, но с большей погрешностью. Далёкие от квадратных
+         * операнды перемножаются блочным алгоритмом, см. {@link StrassenMultiplication}
+         */
+        STRASSEN
+    }
+
     /**
      * Базовый конструктор. Созданная матрица заполняется значениями по-умолчанию,
      * для <code>double</code> это - <code>0.0</code>. Минимальный размер матрицы
@@ -34,7 +59,7 @@ public final class Matrix {
                     "One of entered matrix sizes is less then one.");
         this.rows = rows;
         this.columns = columns;
-        this.data = new double[rows][columns];
+        this.data = new double[checkedLength(rows, columns)];
     }
 
     /**
@@ -51,7 +76,7 @@ public final class Matrix {
                     "Entered vector length is less then one.");
         this.rows = rows;
         this.columns = 1;
-        this.data = new double[rows][this.columns];
+        this.data = new double[rows];
     }
 
     /**
@@ -81,9 +106,9 @@ public final class Matrix {
 
         this.rows = data.length;
         this.columns = data[0].length;
-        this.data = new double[rows][columns];
+        this.data = new double[checkedLength(rows, columns)];
         for (int i = 0; i < rows; i++)
-            this.data[i] = data[i].clone();
+            System.arraycopy(data[i], 0, this.data, i * columns, columns);
     }
 
     /**
@@ -93,7 +118,36 @@ public final class Matrix {
      * @throws NullPointerException аргумент равен <code>null</code>
      */
     Matrix(Matrix toClone) {
-        this(toClone.getDataClone());
+        this(toClone.rows, toClone.columns, toClone.data.clone());
+        contentHash = toClone.contentHash;
+        contentNaNs = toClone.contentNaNs;
+        contentHashValid = toClone.contentHashValid;
+    }
+
+    /**
+     * Конструктор, принимающий во владение одномерный массив данных, уложенных
+     * построчно. Массив не копируется, размеры не проверяются
+     *
+     * @param rows    число строк
+     * @param columns число столбцов
+     * @param data    массив длины <code>rows * columns</code>
+     */
+    Matrix(int rows, int columns, double[] data) {
+        this.rows = rows;
+        this.columns = columns;
+        this.data = data;
+    }
+
+    /**
+     * @return длина одномерного массива для матрицы заданного размера
+     * @throws IllegalArgumentException если число элементов не помещается в массив
+     */
+    private static int checkedLength(int rows, int columns) {
+        long length = (long) rows * columns;
+        if (length > Integer.MAX_VALUE)
+            throw new IllegalArgumentException(
+                    "Matrix is too large: " + rows + "x" + columns + ".");
+        return (int) length;
     }
 
     /**
@@ -118,6 +172,26 @@ public final class Matrix {
         Matrix.equalsDelta = equalsDelta;
     }
 
+    /**
+     * @return текущий алгоритм, используемый методом
+     * {@link #matrixMultiply(Matrix, Matrix)}
+     */
+    public static Multiplication multiplication() {
+        return multiplication;
+    }
+
+    /**
+     * Метод для задания алгоритма перемножения матриц по-умолчанию
+     *
+     * @param multiplication новый алгоритм
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     */
+    public static void setMultiplication(Multiplication multiplication) {
+        if (multiplication == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        Matrix.multiplication = multiplication;
+    }
+
     /**
      * @return количество строк матрицы (первого измерения)
      */
@@ -138,7 +212,7 @@ public final class Matrix {
     public double[][] getDataClone() {
         double[][] dataClone = new double[rows][columns];
         for (int i = 0; i < rows; i++)
-            dataClone[i] = data[i].clone();
+            System.arraycopy(data, i * columns, dataClone[i], 0, columns);
         return dataClone;
     }
 
@@ -152,15 +226,8 @@ public final class Matrix {
      *                                   больше соотв границы
      */
     public double getElement(int row, int column) {
-        if (row < 0 || row >= rows)
-            throw new IndexOutOfBoundsException(
-                    "Wrong row index. Expected index value between 0 and " +
-                            rows + " (excluded).");
-        if (column < 0 || column >= columns)
-            throw new IndexOutOfBoundsException(
-                    "Wrong column index. Expected index value between 0 and " +
-                            columns + " (excluded).");
-        return data[row][column];
+        Indices.check(row, column, rows, columns);
+        return data[row * columns + column];
     }
 
     /**
@@ -175,13 +242,9 @@ public final class Matrix {
      *                                   больше длины вектора
      */
     public double getElement(int row) {
-        if (columns != 1) throw new IllegalStateException(
-                "Method only defined for vectors or matrices with 1 column");
-        if (row < 0 || row >= rows)
-            throw new IndexOutOfBoundsException(
-                    "Wrong row index. Expected index value between 0 and " +
-                            rows + " (excluded).");
-        return data[row][0];
+        Indices.checkVector(columns);
+        Indices.checkRow(row, rows);
+        return data[row];
     }
 
     /**
@@ -196,17 +259,13 @@ public final class Matrix {
      *                                   больше соотв границы
      */
     public double setElement(int row, int column, double value) {
-        if (row < 0 || row >= rows)
-            throw new IndexOutOfBoundsException(
-                    "Wrong row index. Expected index value between 0 and " +
-                            rows + " (excluded).");
-        if (column < 0 || column >= columns)
-            throw new IndexOutOfBoundsException(
-                    "Wrong column index. Expected index value between 0 and " +
-                            columns + " (excluded).");
-
-        double result = data[row][column];
-        data[row][column] = value;
+        Indices.check(row, column, rows, columns);
+
+        int index = row * columns + column;
+        double result = data[index];
+        data[index] = value;
+        if (contentHashValid)
+            updateContentHash(index, result, value);
         return result;
     }
 
@@ -223,16 +282,13 @@ public final class Matrix {
      *                                   больше соотв границы
      */
     public double setElement(int row, double value) {
-        if (columns != 1)
-            throw new IllegalStateException(
-                    "Method only defined for vectors or matrices with 1 column");
-        if (row < 0 || row >= rows)
-            throw new IndexOutOfBoundsException(
-                    "Wrong row index. Expected index value between 0 and " +
-                            rows + " (excluded).");
-
-        double result = data[row][0];
-        data[row][0] = value;
+        Indices.checkVector(columns);
+        Indices.checkRow(row, rows);
+
+        double result = data[row];
+        data[row] = value;
+        if (contentHashValid)
+            updateContentHash(row, result, value);
         return result;
     }
 
@@ -257,34 +313,65 @@ public final class Matrix {
         if (m1.rows() != m2.rows() || m1.columns() != m2.columns())
             throw new IllegalArgumentException("Matrices have different sizes.");
 
-        double[][] data = m1.getDataClone();
-        switch (operation) {
-            case SUM:
-                for (int i = 0; i < data.length; i++)
-                    for (int j = 0; j < data[0].length; j++)
-                        data[i][j] += m2.getElement(i, j);
-                break;
-            case SUBTRACT:
-                for (int i = 0; i < data.length; i++)
-                    for (int j = 0; j < data[0].length; j++)
-                        data[i][j] -= m2.getElement(i, j);
-                break;
-            case MULTIPLY:
-                for (int i = 0; i < data.length; i++)
-                    for (int j = 0; j < data[0].length; j++)
-                        data[i][j] *= m2.getElement(i, j);
-                break;
-            case DIVIDE:
-                for (int i = 0; i < data.length; i++)
-                    for (int j = 0; j < data[0].length; j++)
-                        if (m2.getElement(i, j) != 0)
-                            data[i][j] /= m2.getElement(i, j);
-                        else throw new IllegalArgumentException(
-                                "Second matrix shouldn't contain zero elements" +
-                                        " for division operation");
-                break;
-        }
-        return new Matrix(data);
+        double[] data = new double[m1.data.length];
+        elementWise(m1.data, m2.data, data, operation);
+        return new Matrix(m1.rows, m1.columns, data);
+    }
+
+    /**
+     * Поэлементные операции над матрицами с записью результата в заданную
+     * матрицу. Матрица-приёмник может совпадать с одним из операндов, тогда
+     * операция выполняется на месте. Новых объектов не создаётся
+     *
+     * @param m1          Первая матрица
+     * @param m2          Вторая матрица, совпадающая по размерам с первой
+     * @param operation   Одна из четырех доступных операций
+     * @param destination матрица того же размера для записи результата
+     * @return матрица <code>destination</code>
+     * @throws IllegalArgumentException если одна из матриц равна <code>null</code>,
+     *                                  если матрицы не совпадают по размерам
+     *                                  или если во второй матрице присутствуют
+     *                                  нулевые элементы и выбрана операция деления.
+     *                                  В последнем случае приёмник не изменяется
+     */
+    public static Matrix matrixElementWiseOperation(Matrix m1, Matrix m2,
+                                                    Operation operation, Matrix destination) {
+        if (m1 == null || m2 == null || destination == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        if (m1.rows() != m2.rows() || m1.columns() != m2.columns())
+            throw new IllegalArgumentException("Matrices have different sizes.");
+        checkDestination(m1, destination);
+
+        elementWise(m1.data, m2.data, destination.data, operation);
+        destination.contentChanged();
+        return destination;
+    }
+
+    /**
+     * Поэлементная операция над массивами одинаковой длины. Массив результата
+     * может совпадать с одним из операндов
+     */
+    private static void elementWise(double[] a, double[] b, double[] result,
+                                    Operation operation) {
+        if (operation == Operation.DIVIDE)
+            // проверка до начала записи, чтобы не испортить приёмник
+            for (double value : b)
+                if (value == 0)
+                    throw new IllegalArgumentException(
+                            "Second matrix shouldn't contain zero elements" +
+                                    " for division operation");
+        Kernels.ACTIVE.elementWise(operation, a, 0, b, 0, result, 0, result.length);
+    }
+
+    /**
+     * Проверка размеров матрицы-приёмника
+     *
+     * @throws IllegalArgumentException если размеры не совпадают с образцом
+     */
+    private static void checkDestination(Matrix pattern, Matrix destination) {
+        if (pattern.rows != destination.rows || pattern.columns != destination.columns)
+            throw new IllegalArgumentException(
+                    "Destination matrix should have the same sizes as operands.");
     }
 
     /**
@@ -297,6 +384,27 @@ public final class Matrix {
         return Matrix.matrixElementWiseOperation(this, m, Operation.SUM);
     }
 
+    /**
+     * Нестатический метод поэлементного сложения с матрицей с записью результата в заданную матрицу
+     *
+     * @param m           матрица, второй операнд операции
+     * @param destination матрица для записи результата
+     * @return матрица <code>destination</code>
+     */
+    public Matrix addMatrix(Matrix m, Matrix destination) {
+        return Matrix.matrixElementWiseOperation(this, m, Operation.SUM, destination);
+    }
+
+    /**
+     * Поэлементное сложение с матрицей на месте: результат записывается в вызывающую матрицу
+     *
+     * @param m матрица, второй операнд операции
+     * @return эта же матрица
+     */
+    public Matrix addInPlace(Matrix m) {
+        return Matrix.matrixElementWiseOperation(this, m, Operation.SUM, this);
+    }
+
     /**
      * Нестатический метод поэлементного вычитания матрицей
      *
@@ -307,6 +415,27 @@ public final class Matrix {
         return Matrix.matrixElementWiseOperation(this, m, Operation.SUBTRACT);
     }
 
+    /**
+     * Нестатический метод поэлементного вычитания матрицей с записью результата в заданную матрицу
+     *
+     * @param m           матрица, второй операнд операции
+     * @param destination матрица для записи результата
+     * @return матрица <code>destination</code>
+     */
+    public Matrix subMatrix(Matrix m, Matrix destination) {
+        return Matrix.matrixElementWiseOperation(this, m, Operation.SUBTRACT, destination);
+    }
+
+    /**
+     * Поэлементное вычитание матрицы на месте: результат записывается в вызывающую матрицу
+     *
+     * @param m матрица, второй операнд операции
+     * @return эта же матрица
+     */
+    public Matrix subInPlace(Matrix m) {
+        return Matrix.matrixElementWiseOperation(this, m, Operation.SUBTRACT, this);
+    }
+
     /**
      * Нестатический метод поэлементного умножения на матрицу
      *
@@ -317,6 +446,27 @@ public final class Matrix {
         return Matrix.matrixElementWiseOperation(this, m, Operation.MULTIPLY);
     }
 
+    /**
+     * Нестатический метод поэлементного умножения на матрицу с записью результата в заданную матрицу
+     *
+     * @param m           матрица, второй операнд операции
+     * @param destination матрица для записи результата
+     * @return матрица <code>destination</code>
+     */
+    public Matrix mulMatrixElementWise(Matrix m, Matrix destination) {
+        return Matrix.matrixElementWiseOperation(this, m, Operation.MULTIPLY, destination);
+    }
+
+    /**
+     * Поэлементное умножение на матрицу на месте: результат записывается в вызывающую матрицу
+     *
+     * @param m матрица, второй операнд операции
+     * @return эта же матрица
+     */
+    public Matrix mulElementWiseInPlace(Matrix m) {
+        return Matrix.matrixElementWiseOperation(this, m, Operation.MULTIPLY, this);
+    }
+
     /**
      * Нестатический метод поэлементного деления на матрицу
      *
@@ -327,6 +477,27 @@ public final class Matrix {
         return Matrix.matrixElementWiseOperation(this, m, Operation.DIVIDE);
     }
 
+    /**
+     * Нестатический метод поэлементного деления на матрицу с записью результата в заданную матрицу
+     *
+     * @param m           матрица, второй операнд операции
+     * @param destination матрица для записи результата
+     * @return матрица <code>destination</code>
+     */
+    public Matrix divMatrixElementWise(Matrix m, Matrix destination) {
+        return Matrix.matrixElementWiseOperation(this, m, Operation.DIVIDE, destination);
+    }
+
+    /**
+     * Поэлементное деление на матрицу на месте: результат записывается в вызывающую матрицу
+     *
+     * @param m матрица, второй операнд операции
+     * @return эта же матрица
+     */
+    public Matrix divElementWiseInPlace(Matrix m) {
+        return Matrix.matrixElementWiseOperation(this, m, Operation.DIVIDE, this);
+    }
+
     /**
      * Статический метод перемножения матриц
      *
@@ -339,7 +510,23 @@ public final class Matrix {
      *                                  с числом строк во второй
      */
     public static Matrix matrixMultiply(Matrix m1, Matrix m2) {
-        if (m1 == null || m2 == null)
+        return matrixMultiply(m1, m2, multiplication);
+    }
+
+    /**
+     * Статический метод перемножения матриц заданным алгоритмом
+     *
+     * @param m1             первая матрица
+     * @param m2             вторая матрица, число строк в которой совпадает с числом
+     *                       столбцов в первой
+     * @param multiplication алгоритм перемножения
+     * @return новая матрица, являющаяся результатом операции
+     * @throws IllegalArgumentException если один из аргументов равен <code>null</code>
+     *                                  или если число столбцов в первой не совпадает
+     *                                  с числом строк во второй
+     */
+    public static Matrix matrixMultiply(Matrix m1, Matrix m2, Multiplication multiplication) {
+        if (m1 == null || m2 == null || multiplication == null)
             throw new IllegalArgumentException("Expected NotNull arguments.");
         if (m1.columns() != m2.rows())
             throw new IllegalArgumentException(
@@ -347,12 +534,62 @@ public final class Matrix {
         int newRow = m1.rows();
         int newCol = m2.columns();
         int common = m2.rows();
-        double[][] data = new double[newRow][newCol];
-        for (int i = 0; i < newRow; i++)
-            for (int j = 0; j < newCol; j++)
-                for (int k = 0; k < common; k++)
-                    data[i][j] += m1.getElement(i, k) * m2.getElement(k, j);
-        return new Matrix(data);
+        double[] data = new double[checkedLength(newRow, newCol)];
+        switch (multiplication) {
+            case NAIVE:
+                // размеры проверены выше, поэтому цикл обращается к массивам напрямую
+                double[] a = m1.data;
+                double[] b = m2.data;
+                for (int i = 0; i < newRow; i++)
+                    for (int j = 0; j < newCol; j++) {
+                        double sum = 0;
+                        for (int k = 0; k < common; k++)
+                            sum += a[i * common + k] * b[k * newCol + j];
+                        data[i * newCol + j] = sum;
+                    }
+                break;
+            case BLOCKED:
+                BlockedMultiplication.multiply(newRow, newCol, common,
+                        m1.data, 0, common, false, m2.data, 0, newCol, false, data, 0, newCol);
+                break;
+            case STRASSEN:
+                StrassenMultiplication.multiply(newRow, newCol, common, m1.data, m2.data, data);
+                break;
+        }
+        return new Matrix(newRow, newCol, data);
+    }
+
+    /**
+     * Статический метод перемножения матриц, каждая из которых может быть
+     * использована в транспонированном виде. Транспонирование не выполняется:
+     * блочный алгоритм читает исходные данные как транспонированное
+     * представление, поэтому, например, <code>A * A^T</code> не требует
+     * создания <code>A^T</code>
+     *
+     * @param m1              первая матрица
+     * @param transposeFirst  использовать первую матрицу транспонированной
+     * @param m2              вторая матрица
+     * @param transposeSecond использовать вторую матрицу транспонированной
+     * @return новая матрица, являющаяся результатом операции
+     * @throws IllegalArgumentException если одна из матриц равна <code>null</code>
+     *                                  или если размеры операндов с учётом
+     *                                  транспонирования не согласованы
+     */
+    public static Matrix matrixMultiply(Matrix m1, boolean transposeFirst,
+                                        Matrix m2, boolean transposeSecond) {
+        if (m1 == null || m2 == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        int newRow = transposeFirst ? m1.columns : m1.rows;
+        int common = transposeFirst ? m1.rows : m1.columns;
+        int newCol = transposeSecond ? m2.rows : m2.columns;
+        if (common != (transposeSecond ? m2.columns : m2.rows))
+            throw new IllegalArgumentException(
+                    "First matrix should have rowNum equal to second matrix colNum.");
+        double[] data = new double[checkedLength(newRow, newCol)];
+        BlockedMultiplication.multiply(newRow, newCol, common,
+                m1.data, 0, m1.columns, transposeFirst,
+                m2.data, 0, m2.columns, transposeSecond, data, 0, newCol);
+        return new Matrix(newRow, newCol, data);
     }
 
     /**
@@ -374,6 +611,134 @@ public final class Matrix {
         return Matrix.matrixMultiply(this, m);
     }
 
+    /**
+     * Умножение матрицы на вектор-столбец: <code>y = A x</code>. В отличие от
+     * {@link #mulMatrix(Matrix)} используется специализированный цикл по
+     * строкам, см. {@link MatrixVector}
+     *
+     * @param x вектор, длина которого равна числу столбцов матрицы
+     * @return новый вектор длины <code>rows</code>
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>,
+     *                                  не является вектором или имеет
+     *                                  неподходящую длину
+     */
+    public Matrix mulVector(Matrix x) {
+        return mulVector(x, false, null);
+    }
+
+    /**
+     * Умножение матрицы на вектор-столбец с записью результата в заданный вектор
+     *
+     * @param x           вектор, длина которого равна числу столбцов матрицы
+     * @param destination вектор длины <code>rows</code>, не совпадающий с <code>x</code>
+     * @return вектор <code>destination</code>
+     * @throws IllegalArgumentException если аргументы равны <code>null</code>,
+     *                                  не являются векторами, имеют
+     *                                  неподходящую длину или совпадают
+     */
+    public Matrix mulVector(Matrix x, Matrix destination) {
+        if (destination == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        return mulVector(x, false, destination);
+    }
+
+    /**
+     * Умножение транспонированной матрицы на вектор-столбец:
+     * <code>y = A^T x</code>. Матрица не транспонируется
+     *
+     * @param x вектор, длина которого равна числу строк матрицы
+     * @return новый вектор длины <code>columns</code>
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>,
+     *                                  не является вектором или имеет
+     *                                  неподходящую длину
+     */
+    public Matrix mulVectorTransposed(Matrix x) {
+        return mulVector(x, true, null);
+    }
+
+    /**
+     * Умножение транспонированной матрицы на вектор-столбец с записью
+     * результата в заданный вектор
+     *
+     * @param x           вектор, длина которого равна числу строк матрицы
+     * @param destination вектор длины <code>columns</code>, не совпадающий с <code>x</code>
+     * @return вектор <code>destination</code>
+     * @throws IllegalArgumentException если аргументы равны <code>null</code>,
+     *                                  не являются векторами, имеют
+     *                                  неподходящую длину или совпадают
+     */
+    public Matrix mulVectorTransposed(Matrix x, Matrix destination) {
+        if (destination == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        return mulVector(x, true, destination);
+    }
+
+    private Matrix mulVector(Matrix x, boolean transpose, Matrix destination) {
+        if (x == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        int length = transpose ? rows : columns;
+        int resultLength = transpose ? columns : rows;
+        if (x.columns != 1 || x.rows != length)
+            throw new IllegalArgumentException(
+                    "Entered vector should have length equal to " +
+                            (transpose ? "base matrix rowNum." : "base matrix colNum."));
+        if (destination == null)
+            destination = new Matrix(resultLength);
+        else if (destination.columns != 1 || destination.rows != resultLength)
+            throw new IllegalArgumentException(
+                    "Destination vector should have length equal to result length.");
+        else if (destination == x)
+            throw new IllegalArgumentException(
+                    "Destination vector shouldn't be the multiplied vector.");
+        MatrixVector.multiply(rows, columns, data, transpose, x.data, destination.data);
+        destination.contentChanged();
+        return destination;
+    }
+
+    /**
+     * Скалярное произведение: сумма произведений соответствующих элементов.
+     * Для векторов - обычное скалярное произведение, для матриц - скалярное
+     * произведение Фробениуса
+     *
+     * @param m матрица того же размера
+     * @return сумма произведений элементов
+     * @throws IllegalArgumentException если матрица равна <code>null</code>
+     *                                  или размеры не совпадают
+     */
+    public double dot(Matrix m) {
+        if (m == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (rows != m.rows || columns != m.columns)
+            throw new IllegalArgumentException("Matrices have different sizes.");
+        return MatrixVector.dot(data.length, data, 0, m.data, 0);
+    }
+
+    /**
+     * @return евклидова норма вектора (для матрицы - норма Фробениуса)
+     */
+    public double norm() {
+        return Math.sqrt(MatrixVector.dot(data.length, data, 0, data, 0));
+    }
+
+    /**
+     * Операция <code>this += alpha * m</code> на месте, без промежуточной матрицы
+     *
+     * @param alpha коэффициент
+     * @param m     матрица того же размера
+     * @return эта же матрица
+     * @throws IllegalArgumentException если матрица равна <code>null</code>
+     *                                  или размеры не совпадают
+     */
+    public Matrix axpyInPlace(double alpha, Matrix m) {
+        if (m == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (rows != m.rows || columns != m.columns)
+            throw new IllegalArgumentException("Matrices have different sizes.");
+        Kernels.ACTIVE.axpy(data.length, alpha, m.data, 0, data, 0);
+        contentChanged();
+        return this;
+    }
+
     /**
      * Статический метод для выполения скалярных операций над матрицами.
      * Включает сложение, вычетание, умножение и деление на скалярное число
@@ -389,33 +754,46 @@ public final class Matrix {
     public static Matrix scalarOperation(Matrix m, double scalar, Operation operation) {
         if (m == null)
             throw new IllegalArgumentException("Expected NotNull arguments.");
-        double[][] data = m.getDataClone();
-        switch (operation) {
-            case SUM:
-                for (int i = 0; i < data.length; i++)
-                    for (int j = 0; j < data[0].length; j++)
-                        data[i][j] += scalar;
-                break;
-            case SUBTRACT:
-                for (int i = 0; i < data.length; i++)
-                    for (int j = 0; j < data[0].length; j++)
-                        data[i][j] -= scalar;
-                break;
-            case MULTIPLY:
-                for (int i = 0; i < data.length; i++)
-                    for (int j = 0; j < data[0].length; j++)
-                        data[i][j] *= scalar;
-                break;
-            case DIVIDE:
-                if (scalar == 0)
-                    throw new IllegalArgumentException(
-                            "Scalar shouldn't be a zero for division operation");
-                for (int i = 0; i < data.length; i++)
-                    for (int j = 0; j < data[0].length; j++)
-                        data[i][j] /= scalar;
-                break;
-        }
-        return new Matrix(data);
+        double[] data = new double[m.data.length];
+        scalar(m.data, scalar, data, operation);
+        return new Matrix(m.rows, m.columns, data);
+    }
+
+    /**
+     * Скалярные операции над матрицей с записью результата в заданную матрицу.
+     * Матрица-приёмник может совпадать с исходной, тогда операция выполняется
+     * на месте. Новых объектов не создаётся
+     *
+     * @param m           Матрица
+     * @param scalar      Скалярное число
+     * @param operation   Одна из четырех доступных операций
+     * @param destination матрица того же размера для записи результата
+     * @return матрица <code>destination</code>
+     * @throws IllegalArgumentException если одна из матриц равна <code>null</code>,
+     *                                  если размеры приёмника не совпадают
+     *                                  с исходной или скаляр равен нулю и выбрано
+     *                                  деление
+     */
+    public static Matrix scalarOperation(Matrix m, double scalar, Operation operation,
+                                         Matrix destination) {
+        if (m == null || destination == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        checkDestination(m, destination);
+        scalar(m.data, scalar, destination.data, operation);
+        destination.contentChanged();
+        return destination;
+    }
+
+    /**
+     * Скалярная операция над массивом. Массив результата может совпадать
+     * с исходным
+     */
+    private static void scalar(double[] a, double scalar, double[] result,
+                               Operation operation) {
+        if (operation == Operation.DIVIDE && scalar == 0)
+            throw new IllegalArgumentException(
+                    "Scalar shouldn't be a zero for division operation");
+        Kernels.ACTIVE.scalar(operation, a, 0, scalar, result, 0, result.length);
     }
 
     /**
@@ -428,6 +806,27 @@ public final class Matrix {
         return Matrix.scalarOperation(this, scalar, Operation.SUM);
     }
 
+    /**
+     * Нестатический метод сложения матрицы со скалярным числом с записью результата в заданную матрицу
+     *
+     * @param scalar      скалярное число
+     * @param destination матрица для записи результата
+     * @return матрица <code>destination</code>
+     */
+    public Matrix addScalar(double scalar, Matrix destination) {
+        return Matrix.scalarOperation(this, scalar, Operation.SUM, destination);
+    }
+
+    /**
+     * Сложение со скалярным числом на месте: результат записывается в вызывающую матрицу
+     *
+     * @param scalar скалярное число
+     * @return эта же матрица
+     */
+    public Matrix addScalarInPlace(double scalar) {
+        return Matrix.scalarOperation(this, scalar, Operation.SUM, this);
+    }
+
     /**
      * Нестатический метод вычитания из матрицы скалярного числа
      *
@@ -438,6 +837,27 @@ public final class Matrix {
         return Matrix.scalarOperation(this, scalar, Operation.SUBTRACT);
     }
 
+    /**
+     * Нестатический метод вычитания из матрицы скалярного числа с записью результата в заданную матрицу
+     *
+     * @param scalar      скалярное число
+     * @param destination матрица для записи результата
+     * @return матрица <code>destination</code>
+     */
+    public Matrix subScalar(double scalar, Matrix destination) {
+        return Matrix.scalarOperation(this, scalar, Operation.SUBTRACT, destination);
+    }
+
+    /**
+     * Вычитание скалярного числа на месте: результат записывается в вызывающую матрицу
+     *
+     * @param scalar скалярное число
+     * @return эта же матрица
+     */
+    public Matrix subScalarInPlace(double scalar) {
+        return Matrix.scalarOperation(this, scalar, Operation.SUBTRACT, this);
+    }
+
     /**
      * Нестатический метод умножения матрицы на скалярное число
      *
@@ -448,6 +868,27 @@ public final class Matrix {
         return Matrix.scalarOperation(this, scalar, Operation.MULTIPLY);
     }
 
+    /**
+     * Нестатический метод умножения матрицы на скалярное число с записью результата в заданную матрицу
+     *
+     * @param scalar      скалярное число
+     * @param destination матрица для записи результата
+     * @return матрица <code>destination</code>
+     */
+    public Matrix mulScalar(double scalar, Matrix destination) {
+        return Matrix.scalarOperation(this, scalar, Operation.MULTIPLY, destination);
+    }
+
+    /**
+     * Умножение на скалярное число на месте: результат записывается в вызывающую матрицу
+     *
+     * @param scalar скалярное число
+     * @return эта же матрица
+     */
+    public Matrix mulScalarInPlace(double scalar) {
+        return Matrix.scalarOperation(this, scalar, Operation.MULTIPLY, this);
+    }
+
     /**
      * Нестатический метод деления матрицы на скалярное число
      *
@@ -458,6 +899,38 @@ public final class Matrix {
         return Matrix.scalarOperation(this, scalar, Operation.DIVIDE);
     }
 
+    /**
+     * Нестатический метод деления матрицы на скалярное число с записью результата в заданную матрицу
+     *
+     * @param scalar      скалярное число
+     * @param destination матрица для записи результата
+     * @return матрица <code>destination</code>
+     */
+    public Matrix divScalar(double scalar, Matrix destination) {
+        return Matrix.scalarOperation(this, scalar, Operation.DIVIDE, destination);
+    }
+
+    /**
+     * Деление на скалярное число на месте: результат записывается в вызывающую матрицу
+     *
+     * @param scalar скалярное число
+     * @return эта же матрица
+     */
+    public Matrix divScalarInPlace(double scalar) {
+        return Matrix.scalarOperation(this, scalar, Operation.DIVIDE, this);
+    }
+
+    /**
+     * Начинает отложенное выражение над матрицей, см. {@link MatrixExpression}.
+     * Цепочка <code>a.lazy().addMatrix(b).mulScalar(2).subMatrix(c).evaluate()</code>
+     * вычисляется за один проход без промежуточных матриц
+     *
+     * @return выражение, состоящее из этой матрицы
+     */
+    public MatrixExpression lazy() {
+        return MatrixExpression.of(this);
+    }
+
     /**
      * Сравнивает матрицу на идентичность с заданным объектом. Результатом
      * будет <code>true</code> тогда и только тогда, когда когда аргументом
@@ -476,31 +949,215 @@ public final class Matrix {
         if (anObject instanceof Matrix) {
             Matrix matrix = (Matrix) anObject;
             if (this.rows == matrix.rows && this.columns == matrix.columns) {
-                for (int i = 0; i < rows; i++)
-                    for (int j = 0; j < columns; j++)
-                        if (Math.abs(this.data[i][j] - matrix.data[i][j]) > equalsDelta)
-                            return false;
-                return true;
+                // при точном сравнении разные отпечатки исключают равенство,
+                // если нет NaN, которые сравнение считает равными всему
+                if (equalsDelta == 0 && contentHashValid && matrix.contentHashValid
+                        && contentNaNs == 0 && matrix.contentNaNs == 0
+                        && contentHash != matrix.contentHash)
+                    return false;
+                return Kernels.ACTIVE.equalsDelta(this.data, matrix.data, data.length, equalsDelta);
             }
         }
         return false;
     }
 
+    /**
+     * Хэш-код, согласованный с {@link #equals(Object)}. При нулевой
+     * {@link #equalsDelta()} совпадает со свёрткой {@link #fingerprint()};
+     * при ненулевой сравнение неточное и хэш-код зависит только от размеров.
+     * Поэтому <code>equalsDelta</code> не следует менять, пока матрицы
+     * используются как ключи хэш-таблиц. Для матриц с <code>NaN</code>
+     * согласованность не гарантируется: сравнение считает <code>NaN</code>
+     * равным любому значению
+     *
+     * @return хэш-код матрицы
+     */
+    @Override
+    public int hashCode() {
+        if (equalsDelta != 0)
+            return 31 * rows + columns;
+        long fingerprint = fingerprint();
+        return (int) (fingerprint ^ (fingerprint >>> 32));
+    }
+
+    /**
+     * 64-битный отпечаток содержимого: матрицы с одинаковыми размерами и
+     * значениями имеют одинаковый отпечаток (<code>0.0</code> и
+     * <code>-0.0</code> не различаются), разные - с вероятностью коллизии
+     * порядка <code>2^-64</code>. Отпечаток - сумма хэшей отдельных
+     * элементов, поэтому {@link #setElement(int, int, double)} обновляет его
+     * за O(1). Первый вызов после создания матрицы или групповой операции,
+     * изменившей её на месте, просматривает все элементы
+     *
+     * @return отпечаток содержимого матрицы
+     */
+    public long fingerprint() {
+        if (!contentHashValid) {
+            long sum = 0;
+            int nans = 0;
+            for (int i = 0; i < data.length; i++) {
+                double value = data[i];
+                sum += elementHash(i, value);
+                if (value != value)
+                    nans++;
+            }
+            contentHash = sum;
+            contentNaNs = nans;
+            contentHashValid = true;
+        }
+        return mix(contentHash + mix(((long) rows << 32) | columns));
+    }
+
+    /**
+     * Отмечает, что значения изменены в обход {@link #setElement(int, int, double)}
+     * и отпечаток нужно пересчитать
+     */
+    void contentChanged() {
+        contentHashValid = false;
+    }
+
+    private void updateContentHash(int index, double oldValue, double newValue) {
+        contentHash += elementHash(index, newValue) - elementHash(index, oldValue);
+        if (oldValue != oldValue)
+            contentNaNs--;
+        if (newValue != newValue)
+            contentNaNs++;
+    }
+
+    /**
+     * Хэш элемента с учётом его позиции. Нулевые элементы дают <code>0</code>
+     */
+    static long elementHash(long index, double value) {
+        if (value == 0)
+            return 0;
+        return mix(Double.doubleToLongBits(value) ^ (index * 0x9E3779B97F4A7C15L));
+    }
+
+    /**
+     * Финальное перемешивание MurmurHash3
+     */
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
     /**
      * Возвращает новую матрицу, транспонированную относительно исходной.
+     * Используется кэш-независимый рекурсивный алгоритм, большие матрицы
+     * транспонируются параллельно, см. {@link Transposition}
      *
      * @return новый экземпляр <code>Matrix</code>, являющийся транспонированной
      * относительно исходной
      */
     public Matrix transpose() {
-        int newRows = this.columns;
-        int newColumns = this.rows;
-        double[][] resData = new double[newRows][newColumns];
-        for (int i = 0; i < newRows; ++i) {
-            for (int j = 0; j < newColumns; ++j) {
-                resData[i][j] = this.data[j][i];
-            }
-        }
-        return new Matrix(resData);
+        double[] resData = new double[data.length];
+        Transposition.transpose(data, rows, columns, resData);
+        return new Matrix(columns, rows, resData);
+    }
+
+    /**
+     * Транспонирование с записью результата в заданную матрицу. Если приёмник
+     * совпадает с вызывающей квадратной матрицей, транспонирование выполняется
+     * на месте
+     *
+     * @param destination матрица размера <code>columns x rows</code>
+     * @return матрица <code>destination</code>
+     * @throws IllegalArgumentException если приёмник равен <code>null</code>
+     *                                  или имеет неподходящий размер
+     */
+    public Matrix transpose(Matrix destination) {
+        if (destination == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (destination.rows != columns || destination.columns != rows)
+            throw new IllegalArgumentException(
+                    "Destination matrix should have sizes of transposed matrix.");
+        if (destination == this)
+            return transposeInPlace();
+        Transposition.transpose(data, rows, columns, destination.data);
+        destination.contentChanged();
+        return destination;
+    }
+
+    /**
+     * Транспонирование квадратной матрицы на месте, без выделения памяти
+     *
+     * @return эта же матрица
+     * @throws IllegalStateException при вызове от неквадратной матрицы
+     */
+    public Matrix transposeInPlace() {
+        if (rows != columns)
+            throw new IllegalStateException("Method only defined for square matrices");
+        Transposition.transposeSquare(data, rows);
+        contentChanged();
+        return this;
+    }
+
+    /**
+     * LU-разложение матрицы с частичным выбором ведущего элемента, см.
+     * {@link LUDecomposition}. Для нескольких систем с одной матрицей
+     * разложение лучше выполнить один раз и переиспользовать
+     *
+     * @return разложение матрицы
+     * @throws IllegalStateException при вызове от неквадратной матрицы
+     */
+    public LUDecomposition lu() {
+        return LUDecomposition.of(this);
+    }
+
+    /**
+     * Решение системы <code>A X = B</code>, где <code>A</code> - вызывающая
+     * матрица. Правой частью может быть вектор, созданный конструктором
+     * {@link #Matrix(int)}, или матрица из нескольких правых частей
+     *
+     * @param b матрица правых частей, число строк которой равно размеру матрицы
+     * @return новая матрица решений того же размера, что и <code>b</code>
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     *                                  или имеет неподходящее число строк
+     * @throws IllegalStateException    если матрица не квадратная или вырождена
+     */
+    public Matrix solve(Matrix b) {
+        return lu().solve(b);
+    }
+
+    /**
+     * @return определитель матрицы
+     * @throws IllegalStateException при вызове от неквадратной матрицы
+     */
+    public double determinant() {
+        return lu().determinant();
+    }
+
+    /**
+     * @return новая матрица, обратная исходной
+     * @throws IllegalStateException если матрица не квадратная или вырождена
+     */
+    public Matrix inverse() {
+        return lu().inverse();
+    }
+
+    /**
+     * Разложение Холецкого симметричной положительно определённой матрицы,
+     * см. {@link CholeskyDecomposition}
+     *
+     * @return разложение матрицы
+     * @throws IllegalStateException если матрица не квадратная или не
+     *                               является положительно определённой
+     */
+    public CholeskyDecomposition cholesky() {
+        return CholeskyDecomposition.of(this);
+    }
+
+    /**
+     * QR-разложение отражениями Хаусхолдера, см. {@link QRDecomposition}
+     *
+     * @return разложение матрицы
+     * @throws IllegalStateException если строк меньше, чем столбцов
+     */
+    public QRDecomposition qr() {
+        return QRDecomposition.of(this);
     }
 }
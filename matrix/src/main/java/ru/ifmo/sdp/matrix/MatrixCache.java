@@ -0,0 +1,250 @@
+package ru.ifmo.sdp.matrix;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Кэш результатов перемножения, транспонирования и разложений матриц.
+ * Ключ - операция и отпечатки операндов {@link Matrix#fingerprint()},
+ * поэтому повторный запрос с матрицей того же содержимого (не обязательно
+ * тем же объектом) не выполняет вычислений. Отпечаток изменённой матрицы
+ * меняется, и старый результат для неё больше не находится.
+ * <p>
+ * Размер кэша ограничен суммарным объёмом хранимых результатов в байтах;
+ * при переполнении вытесняются давно не использованные (LRU). Результат,
+ * который больше всего кэша, не сохраняется.
+ * <p>
+ * Матрицы-результаты изменяемы, поэтому кэш хранит свою копию и каждый раз
+ * возвращает новую: копирование линейно по размеру результата и дешевле
+ * перемножения. Разложения неизменяемы и возвращаются без копирования.
+ * <p>
+ * Совпадение отпечатков разных матриц (вероятность порядка
+ * <code>2^-64</code> на пару) не обнаруживается. Методы потокобезопасны;
+ * вычисление выполняется вне блокировки, поэтому одновременные промахи по
+ * одному ключу могут вычислить результат несколько раз.
+ */
+public final class MatrixCache {
+    private static final int MULTIPLY = 0;
+    private static final int TRANSPOSE = 1;
+    private static final int LU = 2;
+    private static final int CHOLESKY = 3;
+    private static final int QR = 4;
+
+    private final long capacity;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param capacity наибольший суммарный объём результатов в байтах
+     * @throws IllegalArgumentException если аргумент меньше <code>1</code>
+     */
+    public MatrixCache(long capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Expected positive value");
+        this.capacity = capacity;
+    }
+
+    /**
+     * Перемножение матриц текущим алгоритмом {@link Matrix#multiplication()}
+     *
+     * @see Matrix#matrixMultiply(Matrix, Matrix)
+     */
+    public Matrix matrixMultiply(Matrix m1, Matrix m2) {
+        if (m1 == null || m2 == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        Matrix.Multiplication multiplication = Matrix.multiplication();
+        Key key = new Key(MULTIPLY, multiplication.ordinal(), m1.fingerprint(), m2.fingerprint());
+        Object cached = get(key);
+        if (cached != null)
+            return new Matrix((Matrix) cached);
+        Matrix result = Matrix.matrixMultiply(m1, m2, multiplication);
+        put(key, new Matrix(result), matrixBytes(result));
+        return result;
+    }
+
+    /**
+     * @see Matrix#transpose()
+     */
+    public Matrix transpose(Matrix m) {
+        if (m == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        Key key = new Key(TRANSPOSE, 0, m.fingerprint(), 0);
+        Object cached = get(key);
+        if (cached != null)
+            return new Matrix((Matrix) cached);
+        Matrix result = m.transpose();
+        put(key, new Matrix(result), matrixBytes(result));
+        return result;
+    }
+
+    /**
+     * @see LUDecomposition#of(Matrix)
+     */
+    public LUDecomposition lu(Matrix m) {
+        if (m == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        Key key = new Key(LU, 0, m.fingerprint(), 0);
+        Object cached = get(key);
+        if (cached != null)
+            return (LUDecomposition) cached;
+        LUDecomposition result = LUDecomposition.of(m);
+        put(key, result, matrixBytes(m) + 4L * m.rows());
+        return result;
+    }
+
+    /**
+     * @see CholeskyDecomposition#of(Matrix)
+     */
+    public CholeskyDecomposition cholesky(Matrix m) {
+        if (m == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        Key key = new Key(CHOLESKY, 0, m.fingerprint(), 0);
+        Object cached = get(key);
+        if (cached != null)
+            return (CholeskyDecomposition) cached;
+        CholeskyDecomposition result = CholeskyDecomposition.of(m);
+        put(key, result, matrixBytes(m));
+        return result;
+    }
+
+    /**
+     * @see QRDecomposition#of(Matrix)
+     */
+    public QRDecomposition qr(Matrix m) {
+        if (m == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        Key key = new Key(QR, 0, m.fingerprint(), 0);
+        Object cached = get(key);
+        if (cached != null)
+            return (QRDecomposition) cached;
+        QRDecomposition result = QRDecomposition.of(m);
+        put(key, result, matrixBytes(m) + 8L * m.columns());
+        return result;
+    }
+
+    /**
+     * @return наибольший суммарный объём результатов в байтах
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return текущий суммарный объём результатов в байтах
+     */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    /**
+     * @return число хранимых результатов
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return число запросов, выполненных без вычислений
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * @return число запросов, потребовавших вычислений
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * @return число результатов, вытесненных из-за нехватки места
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Удаляет все результаты. Счётчики запросов не сбрасываются
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    private synchronized Object get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    private synchronized void put(Key key, Object value, long size) {
+        if (size > capacity)
+            return;
+        Entry previous = entries.put(key, new Entry(value, size));
+        if (previous != null)
+            bytes -= previous.bytes;
+        bytes += size;
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > capacity) {
+            Entry evicted = eldest.next().getValue();
+            eldest.remove();
+            bytes -= evicted.bytes;
+            evictions++;
+        }
+    }
+
+    /**
+     * Оценка объёма значений матрицы без учёта заголовков объектов
+     */
+    private static long matrixBytes(Matrix m) {
+        return 8L * m.rows() * m.columns();
+    }
+
+    private static final class Key {
+        private final int operation;
+        private final int variant;      // алгоритм перемножения
+        private final long first;
+        private final long second;
+
+        Key(int operation, int variant, long first, long second) {
+            this.operation = operation;
+            this.variant = variant;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean equals(Object anObject) {
+            if (!(anObject instanceof Key))
+                return false;
+            Key key = (Key) anObject;
+            return operation == key.operation && variant == key.variant
+                    && first == key.first && second == key.second;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = first * 31 + second;
+            return (int) (h ^ (h >>> 32)) * 31 + operation * 7 + variant;
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long bytes;
+
+        Entry(Object value, long bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+}
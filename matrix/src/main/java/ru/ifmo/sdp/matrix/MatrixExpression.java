@@ -0,0 +1,438 @@
+package ru.ifmo.sdp.matrix;
+
+/**
+ * Отложенное (ленивое) выражение над матрицами. Поэлементные и скалярные
+ * операции из {@link Matrix.Operation} не выполняются сразу, а записываются
+ * в дерево. При вычислении дерево обходится за один проход по элементам:
+ * значения считаются участками по {@link #CHUNK_SIZE} элементов, которые
+ * помещаются в кэш, и промежуточные матрицы не создаются.
+ * <p>
+ * Перемножение матриц является барьером: его операнды вычисляются полностью,
+ * произведение считается один раз перед основным проходом.
+ * <p>
+ * Листья выражения ссылаются на исходные матрицы без копирования, поэтому
+ * результат зависит от их значений на момент вычисления, а не построения.
+ */
+public abstract class MatrixExpression {
+    /**
+     * Число элементов, обрабатываемых за один шаг прохода. 1024
+     * <code>double</code> - 8 Кб на каждый уровень дерева
+     */
+    static final int CHUNK_SIZE = 1024;
+
+    final int rows;     // число строк результата
+    final int columns;  // число столбцов результата
+    final int depth;    // высота дерева, определяет число буферов при вычислении
+
+    private MatrixExpression(int rows, int columns, int depth) {
+        this.rows = rows;
+        this.columns = columns;
+        this.depth = depth;
+    }
+
+    /**
+     * Выражение, состоящее из одной матрицы
+     *
+     * @param m исходная матрица. Не копируется
+     * @return новое выражение
+     * @throws IllegalArgumentException если матрица равна <code>null</code>
+     */
+    public static MatrixExpression of(Matrix m) {
+        if (m == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        return new Leaf(m);
+    }
+
+    /**
+     * @return количество строк результата выражения
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * @return количество столбцов результата выражения
+     */
+    public int columns() {
+        return columns;
+    }
+
+    /**
+     * Отложенная поэлементная операция
+     *
+     * @param other     второй операнд, совпадающий по размерам с текущим
+     * @param operation одна из четырех доступных операций
+     * @return новое выражение
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     *                                  или размеры операндов не совпадают
+     */
+    public MatrixExpression elementWise(MatrixExpression other, Matrix.Operation operation) {
+        if (other == null || operation == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        if (rows != other.rows || columns != other.columns)
+            throw new IllegalArgumentException("Matrices have different sizes.");
+        return new ElementWise(this, other, operation);
+    }
+
+    /**
+     * Отложенная поэлементная операция с матрицей
+     *
+     * @see #elementWise(MatrixExpression, Matrix.Operation)
+     */
+    public MatrixExpression elementWise(Matrix other, Matrix.Operation operation) {
+        return elementWise(of(other), operation);
+    }
+
+    /**
+     * Отложенная скалярная операция
+     *
+     * @param scalar    скалярное число
+     * @param operation одна из четырех доступных операций
+     * @return новое выражение
+     * @throws IllegalArgumentException если операция не задана или скаляр
+     *                                  равен нулю и выбрано деление
+     */
+    public MatrixExpression scalar(double scalar, Matrix.Operation operation) {
+        if (operation == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (operation == Matrix.Operation.DIVIDE && scalar == 0)
+            throw new IllegalArgumentException(
+                    "Scalar shouldn't be a zero for division operation");
+        return new Scalar(this, scalar, operation);
+    }
+
+    /**
+     * Отложенное сложение с матрицей
+     *
+     * @see #elementWise(Matrix, Matrix.Operation)
+     */
+    public MatrixExpression addMatrix(Matrix m) {
+        return elementWise(m, Matrix.Operation.SUM);
+    }
+
+    /**
+     * Отложенное сложение с выражением
+     *
+     * @see #elementWise(MatrixExpression, Matrix.Operation)
+     */
+    public MatrixExpression addMatrix(MatrixExpression e) {
+        return elementWise(e, Matrix.Operation.SUM);
+    }
+
+    /**
+     * Отложенное вычитание матрицы
+     *
+     * @see #elementWise(Matrix, Matrix.Operation)
+     */
+    public MatrixExpression subMatrix(Matrix m) {
+        return elementWise(m, Matrix.Operation.SUBTRACT);
+    }
+
+    /**
+     * Отложенное вычитание выражения
+     *
+     * @see #elementWise(MatrixExpression, Matrix.Operation)
+     */
+    public MatrixExpression subMatrix(MatrixExpression e) {
+        return elementWise(e, Matrix.Operation.SUBTRACT);
+    }
+
+    /**
+     * Отложенное поэлементное умножение на матрицу
+     *
+     * @see #elementWise(Matrix, Matrix.Operation)
+     */
+    public MatrixExpression mulMatrixElementWise(Matrix m) {
+        return elementWise(m, Matrix.Operation.MULTIPLY);
+    }
+
+    /**
+     * Отложенное поэлементное умножение на выражение
+     *
+     * @see #elementWise(MatrixExpression, Matrix.Operation)
+     */
+    public MatrixExpression mulMatrixElementWise(MatrixExpression e) {
+        return elementWise(e, Matrix.Operation.MULTIPLY);
+    }
+
+    /**
+     * Отложенное поэлементное деление на матрицу
+     *
+     * @see #elementWise(Matrix, Matrix.Operation)
+     */
+    public MatrixExpression divMatrixElementWise(Matrix m) {
+        return elementWise(m, Matrix.Operation.DIVIDE);
+    }
+
+    /**
+     * Отложенное поэлементное деление на выражение
+     *
+     * @see #elementWise(MatrixExpression, Matrix.Operation)
+     */
+    public MatrixExpression divMatrixElementWise(MatrixExpression e) {
+        return elementWise(e, Matrix.Operation.DIVIDE);
+    }
+
+    /**
+     * Отложенное сложение со скалярным числом
+     *
+     * @see #scalar(double, Matrix.Operation)
+     */
+    public MatrixExpression addScalar(double scalar) {
+        return scalar(scalar, Matrix.Operation.SUM);
+    }
+
+    /**
+     * Отложенное вычитание скалярного числа
+     *
+     * @see #scalar(double, Matrix.Operation)
+     */
+    public MatrixExpression subScalar(double scalar) {
+        return scalar(scalar, Matrix.Operation.SUBTRACT);
+    }
+
+    /**
+     * Отложенное умножение на скалярное число
+     *
+     * @see #scalar(double, Matrix.Operation)
+     */
+    public MatrixExpression mulScalar(double scalar) {
+        return scalar(scalar, Matrix.Operation.MULTIPLY);
+    }
+
+    /**
+     * Отложенное деление на скалярное число
+     *
+     * @see #scalar(double, Matrix.Operation)
+     */
+    public MatrixExpression divScalar(double scalar) {
+        return scalar(scalar, Matrix.Operation.DIVIDE);
+    }
+
+    /**
+     * Отложенное перемножение матриц. Является барьером: операнды вычисляются
+     * полностью, после чего произведение используется как обычная матрица
+     *
+     * @param other второй операнд, число строк которого совпадает с числом
+     *              столбцов текущего
+     * @return новое выражение
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     *                                  или размеры операндов не согласованы
+     */
+    public MatrixExpression mulMatrix(MatrixExpression other) {
+        if (other == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (columns != other.rows)
+            throw new IllegalArgumentException(
+                    "Entered matrix should have rowNum equal to base matrix colNum.");
+        return new Product(this, other);
+    }
+
+    /**
+     * @see #mulMatrix(MatrixExpression)
+     */
+    public MatrixExpression mulMatrix(Matrix m) {
+        return mulMatrix(of(m));
+    }
+
+    /**
+     * Вычисляет выражение в новую матрицу
+     *
+     * @return новая матрица, являющаяся результатом выражения
+     * @throws IllegalArgumentException если при поэлементном делении
+     *                                  встретился нулевой делитель
+     */
+    public Matrix evaluate() {
+        return evaluate(new Matrix(rows, columns));
+    }
+
+    /**
+     * Вычисляет выражение, записывая результат в заданную матрицу. Приёмник
+     * может быть одним из листьев выражения: каждый участок результата зависит
+     * только от тех же элементов операндов
+     *
+     * @param destination матрица того же размера для записи результата
+     * @return матрица <code>destination</code>
+     * @throws IllegalArgumentException если приёмник равен <code>null</code>,
+     *                                  не совпадает по размерам или при
+     *                                  поэлементном делении встретился нулевой
+     *                                  делитель. В последнем случае часть
+     *                                  приёмника может быть уже перезаписана
+     */
+    public Matrix evaluate(Matrix destination) {
+        if (destination == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (destination.rows() != rows || destination.columns() != columns)
+            throw new IllegalArgumentException(
+                    "Destination matrix should have the same sizes as operands.");
+        MatrixExpression prepared = prepare();
+        double[] result = destination.data;
+        double[] out = new double[Math.min(CHUNK_SIZE, result.length)];
+        double[][] buffers = new double[prepared.depth][out.length];
+        for (int from = 0; from < result.length; from += CHUNK_SIZE) {
+            int length = Math.min(CHUNK_SIZE, result.length - from);
+            prepared.fill(from, length, out, buffers);
+            System.arraycopy(out, 0, result, from, length);
+        }
+        destination.contentChanged();
+        return destination;
+    }
+
+    /**
+     * @return матрица со значением выражения. Для листа возвращается исходная
+     * матрица без копирования
+     */
+    Matrix materialize() {
+        return evaluate();
+    }
+
+    /**
+     * @return эквивалентное выражение, в котором все барьеры заменены
+     * вычисленными матрицами
+     */
+    abstract MatrixExpression prepare();
+
+    /**
+     * Вычисляет участок значений выражения в построчной нумерации элементов
+     *
+     * @param from    номер первого элемента участка
+     * @param length  число элементов участка
+     * @param out     массив для записи значений, начиная с нулевого индекса
+     * @param buffers рабочие буферы; узел высоты <code>d</code> пользуется
+     *                буфером <code>d - 1</code>, потомки - буферами с меньшими
+     *                номерами
+     */
+    abstract void fill(int from, int length, double[] out, double[][] buffers);
+
+    /**
+     * Лист выражения - исходная матрица
+     */
+    private static final class Leaf extends MatrixExpression {
+        private final Matrix matrix;
+
+        Leaf(Matrix matrix) {
+            super(matrix.rows(), matrix.columns(), 0);
+            this.matrix = matrix;
+        }
+
+        @Override
+        Matrix materialize() {
+            return matrix;
+        }
+
+        @Override
+        MatrixExpression prepare() {
+            return this;
+        }
+
+        @Override
+        void fill(int from, int length, double[] out, double[][] buffers) {
+            System.arraycopy(matrix.data, from, out, 0, length);
+        }
+    }
+
+    /**
+     * Поэлементная операция над двумя выражениями
+     */
+    private static final class ElementWise extends MatrixExpression {
+        private final MatrixExpression left;
+        private final MatrixExpression right;
+        private final Matrix.Operation operation;
+
+        ElementWise(MatrixExpression left, MatrixExpression right, Matrix.Operation operation) {
+            super(left.rows, left.columns, Math.max(left.depth, right.depth) + 1);
+            this.left = left;
+            this.right = right;
+            this.operation = operation;
+        }
+
+        @Override
+        MatrixExpression prepare() {
+            MatrixExpression preparedLeft = left.prepare();
+            MatrixExpression preparedRight = right.prepare();
+            if (preparedLeft == left && preparedRight == right)
+                return this;
+            return new ElementWise(preparedLeft, preparedRight, operation);
+        }
+
+        @Override
+        void fill(int from, int length, double[] out, double[][] buffers) {
+            left.fill(from, length, out, buffers);
+            // правый лист читается напрямую, без копирования в буфер
+            double[] b;
+            int offset;
+            if (right instanceof Leaf) {
+                b = ((Leaf) right).matrix.data;
+                offset = from;
+            } else {
+                b = buffers[depth - 1];
+                offset = 0;
+                right.fill(from, length, b, buffers);
+            }
+            if (operation == Matrix.Operation.DIVIDE)
+                for (int i = 0; i < length; i++)
+                    if (b[offset + i] == 0)
+                        throw new IllegalArgumentException(
+                                "Second matrix shouldn't contain zero elements" +
+                                        " for division operation");
+            Kernels.ACTIVE.elementWise(operation, out, 0, b, offset, out, 0, length);
+        }
+    }
+
+    /**
+     * Скалярная операция над выражением
+     */
+    private static final class Scalar extends MatrixExpression {
+        private final MatrixExpression operand;
+        private final double scalar;
+        private final Matrix.Operation operation;
+
+        Scalar(MatrixExpression operand, double scalar, Matrix.Operation operation) {
+            super(operand.rows, operand.columns, operand.depth + 1);
+            this.operand = operand;
+            this.scalar = scalar;
+            this.operation = operation;
+        }
+
+        @Override
+        MatrixExpression prepare() {
+            MatrixExpression prepared = operand.prepare();
+            return prepared == operand ? this : new Scalar(prepared, scalar, operation);
+        }
+
+        @Override
+        void fill(int from, int length, double[] out, double[][] buffers) {
+            operand.fill(from, length, out, buffers);
+            Kernels.ACTIVE.scalar(operation, out, 0, scalar, out, 0, length);
+        }
+    }
+
+    /**
+     * Перемножение матриц - барьер выражения
+     */
+    private static final class Product extends MatrixExpression {
+        private final MatrixExpression left;
+        private final MatrixExpression right;
+
+        Product(MatrixExpression left, MatrixExpression right) {
+            super(left.rows, right.columns, 0);
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        MatrixExpression prepare() {
+            return new Leaf(materialize());
+        }
+
+        @Override
+        Matrix materialize() {
+            return Matrix.matrixMultiply(left.materialize(), right.materialize());
+        }
+
+        @Override
+        void fill(int from, int length, double[] out, double[][] buffers) {
+            throw new IllegalStateException("Product should be prepared before evaluation");
+        }
+    }
+}
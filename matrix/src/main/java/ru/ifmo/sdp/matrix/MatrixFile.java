@@ -0,0 +1,497 @@
+package ru.ifmo.sdp.matrix;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Двоичный формат хранения матриц. Файл состоит из заголовка длиной
+ * {@link #HEADER_SIZE} байт и следующих за ним значений без разделителей.
+ * Все числа записываются в порядке little-endian. Заголовок:
+ * <pre>
+ *  0  int   сигнатура "SDPM"
+ *  4  short версия формата, {@link #VERSION}
+ *  6  byte  тип значений, {@link DataType}
+ *  7  byte  порядок значений, {@link Layout}
+ *  8  int   число строк
+ * 12  int   число столбцов
+ * 16  -     зарезервировано, нули
+ * </pre>
+ * Размер заголовка кратен восьми, поэтому значения в отображённом файле
+ * выровнены и читаются без копирования через {@link #map(Path, Access)}
+ */
+public final class MatrixFile {
+    public static final int HEADER_SIZE = 32;
+    public static final short VERSION = 1;
+    static final int MAGIC = 'S' | 'D' << 8 | 'P' << 16 | 'M' << 24;
+    private static final int CHUNK_SIZE = 64 * 1024;   // байт на одну операцию ввода-вывода
+
+    /**
+     * Тип хранимых значений
+     */
+    public enum DataType {
+        FLOAT64(8), FLOAT32(4);
+
+        private final int size;
+
+        DataType(int size) {
+            this.size = size;
+        }
+
+        /**
+         * @return размер одного значения в байтах
+         */
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Порядок хранения значений
+     */
+    public enum Layout {
+        ROW_MAJOR, COLUMN_MAJOR
+    }
+
+    /**
+     * Режим доступа к отображённому файлу
+     */
+    public enum Access {
+        /**
+         * Только чтение, запись приводит к <code>IllegalStateException</code>
+         */
+        READ_ONLY,
+        /**
+         * Копирование при записи: изменения видны только этому экземпляру
+         * и не попадают в файл. Отображение в этом режиме требует права на
+         * запись в файл, хотя файл не изменяется; файл, доступный только
+         * для чтения, следует отобразить в режиме {@link #READ_ONLY} и
+         * скопировать в кучу
+         */
+        COPY_ON_WRITE
+    }
+
+    /**
+     * Заголовок файла
+     */
+    public static final class Header {
+        private final int rows;
+        private final int columns;
+        private final DataType dataType;
+        private final Layout layout;
+
+        Header(int rows, int columns, DataType dataType, Layout layout) {
+            this.rows = rows;
+            this.columns = columns;
+            this.dataType = dataType;
+            this.layout = layout;
+        }
+
+        public int rows() {
+            return rows;
+        }
+
+        public int columns() {
+            return columns;
+        }
+
+        public DataType dataType() {
+            return dataType;
+        }
+
+        public Layout layout() {
+            return layout;
+        }
+
+        /**
+         * @return число значений в файле
+         */
+        public long elements() {
+            return (long) rows * columns;
+        }
+
+        /**
+         * @return ожидаемый размер файла в байтах
+         */
+        public long fileSize() {
+            return HEADER_SIZE + elements() * dataType.size();
+        }
+    }
+
+    private MatrixFile() {
+    }
+
+    /**
+     * Запись матрицы построчно с двойной точностью
+     *
+     * @param matrix матрица для записи
+     * @param path   путь к файлу. Существующий файл перезаписывается
+     * @throws IllegalArgumentException если один из аргументов равен <code>null</code>
+     * @throws IOException              при ошибке ввода-вывода
+     */
+    public static void write(Matrix matrix, Path path) throws IOException {
+        write(matrix, path, Layout.ROW_MAJOR);
+    }
+
+    /**
+     * Запись матрицы с двойной точностью в заданном порядке
+     *
+     * @param matrix матрица для записи
+     * @param path   путь к файлу. Существующий файл перезаписывается
+     * @param layout порядок значений в файле
+     * @throws IllegalArgumentException если один из аргументов равен <code>null</code>
+     * @throws IOException              при ошибке ввода-вывода
+     */
+    public static void write(Matrix matrix, Path path, Layout layout) throws IOException {
+        if (matrix == null || path == null || layout == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        int rows = matrix.rows();
+        int columns = matrix.columns();
+        try (FileChannel channel = create(path)) {
+            writeHeader(channel, new Header(rows, columns, DataType.FLOAT64, layout));
+            ByteBuffer chunk = chunk();
+            DoubleBuffer values = chunk.asDoubleBuffer();
+            if (layout == Layout.ROW_MAJOR) {
+                for (int from = 0; from < matrix.data.length; from += values.capacity()) {
+                    int length = Math.min(values.capacity(), matrix.data.length - from);
+                    values.clear();
+                    values.put(matrix.data, from, length);
+                    flush(channel, chunk, length * 8);
+                }
+            } else {
+                values.clear();
+                for (int j = 0; j < columns; j++)
+                    for (int i = 0; i < rows; i++) {
+                        if (!values.hasRemaining()) {
+                            flush(channel, chunk, values.position() * 8);
+                            values.clear();
+                        }
+                        values.put(matrix.data[i * columns + j]);
+                    }
+                flush(channel, chunk, values.position() * 8);
+            }
+        }
+    }
+
+    /**
+     * Запись матрицы построчно с одинарной точностью
+     *
+     * @param matrix матрица для записи
+     * @param path   путь к файлу. Существующий файл перезаписывается
+     * @throws IllegalArgumentException если один из аргументов равен <code>null</code>
+     * @throws IOException              при ошибке ввода-вывода
+     */
+    public static void write(FloatMatrix matrix, Path path) throws IOException {
+        if (matrix == null || path == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        try (FileChannel channel = create(path)) {
+            writeHeader(channel, new Header(matrix.rows(), matrix.columns(),
+                    DataType.FLOAT32, Layout.ROW_MAJOR));
+            ByteBuffer chunk = chunk();
+            FloatBuffer values = chunk.asFloatBuffer();
+            for (int from = 0; from < matrix.data.length; from += values.capacity()) {
+                int length = Math.min(values.capacity(), matrix.data.length - from);
+                values.clear();
+                values.put(matrix.data, from, length);
+                flush(channel, chunk, length * 4);
+            }
+        }
+    }
+
+    /**
+     * Запись матрицы вне кучи с сохранением её порядка хранения. Позволяет
+     * сохранить изменения, сделанные в режиме {@link Access#COPY_ON_WRITE}
+     *
+     * @param matrix матрица для записи
+     * @param path   путь к файлу. Не должен совпадать с файлом, отображённым
+     *               в <code>matrix</code>
+     * @throws IllegalArgumentException если один из аргументов равен <code>null</code>
+     * @throws IllegalStateException    если матрица закрыта
+     * @throws IOException              при ошибке ввода-вывода
+     */
+    public static void write(OffHeapMatrix matrix, Path path) throws IOException {
+        if (matrix == null || path == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        ByteBuffer[] buffers = matrix.buffers();
+        try (FileChannel channel = create(path)) {
+            writeHeader(channel, new Header(matrix.rows(), matrix.columns(), DataType.FLOAT64,
+                    matrix.isColumnMajor() ? Layout.COLUMN_MAJOR : Layout.ROW_MAJOR));
+            for (ByteBuffer buffer : buffers) {
+                ByteBuffer source = buffer.duplicate();
+                source.clear();
+                while (source.hasRemaining())
+                    channel.write(source);
+            }
+        }
+    }
+
+    /**
+     * Чтение заголовка файла
+     *
+     * @param path путь к файлу
+     * @return заголовок
+     * @throws IllegalArgumentException если путь равен <code>null</code>
+     * @throws IOException              если файл не является файлом матрицы,
+     *                                  повреждён или при ошибке ввода-вывода
+     */
+    public static Header readHeader(Path path) throws IOException {
+        if (path == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readHeader(channel, path);
+        }
+    }
+
+    /**
+     * Чтение матрицы в кучу. Значения одинарной точности преобразуются
+     * в двойную, хранение по столбцам - в построчное
+     *
+     * @param path путь к файлу
+     * @return новый экземпляр <code>Matrix</code>
+     * @throws IllegalArgumentException если путь равен <code>null</code> или
+     *                                  матрица слишком велика для <code>Matrix</code>
+     * @throws IOException              если файл не является файлом матрицы,
+     *                                  повреждён или при ошибке ввода-вывода
+     */
+    public static Matrix read(Path path) throws IOException {
+        if (path == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Header header = readHeader(channel, path);
+            double[] data = new double[checkedLength(header)];
+            ByteBuffer chunk = chunk();
+            if (header.dataType() == DataType.FLOAT64) {
+                DoubleBuffer values = chunk.asDoubleBuffer();
+                for (int from = 0; from < data.length; from += values.capacity()) {
+                    int length = Math.min(values.capacity(), data.length - from);
+                    fill(channel, chunk, length * 8);
+                    values.clear();
+                    values.get(data, from, length);
+                }
+            } else {
+                FloatBuffer values = chunk.asFloatBuffer();
+                for (int from = 0; from < data.length; from += values.capacity()) {
+                    int length = Math.min(values.capacity(), data.length - from);
+                    fill(channel, chunk, length * 4);
+                    values.clear();
+                    for (int i = 0; i < length; i++)
+                        data[from + i] = values.get();
+                }
+            }
+            return new Matrix(header.rows(), header.columns(), rowMajor(header, data));
+        }
+    }
+
+    /**
+     * Чтение матрицы одинарной точности в кучу. Значения двойной точности
+     * округляются, хранение по столбцам преобразуется в построчное
+     *
+     * @param path путь к файлу
+     * @return новый экземпляр <code>FloatMatrix</code>
+     * @throws IllegalArgumentException если путь равен <code>null</code> или
+     *                                  матрица слишком велика для <code>FloatMatrix</code>
+     * @throws IOException              если файл не является файлом матрицы,
+     *                                  повреждён или при ошибке ввода-вывода
+     */
+    public static FloatMatrix readFloat(Path path) throws IOException {
+        if (path == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Header header = readHeader(channel, path);
+            float[] data = new float[checkedLength(header)];
+            ByteBuffer chunk = chunk();
+            if (header.dataType() == DataType.FLOAT32) {
+                FloatBuffer values = chunk.asFloatBuffer();
+                for (int from = 0; from < data.length; from += values.capacity()) {
+                    int length = Math.min(values.capacity(), data.length - from);
+                    fill(channel, chunk, length * 4);
+                    values.clear();
+                    values.get(data, from, length);
+                }
+            } else {
+                DoubleBuffer values = chunk.asDoubleBuffer();
+                for (int from = 0; from < data.length; from += values.capacity()) {
+                    int length = Math.min(values.capacity(), data.length - from);
+                    fill(channel, chunk, length * 8);
+                    values.clear();
+                    for (int i = 0; i < length; i++)
+                        data[from + i] = (float) values.get();
+                }
+            }
+            if (header.layout() == Layout.COLUMN_MAJOR) {
+                float[] transposed = new float[data.length];
+                Transposition.transpose(data, header.columns(), header.rows(), transposed);
+                data = transposed;
+            }
+            return new FloatMatrix(header.rows(), header.columns(), data);
+        }
+    }
+
+    /**
+     * Отображение файла в память без чтения и копирования значений. Открытие
+     * занимает постоянное время независимо от размера файла: страницы
+     * подгружаются операционной системой при первом обращении
+     *
+     * @param path   путь к файлу со значениями двойной точности
+     * @param access режим доступа
+     * @return матрица вне кучи, которую необходимо закрыть после использования
+     * @throws IllegalArgumentException если один из аргументов равен <code>null</code>
+     * @throws IOException              если файл не является файлом матрицы,
+     *                                  повреждён, хранит значения одинарной
+     *                                  точности, в режиме
+     *                                  {@link Access#COPY_ON_WRITE} недоступен
+     *                                  для записи (например,
+     *                                  <code>AccessDeniedException</code>)
+     *                                  или при ошибке ввода-вывода
+     */
+    public static OffHeapMatrix map(Path path, Access access) throws IOException {
+        return map(path, access, OffHeapMatrix.SEGMENT_SHIFT);
+    }
+
+    /**
+     * Отображение файла сегментами по <code>2^segmentShift</code> элементов
+     */
+    static OffHeapMatrix map(Path path, Access access, int segmentShift) throws IOException {
+        if (path == null || access == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        boolean readOnly = access == Access.READ_ONLY;
+        // режим PRIVATE требует канала, открытого и на чтение, и на запись
+        FileChannel channel = readOnly
+                ? FileChannel.open(path, StandardOpenOption.READ)
+                : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            Header header = readHeader(channel, path);
+            if (header.dataType() != DataType.FLOAT64)
+                throw new IOException("Only " + DataType.FLOAT64 + " files can be mapped: " + path);
+            long elements = header.elements();
+            long segmentSize = 1L << segmentShift;
+            ByteBuffer[] buffers = new ByteBuffer[(int) ((elements + segmentSize - 1) >>> segmentShift)];
+            FileChannel.MapMode mode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.PRIVATE;
+            try {
+                for (int i = 0; i < buffers.length; i++) {
+                    long first = (long) i << segmentShift;
+                    long length = Math.min(segmentSize, elements - first);
+                    buffers[i] = channel.map(mode, HEADER_SIZE + first * 8, length * 8)
+                            .order(ByteOrder.LITTLE_ENDIAN);
+                }
+            } catch (IOException | RuntimeException e) {
+                for (ByteBuffer buffer : buffers)
+                    DirectBuffers.release(buffer);
+                throw e;
+            }
+            return new OffHeapMatrix(header.rows(), header.columns(),
+                    header.layout() == Layout.COLUMN_MAJOR, readOnly, buffers, segmentShift);
+        } finally {
+            // отображение остаётся действительным после закрытия канала
+            channel.close();
+        }
+    }
+
+    private static FileChannel create(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static ByteBuffer chunk() {
+        return ByteBuffer.allocate(CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void writeHeader(FileChannel channel, Header header) throws IOException {
+        ByteBuffer buffer = encodeHeader(header);
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * @return буфер длиной {@link #HEADER_SIZE} с заголовком, готовый к записи
+     */
+    static ByteBuffer encodeHeader(Header header) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC)
+                .putShort(VERSION)
+                .put((byte) header.dataType().ordinal())
+                .put((byte) header.layout().ordinal())
+                .putInt(header.rows())
+                .putInt(header.columns());
+        buffer.clear();
+        return buffer;
+    }
+
+    private static Header readHeader(FileChannel channel, Path path) throws IOException {
+        if (channel.size() < HEADER_SIZE)
+            throw new IOException("Not a matrix file: " + path);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        fill(channel, buffer, HEADER_SIZE);
+        Header header = decodeHeader(buffer, path);
+        if (channel.size() != header.fileSize())
+            throw new IOException("Matrix file size " + channel.size() +
+                    " doesn't match header, expected " + header.fileSize() + ": " + path);
+        return header;
+    }
+
+    /**
+     * Разбор заголовка из буфера длиной {@link #HEADER_SIZE}
+     *
+     * @param source описание источника для сообщений об ошибках
+     * @throws IOException если заголовок не является заголовком файла матрицы
+     */
+    static Header decodeHeader(ByteBuffer buffer, Object source) throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt() != MAGIC)
+            throw new IOException("Not a matrix file: " + source);
+        short version = buffer.getShort();
+        if (version != VERSION)
+            throw new IOException("Unsupported matrix file version " + version + ": " + source);
+        int dataType = buffer.get();
+        int layout = buffer.get();
+        int rows = buffer.getInt();
+        int columns = buffer.getInt();
+        if (dataType < 0 || dataType >= DataType.values().length
+                || layout < 0 || layout >= Layout.values().length
+                || rows < 1 || columns < 1)
+            throw new IOException("Corrupted matrix file header: " + source);
+        return new Header(rows, columns, DataType.values()[dataType], Layout.values()[layout]);
+    }
+
+    /**
+     * Записывает первые <code>length</code> байт буфера в канал
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer, int length) throws IOException {
+        buffer.clear();
+        buffer.limit(length);
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * Читает из канала ровно <code>length</code> байт в начало буфера
+     */
+    private static void fill(FileChannel channel, ByteBuffer buffer, int length) throws IOException {
+        buffer.clear();
+        buffer.limit(length);
+        while (buffer.hasRemaining())
+            if (channel.read(buffer) < 0)
+                throw new IOException("Unexpected end of matrix file.");
+        buffer.flip();
+    }
+
+    private static int checkedLength(Header header) {
+        if (header.elements() > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Matrix is too large: " + header.rows() + "x"
+                    + header.columns() + ", use map instead.");
+        return (int) header.elements();
+    }
+
+    private static double[] rowMajor(Header header, double[] data) {
+        if (header.layout() == Layout.ROW_MAJOR)
+            return data;
+        double[] transposed = new double[data.length];
+        Transposition.transpose(data, header.columns(), header.rows(), transposed);
+        return transposed;
+    }
+}
@@ -0,0 +1,47 @@
+package ru.ifmo.sdp.matrix;
+
+/**
+ * Набор вычислительных ядер для горячих циклов {@link Matrix}. Реализация
+ * по умолчанию - скалярные циклы; альтернативные реализации (например,
+ * векторные, на <code>jdk.incubator.vector</code>) подключаются через
+ * {@link java.util.ServiceLoader} и выбираются при первой загрузке класса
+ * <code>Matrix</code>. Если реализация не загружается или её результаты
+ * расходятся со скалярными, используются скалярные ядра. Принудительно
+ * включить скалярные ядра можно системным свойством
+ * <code>ru.ifmo.sdp.matrix.kernels=scalar</code>.
+ * <p>
+ * Реализации обязаны давать результаты, побитово совпадающие со скалярными:
+ * в частности, <code>axpy</code> не должна использовать FMA. Аргументы не
+ * проверяются - проверки размеров и деления на ноль выполняет вызывающая сторона
+ */
+public interface MatrixKernels {
+
+    /**
+     * Поэлементная операция:
+     * <code>result[r + i] = a[a + i] (op) b[b + i]</code> для <code>i</code>
+     * от <code>0</code> до <code>length</code>. Массив <code>result</code>
+     * может совпадать с <code>a</code> при равных смещениях
+     */
+    void elementWise(Matrix.Operation operation, double[] a, int aOffset,
+                     double[] b, int bOffset, double[] result, int resultOffset, int length);
+
+    /**
+     * Операция со скаляром:
+     * <code>result[r + i] = a[a + i] (op) scalar</code>. Массив <code>result</code>
+     * может совпадать с <code>a</code> при равных смещениях
+     */
+    void scalar(Matrix.Operation operation, double[] a, int aOffset, double scalar,
+                double[] result, int resultOffset, int length);
+
+    /**
+     * <code>y[y + i] += alpha * x[x + i]</code> - внутренний цикл блочного
+     * перемножения матриц
+     */
+    void axpy(int length, double alpha, double[] x, int xOffset, double[] y, int yOffset);
+
+    /**
+     * @return <code>true</code>, если первые <code>length</code> элементов
+     * массивов попарно отличаются не больше чем на <code>delta</code>
+     */
+    boolean equalsDelta(double[] a, double[] b, int length, double delta);
+}
@@ -0,0 +1,341 @@
+package ru.ifmo.sdp.matrix;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import ru.ifmo.sdp.matrix.Matrix.Operation;
+
+/**
+ * Потоковая обработка матриц порциями строк с ограниченным расходом памяти.
+ * Конвейер строится из источника {@link RowSource} цепочкой операций и
+ * выполняется методами {@link #writeTo(RowSink)} или {@link #toMatrix()}:
+ * <pre>
+ * try (MatrixStream stream = MatrixStream.of(RowSource.csv(in))
+ *         .elementWise(RowSource.binary(other), Matrix.Operation.SUM)
+ *         .scalar(2, Matrix.Operation.MULTIPLY)
+ *         .multiply(weights);
+ *      RowSink out = RowSink.binary(result)) {
+ *     stream.writeTo(out);
+ * }
+ * </pre>
+ * Одновременно в памяти находится только порция около {@link #CHUNK_SIZE}
+ * элементов на каждый этап и правый операнд перемножения, поэтому число
+ * строк входных данных не ограничено. Перемножение {@link #multiply(Matrix)}
+ * выполняется вне памяти: левый операнд читается порциями, правый целиком
+ * находится в памяти. Результаты операций побитово совпадают с {@link Matrix}.
+ * <p>
+ * Конвейер сам является источником строк и может быть прочитан только один
+ * раз. Закрытие конвейера закрывает все его источники
+ */
+public abstract class MatrixStream implements RowSource {
+    static final int CHUNK_SIZE = 64 * 1024;    // элементов в порции
+
+    private final int columns;
+    private final int width;                    // наибольшее число столбцов по цепочке этапов
+
+    private MatrixStream(int columns, int width) {
+        this.columns = columns;
+        this.width = Math.max(columns, width);
+    }
+
+    /**
+     * Начинает конвейер
+     *
+     * @param source источник строк
+     * @return конвейер без операций
+     * @throws IllegalArgumentException если источник равен <code>null</code>
+     */
+    public static MatrixStream of(RowSource source) {
+        if (source == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (source instanceof MatrixStream)
+            return (MatrixStream) source;
+        return new Source(source);
+    }
+
+    @Override
+    public int columns() {
+        return columns;
+    }
+
+    /**
+     * Поэлементная операция со строками другого источника того же размера
+     *
+     * @param other     источник правого операнда
+     * @param operation одна из четырех доступных операций. При делении
+     *                  нулевой элемент правого операнда приводит к
+     *                  <code>IllegalArgumentException</code> во время чтения
+     * @return новый конвейер
+     * @throws IllegalArgumentException если один из аргументов равен
+     *                                  <code>null</code> или число столбцов
+     *                                  источников различается
+     */
+    public MatrixStream elementWise(RowSource other, Operation operation) {
+        if (other == null || operation == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        if (other.columns() != columns)
+            throw new IllegalArgumentException("Matrices have different sizes.");
+        return new ElementWise(this, other, operation);
+    }
+
+    /**
+     * Скалярная операция над каждым элементом
+     *
+     * @param scalar    скалярное число
+     * @param operation одна из четырех доступных операций
+     * @return новый конвейер
+     * @throws IllegalArgumentException если операция равна <code>null</code>
+     *                                  или при делении на ноль
+     */
+    public MatrixStream scalar(double scalar, Operation operation) {
+        if (operation == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (operation == Operation.DIVIDE && scalar == 0)
+            throw new IllegalArgumentException(
+                    "Scalar shouldn't be a zero for division operation");
+        return new Scalar(this, scalar, operation);
+    }
+
+    /**
+     * Перемножение потоковой матрицы на матрицу в памяти
+     *
+     * @param right правый операнд, число строк которого равно числу столбцов
+     *              потока
+     * @return новый конвейер с числом столбцов правого операнда
+     * @throws IllegalArgumentException если матрица равна <code>null</code>
+     *                                  или размеры не согласованы
+     */
+    public MatrixStream multiply(Matrix right) {
+        if (right == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (right.rows() != columns)
+            throw new IllegalArgumentException(
+                    "First matrix should have rowNum equal to second matrix colNum.");
+        return new Product(this, right);
+    }
+
+    /**
+     * Выполняет конвейер, записывая результат в приёмник. Приёмник не закрывается
+     *
+     * @param sink приёмник строк
+     * @return число записанных строк
+     * @throws IllegalArgumentException если приёмник равен <code>null</code>
+     * @throws IOException              при ошибке чтения или записи
+     */
+    public long writeTo(RowSink sink) throws IOException {
+        if (sink == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        int maxRows = chunkRows();
+        double[] buffer = new double[maxRows * columns];
+        long total = 0;
+        for (int rows = read(buffer, maxRows); rows > 0; rows = read(buffer, maxRows)) {
+            sink.write(buffer, rows, columns);
+            total += rows;
+        }
+        return total;
+    }
+
+    /**
+     * Выполняет конвейер, собирая результат в памяти
+     *
+     * @return новый экземпляр <code>Matrix</code>
+     * @throws IOException           при ошибке чтения или если результат пуст
+     * @throws IllegalStateException если результат слишком велик для <code>Matrix</code>
+     */
+    public Matrix toMatrix() throws IOException {
+        int maxRows = chunkRows();
+        double[] chunk = new double[maxRows * columns];
+        double[] data = new double[chunk.length];
+        int size = 0;
+        for (int rows = read(chunk, maxRows); rows > 0; rows = read(chunk, maxRows)) {
+            int length = rows * columns;
+            if (data.length - size < length) {
+                long capacity = Math.max(2L * data.length, (long) size + length);
+                if (capacity > Integer.MAX_VALUE)
+                    throw new IllegalStateException("Result is too large for Matrix.");
+                data = Arrays.copyOf(data, (int) capacity);
+            }
+            System.arraycopy(chunk, 0, data, size, length);
+            size += length;
+        }
+        if (size == 0)
+            throw new IOException("Stream contains no rows.");
+        return new Matrix(size / columns, columns, Arrays.copyOf(data, size));
+    }
+
+    /**
+     * @return число строк в порции, при котором порция каждого этапа
+     * не превышает {@link #CHUNK_SIZE} элементов
+     */
+    int chunkRows() {
+        return Math.max(1, CHUNK_SIZE / width);
+    }
+
+    /**
+     * Источник строк матрицы в памяти
+     */
+    static final class MatrixSource implements RowSource {
+        private final Matrix matrix;
+        private int row;
+
+        MatrixSource(Matrix matrix) {
+            this.matrix = matrix;
+        }
+
+        @Override
+        public int columns() {
+            return matrix.columns();
+        }
+
+        @Override
+        public int read(double[] buffer, int maxRows) {
+            int rows = Math.min(maxRows, matrix.rows() - row);
+            System.arraycopy(matrix.data, row * matrix.columns(), buffer, 0, rows * matrix.columns());
+            row += rows;
+            return rows;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Начало конвейера
+     */
+    private static final class Source extends MatrixStream {
+        private final RowSource source;
+
+        Source(RowSource source) {
+            super(source.columns(), 0);
+            this.source = source;
+        }
+
+        @Override
+        public int read(double[] buffer, int maxRows) throws IOException {
+            return source.read(buffer, maxRows);
+        }
+
+        @Override
+        public void close() throws IOException {
+            source.close();
+        }
+    }
+
+    private static final class ElementWise extends MatrixStream {
+        private final MatrixStream left;
+        private final RowSource right;
+        private final Operation operation;
+        private double[] rightBuffer;
+        // дочитывание правого источника: RowSource пишет с начала массива
+        private double[] rightTail;
+
+        ElementWise(MatrixStream left, RowSource right, Operation operation) {
+            super(left.columns(), left.width);
+            this.left = left;
+            this.right = right;
+            this.operation = operation;
+        }
+
+        @Override
+        public int read(double[] buffer, int maxRows) throws IOException {
+            int length = maxRows * columns();
+            if (rightBuffer == null || rightBuffer.length < length) {
+                rightBuffer = new double[length];
+                rightTail = new double[length];
+            }
+            int rows = left.read(buffer, maxRows);
+            // правый источник дочитывается до того же числа строк
+            int rightRows = 0;
+            while (rightRows < Math.max(rows, 1)) {
+                int count = readRight(rightRows, Math.max(rows, 1) - rightRows);
+                if (count == 0)
+                    break;
+                rightRows += count;
+            }
+            if (rightRows != rows)
+                throw new IOException("Matrices have different sizes.");
+            length = rows * columns();
+            if (operation == Operation.DIVIDE)
+                for (int i = 0; i < length; i++)
+                    if (rightBuffer[i] == 0)
+                        throw new IllegalArgumentException(
+                                "Second matrix shouldn't contain zero elements" +
+                                        " for division operation");
+            Kernels.ACTIVE.elementWise(operation, buffer, 0, rightBuffer, 0, buffer, 0, length);
+            return rows;
+        }
+
+        private int readRight(int offsetRows, int maxRows) throws IOException {
+            if (offsetRows == 0)
+                return right.read(rightBuffer, maxRows);
+            int count = right.read(rightTail, maxRows);
+            System.arraycopy(rightTail, 0, rightBuffer, offsetRows * columns(), count * columns());
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                left.close();
+            } finally {
+                right.close();
+            }
+        }
+    }
+
+    private static final class Scalar extends MatrixStream {
+        private final MatrixStream operand;
+        private final double scalar;
+        private final Operation operation;
+
+        Scalar(MatrixStream operand, double scalar, Operation operation) {
+            super(operand.columns(), operand.width);
+            this.operand = operand;
+            this.scalar = scalar;
+            this.operation = operation;
+        }
+
+        @Override
+        public int read(double[] buffer, int maxRows) throws IOException {
+            int rows = operand.read(buffer, maxRows);
+            Kernels.ACTIVE.scalar(operation, buffer, 0, scalar, buffer, 0, rows * columns());
+            return rows;
+        }
+
+        @Override
+        public void close() throws IOException {
+            operand.close();
+        }
+    }
+
+    private static final class Product extends MatrixStream {
+        private final MatrixStream left;
+        private final Matrix right;
+        private double[] leftBuffer;
+
+        Product(MatrixStream left, Matrix right) {
+            super(right.columns(), left.width);
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public int read(double[] buffer, int maxRows) throws IOException {
+            int common = right.rows();
+            if (leftBuffer == null || leftBuffer.length < maxRows * common)
+                leftBuffer = new double[maxRows * common];
+            int rows = left.read(leftBuffer, maxRows);
+            Arrays.fill(buffer, 0, rows * columns(), 0);
+            if (rows > 0)
+                BlockedMultiplication.multiply(rows, columns(), common,
+                        leftBuffer, 0, common, false, right.data, 0, columns(), false, buffer, 0, columns());
+            return rows;
+        }
+
+        @Override
+        public void close() throws IOException {
+            left.close();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package ru.ifmo.sdp.matrix;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Умножение матрицы на вектор (GEMV) и операции над векторами для
+ * итерационных методов. Вектор - матрица из одного столбца, его элементы
+ * лежат в массиве подряд, поэтому все циклы идут по памяти без шагов и
+ * без проверок индексов.
+ * <p>
+ * <code>y = A x</code> считается скалярными произведениями строк
+ * <code>A</code> на <code>x</code> в том же порядке суммирования, что и
+ * классическое перемножение ({@link Matrix.Multiplication#NAIVE},
+ * {@link Matrix.Multiplication#BLOCKED}), поэтому результат побитово
+ * совпадает с общим перемножением. <code>y = A^T x</code> считается суммой
+ * строк <code>A</code> с коэффициентами <code>x[i]</code> через
+ * {@link MatrixKernels#axpy}, без транспонирования матрицы. Для больших
+ * матриц строки (для транспонированного случая - столбцы) делятся между
+ * потоками <code>ForkJoinPool</code>; порядок суммирования при этом не
+ * меняется.
+ */
+public final class MatrixVector {
+    // минимальное число строк или столбцов в одной подзадаче
+    private static final int MIN_SPLIT = 64;
+
+    // число элементов матрицы, начиная с которого умножение выполняется
+    // параллельно
+    private static long parallelThreshold = 1L << 18;
+
+    private MatrixVector() {
+    }
+
+    /**
+     * @return текущий порог числа элементов матрицы, начиная с которого
+     * умножение на вектор выполняется параллельно
+     */
+    public static long parallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Задаёт число элементов матрицы, ниже которого умножение на вектор
+     * выполняется последовательно
+     *
+     * @param parallelThreshold новое значение порога
+     * @throws IllegalArgumentException если аргумент меньше <code>0</code>
+     */
+    public static void setParallelThreshold(long parallelThreshold) {
+        if (parallelThreshold < 0)
+            throw new IllegalArgumentException("Expected positive value");
+        MatrixVector.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * <code>y = op(A) x</code> для матрицы <code>rows x columns</code>,
+     * уложенной построчно. Массив <code>y</code> перезаписывается и не должен
+     * совпадать с <code>x</code>. Размеры должны быть проверены вызывающим
+     *
+     * @param transpose использовать <code>A</code> транспонированной
+     */
+    static void multiply(int rows, int columns, double[] a, boolean transpose,
+                         double[] x, double[] y) {
+        boolean parallel = (long) rows * columns >= parallelThreshold;
+        if (!parallel)
+            multiplyRange(rows, columns, a, transpose, x, y, 0, transpose ? columns : rows);
+        else
+            ForkJoinPool.commonPool().invoke(new MultiplyTask(rows, columns, a, transpose, x, y,
+                    0, transpose ? columns : rows));
+    }
+
+    /**
+     * Последовательное умножение для элементов результата <code>[from, to)</code>
+     */
+    private static void multiplyRange(int rows, int columns, double[] a, boolean transpose,
+                                      double[] x, double[] y, int from, int to) {
+        if (transpose) {
+            for (int j = from; j < to; j++)
+                y[j] = 0;
+            MatrixKernels kernels = Kernels.ACTIVE;
+            for (int i = 0; i < rows; i++)
+                kernels.axpy(to - from, x[i], a, i * columns + from, y, from);
+        } else
+            for (int i = from; i < to; i++)
+                y[i] = dot(columns, a, i * columns, x, 0);
+    }
+
+    /**
+     * Скалярное произведение участков массивов длины <code>length</code>
+     */
+    static double dot(int length, double[] a, int aOffset, double[] b, int bOffset) {
+        double sum = 0;
+        for (int k = 0; k < length; k++)
+            sum += a[aOffset + k] * b[bOffset + k];
+        return sum;
+    }
+
+    /**
+     * Деление элементов результата между потоками
+     */
+    private static final class MultiplyTask extends RecursiveAction {
+        private final int rows;
+        private final int columns;
+        private final double[] a;
+        private final boolean transpose;
+        private final double[] x;
+        private final double[] y;
+        private final int from;
+        private final int to;
+
+        MultiplyTask(int rows, int columns, double[] a, boolean transpose,
+                     double[] x, double[] y, int from, int to) {
+            this.rows = rows;
+            this.columns = columns;
+            this.a = a;
+            this.transpose = transpose;
+            this.x = x;
+            this.y = y;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            int count = to - from;
+            long volume = (long) count * (transpose ? rows : columns);
+            if (count < 2 * MIN_SPLIT || volume < parallelThreshold / 2) {
+                multiplyRange(rows, columns, a, transpose, x, y, from, to);
+                return;
+            }
+            int mid = from + count / 2;
+            invokeAll(new MultiplyTask(rows, columns, a, transpose, x, y, from, mid),
+                    new MultiplyTask(rows, columns, a, transpose, x, y, mid, to));
+        }
+    }
+}
@@ -0,0 +1,1030 @@
+package ru.ifmo.sdp.matrix;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+import ru.ifmo.sdp.matrix.Matrix.Operation;
+
+/**
+ * Матрица, значения которой хранятся вне кучи - в прямых буферах
+ * ({@link #allocate(int, int)}) или в отображённом в память файле
+ * ({@link MatrixFile#map}). Такие данные не просматриваются сборщиком мусора
+ * и не ограничены размером кучи. Данные разбиты на сегменты не более 1 Гб,
+ * поэтому число элементов может превышать <code>Integer.MAX_VALUE</code>.
+ * <p>
+ * Поддерживает те же операции, что и {@link Matrix}. Операции обрабатывают
+ * данные блоками в куче фиксированного размера, поэтому расход кучи не зависит
+ * от размера матриц; результаты операций размещаются в новых прямых буферах.
+ * Перемножение даёт результат, побитово совпадающий с {@link Matrix}.
+ * <p>
+ * Память освобождается явным вызовом {@link #close()}, после которого любое
+ * обращение к матрице приводит к <code>IllegalStateException</code>. Закрывать
+ * матрицу, пока другие потоки ещё обращаются к ней, нельзя
+ */
+public final class OffHeapMatrix implements Closeable {
+    static final int SEGMENT_SHIFT = 27;    // 2^27 элементов, 1 Гб на сегмент
+    static final int CHUNK_SIZE = 4096;     // элементов в блоке поэлементных операций
+    static final int TILE_SIZE = 512;       // сторона плитки перемножения и транспонирования, 2 Мб
+
+    private final int rows;                 // число строк. неизменно
+    private final int columns;              // число столбцов. неизменно
+    private final boolean columnMajor;      // [i][j] -> [j * rows + i] вместо [i * columns + j]
+    private final boolean readOnly;         // запрет записи
+    private final int segmentShift;         // log2 числа элементов в сегменте
+    private final int segmentMask;
+    private ByteBuffer[] buffers;           // исходные буферы, нужны для освобождения
+    private DoubleBuffer[] segments;        // представления буферов. null после закрытия
+
+    /**
+     * Принимает во владение буферы с данными. Каждый буфер, кроме последнего,
+     * содержит ровно <code>2^segmentShift</code> элементов
+     */
+    OffHeapMatrix(int rows, int columns, boolean columnMajor, boolean readOnly,
+                  ByteBuffer[] buffers, int segmentShift) {
+        this.rows = rows;
+        this.columns = columns;
+        this.columnMajor = columnMajor;
+        this.readOnly = readOnly;
+        this.segmentShift = segmentShift;
+        this.segmentMask = (1 << segmentShift) - 1;
+        this.buffers = buffers;
+        this.segments = new DoubleBuffer[buffers.length];
+        for (int i = 0; i < buffers.length; i++)
+            segments[i] = buffers[i].asDoubleBuffer();
+    }
+
+    /**
+     * Создаёт матрицу в прямых буферах, заполненную нулями
+     *
+     * @param rows    число строк
+     * @param columns число столбцов
+     * @return новая матрица, которую необходимо закрыть после использования
+     * @throws IllegalArgumentException если один из размеров меньше единицы
+     * @throws OutOfMemoryError         если недостаточно памяти вне кучи
+     */
+    public static OffHeapMatrix allocate(int rows, int columns) {
+        return allocate(rows, columns, SEGMENT_SHIFT);
+    }
+
+    /**
+     * Создаёт матрицу в прямых буферах сегментами по <code>2^segmentShift</code>
+     * элементов
+     */
+    static OffHeapMatrix allocate(int rows, int columns, int segmentShift) {
+        if (rows < 1 || columns < 1)
+            throw new IllegalArgumentException(
+                    "One of entered matrix sizes is less then one.");
+        long size = (long) rows * columns;
+        long segmentSize = 1L << segmentShift;
+        ByteBuffer[] buffers = new ByteBuffer[(int) ((size + segmentSize - 1) >>> segmentShift)];
+        try {
+            for (int i = 0; i < buffers.length; i++) {
+                long length = Math.min(segmentSize, size - ((long) i << segmentShift));
+                buffers[i] = ByteBuffer.allocateDirect((int) length * 8).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (OutOfMemoryError e) {
+            for (ByteBuffer buffer : buffers)
+                DirectBuffers.release(buffer);
+            throw e;
+        }
+        return new OffHeapMatrix(rows, columns, false, false, buffers, segmentShift);
+    }
+
+    /**
+     * Копирует матрицу из кучи в прямые буферы
+     *
+     * @param matrix исходная матрица
+     * @return новая матрица, которую необходимо закрыть после использования
+     * @throws IllegalArgumentException если матрица равна <code>null</code>
+     */
+    public static OffHeapMatrix copyOf(Matrix matrix) {
+        if (matrix == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        OffHeapMatrix result = allocate(matrix.rows(), matrix.columns());
+        result.put(0, matrix.data, 0, matrix.data.length);
+        return result;
+    }
+
+    /**
+     * Копирует матрицу в новые прямые буферы, построчно
+     *
+     * @param matrix исходная матрица, например, отображённый файл
+     * @return новая матрица, которую необходимо закрыть после использования
+     * @throws IllegalArgumentException если матрица равна <code>null</code>
+     * @throws IllegalStateException    если матрица закрыта
+     */
+    public static OffHeapMatrix copyOf(OffHeapMatrix matrix) {
+        if (matrix == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        OffHeapMatrix result = allocate(matrix.rows, matrix.columns);
+        double[] buffer = new double[(int) Math.min(CHUNK_SIZE, matrix.size())];
+        for (long from = 0; from < matrix.size(); from += buffer.length) {
+            int length = (int) Math.min(buffer.length, matrix.size() - from);
+            matrix.read(from, buffer, 0, length);
+            result.write(from, buffer, 0, length);
+        }
+        return result;
+    }
+
+    /**
+     * @return количество строк матрицы (первого измерения)
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * @return количество столбцов матрицы (второго измерения)
+     */
+    public int columns() {
+        return columns;
+    }
+
+    /**
+     * @return <code>true</code>, если запись в матрицу запрещена
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * @return <code>true</code>, если матрица закрыта и её память освобождена
+     */
+    public boolean isClosed() {
+        return segments == null;
+    }
+
+    /**
+     * Получение зачения элемента матрицы по его индексу
+     *
+     * @param row    индекс строки <code>0:rows-1</code>
+     * @param column индекс столбца <code>0:column-1</code>
+     * @return зачение элемента матрицы
+     * @throws IndexOutOfBoundsException если индекс меньше <code>0</code> или
+     *                                   больше соотв границы
+     * @throws IllegalStateException     если матрица закрыта
+     */
+    public double getElement(int row, int column) {
+        long index = index(row, column);
+        return segments()[(int) (index >>> segmentShift)].get((int) index & segmentMask);
+    }
+
+    /**
+     * Устанавливает заданое значение по указанным индексам матрицы, возвращая
+     * предыдущее значение
+     *
+     * @param row    индекс строки
+     * @param column индекс столбца
+     * @param value  устанавливаемое значение
+     * @return предыдущее значение <code>value</code>
+     * @throws IndexOutOfBoundsException если индекс меньше <code>0</code> или
+     *                                   больше соотв границы
+     * @throws IllegalStateException     если матрица закрыта или доступна
+     *                                   только для чтения
+     */
+    public double setElement(int row, int column, double value) {
+        if (readOnly)
+            throw new IllegalStateException("Matrix is read-only.");
+        long index = index(row, column);
+        DoubleBuffer segment = segments()[(int) (index >>> segmentShift)];
+        int offset = (int) index & segmentMask;
+        double result = segment.get(offset);
+        segment.put(offset, value);
+        return result;
+    }
+
+    /**
+     * Получение зачения элемента вектора по его индексу
+     *
+     * @param row индекс строки <code>0:rows-1</code>
+     * @return зачение элемента матрицы
+     * @throws IllegalStateException     при вызове от матрицы с неск столбцами
+     *                                   или если матрица закрыта
+     * @throws IndexOutOfBoundsException если индекс меньше <code>0</code> или
+     *                                   больше длины вектора
+     */
+    public double getElement(int row) {
+        Indices.checkVector(columns);
+        return getElement(row, 0);
+    }
+
+    /**
+     * Устанавливает заданое значение элемента вектора, возвращая
+     * предыдущее значение
+     *
+     * @param row   индекс строки
+     * @param value устанавливаемое значение
+     * @return предыдущее значение <code>value</code>
+     * @throws IllegalStateException     при вызове от матрицы с неск столбцами,
+     *                                   если матрица закрыта или доступна
+     *                                   только для чтения
+     * @throws IndexOutOfBoundsException если индекс меньше <code>0</code> или
+     *                                   больше длины вектора
+     */
+    public double setElement(int row, double value) {
+        Indices.checkVector(columns);
+        return setElement(row, 0, value);
+    }
+
+    /**
+     * Копирует матрицу в кучу
+     *
+     * @return новый экземпляр <code>Matrix</code> с теми же значениями
+     * @throws IllegalArgumentException если матрица слишком велика для
+     *                                  <code>Matrix</code>
+     * @throws IllegalStateException    если матрица закрыта
+     */
+    public Matrix toMatrix() {
+        if ((long) rows * columns > Integer.MAX_VALUE)
+            throw new IllegalArgumentException(
+                    "Matrix is too large: " + rows + "x" + columns + ".");
+        double[] data = new double[rows * columns];
+        if (columnMajor) {
+            double[] stored = new double[data.length];
+            get(0, stored, 0, stored.length);
+            Transposition.transpose(stored, columns, rows, data);
+        } else {
+            get(0, data, 0, data.length);
+        }
+        return new Matrix(rows, columns, data);
+    }
+
+    /**
+     * Сравнивает значения с матрицей в куче с учётом {@link Matrix#equalsDelta()}
+     *
+     * @param matrix матрица для сравнения
+     * @return <code>true</code>, если размеры совпадают и значения попарно
+     * отличаются не больше чем на дельту
+     * @throws IllegalStateException если матрица закрыта
+     */
+    public boolean equalsMatrix(Matrix matrix) {
+        if (matrix == null || matrix.rows() != rows || matrix.columns() != columns)
+            return false;
+        double delta = Matrix.equalsDelta();
+        double[] buffer = new double[(int) Math.min(CHUNK_SIZE, size())];
+        for (int from = 0; from < matrix.data.length; from += buffer.length) {
+            int length = Math.min(buffer.length, matrix.data.length - from);
+            read(from, buffer, 0, length);
+            for (int i = 0; i < length; i++)
+                if (Math.abs(buffer[i] - matrix.data[from + i]) > delta)
+                    return false;
+        }
+        return true;
+    }
+
+    /**
+     * Поэлементные операции над матрицами. Включает сложение, вычетание,
+     * умножение и деление
+     *
+     * @param m1        первая матрица
+     * @param m2        вторая матрица, совпадающая по размерам с первой
+     * @param operation одна из четырех доступных операций
+     * @return новая матрица в прямых буферах, являющаяся результатом операции
+     * @throws IllegalArgumentException если одна из матриц равна <code>null</code>,
+     *                                  если матрицы не совпадают по размерам
+     *                                  или если во второй матрице присутствуют
+     *                                  нулевые элементы и выбрана операция деления
+     * @throws IllegalStateException    если одна из матриц закрыта
+     */
+    public static OffHeapMatrix matrixElementWiseOperation(OffHeapMatrix m1, OffHeapMatrix m2,
+                                                           Operation operation) {
+        if (m1 == null || m2 == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        checkSizes(m1, m2);
+        checkDivisor(m2, operation);
+        OffHeapMatrix result = allocate(m1.rows, m1.columns);
+        elementWise(m1, m2, operation, result);
+        return result;
+    }
+
+    /**
+     * Поэлементные операции над матрицами с записью результата в заданную
+     * матрицу. Матрица-приёмник может совпадать с одним из операндов
+     *
+     * @param m1          первая матрица
+     * @param m2          вторая матрица, совпадающая по размерам с первой
+     * @param operation   одна из четырех доступных операций
+     * @param destination матрица того же размера для записи результата
+     * @return матрица <code>destination</code>
+     * @throws IllegalArgumentException если одна из матриц равна <code>null</code>,
+     *                                  если матрицы не совпадают по размерам
+     *                                  или если во второй матрице присутствуют
+     *                                  нулевые элементы и выбрана операция деления.
+     *                                  В этом случае приёмник не изменяется
+     * @throws IllegalStateException    если одна из матриц закрыта или приёмник
+     *                                  доступен только для чтения
+     */
+    public static OffHeapMatrix matrixElementWiseOperation(OffHeapMatrix m1, OffHeapMatrix m2,
+                                                           Operation operation,
+                                                           OffHeapMatrix destination) {
+        if (m1 == null || m2 == null || destination == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        checkSizes(m1, m2);
+        checkSizes(m1, destination);
+        checkWritable(destination);
+        checkDivisor(m2, operation);
+        elementWise(m1, m2, operation, destination);
+        return destination;
+    }
+
+    /**
+     * Поэлементное сложение
+     *
+     * @return новая матрица в прямых буферах
+     * @see #matrixElementWiseOperation(OffHeapMatrix, OffHeapMatrix, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix addMatrix(OffHeapMatrix m) {
+        return matrixElementWiseOperation(this, m, Operation.SUM);
+    }
+
+    /**
+     * Поэлементное сложение с записью результата в заданную матрицу
+     *
+     * @return матрица <code>destination</code>
+     * @see #matrixElementWiseOperation(OffHeapMatrix, OffHeapMatrix, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix addMatrix(OffHeapMatrix m, OffHeapMatrix destination) {
+        return matrixElementWiseOperation(this, m, Operation.SUM, destination);
+    }
+
+    /**
+     * Поэлементное сложение на месте
+     *
+     * @return эта же матрица
+     * @see #matrixElementWiseOperation(OffHeapMatrix, OffHeapMatrix, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix addInPlace(OffHeapMatrix m) {
+        return matrixElementWiseOperation(this, m, Operation.SUM, this);
+    }
+
+    /**
+     * Поэлементное вычитание
+     *
+     * @return новая матрица в прямых буферах
+     * @see #matrixElementWiseOperation(OffHeapMatrix, OffHeapMatrix, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix subMatrix(OffHeapMatrix m) {
+        return matrixElementWiseOperation(this, m, Operation.SUBTRACT);
+    }
+
+    /**
+     * Поэлементное вычитание с записью результата в заданную матрицу
+     *
+     * @return матрица <code>destination</code>
+     * @see #matrixElementWiseOperation(OffHeapMatrix, OffHeapMatrix, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix subMatrix(OffHeapMatrix m, OffHeapMatrix destination) {
+        return matrixElementWiseOperation(this, m, Operation.SUBTRACT, destination);
+    }
+
+    /**
+     * Поэлементное вычитание на месте
+     *
+     * @return эта же матрица
+     * @see #matrixElementWiseOperation(OffHeapMatrix, OffHeapMatrix, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix subInPlace(OffHeapMatrix m) {
+        return matrixElementWiseOperation(this, m, Operation.SUBTRACT, this);
+    }
+
+    /**
+     * Поэлементное умножение
+     *
+     * @return новая матрица в прямых буферах
+     * @see #matrixElementWiseOperation(OffHeapMatrix, OffHeapMatrix, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix mulMatrixElementWise(OffHeapMatrix m) {
+        return matrixElementWiseOperation(this, m, Operation.MULTIPLY);
+    }
+
+    /**
+     * Поэлементное умножение с записью результата в заданную матрицу
+     *
+     * @return матрица <code>destination</code>
+     * @see #matrixElementWiseOperation(OffHeapMatrix, OffHeapMatrix, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix mulMatrixElementWise(OffHeapMatrix m, OffHeapMatrix destination) {
+        return matrixElementWiseOperation(this, m, Operation.MULTIPLY, destination);
+    }
+
+    /**
+     * Поэлементное умножение на месте
+     *
+     * @return эта же матрица
+     * @see #matrixElementWiseOperation(OffHeapMatrix, OffHeapMatrix, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix mulElementWiseInPlace(OffHeapMatrix m) {
+        return matrixElementWiseOperation(this, m, Operation.MULTIPLY, this);
+    }
+
+    /**
+     * Поэлементное деление
+     *
+     * @return новая матрица в прямых буферах
+     * @see #matrixElementWiseOperation(OffHeapMatrix, OffHeapMatrix, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix divMatrixElementWise(OffHeapMatrix m) {
+        return matrixElementWiseOperation(this, m, Operation.DIVIDE);
+    }
+
+    /**
+     * Поэлементное деление с записью результата в заданную матрицу
+     *
+     * @return матрица <code>destination</code>
+     * @see #matrixElementWiseOperation(OffHeapMatrix, OffHeapMatrix, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix divMatrixElementWise(OffHeapMatrix m, OffHeapMatrix destination) {
+        return matrixElementWiseOperation(this, m, Operation.DIVIDE, destination);
+    }
+
+    /**
+     * Поэлементное деление на месте
+     *
+     * @return эта же матрица
+     * @see #matrixElementWiseOperation(OffHeapMatrix, OffHeapMatrix, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix divElementWiseInPlace(OffHeapMatrix m) {
+        return matrixElementWiseOperation(this, m, Operation.DIVIDE, this);
+    }
+
+    /**
+     * Скалярные операции над матрицей: сложение, вычитание, умножение и деление
+     *
+     * @param m         матрица
+     * @param scalar    скалярное число
+     * @param operation одна из четырех доступных операций
+     * @return новая матрица в прямых буферах, являющаяся результатом операции
+     * @throws IllegalArgumentException если матрица равна <code>null</code> или
+     *                                  при делении на ноль
+     * @throws IllegalStateException    если матрица закрыта
+     */
+    public static OffHeapMatrix scalarOperation(OffHeapMatrix m, double scalar, Operation operation) {
+        if (m == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        checkScalar(scalar, operation);
+        OffHeapMatrix result = allocate(m.rows, m.columns);
+        scalar(m, scalar, operation, result);
+        return result;
+    }
+
+    /**
+     * Скалярные операции над матрицей с записью результата в заданную
+     * матрицу, которая может совпадать с исходной
+     *
+     * @param m           матрица
+     * @param scalar      скалярное число
+     * @param operation   одна из четырех доступных операций
+     * @param destination матрица того же размера для записи результата
+     * @return матрица <code>destination</code>
+     * @throws IllegalArgumentException если одна из матриц равна <code>null</code>,
+     *                                  размеры не совпадают или при делении на ноль
+     * @throws IllegalStateException    если одна из матриц закрыта или приёмник
+     *                                  доступен только для чтения
+     */
+    public static OffHeapMatrix scalarOperation(OffHeapMatrix m, double scalar, Operation operation,
+                                                OffHeapMatrix destination) {
+        if (m == null || destination == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        checkSizes(m, destination);
+        checkWritable(destination);
+        checkScalar(scalar, operation);
+        scalar(m, scalar, operation, destination);
+        return destination;
+    }
+
+    /**
+     * Скалярное сложение
+     *
+     * @return новая матрица в прямых буферах
+     * @see #scalarOperation(OffHeapMatrix, double, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix addScalar(double scalar) {
+        return scalarOperation(this, scalar, Operation.SUM);
+    }
+
+    /**
+     * Скалярное сложение с записью результата в заданную матрицу
+     *
+     * @return матрица <code>destination</code>
+     * @see #scalarOperation(OffHeapMatrix, double, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix addScalar(double scalar, OffHeapMatrix destination) {
+        return scalarOperation(this, scalar, Operation.SUM, destination);
+    }
+
+    /**
+     * Скалярное сложение на месте
+     *
+     * @return эта же матрица
+     * @see #scalarOperation(OffHeapMatrix, double, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix addScalarInPlace(double scalar) {
+        return scalarOperation(this, scalar, Operation.SUM, this);
+    }
+
+    /**
+     * Скалярное вычитание
+     *
+     * @return новая матрица в прямых буферах
+     * @see #scalarOperation(OffHeapMatrix, double, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix subScalar(double scalar) {
+        return scalarOperation(this, scalar, Operation.SUBTRACT);
+    }
+
+    /**
+     * Скалярное вычитание с записью результата в заданную матрицу
+     *
+     * @return матрица <code>destination</code>
+     * @see #scalarOperation(OffHeapMatrix, double, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix subScalar(double scalar, OffHeapMatrix destination) {
+        return scalarOperation(this, scalar, Operation.SUBTRACT, destination);
+    }
+
+    /**
+     * Скалярное вычитание на месте
+     *
+     * @return эта же матрица
+     * @see #scalarOperation(OffHeapMatrix, double, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix subScalarInPlace(double scalar) {
+        return scalarOperation(this, scalar, Operation.SUBTRACT, this);
+    }
+
+    /**
+     * Скалярное умножение
+     *
+     * @return новая матрица в прямых буферах
+     * @see #scalarOperation(OffHeapMatrix, double, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix mulScalar(double scalar) {
+        return scalarOperation(this, scalar, Operation.MULTIPLY);
+    }
+
+    /**
+     * Скалярное умножение с записью результата в заданную матрицу
+     *
+     * @return матрица <code>destination</code>
+     * @see #scalarOperation(OffHeapMatrix, double, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix mulScalar(double scalar, OffHeapMatrix destination) {
+        return scalarOperation(this, scalar, Operation.MULTIPLY, destination);
+    }
+
+    /**
+     * Скалярное умножение на месте
+     *
+     * @return эта же матрица
+     * @see #scalarOperation(OffHeapMatrix, double, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix mulScalarInPlace(double scalar) {
+        return scalarOperation(this, scalar, Operation.MULTIPLY, this);
+    }
+
+    /**
+     * Скалярное деление
+     *
+     * @return новая матрица в прямых буферах
+     * @see #scalarOperation(OffHeapMatrix, double, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix divScalar(double scalar) {
+        return scalarOperation(this, scalar, Operation.DIVIDE);
+    }
+
+    /**
+     * Скалярное деление с записью результата в заданную матрицу
+     *
+     * @return матрица <code>destination</code>
+     * @see #scalarOperation(OffHeapMatrix, double, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix divScalar(double scalar, OffHeapMatrix destination) {
+        return scalarOperation(this, scalar, Operation.DIVIDE, destination);
+    }
+
+    /**
+     * Скалярное деление на месте
+     *
+     * @return эта же матрица
+     * @see #scalarOperation(OffHeapMatrix, double, Operation, OffHeapMatrix)
+     */
+    public OffHeapMatrix divScalarInPlace(double scalar) {
+        return scalarOperation(this, scalar, Operation.DIVIDE, this);
+    }
+
+    /**
+     * Перемножение матриц. Операнды обрабатываются плитками
+     * {@link #TILE_SIZE}x{@link #TILE_SIZE}, которые копируются в кучу и
+     * перемножаются блочным алгоритмом {@link BlockedMultiplication}; порядок
+     * суммирования тот же, поэтому результат побитово совпадает с {@link Matrix}
+     *
+     * @param m1 первая матрица
+     * @param m2 вторая матрица, число строк в которой совпадает с числом
+     *           столбцов в первой
+     * @return новая матрица в прямых буферах, являющаяся результатом операции
+     * @throws IllegalArgumentException если одна из матриц равна <code>null</code>
+     *                                  или если число столбцов в первой не совпадает
+     *                                  с числом строк во второй
+     * @throws IllegalStateException    если одна из матриц закрыта
+     */
+    public static OffHeapMatrix matrixMultiply(OffHeapMatrix m1, OffHeapMatrix m2) {
+        if (m1 == null || m2 == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        if (m1.columns != m2.rows)
+            throw new IllegalArgumentException(
+                    "First matrix should have rowNum equal to second matrix colNum.");
+        int rowTile = Math.min(TILE_SIZE, m1.rows);
+        int commonTile = Math.min(TILE_SIZE, m1.columns);
+        int columnTile = Math.min(TILE_SIZE, m2.columns);
+        double[] a = new double[rowTile * commonTile];
+        double[] b = new double[commonTile * columnTile];
+        double[] c = new double[rowTile * columnTile];
+        OffHeapMatrix result = allocate(m1.rows, m2.columns);
+        for (int ii = 0; ii < m1.rows; ii += rowTile) {
+            int height = Math.min(rowTile, m1.rows - ii);
+            for (int jj = 0; jj < m2.columns; jj += columnTile) {
+                int width = Math.min(columnTile, m2.columns - jj);
+                Arrays.fill(c, 0);
+                for (int kk = 0; kk < m1.columns; kk += commonTile) {
+                    int depth = Math.min(commonTile, m1.columns - kk);
+                    m1.readTile(ii, kk, height, depth, a);
+                    m2.readTile(kk, jj, depth, width, b);
+                    BlockedMultiplication.multiply(height, width, depth,
+                            a, 0, depth, false, b, 0, width, false, c, 0, width);
+                }
+                result.writeTile(ii, jj, height, width, c);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Нестатический метод перемножения матриц
+     *
+     * @param m второй операнд умножения
+     * @return новая матрица в прямых буферах, являющаяся результатом операции
+     * @see #matrixMultiply(OffHeapMatrix, OffHeapMatrix)
+     */
+    public OffHeapMatrix mulMatrix(OffHeapMatrix m) {
+        return matrixMultiply(this, m);
+    }
+
+    /**
+     * Возвращает новую матрицу в прямых буферах, транспонированную
+     * относительно исходной
+     *
+     * @return новая матрица размера <code>columns x rows</code>
+     * @throws IllegalStateException если матрица закрыта
+     */
+    public OffHeapMatrix transpose() {
+        OffHeapMatrix result = allocate(columns, rows);
+        transposeTiles(result);
+        return result;
+    }
+
+    /**
+     * Транспонирование с записью результата в заданную матрицу. Если приёмник
+     * совпадает с вызывающей квадратной матрицей, транспонирование выполняется
+     * на месте
+     *
+     * @param destination матрица размера <code>columns x rows</code>
+     * @return матрица <code>destination</code>
+     * @throws IllegalArgumentException если приёмник равен <code>null</code>
+     *                                  или имеет неподходящий размер
+     * @throws IllegalStateException    если одна из матриц закрыта или приёмник
+     *                                  доступен только для чтения
+     */
+    public OffHeapMatrix transpose(OffHeapMatrix destination) {
+        if (destination == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (destination.rows != columns || destination.columns != rows)
+            throw new IllegalArgumentException(
+                    "Destination matrix should have sizes of transposed matrix.");
+        if (destination == this)
+            return transposeInPlace();
+        checkWritable(destination);
+        transposeTiles(destination);
+        return destination;
+    }
+
+    /**
+     * Транспонирование квадратной матрицы на месте: симметричные плитки
+     * читаются в кучу, транспонируются и записываются на места друг друга
+     *
+     * @return эта же матрица
+     * @throws IllegalStateException при вызове от неквадратной матрицы, если
+     *                               матрица закрыта или доступна только для чтения
+     */
+    public OffHeapMatrix transposeInPlace() {
+        if (rows != columns)
+            throw new IllegalStateException("Method only defined for square matrices");
+        checkWritable(this);
+        int tile = Math.min(TILE_SIZE, rows);
+        double[] upper = new double[tile * tile];
+        double[] lower = new double[tile * tile];
+        double[] swapped = new double[tile * tile];
+        for (int ii = 0; ii < rows; ii += tile) {
+            int height = Math.min(tile, rows - ii);
+            readTile(ii, ii, height, height, upper);
+            Transposition.transposeSquare(upper, height);
+            writeTile(ii, ii, height, height, upper);
+            for (int jj = ii + tile; jj < columns; jj += tile) {
+                int width = Math.min(tile, columns - jj);
+                readTile(ii, jj, height, width, upper);
+                readTile(jj, ii, width, height, lower);
+                Transposition.transpose(upper, height, width, swapped);
+                writeTile(jj, ii, width, height, swapped);
+                Transposition.transpose(lower, width, height, swapped);
+                writeTile(ii, jj, height, width, swapped);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Сравнивает матрицу с заданным объектом. Результатом будет
+     * <code>true</code> тогда и только тогда, когда аргумент является открытой
+     * <code>OffHeapMatrix</code> того же размера, значения которой отличаются
+     * от значений этой матрицы не больше чем на {@link Matrix#equalsDelta()}.
+     * Порядок хранения и происхождение данных не учитываются
+     *
+     * @param anObject объект, с которым нужно сравнить эту матрицу
+     * @return <code>true</code>, если переданный объект представляет тот же
+     * набор данных
+     */
+    @Override
+    public boolean equals(Object anObject) {
+        if (this == anObject)
+            return true;
+        if (!(anObject instanceof OffHeapMatrix))
+            return false;
+        OffHeapMatrix matrix = (OffHeapMatrix) anObject;
+        if (isClosed() || matrix.isClosed() || rows != matrix.rows || columns != matrix.columns)
+            return false;
+        double delta = Matrix.equalsDelta();
+        double[] a = new double[(int) Math.min(CHUNK_SIZE, size())];
+        double[] b = new double[a.length];
+        for (long from = 0; from < size(); from += a.length) {
+            int length = (int) Math.min(a.length, size() - from);
+            read(from, a, 0, length);
+            matrix.read(from, b, 0, length);
+            if (!Kernels.ACTIVE.equalsDelta(a, b, length, delta))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Хэш-код, согласованный с {@link #equals(Object)}: при нулевой
+     * {@link Matrix#equalsDelta()} зависит от размеров и значений, при
+     * ненулевой или для закрытой матрицы - только от размеров. Вычисление
+     * читает все элементы участками, как и сравнение
+     *
+     * @return хэш-код матрицы
+     */
+    @Override
+    public int hashCode() {
+        if (Matrix.equalsDelta() != 0 || isClosed())
+            return 31 * rows + columns;
+        long sum = 0;
+        double[] chunk = new double[(int) Math.min(CHUNK_SIZE, size())];
+        for (long from = 0; from < size(); from += chunk.length) {
+            int length = (int) Math.min(chunk.length, size() - from);
+            read(from, chunk, 0, length);
+            for (int i = 0; i < length; i++)
+                sum += Matrix.elementHash(from + i, chunk[i]);
+        }
+        long hash = Matrix.mix(sum + Matrix.mix(((long) rows << 32) | columns));
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Освобождает память матрицы. Для отображённого файла снимает отображение,
+     * при этом изменения в режиме копирования при записи теряются. Повторный
+     * вызов ничего не делает
+     */
+    @Override
+    public void close() {
+        ByteBuffer[] released = buffers;
+        segments = null;
+        buffers = null;
+        if (released != null)
+            for (ByteBuffer buffer : released)
+                DirectBuffers.release(buffer);
+    }
+
+    /**
+     * Копирует подряд идущие элементы хранения, начиная с <code>index</code>,
+     * в массив. Порядок хранения определяется раскладкой матрицы
+     */
+    void get(long index, double[] destination, int offset, int length) {
+        DoubleBuffer[] segments = segments();
+        while (length > 0) {
+            DoubleBuffer segment = segments[(int) (index >>> segmentShift)].duplicate();
+            int from = (int) index & segmentMask;
+            int count = Math.min(length, segment.limit() - from);
+            segment.position(from);
+            segment.get(destination, offset, count);
+            index += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Записывает подряд идущие элементы хранения, начиная с <code>index</code>
+     */
+    void put(long index, double[] source, int offset, int length) {
+        if (readOnly)
+            throw new IllegalStateException("Matrix is read-only.");
+        DoubleBuffer[] segments = segments();
+        while (length > 0) {
+            DoubleBuffer segment = segments[(int) (index >>> segmentShift)].duplicate();
+            int from = (int) index & segmentMask;
+            int count = Math.min(length, segment.limit() - from);
+            segment.position(from);
+            segment.put(source, offset, count);
+            index += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * @return <code>true</code>, если данные хранятся по столбцам
+     */
+    boolean isColumnMajor() {
+        return columnMajor;
+    }
+
+    /**
+     * @return буферы хранения, для записи в файл
+     * @throws IllegalStateException если матрица закрыта
+     */
+    ByteBuffer[] buffers() {
+        segments();
+        return buffers;
+    }
+
+    /**
+     * @return число элементов матрицы
+     */
+    long size() {
+        return (long) rows * columns;
+    }
+
+    /**
+     * Читает элементы с построчными индексами
+     * <code>[from, from + length)</code> независимо от порядка хранения
+     */
+    void read(long from, double[] buffer, int offset, int length) {
+        if (!columnMajor) {
+            get(from, buffer, offset, length);
+            return;
+        }
+        DoubleBuffer[] segments = segments();
+        long row = from / columns;
+        int column = (int) (from % columns);
+        for (int i = 0; i < length; i++) {
+            long index = (long) column * rows + row;
+            buffer[offset + i] = segments[(int) (index >>> segmentShift)].get((int) index & segmentMask);
+            if (++column == columns) {
+                column = 0;
+                row++;
+            }
+        }
+    }
+
+    /**
+     * Записывает элементы с построчными индексами
+     * <code>[from, from + length)</code> независимо от порядка хранения
+     */
+    void write(long from, double[] buffer, int offset, int length) {
+        if (!columnMajor) {
+            put(from, buffer, offset, length);
+            return;
+        }
+        checkWritable(this);
+        DoubleBuffer[] segments = segments();
+        long row = from / columns;
+        int column = (int) (from % columns);
+        for (int i = 0; i < length; i++) {
+            long index = (long) column * rows + row;
+            segments[(int) (index >>> segmentShift)].put((int) index & segmentMask, buffer[offset + i]);
+            if (++column == columns) {
+                column = 0;
+                row++;
+            }
+        }
+    }
+
+    /**
+     * Копирует прямоугольник <code>height x width</code> с левым верхним углом
+     * <code>[row][column]</code> в массив, построчно
+     */
+    private void readTile(int row, int column, int height, int width, double[] tile) {
+        for (int i = 0; i < height; i++)
+            read((long) (row + i) * columns + column, tile, i * width, width);
+    }
+
+    /**
+     * Записывает построчно уложенный прямоугольник <code>height x width</code>
+     * с левым верхним углом в <code>[row][column]</code>
+     */
+    private void writeTile(int row, int column, int height, int width, double[] tile) {
+        for (int i = 0; i < height; i++)
+            write((long) (row + i) * columns + column, tile, i * width, width);
+    }
+
+    private void transposeTiles(OffHeapMatrix destination) {
+        int rowTile = Math.min(TILE_SIZE, rows);
+        int columnTile = Math.min(TILE_SIZE, columns);
+        double[] tile = new double[rowTile * columnTile];
+        double[] transposed = new double[tile.length];
+        for (int ii = 0; ii < rows; ii += rowTile) {
+            int height = Math.min(rowTile, rows - ii);
+            for (int jj = 0; jj < columns; jj += columnTile) {
+                int width = Math.min(columnTile, columns - jj);
+                readTile(ii, jj, height, width, tile);
+                Transposition.transpose(tile, height, width, transposed);
+                destination.writeTile(jj, ii, width, height, transposed);
+            }
+        }
+    }
+
+    private static void elementWise(OffHeapMatrix m1, OffHeapMatrix m2, Operation operation,
+                                    OffHeapMatrix destination) {
+        long size = m1.size();
+        double[] a = new double[(int) Math.min(CHUNK_SIZE, size)];
+        double[] b = new double[a.length];
+        for (long from = 0; from < size; from += a.length) {
+            int length = (int) Math.min(a.length, size - from);
+            m1.read(from, a, 0, length);
+            m2.read(from, b, 0, length);
+            Kernels.ACTIVE.elementWise(operation, a, 0, b, 0, a, 0, length);
+            destination.write(from, a, 0, length);
+        }
+    }
+
+    private static void scalar(OffHeapMatrix m, double scalar, Operation operation,
+                               OffHeapMatrix destination) {
+        long size = m.size();
+        double[] a = new double[(int) Math.min(CHUNK_SIZE, size)];
+        for (long from = 0; from < size; from += a.length) {
+            int length = (int) Math.min(a.length, size - from);
+            m.read(from, a, 0, length);
+            Kernels.ACTIVE.scalar(operation, a, 0, scalar, a, 0, length);
+            destination.write(from, a, 0, length);
+        }
+    }
+
+    private static void checkSizes(OffHeapMatrix pattern, OffHeapMatrix matrix) {
+        if (pattern.rows != matrix.rows || pattern.columns != matrix.columns)
+            throw new IllegalArgumentException("Matrices have different sizes.");
+    }
+
+    private static void checkWritable(OffHeapMatrix matrix) {
+        matrix.segments();
+        if (matrix.readOnly)
+            throw new IllegalStateException("Matrix is read-only.");
+    }
+
+    /**
+     * Проверка делителя до начала записи, чтобы не испортить приёмник
+     */
+    private static void checkDivisor(OffHeapMatrix divisor, Operation operation) {
+        if (operation != Operation.DIVIDE)
+            return;
+        double[] buffer = new double[(int) Math.min(CHUNK_SIZE, divisor.size())];
+        for (long from = 0; from < divisor.size(); from += buffer.length) {
+            int length = (int) Math.min(buffer.length, divisor.size() - from);
+            divisor.get(from, buffer, 0, length);
+            for (int i = 0; i < length; i++)
+                if (buffer[i] == 0)
+                    throw new IllegalArgumentException(
+                            "Second matrix shouldn't contain zero elements" +
+                                    " for division operation");
+        }
+    }
+
+    private static void checkScalar(double scalar, Operation operation) {
+        if (operation == Operation.DIVIDE && scalar == 0)
+            throw new IllegalArgumentException(
+                    "Scalar shouldn't be a zero for division operation");
+    }
+
+    private DoubleBuffer[] segments() {
+        DoubleBuffer[] result = segments;
+        if (result == null)
+            throw new IllegalStateException("Matrix is closed.");
+        return result;
+    }
+
+    private long index(int row, int column) {
+        Indices.check(row, column, rows, columns);
+        return columnMajor ? (long) column * rows + row : (long) row * columns + column;
+    }
+}
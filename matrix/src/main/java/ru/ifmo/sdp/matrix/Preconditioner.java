@@ -0,0 +1,90 @@
+package ru.ifmo.sdp.matrix;
+
+/**
+ * Предобуславливатель итерационного метода - приближение <code>M</code>
+ * к матрице системы, для которого легко решается <code>M z = r</code>.
+ * Чем ближе <code>M</code> к <code>A</code>, тем меньше итераций требуется
+ */
+public interface Preconditioner {
+
+    /**
+     * Решение <code>M z = r</code> без выделения памяти
+     *
+     * @param r вектор правой части. Не изменяется
+     * @param z вектор той же длины для записи решения, не совпадающий с <code>r</code>
+     */
+    void apply(Matrix r, Matrix z);
+
+    /**
+     * @return предобуславливатель <code>M = I</code>, то есть его отсутствие
+     */
+    static Preconditioner identity() {
+        return new Preconditioner() {
+            @Override
+            public void apply(Matrix r, Matrix z) {
+                System.arraycopy(r.data, 0, z.data, 0, z.data.length);
+                z.contentChanged();
+            }
+        };
+    }
+
+    /**
+     * Предобуславливатель Якоби: <code>M</code> - диагональ матрицы системы
+     *
+     * @param matrix квадратная матрица системы
+     * @return новый предобуславливатель
+     * @throws IllegalArgumentException если матрица равна <code>null</code>
+     *                                  или на её диагонали есть нули
+     * @throws IllegalStateException    если матрица не квадратная
+     */
+    static Preconditioner jacobi(Matrix matrix) {
+        if (matrix == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (matrix.rows() != matrix.columns())
+            throw new IllegalStateException("Method only defined for square matrices");
+        double[] diagonal = new double[matrix.rows()];
+        for (int i = 0; i < diagonal.length; i++)
+            diagonal[i] = matrix.data[i * diagonal.length + i];
+        return new JacobiPreconditioner(diagonal);
+    }
+
+    /**
+     * @see #jacobi(Matrix)
+     */
+    static Preconditioner jacobi(SparseMatrix matrix) {
+        if (matrix == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (matrix.rows() != matrix.columns())
+            throw new IllegalStateException("Method only defined for square matrices");
+        double[] diagonal = new double[matrix.rows()];
+        for (int i = 0; i < diagonal.length; i++)
+            diagonal[i] = matrix.getElement(i, i);
+        return new JacobiPreconditioner(diagonal);
+    }
+
+    /**
+     * Неполное LU-разложение без заполнения, ILU(0): <code>M = L U</code>,
+     * где множители имеют те же ненулевые позиции, что и матрица системы
+     *
+     * @param matrix квадратная матрица системы
+     * @return новый предобуславливатель
+     * @throws IllegalArgumentException если матрица равна <code>null</code>
+     * @throws IllegalStateException    если матрица не квадратная или при
+     *                                  разложении встретился нулевой ведущий
+     *                                  элемент
+     */
+    static Preconditioner incompleteLU(Matrix matrix) {
+        if (matrix == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        return IncompleteLUPreconditioner.of(SparseMatrix.fromMatrix(matrix, SparseMatrix.Layout.CSR));
+    }
+
+    /**
+     * @see #incompleteLU(Matrix)
+     */
+    static Preconditioner incompleteLU(SparseMatrix matrix) {
+        if (matrix == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        return IncompleteLUPreconditioner.of(matrix.toLayout(SparseMatrix.Layout.CSR));
+    }
+}
@@ -0,0 +1,268 @@
+package ru.ifmo.sdp.matrix;
+
+import java.util.Arrays;
+
+/**
+ * QR-разложение матрицы отражениями Хаусхолдера: <code>A = Q R</code>, где
+ * <code>A</code> имеет размер <code>m x n</code>, <code>m &gt;= n</code>,
+ * <code>Q</code> - ортогональная, <code>R</code> - верхняя треугольная.
+ * Разложение используется для решения переопределённых систем методом
+ * наименьших квадратов; объект разложения неизменяем и может решать любое
+ * число правых частей без повторного разложения.
+ * <p>
+ * Алгоритм блочный: полоса из {@link LUDecomposition#PANEL_SIZE} столбцов
+ * раскладывается обычным алгоритмом, после чего отражения полосы
+ * собираются в компактное WY-представление <code>I - V T V^T</code>
+ * (Schreiber, Van Loan, 1989) и применяются к остатку матрицы тремя
+ * перемножениями {@link BlockedMultiplication} вместо последовательного
+ * применения каждого отражения.
+ * <p>
+ * <code>Q</code> хранится неявно, векторами отражений под диагональю.
+ */
+public final class QRDecomposition {
+    private final int rows;
+    private final int columns;
+    // R над диагональю и на ней, векторы отражений без единичного
+    // первого элемента под диагональю
+    private final double[] qr;
+    // коэффициенты отражений H_j = I - tau[j] v_j v_j^T
+    private final double[] tau;
+
+    private QRDecomposition(int rows, int columns, double[] qr, double[] tau) {
+        this.rows = rows;
+        this.columns = columns;
+        this.qr = qr;
+        this.tau = tau;
+    }
+
+    /**
+     * Выполняет разложение, параллельно для больших матриц
+     *
+     * @see #of(Matrix, boolean)
+     */
+    public static QRDecomposition of(Matrix m) {
+        return of(m, true);
+    }
+
+    /**
+     * Выполняет разложение матрицы. Исходная матрица не изменяется
+     *
+     * @param m        матрица, число строк которой не меньше числа столбцов
+     * @param parallel обновлять остаток параллельно, если объём вычислений
+     *                 превышает {@link BlockedMultiplication#parallelThreshold()}
+     * @return разложение матрицы
+     * @throws IllegalArgumentException если матрица равна <code>null</code>
+     * @throws IllegalStateException    если строк меньше, чем столбцов
+     */
+    public static QRDecomposition of(Matrix m, boolean parallel) {
+        if (m == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (m.rows() < m.columns())
+            throw new IllegalStateException(
+                    "Method only defined for matrices with rowNum not less than colNum");
+        int rows = m.rows();
+        int n = m.columns();
+        int panelSize = LUDecomposition.PANEL_SIZE;
+        double[] a = m.data.clone();
+        double[] tau = new double[n];
+        double[] w = new double[n];
+        double[] v = new double[rows * Math.min(panelSize, n)];
+        double[] t = new double[panelSize * panelSize];
+        double[] product = new double[panelSize * n];
+        double[] update = new double[panelSize * n];
+
+        for (int k0 = 0; k0 < n; k0 += panelSize) {
+            int k1 = Math.min(k0 + panelSize, n);
+            // разложение полосы столбцов [k0, k1)
+            for (int j = k0; j < k1; j++) {
+                tau[j] = householder(a, rows, n, j);
+                if (tau[j] != 0 && j + 1 < k1)
+                    reflect(a, rows, n, j, tau[j], a, n, j + 1, k1 - j - 1, w);
+            }
+            if (k1 == n)
+                break;
+
+            // V - векторы отражений полосы с явными единицами и нулями
+            int panel = k1 - k0;
+            int height = rows - k0;
+            int rest = n - k1;
+            for (int i = 0; i < height; i++)
+                for (int c = 0; c < panel; c++)
+                    v[i * panel + c] = i > c ? a[(k0 + i) * n + k0 + c] : i == c ? 1 : 0;
+            // T - верхняя треугольная, H_k0 ... H_k1-1 = I - V T V^T
+            for (int c = 0; c < panel; c++) {
+                double tc = tau[k0 + c];
+                t[c * panel + c] = tc;
+                for (int r = 0; r < c; r++) {
+                    double dot = 0;
+                    for (int i = c; i < height; i++)
+                        dot += v[i * panel + r] * v[i * panel + c];
+                    w[r] = -tc * dot;
+                }
+                for (int r = 0; r < c; r++) {
+                    double sum = 0;
+                    for (int q = r; q < c; q++)
+                        sum += t[r * panel + q] * w[q];
+                    t[r * panel + c] = sum;
+                }
+            }
+            // A2 -= V (T^T (V^T A2))
+            int a2 = k0 * n + k1;
+            Arrays.fill(product, 0, panel * rest, 0);
+            BlockedMultiplication.multiply(panel, rest, height,
+                    v, 0, panel, true,
+                    a, a2, n, false,
+                    product, 0, rest, parallel);
+            Arrays.fill(update, 0, panel * rest, 0);
+            BlockedMultiplication.multiply(panel, rest, panel,
+                    t, 0, panel, true,
+                    product, 0, rest, false,
+                    update, 0, rest, parallel);
+            Kernels.ACTIVE.scalar(Matrix.Operation.MULTIPLY, update, 0, -1,
+                    update, 0, panel * rest);
+            BlockedMultiplication.multiply(height, rest, panel,
+                    v, 0, panel, false,
+                    update, 0, rest, false,
+                    a, a2, n, parallel);
+        }
+        return new QRDecomposition(rows, n, a, tau);
+    }
+
+    /**
+     * Строит отражение, обнуляющее столбец <code>j</code> под диагональю
+     * (аналог LAPACK <code>dlarfg</code>). Вектор отражения записывается на
+     * место обнулённых элементов, элемент <code>R[j][j]</code> - на диагональ
+     *
+     * @return коэффициент отражения; <code>0</code>, если столбец уже обнулён
+     */
+    private static double householder(double[] a, int rows, int n, int j) {
+        double alpha = a[j * n + j];
+        double sigma = 0;
+        for (int i = j + 1; i < rows; i++) {
+            double value = a[i * n + j];
+            sigma += value * value;
+        }
+        if (sigma == 0)
+            return 0;
+        double norm = Math.sqrt(alpha * alpha + sigma);
+        double beta = alpha >= 0 ? -norm : norm;
+        double scale = 1 / (alpha - beta);
+        for (int i = j + 1; i < rows; i++)
+            a[i * n + j] *= scale;
+        a[j * n + j] = beta;
+        return (beta - alpha) / beta;
+    }
+
+    /**
+     * Применяет отражение <code>H_j</code>, хранящееся в столбце
+     * <code>j</code> массива <code>a</code>, к столбцам
+     * <code>[from, from + width)</code> матрицы <code>x</code> с шагом строк
+     * <code>stride</code>. Обновление идёт строками, подряд по памяти
+     *
+     * @param w рабочий буфер длины не меньше <code>width</code>
+     */
+    private static void reflect(double[] a, int rows, int n, int j, double tau,
+                                double[] x, int stride, int from, int width, double[] w) {
+        MatrixKernels kernels = Kernels.ACTIVE;
+        // w = v^T x
+        System.arraycopy(x, j * stride + from, w, 0, width);
+        for (int i = j + 1; i < rows; i++)
+            kernels.axpy(width, a[i * n + j], x, i * stride + from, w, 0);
+        // x -= tau v w
+        kernels.scalar(Matrix.Operation.MULTIPLY, w, 0, tau, w, 0, width);
+        kernels.elementWise(Matrix.Operation.SUBTRACT, x, j * stride + from, w, 0,
+                x, j * stride + from, width);
+        for (int i = j + 1; i < rows; i++)
+            kernels.axpy(width, -a[i * n + j], w, 0, x, i * stride + from);
+    }
+
+    /**
+     * @return число строк разложенной матрицы
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * @return число столбцов разложенной матрицы
+     */
+    public int columns() {
+        return columns;
+    }
+
+    /**
+     * @return <code>true</code>, если на диагонали <code>R</code> нет нулей
+     */
+    public boolean isFullRank() {
+        for (int j = 0; j < columns; j++)
+            if (qr[j * columns + j] == 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * @return верхняя треугольная матрица <code>R</code> размера
+     * <code>columns x columns</code>
+     */
+    public Matrix getR() {
+        double[] result = new double[columns * columns];
+        for (int i = 0; i < columns; i++)
+            System.arraycopy(qr, i * columns + i, result, i * columns + i, columns - i);
+        return new Matrix(columns, columns, result);
+    }
+
+    /**
+     * @return матрица <code>Q</code> с ортонормированными столбцами размера
+     * <code>rows x columns</code> (сокращённая форма), <code>A = Q R</code>
+     */
+    public Matrix getQ() {
+        double[] q = new double[rows * columns];
+        for (int i = 0; i < columns; i++)
+            q[i * columns + i] = 1;
+        double[] w = new double[columns];
+        for (int j = columns - 1; j >= 0; j--)
+            if (tau[j] != 0)
+                reflect(qr, rows, columns, j, tau[j], q, columns, 0, columns, w);
+        return new Matrix(rows, columns, q);
+    }
+
+    /**
+     * Решение системы <code>A X = B</code> методом наименьших квадратов:
+     * каждый столбец <code>X</code> минимизирует норму невязки для
+     * соответствующего столбца <code>B</code>. Для квадратной матрицы это
+     * точное решение
+     *
+     * @param b матрица правых частей с числом строк, равным числу строк разложения
+     * @return новая матрица решений размера <code>columns x b.columns()</code>
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     *                                  или имеет неподходящее число строк
+     * @throws IllegalStateException    если матрица не полного ранга
+     */
+    public Matrix solve(Matrix b) {
+        if (b == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (b.rows() != rows)
+            throw new IllegalArgumentException(
+                    "Entered matrix should have rowNum equal to decomposed matrix rowNum.");
+        if (!isFullRank())
+            throw new IllegalStateException("Matrix is rank deficient.");
+        int width = b.columns();
+        double[] y = b.data.clone();
+        double[] w = new double[width];
+        // y = Q^T b
+        for (int j = 0; j < columns; j++)
+            if (tau[j] != 0)
+                reflect(qr, rows, columns, j, tau[j], y, width, 0, width, w);
+        // R x = y
+        MatrixKernels kernels = Kernels.ACTIVE;
+        for (int k = columns - 1; k >= 0; k--) {
+            kernels.scalar(Matrix.Operation.DIVIDE, y, k * width, qr[k * columns + k],
+                    y, k * width, width);
+            for (int i = 0; i < k; i++)
+                kernels.axpy(width, -qr[i * columns + k], y, k * width, y, i * width);
+        }
+        double[] x = new double[columns * width];
+        System.arraycopy(y, 0, x, 0, x.length);
+        return new Matrix(columns, width, x);
+    }
+}
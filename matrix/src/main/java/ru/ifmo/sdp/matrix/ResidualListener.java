@@ -0,0 +1,16 @@
+package ru.ifmo.sdp.matrix;
+
+/**
+ * Наблюдатель за ходом итерационного метода, см.
+ * {@link IterativeSolver#setListener(ResidualListener)}
+ */
+public interface ResidualListener {
+
+    /**
+     * Вызывается после каждой итерации
+     *
+     * @param iteration номер итерации, начиная с <code>1</code>
+     * @param residual  евклидова норма невязки <code>b - A x</code>
+     */
+    void iteration(int iteration, double residual);
+}
@@ -0,0 +1,53 @@
+package ru.ifmo.sdp.matrix;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+
+/**
+ * Приёмник строк матрицы, записываемых порциями, см. {@link MatrixStream}
+ */
+public interface RowSink extends Closeable {
+
+    /**
+     * Записывает очередные строки
+     *
+     * @param buffer  строки, уложенные построчно с начала буфера
+     * @param rows    число строк
+     * @param columns число столбцов, одинаковое для всех вызовов
+     * @throws IOException при ошибке ввода-вывода
+     */
+    void write(double[] buffer, int rows, int columns) throws IOException;
+
+    /**
+     * Приёмник в формате CSV, см. {@link RowSource#csv}. Значения записываются
+     * без потери точности
+     *
+     * @param writer текст. Закрывается вместе с приёмником
+     * @return приёмник строк
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     */
+    static RowSink csv(Writer writer) {
+        if (writer == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        return new CsvRowSink(writer instanceof BufferedWriter
+                ? (BufferedWriter) writer : new BufferedWriter(writer));
+    }
+
+    /**
+     * Приёмник в двоичном формате {@link MatrixFile} с двойной точностью.
+     * Число строк заранее неизвестно и записывается в заголовок при закрытии
+     *
+     * @param path путь к файлу. Существующий файл перезаписывается
+     * @return приёмник строк
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     * @throws IOException              при ошибке ввода-вывода
+     */
+    static RowSink binary(Path path) throws IOException {
+        if (path == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        return new BinaryRowSink(path);
+    }
+}
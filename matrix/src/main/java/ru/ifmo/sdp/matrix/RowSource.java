@@ -0,0 +1,88 @@
+package ru.ifmo.sdp.matrix;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Источник строк матрицы, читаемых порциями. Позволяет обрабатывать матрицы,
+ * не помещающиеся в память, см. {@link MatrixStream}
+ */
+public interface RowSource extends Closeable {
+
+    /**
+     * @return число столбцов, известное до начала чтения
+     */
+    int columns();
+
+    /**
+     * Читает очередные строки, построчно, в начало буфера
+     *
+     * @param buffer  буфер длиной не меньше <code>maxRows * columns()</code>
+     * @param maxRows наибольшее число строк для чтения, больше нуля
+     * @return число прочитанных строк, <code>0</code> по окончании данных
+     * @throws IOException при ошибке ввода-вывода или формата данных
+     */
+    int read(double[] buffer, int maxRows) throws IOException;
+
+    /**
+     * @param matrix матрица в памяти
+     * @return источник строк матрицы
+     * @throws IllegalArgumentException если матрица равна <code>null</code>
+     */
+    static RowSource of(Matrix matrix) {
+        if (matrix == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        return new MatrixStream.MatrixSource(matrix);
+    }
+
+    /**
+     * Источник в формате CSV: одна строка матрицы в строке текста, значения
+     * через запятую. Пустые строки пропускаются. Число столбцов определяется
+     * по первой строке
+     *
+     * @param reader текст. Закрывается вместе с источником
+     * @return источник строк
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     * @throws IOException              если данные пусты или при ошибке ввода-вывода
+     */
+    static RowSource csv(Reader reader) throws IOException {
+        if (reader == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        return new CsvRowSource(reader instanceof BufferedReader
+                ? (BufferedReader) reader : new BufferedReader(reader));
+    }
+
+    /**
+     * Источник в двоичном формате {@link MatrixFile} с построчным хранением
+     *
+     * @param input поток. Закрывается вместе с источником
+     * @return источник строк
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     * @throws IOException              если заголовок повреждён, значения
+     *                                  хранятся по столбцам или при ошибке
+     *                                  ввода-вывода
+     */
+    static RowSource binary(InputStream input) throws IOException {
+        if (input == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        return new BinaryRowSource(input instanceof BufferedInputStream
+                ? input : new BufferedInputStream(input));
+    }
+
+    /**
+     * Источник в двоичном формате {@link MatrixFile} из файла
+     *
+     * @see #binary(InputStream)
+     */
+    static RowSource binary(Path path) throws IOException {
+        if (path == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        return binary(Files.newInputStream(path));
+    }
+}
@@ -0,0 +1,71 @@
+package ru.ifmo.sdp.matrix;
+
+/**
+ * Скалярная реализация {@link MatrixKernels}, эталон для остальных реализаций
+ */
+final class ScalarKernels implements MatrixKernels {
+    static final ScalarKernels INSTANCE = new ScalarKernels();
+
+    private ScalarKernels() {
+    }
+
+    @Override
+    public void elementWise(Matrix.Operation operation, double[] a, int aOffset,
+                            double[] b, int bOffset, double[] result, int resultOffset, int length) {
+        switch (operation) {
+            case SUM:
+                for (int i = 0; i < length; i++)
+                    result[resultOffset + i] = a[aOffset + i] + b[bOffset + i];
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < length; i++)
+                    result[resultOffset + i] = a[aOffset + i] - b[bOffset + i];
+                break;
+            case MULTIPLY:
+                for (int i = 0; i < length; i++)
+                    result[resultOffset + i] = a[aOffset + i] * b[bOffset + i];
+                break;
+            case DIVIDE:
+                for (int i = 0; i < length; i++)
+                    result[resultOffset + i] = a[aOffset + i] / b[bOffset + i];
+                break;
+        }
+    }
+
+    @Override
+    public void scalar(Matrix.Operation operation, double[] a, int aOffset, double scalar,
+                       double[] result, int resultOffset, int length) {
+        switch (operation) {
+            case SUM:
+                for (int i = 0; i < length; i++)
+                    result[resultOffset + i] = a[aOffset + i] + scalar;
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < length; i++)
+                    result[resultOffset + i] = a[aOffset + i] - scalar;
+                break;
+            case MULTIPLY:
+                for (int i = 0; i < length; i++)
+                    result[resultOffset + i] = a[aOffset + i] * scalar;
+                break;
+            case DIVIDE:
+                for (int i = 0; i < length; i++)
+                    result[resultOffset + i] = a[aOffset + i] / scalar;
+                break;
+        }
+    }
+
+    @Override
+    public void axpy(int length, double alpha, double[] x, int xOffset, double[] y, int yOffset) {
+        for (int i = 0; i < length; i++)
+            y[yOffset + i] += alpha * x[xOffset + i];
+    }
+
+    @Override
+    public boolean equalsDelta(double[] a, double[] b, int length, double delta) {
+        for (int i = 0; i < length; i++)
+            if (Math.abs(a[i] - b[i]) > delta)
+                return false;
+        return true;
+    }
+}
@@ -0,0 +1,615 @@
+package ru.ifmo.sdp.matrix;
+
+import java.util.Arrays;
+
+/**
+ * Неизменяемая разреженная матрица в сжатом построчном (CSR) или сжатом
+ * постолбцовом (CSC) формате. Хранятся только ненулевые элементы, поэтому
+ * память и время операций пропорциональны их числу, а не произведению
+ * размеров.
+ * <p>
+ * В формате CSR для строки <code>i</code> ненулевые элементы лежат в
+ * <code>values[pointers[i] .. pointers[i + 1])</code>, а их столбцы - в
+ * <code>indices</code> того же диапазона, по возрастанию. Формат CSC устроен
+ * так же с заменой строк на столбцы. Далее строка CSR и столбец CSC
+ * называются основной линией.
+ */
+public final class SparseMatrix {
+    private final int rows;         // число строк
+    private final int columns;      // число столбцов
+    private final Layout layout;    // формат хранения
+    final int[] pointers;           // начала основных линий, длина - их число + 1
+    final int[] indices;            // номера по второму измерению
+    final double[] values;          // ненулевые значения
+
+    /**
+     * Форматы хранения
+     */
+    public enum Layout {
+        /**
+         * Сжатые строки - быстрый доступ к строке
+         */
+        CSR,
+        /**
+         * Сжатые столбцы - быстрый доступ к столбцу
+         */
+        CSC
+    }
+
+    /**
+     * Конструктор, принимающий массивы во владение без проверок и копирования
+     */
+    SparseMatrix(int rows, int columns, Layout layout,
+                 int[] pointers, int[] indices, double[] values) {
+        this.rows = rows;
+        this.columns = columns;
+        this.layout = layout;
+        this.pointers = pointers;
+        this.indices = indices;
+        this.values = values;
+    }
+
+    /**
+     * Создаёт разреженную матрицу из плотной, сохраняя её ненулевые элементы
+     *
+     * @param m      исходная матрица
+     * @param layout формат хранения
+     * @return новая разреженная матрица
+     * @throws IllegalArgumentException если один из аргументов равен <code>null</code>
+     */
+    public static SparseMatrix fromMatrix(Matrix m, Layout layout) {
+        if (m == null || layout == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        int rows = m.rows();
+        int columns = m.columns();
+        double[] data = m.data;
+        int nonZeros = 0;
+        for (double value : data)
+            if (value != 0)
+                nonZeros++;
+        int[] pointers = new int[rows + 1];
+        int[] indices = new int[nonZeros];
+        double[] values = new double[nonZeros];
+        int position = 0;
+        for (int i = 0; i < rows; i++) {
+            int rowStart = i * columns;
+            for (int j = 0; j < columns; j++) {
+                double value = data[rowStart + j];
+                if (value != 0) {
+                    indices[position] = j;
+                    values[position++] = value;
+                }
+            }
+            pointers[i + 1] = position;
+        }
+        SparseMatrix csr = new SparseMatrix(rows, columns, Layout.CSR, pointers, indices, values);
+        return csr.toLayout(layout);
+    }
+
+    /**
+     * Создаёт разреженную матрицу из списка элементов в виде троек
+     * (строка, столбец, значение). Повторяющиеся позиции суммируются,
+     * нулевые значения не сохраняются
+     *
+     * @param rows          число строк, не меньше единицы
+     * @param columns       число столбцов, не меньше единицы
+     * @param rowIndices    индексы строк элементов
+     * @param columnIndices индексы столбцов элементов
+     * @param values        значения элементов
+     * @param layout        формат хранения
+     * @return новая разреженная матрица
+     * @throws IllegalArgumentException  если один из аргументов равен <code>null</code>,
+     *                                   размеры меньше единицы или массивы
+     *                                   имеют разную длину
+     * @throws IndexOutOfBoundsException если один из индексов выходит за границы
+     */
+    public static SparseMatrix fromTriplets(int rows, int columns, int[] rowIndices,
+                                            int[] columnIndices, double[] values,
+                                            Layout layout) {
+        if (rowIndices == null || columnIndices == null || values == null || layout == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        if (rows < 1 || columns < 1)
+            throw new IllegalArgumentException(
+                    "One of entered matrix sizes is less then one.");
+        if (rowIndices.length != values.length || columnIndices.length != values.length)
+            throw new IllegalArgumentException("All arrays should have equal sizes.");
+        for (int p = 0; p < values.length; p++)
+            Indices.check(rowIndices[p], columnIndices[p], rows, columns);
+        boolean csr = layout == Layout.CSR;
+        int[] major = csr ? rowIndices : columnIndices;
+        int[] minor = csr ? columnIndices : rowIndices;
+        int majorCount = csr ? rows : columns;
+        int minorCount = csr ? columns : rows;
+
+        // два устойчивых прохода сортировки подсчётом: по второму измерению,
+        // затем по основному, дают порядок (основной, второй)
+        int[] byMinor = countingOrder(minor, minorCount, identity(values.length));
+        int[] order = countingOrder(major, majorCount, byMinor);
+
+        int[] pointers = new int[majorCount + 1];
+        int[] resultIndices = new int[values.length];
+        double[] resultValues = new double[values.length];
+        int position = 0;
+        int p = 0;
+        for (int line = 0; line < majorCount; line++) {
+            while (p < order.length && major[order[p]] == line) {
+                int index = minor[order[p]];
+                double sum = 0;
+                while (p < order.length && major[order[p]] == line && minor[order[p]] == index)
+                    sum += values[order[p++]];
+                if (sum != 0) {
+                    resultIndices[position] = index;
+                    resultValues[position++] = sum;
+                }
+            }
+            pointers[line + 1] = position;
+        }
+        return new SparseMatrix(rows, columns, layout, pointers,
+                Arrays.copyOf(resultIndices, position), Arrays.copyOf(resultValues, position));
+    }
+
+    private static int[] identity(int length) {
+        int[] result = new int[length];
+        for (int i = 0; i < length; i++)
+            result[i] = i;
+        return result;
+    }
+
+    /**
+     * Устойчивая сортировка подсчётом перестановки <code>order</code>
+     * по ключам <code>keys[order[p]]</code> из диапазона <code>[0, range)</code>
+     */
+    private static int[] countingOrder(int[] keys, int range, int[] order) {
+        int[] starts = new int[range + 1];
+        for (int p : order)
+            starts[keys[p] + 1]++;
+        for (int i = 0; i < range; i++)
+            starts[i + 1] += starts[i];
+        int[] result = new int[order.length];
+        for (int p : order)
+            result[starts[keys[p]]++] = p;
+        return result;
+    }
+
+    /**
+     * @return количество строк матрицы
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * @return количество столбцов матрицы
+     */
+    public int columns() {
+        return columns;
+    }
+
+    /**
+     * @return формат хранения
+     */
+    public Layout layout() {
+        return layout;
+    }
+
+    /**
+     * @return число хранимых ненулевых элементов
+     */
+    public int nonZeros() {
+        return values.length;
+    }
+
+    /**
+     * Получение значения элемента по индексу. Выполняется двоичным поиском
+     * внутри основной линии
+     *
+     * @param row    индекс строки <code>0:rows-1</code>
+     * @param column индекс столбца <code>0:column-1</code>
+     * @return значение элемента матрицы
+     * @throws IndexOutOfBoundsException если индекс меньше <code>0</code> или
+     *                                   больше соотв границы
+     */
+    public double getElement(int row, int column) {
+        Indices.check(row, column, rows, columns);
+        int line = layout == Layout.CSR ? row : column;
+        int index = layout == Layout.CSR ? column : row;
+        int position = Arrays.binarySearch(indices, pointers[line], pointers[line + 1], index);
+        return position < 0 ? 0 : values[position];
+    }
+
+    /**
+     * @return плотная матрица с теми же значениями
+     * @throws IllegalArgumentException если число элементов плотной матрицы
+     *                                  не помещается в массив
+     */
+    public Matrix toMatrix() {
+        Matrix result = new Matrix(rows, columns);
+        double[] data = result.data;
+        boolean csr = layout == Layout.CSR;
+        for (int line = 0; line < pointers.length - 1; line++)
+            for (int p = pointers[line]; p < pointers[line + 1]; p++)
+                if (csr)
+                    data[line * columns + indices[p]] = values[p];
+                else
+                    data[indices[p] * columns + line] = values[p];
+        return result;
+    }
+
+    /**
+     * Преобразование в заданный формат хранения за время, линейное по числу
+     * ненулевых элементов
+     *
+     * @param layout требуемый формат
+     * @return эта же матрица, если формат совпадает, иначе новая
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     */
+    public SparseMatrix toLayout(Layout layout) {
+        if (layout == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (layout == this.layout)
+            return this;
+        int minorCount = this.layout == Layout.CSR ? columns : rows;
+        int[] resultPointers = new int[minorCount + 1];
+        for (int index : indices)
+            resultPointers[index + 1]++;
+        for (int i = 0; i < minorCount; i++)
+            resultPointers[i + 1] += resultPointers[i];
+        int[] next = Arrays.copyOf(resultPointers, minorCount);
+        int[] resultIndices = new int[values.length];
+        double[] resultValues = new double[values.length];
+        // обход основных линий по возрастанию сохраняет порядок внутри новых
+        for (int line = 0; line < pointers.length - 1; line++)
+            for (int p = pointers[line]; p < pointers[line + 1]; p++) {
+                int q = next[indices[p]]++;
+                resultIndices[q] = line;
+                resultValues[q] = values[p];
+            }
+        return new SparseMatrix(rows, columns, layout, resultPointers, resultIndices, resultValues);
+    }
+
+    /**
+     * Транспонирование без копирования: CSR-представление матрицы совпадает
+     * с CSC-представлением транспонированной, поэтому массивы используются
+     * совместно
+     *
+     * @return транспонированная матрица в противоположном формате
+     */
+    public SparseMatrix transpose() {
+        Layout transposed = layout == Layout.CSR ? Layout.CSC : Layout.CSR;
+        return new SparseMatrix(columns, rows, transposed, pointers, indices, values);
+    }
+
+    /**
+     * Перемножение разреженной матрицы на плотную
+     *
+     * @param m плотная матрица, число строк которой совпадает с числом
+     *          столбцов в вызывающей
+     * @return новая плотная матрица, являющаяся результатом операции
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     *                                  или размеры не согласованы
+     */
+    public Matrix mulMatrix(Matrix m) {
+        if (m == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (columns != m.rows())
+            throw new IllegalArgumentException(
+                    "Entered matrix should have rowNum equal to base matrix colNum.");
+        int width = m.columns();
+        Matrix result = new Matrix(rows, width);
+        double[] b = m.data;
+        double[] c = result.data;
+        boolean csr = layout == Layout.CSR;
+        for (int line = 0; line < pointers.length - 1; line++)
+            for (int p = pointers[line]; p < pointers[line + 1]; p++) {
+                int row = csr ? line : indices[p];
+                int common = csr ? indices[p] : line;
+                double value = values[p];
+                int cRow = row * width;
+                int bRow = common * width;
+                for (int j = 0; j < width; j++)
+                    c[cRow + j] += value * b[bRow + j];
+            }
+        return result;
+    }
+
+    /**
+     * Умножение на вектор без выделения памяти: <code>y = A x</code>. Массив
+     * <code>y</code> перезаписывается и не должен совпадать с <code>x</code>.
+     * Размеры должны быть проверены вызывающим
+     */
+    void multiply(double[] x, double[] y) {
+        if (layout == Layout.CSR)
+            for (int row = 0; row < rows; row++) {
+                double sum = 0;
+                for (int p = pointers[row]; p < pointers[row + 1]; p++)
+                    sum += values[p] * x[indices[p]];
+                y[row] = sum;
+            }
+        else {
+            Arrays.fill(y, 0, rows, 0);
+            for (int column = 0; column < columns; column++) {
+                double value = x[column];
+                for (int p = pointers[column]; p < pointers[column + 1]; p++)
+                    y[indices[p]] += values[p] * value;
+            }
+        }
+    }
+
+    /**
+     * Перемножение плотной матрицы на разреженную. Нулевые элементы обеих
+     * матриц пропускаются, поэтому, в отличие от плотного перемножения,
+     * произведение нуля на <code>Inf</code> или <code>NaN</code> не
+     * добавляет <code>NaN</code> в результат
+     *
+     * @param m      плотная матрица
+     * @param sparse разреженная матрица, число строк которой совпадает с числом
+     *               столбцов в плотной
+     * @return новая плотная матрица, являющаяся результатом операции
+     * @throws IllegalArgumentException если одна из матриц равна <code>null</code>
+     *                                  или размеры не согласованы
+     */
+    public static Matrix matrixMultiply(Matrix m, SparseMatrix sparse) {
+        if (m == null || sparse == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        if (m.columns() != sparse.rows)
+            throw new IllegalArgumentException(
+                    "First matrix should have rowNum equal to second matrix colNum.");
+        SparseMatrix s = sparse.toLayout(Layout.CSR);
+        int common = m.columns();
+        int width = s.columns;
+        Matrix result = new Matrix(m.rows(), width);
+        double[] a = m.data;
+        double[] c = result.data;
+        for (int i = 0; i < m.rows(); i++) {
+            int cRow = i * width;
+            for (int k = 0; k < common; k++) {
+                double aik = a[i * common + k];
+                if (aik == 0)
+                    continue;
+                for (int p = s.pointers[k]; p < s.pointers[k + 1]; p++)
+                    c[cRow + s.indices[p]] += aik * s.values[p];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Перемножение разреженных матриц (алгоритм Густавсона). Результат имеет
+     * формат вызывающей матрицы
+     *
+     * @param m разреженная матрица, число строк которой совпадает с числом
+     *          столбцов в вызывающей
+     * @return новая разреженная матрица, являющаяся результатом операции
+     * @throws IllegalArgumentException если аргумент равен <code>null</code>
+     *                                  или размеры не согласованы
+     */
+    public SparseMatrix mulMatrix(SparseMatrix m) {
+        if (m == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        if (columns != m.rows)
+            throw new IllegalArgumentException(
+                    "Entered matrix should have rowNum equal to base matrix colNum.");
+        if (layout == Layout.CSC)
+            // (AB)^T = B^T A^T, а транспонирование CSC - это CSR без копирования
+            return m.toLayout(Layout.CSC).transpose().multiplyRows(transpose()).transpose();
+        return multiplyRows(m.toLayout(Layout.CSR));
+    }
+
+    /**
+     * Построчное перемножение двух CSR-матриц с плотным аккумулятором строки
+     */
+    private SparseMatrix multiplyRows(SparseMatrix b) {
+        int width = b.columns;
+        double[] accumulator = new double[width];
+        int[] marker = new int[width];
+        Arrays.fill(marker, -1);
+        int[] pointers = new int[rows + 1];
+        int[] indices = new int[Math.max(values.length, 16)];
+        double[] values = new double[indices.length];
+        int position = 0;
+        for (int i = 0; i < rows; i++) {
+            int rowStart = position;
+            for (int p = this.pointers[i]; p < this.pointers[i + 1]; p++) {
+                int k = this.indices[p];
+                double aik = this.values[p];
+                for (int q = b.pointers[k]; q < b.pointers[k + 1]; q++) {
+                    int j = b.indices[q];
+                    if (marker[j] != i) {
+                        marker[j] = i;
+                        accumulator[j] = 0;
+                        if (position == indices.length) {
+                            indices = Arrays.copyOf(indices, indices.length * 2);
+                            values = Arrays.copyOf(values, indices.length);
+                        }
+                        indices[position++] = j;
+                    }
+                    accumulator[j] += aik * b.values[q];
+                }
+            }
+            Arrays.sort(indices, rowStart, position);
+            int kept = rowStart;
+            for (int p = rowStart; p < position; p++) {
+                double value = accumulator[indices[p]];
+                if (value != 0) {
+                    indices[kept] = indices[p];
+                    values[kept++] = value;
+                }
+            }
+            position = kept;
+            pointers[i + 1] = position;
+        }
+        return new SparseMatrix(rows, width, Layout.CSR, pointers,
+                Arrays.copyOf(indices, position), Arrays.copyOf(values, position));
+    }
+
+    /**
+     * Поэлементные операции над разреженными матрицами с сохранением
+     * разреженности. Все операции проходят по объединению ненулевых позиций
+     * и дают тот же результат, что и над плотными матрицами, в том числе
+     * <code>NaN</code> для <code>0 * Inf</code> и <code>0 * NaN</code>; при
+     * умножении конечных значений ненулевыми остаются только позиции из
+     * пересечения. Деление допустимо, только если делитель не содержит нулей,
+     * т.е. фактически плотный. Результат имеет формат первой матрицы
+     *
+     * @param m1        первая матрица
+     * @param m2        вторая матрица, совпадающая по размерам с первой
+     * @param operation одна из четырех доступных операций
+     * @return новая разреженная матрица, являющаяся результатом операции
+     * @throws IllegalArgumentException если один из аргументов равен <code>null</code>,
+     *                                  если матрицы не совпадают по размерам
+     *                                  или если во второй матрице присутствуют
+     *                                  нулевые элементы и выбрана операция деления
+     */
+    public static SparseMatrix matrixElementWiseOperation(SparseMatrix m1, SparseMatrix m2,
+                                                          Matrix.Operation operation) {
+        if (m1 == null || m2 == null || operation == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        if (m1.rows != m2.rows || m1.columns != m2.columns)
+            throw new IllegalArgumentException("Matrices have different sizes.");
+        if (operation == Matrix.Operation.DIVIDE && (long) m2.rows * m2.columns != m2.nonZeros())
+            throw new IllegalArgumentException(
+                    "Second matrix shouldn't contain zero elements for division operation");
+        SparseMatrix b = m2.toLayout(m1.layout);
+        int lines = m1.pointers.length - 1;
+        // проход идёт по объединению позиций для всех операций: 0 * Inf,
+        // 0 * NaN и 0 / NaN дают NaN там, где первая матрица нулевая
+        int capacity = m1.values.length + b.values.length;
+        int[] pointers = new int[lines + 1];
+        int[] indices = new int[capacity];
+        double[] values = new double[capacity];
+        int position = 0;
+        for (int line = 0; line < lines; line++) {
+            int p = m1.pointers[line];
+            int pEnd = m1.pointers[line + 1];
+            int q = b.pointers[line];
+            int qEnd = b.pointers[line + 1];
+            while (p < pEnd || q < qEnd) {
+                int i = p < pEnd ? m1.indices[p] : Integer.MAX_VALUE;
+                int j = q < qEnd ? b.indices[q] : Integer.MAX_VALUE;
+                int index = Math.min(i, j);
+                double x = i == index ? m1.values[p++] : 0;
+                double y = j == index ? b.values[q++] : 0;
+                double value;
+                switch (operation) {
+                    case SUM:
+                        value = x + y;
+                        break;
+                    case SUBTRACT:
+                        value = x - y;
+                        break;
+                    case MULTIPLY:
+                        value = x * y;
+                        break;
+                    default:
+                        value = x / y;
+                        break;
+                }
+                if (value != 0) {
+                    indices[position] = index;
+                    values[position++] = value;
+                }
+            }
+            pointers[line + 1] = position;
+        }
+        return new SparseMatrix(m1.rows, m1.columns, m1.layout, pointers,
+                Arrays.copyOf(indices, position), Arrays.copyOf(values, position));
+    }
+
+    /**
+     * Скалярные операции, сохраняющие разреженность: умножение и деление.
+     * Сложение и вычитание допустимы только с нулём
+     *
+     * @param scalar    скалярное число
+     * @param operation одна из четырех доступных операций
+     * @return новая разреженная матрица, являющаяся результатом операции,
+     * или эта же, если операция её не меняет
+     * @throws IllegalArgumentException если операция не задана, скаляр равен
+     *                                  нулю и выбрано деление или скаляр не равен
+     *                                  нулю и выбрано сложение или вычитание
+     */
+    public SparseMatrix scalarOperation(double scalar, Matrix.Operation operation) {
+        if (operation == null)
+            throw new IllegalArgumentException("Expected NotNull argument.");
+        switch (operation) {
+            case SUM:
+            case SUBTRACT:
+                if (scalar != 0)
+                    throw new IllegalArgumentException(
+                            "Non-zero scalar addition makes the matrix dense, use toMatrix()");
+                return this;
+            case MULTIPLY:
+                if (scalar == 0)
+                    return new SparseMatrix(rows, columns, layout,
+                            new int[pointers.length], new int[0], new double[0]);
+                break;
+            case DIVIDE:
+                if (scalar == 0)
+                    throw new IllegalArgumentException(
+                            "Scalar shouldn't be a zero for division operation");
+                break;
+        }
+        double[] result = new double[values.length];
+        for (int p = 0; p < result.length; p++)
+            result[p] = operation == Matrix.Operation.MULTIPLY
+                    ? values[p] * scalar : values[p] / scalar;
+        return new SparseMatrix(rows, columns, layout, pointers, indices, result);
+    }
+
+    /**
+     * Сравнивает с другой разреженной матрицей с учётом допустимой разницы
+     * {@link Matrix#equalsDelta()}. Формат хранения не учитывается
+     *
+     * @param anObject объект, с которым нужно сравнить эту матрицу
+     * @return <code>true</code>, если объект - разреженная матрица того же
+     * размера с теми же значениями
+     */
+    @Override
+    public boolean equals(Object anObject) {
+        if (this == anObject)
+            return true;
+        if (!(anObject instanceof SparseMatrix))
+            return false;
+        SparseMatrix other = (SparseMatrix) anObject;
+        if (rows != other.rows || columns != other.columns)
+            return false;
+        SparseMatrix b = other.toLayout(layout);
+        double delta = Matrix.equalsDelta();
+        for (int line = 0; line < pointers.length - 1; line++) {
+            int p = pointers[line];
+            int q = b.pointers[line];
+            while (p < pointers[line + 1] || q < b.pointers[line + 1]) {
+                int i = p < pointers[line + 1] ? indices[p] : Integer.MAX_VALUE;
+                int j = q < b.pointers[line + 1] ? b.indices[q] : Integer.MAX_VALUE;
+                int index = Math.min(i, j);
+                double x = i == index ? values[p++] : 0;
+                double y = j == index ? b.values[q++] : 0;
+                if (Math.abs(x - y) > delta)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Хэш-код, согласованный с {@link #equals(Object)}: при нулевой
+     * {@link Matrix#equalsDelta()} зависит от размеров и ненулевых элементов
+     * (но не от формата хранения), при ненулевой - только от размеров
+     *
+     * @return хэш-код матрицы
+     */
+    @Override
+    public int hashCode() {
+        if (Matrix.equalsDelta() != 0)
+            return 31 * rows + columns;
+        boolean csr = layout == Layout.CSR;
+        long sum = 0;
+        for (int line = 0; line < pointers.length - 1; line++)
+            for (int p = pointers[line]; p < pointers[line + 1]; p++) {
+                int row = csr ? line : indices[p];
+                int column = csr ? indices[p] : line;
+                sum += Matrix.elementHash((long) row * columns + column, values[p]);
+            }
+        long hash = Matrix.mix(sum + Matrix.mix(((long) rows << 32) | columns));
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,303 @@
+package ru.ifmo.sdp.matrix;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Перемножение матриц по схеме Штрассена-Винограда: 7 умножений и 15 сложений
+ * блоков половинного размера вместо 8 умножений, что даёт сложность
+ * <code>O(n^2.81)</code>. Рекурсия продолжается, пока сторона блока больше
+ * порога {@link #crossover()}, дальше используется классический блочный
+ * алгоритм {@link BlockedMultiplication}. Семь произведений каждого уровня
+ * вычисляются параллельно в <code>ForkJoinPool</code>.
+ * <p>
+ * Операнды дополняются нулями до квадратной матрицы со стороной
+ * <code>n0 * 2^k</code>, где <code>n0</code> не больше порога, поэтому схема
+ * применяется только к близким к квадратным операндам: если размеры
+ * отличаются больше чем в {@link #MAX_ASPECT} раз или дополненная матрица не
+ * помещается в массив, используется классический алгоритм.
+ * Каждый уровень рекурсии создаёт 15 временных блоков половинного размера.
+ * При последовательном вычислении в глубину одновременно живут блоки одной
+ * ветви, и дополнительная память - около пяти матриц размера
+ * <code>n x n</code>. Параллельно же живут временные блоки всех начатых, но
+ * не завершённых подзадач: примерно последовательная оценка на каждый
+ * поток пула, а в худшем случае - около <code>5 (7/4)^L</code> матриц
+ * <code>n x n</code> для <code>L</code> уровней рекурсии. Уменьшить расход
+ * можно большим порогом {@link #crossover()}.
+ * <p>
+ * Точность. В отличие от классического алгоритма, погрешность которого
+ * оценивается поэлементно (<code>|C - C'| &lt;= n u |A| |B|</code>), для
+ * Штрассена-Винограда известна только нормовая оценка (Higham, "Accuracy and
+ * Stability of Numerical Algorithms", 2002, гл. 23):
+ * <pre>
+ * max |C - C'| &lt;= ((n/n0)^log2(18) (n0^2 + 6 n0) - 6 n) u max|A| max|B|
+ * </pre>
+ * где <code>u = 2^-53</code>. Каждый уровень рекурсии увеличивает оценку
+ * примерно в 18/4 раза относительно классического алгоритма, и малые элементы
+ * результата могут получить большую относительную ошибку. Классическое
+ * произведение само отличается от точного не больше чем на
+ * <code>n^2 u max|A| max|B|</code>, поэтому {@link #errorBound(Matrix, Matrix)}
+ * оценивает расстояние до классического результата суммой обеих оценок:
+ * если она не превышает {@link Matrix#equalsDelta()}, результат будет равен
+ * классическому в смысле {@link Matrix#equals(Object)}.
+ */
+public final class StrassenMultiplication {
+    private static final double UNIT_ROUNDOFF = 0x1p-53;
+    private static final double GROWTH_EXPONENT = Math.log(18) / Math.log(2);
+
+    /**
+     * Наибольшее отношение размеров операндов, при котором применяется схема
+     * Штрассена-Винограда
+     */
+    public static final int MAX_ASPECT = 2;
+
+    // сторона блока, начиная с которой используется классический алгоритм
+    private static int crossover = 512;
+
+    private StrassenMultiplication() {
+    }
+
+    /**
+     * @return текущий порог: блоки со стороной не больше порога
+     * перемножаются классическим алгоритмом
+     */
+    public static int crossover() {
+        return crossover;
+    }
+
+    /**
+     * Задаёт сторону блока, начиная с которой рекурсия прекращается. Слишком
+     * малые значения увеличивают погрешность и накладные расходы на сложения
+     *
+     * @param crossover новое значение порога
+     * @throws IllegalArgumentException если аргумент меньше <code>1</code>
+     */
+    public static void setCrossover(int crossover) {
+        if (crossover < 1)
+            throw new IllegalArgumentException("Expected positive value");
+        StrassenMultiplication.crossover = crossover;
+    }
+
+    /**
+     * Оценка сверху поэлементного расстояния между произведением, вычисленным
+     * при текущем пороге, и классическим произведением: сумма оценок
+     * погрешности обоих алгоритмов относительно точного результата, см.
+     * описание класса
+     *
+     * @param m1 первая матрица
+     * @param m2 вторая матрица, число строк в которой совпадает с числом
+     *           столбцов в первой
+     * @return оценка <code>max |C - C'|</code>, сравнимая с
+     * {@link Matrix#equalsDelta()}
+     * @throws IllegalArgumentException если одна из матриц равна <code>null</code>
+     *                                  или если число столбцов в первой не совпадает
+     *                                  с числом строк во второй
+     */
+    public static double errorBound(Matrix m1, Matrix m2) {
+        if (m1 == null || m2 == null)
+            throw new IllegalArgumentException("Expected NotNull arguments.");
+        if (m1.columns() != m2.rows())
+            throw new IllegalArgumentException(
+                    "First matrix should have rowNum equal to second matrix colNum.");
+        double classical = (double) m1.columns() * m1.columns();
+        double growth = classical;
+        int size = strassenSize(m1.rows(), m2.columns(), m1.columns());
+        if (size > 0) {
+            int leaf = leafSize(size);
+            growth = Math.pow((double) size / leaf, GROWTH_EXPONENT) * ((double) leaf * leaf + 6.0 * leaf)
+                    - 6.0 * size;
+        }
+        return (growth + classical) * UNIT_ROUNDOFF * maxAbs(m1.data) * maxAbs(m2.data);
+    }
+
+    /**
+     * Перемножение матриц, уложенных построчно: <code>C = A * B</code>.
+     * Размеры должны быть проверены вызывающим
+     *
+     * @param rows    число строк <code>A</code> и <code>C</code>
+     * @param columns число столбцов <code>B</code> и <code>C</code>
+     * @param common  число столбцов <code>A</code> и строк <code>B</code>
+     * @param c       массив результата, заполненный нулями
+     */
+    static void multiply(int rows, int columns, int common, double[] a, double[] b, double[] c) {
+        int size = strassenSize(rows, columns, common);
+        if (size == 0) {
+            BlockedMultiplication.multiply(rows, columns, common,
+                    a, 0, common, false, b, 0, columns, false, c, 0, columns);
+            return;
+        }
+        boolean padded = rows != size || columns != size || common != size;
+        View result = padded ? new View(size) : new View(c, 0, size);
+        ForkJoinPool.commonPool().invoke(new ProductTask(
+                padded ? pad(a, rows, common, size) : new View(a, 0, size),
+                padded ? pad(b, common, columns, size) : new View(b, 0, size),
+                result, size));
+        if (padded)
+            for (int i = 0; i < rows; i++)
+                System.arraycopy(result.data, i * size, c, i * columns, columns);
+    }
+
+    /**
+     * @return сторона дополненной квадратной матрицы или <code>0</code>, если
+     * операнды следует перемножать классическим алгоритмом: они меньше порога,
+     * далеки от квадратных или дополненная матрица не помещается в массив
+     */
+    private static int strassenSize(int rows, int columns, int common) {
+        int max = Math.max(rows, Math.max(columns, common));
+        int min = Math.min(rows, Math.min(columns, common));
+        if (max > (long) min * MAX_ASPECT)
+            return 0;
+        int size = paddedSize(max);
+        if (size <= crossover || (long) size * size > Integer.MAX_VALUE)
+            return 0;
+        return size;
+    }
+
+    /**
+     * @return наименьшая сторона вида <code>n0 * 2^k</code>, не меньшая
+     * <code>dimension</code>, где <code>n0</code> не больше порога
+     */
+    private static int paddedSize(int dimension) {
+        int levels = 0;
+        while (ceilDiv(dimension, 1 << levels) > crossover)
+            levels++;
+        return ceilDiv(dimension, 1 << levels) << levels;
+    }
+
+    private static int leafSize(int size) {
+        while (size > crossover)
+            size /= 2;
+        return size;
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    private static View pad(double[] data, int rows, int columns, int size) {
+        View result = new View(size);
+        for (int i = 0; i < rows; i++)
+            System.arraycopy(data, i * columns, result.data, i * size, columns);
+        return result;
+    }
+
+    private static double maxAbs(double[] data) {
+        double result = 0;
+        for (double value : data)
+            result = Math.max(result, Math.abs(value));
+        return result;
+    }
+
+    /**
+     * Квадратный блок матрицы, уложенной построчно с шагом <code>stride</code>
+     */
+    private static final class View {
+        final double[] data;
+        final int offset;
+        final int stride;
+
+        View(double[] data, int offset, int stride) {
+            this.data = data;
+            this.offset = offset;
+            this.stride = stride;
+        }
+
+        /**
+         * Новый блок со стороной <code>size</code>, заполненный нулями
+         */
+        View(int size) {
+            this(new double[size * size], 0, size);
+        }
+
+        View quadrant(int row, int column, int half) {
+            return new View(data, offset + row * half * stride + column * half, stride);
+        }
+
+        /**
+         * <code>this = x + y</code> для блоков со стороной <code>size</code>
+         */
+        View sum(View x, View y, int size) {
+            for (int i = 0; i < size; i++) {
+                int r = offset + i * stride;
+                int rx = x.offset + i * x.stride;
+                int ry = y.offset + i * y.stride;
+                for (int j = 0; j < size; j++)
+                    data[r + j] = x.data[rx + j] + y.data[ry + j];
+            }
+            return this;
+        }
+
+        /**
+         * <code>this = x - y</code> для блоков со стороной <code>size</code>
+         */
+        View difference(View x, View y, int size) {
+            for (int i = 0; i < size; i++) {
+                int r = offset + i * stride;
+                int rx = x.offset + i * x.stride;
+                int ry = y.offset + i * y.stride;
+                for (int j = 0; j < size; j++)
+                    data[r + j] = x.data[rx + j] - y.data[ry + j];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Вычисление <code>C = A * B</code> для блоков со стороной <code>size</code>.
+     * <code>C</code> должна быть заполнена нулями
+     */
+    private static final class ProductTask extends RecursiveAction {
+        private final View a;
+        private final View b;
+        private final View c;
+        private final int size;
+
+        ProductTask(View a, View b, View c, int size) {
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.size = size;
+        }
+
+        @Override
+        protected void compute() {
+            if (size <= crossover || size % 2 != 0) {
+                BlockedMultiplication.multiplyRange(size, a.data, a.offset, a.stride, false,
+                        b.data, b.offset, b.stride, false, c.data, c.offset, c.stride, 0, size, 0, size);
+                return;
+            }
+            int h = size / 2;
+            View a11 = a.quadrant(0, 0, h), a12 = a.quadrant(0, 1, h);
+            View a21 = a.quadrant(1, 0, h), a22 = a.quadrant(1, 1, h);
+            View b11 = b.quadrant(0, 0, h), b12 = b.quadrant(0, 1, h);
+            View b21 = b.quadrant(1, 0, h), b22 = b.quadrant(1, 1, h);
+
+            View s1 = new View(h).sum(a21, a22, h);
+            View s2 = new View(h).difference(s1, a11, h);
+            View s3 = new View(h).difference(a11, a21, h);
+            View s4 = new View(h).difference(a12, s2, h);
+            View t1 = new View(h).difference(b12, b11, h);
+            View t2 = new View(h).difference(b22, t1, h);
+            View t3 = new View(h).difference(b22, b12, h);
+            View t4 = new View(h).difference(t2, b21, h);
+
+            View p1 = new View(h), p2 = new View(h), p3 = new View(h), p4 = new View(h);
+            View p5 = new View(h), p6 = new View(h), p7 = new View(h);
+            invokeAll(new ProductTask(a11, b11, p1, h),
+                    new ProductTask(a12, b21, p2, h),
+                    new ProductTask(s4, b22, p3, h),
+                    new ProductTask(a22, t4, p4, h),
+                    new ProductTask(s1, t1, p5, h),
+                    new ProductTask(s2, t2, p6, h),
+                    new ProductTask(s3, t3, p7, h));
+
+            c.quadrant(0, 0, h).sum(p1, p2, h);         // C11 = P1 + P2
+            p6.sum(p6, p1, h);                           // U2 = P1 + P6
+            p7.sum(p6, p7, h);                           // U3 = U2 + P7
+            p6.sum(p6, p5, h);                           // U4 = U2 + P5
+            c.quadrant(0, 1, h).sum(p6, p3, h);          // C12 = U4 + P3
+            c.quadrant(1, 0, h).difference(p7, p4, h);   // C21 = U3 - P4
+            c.quadrant(1, 1, h).sum(p7, p5, h);          // C22 = U3 + P5
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package ru.ifmo.sdp.matrix;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Кэш-независимое (cache-oblivious) транспонирование матриц, уложенных
+ * построчно. Прямоугольник рекурсивно делится пополам по большей стороне,
+ * пока не станет меньше {@link #BLOCK_SIZE} по обеим сторонам, поэтому на
+ * каждом уровне иерархии памяти найдётся подзадача, целиком помещающаяся в
+ * кэш. Большие матрицы обрабатываются параллельно в <code>ForkJoinPool</code>.
+ */
+public final class Transposition {
+    /**
+     * Сторона листового блока рекурсии. Исходный блок и блок результата
+     * 32x32 <code>double</code> занимают по 8 Кб
+     */
+    static final int BLOCK_SIZE = 32;
+
+    // число элементов, начиная с которого транспонирование выполняется параллельно
+    private static long parallelThreshold = 1L << 20;
+
+    private Transposition() {
+    }
+
+    /**
+     * @return текущий порог числа элементов, начиная с которого
+     * транспонирование выполняется параллельно
+     */
+    public static long parallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Задаёт порог числа элементов, ниже которого транспонирование
+     * выполняется последовательно
+     *
+     * @param parallelThreshold новое значение порога
+     * @throws IllegalArgumentException если аргумент меньше <code>0</code>
+     */
+    public static void setParallelThreshold(long parallelThreshold) {
+        if (parallelThreshold < 0)
+            throw new IllegalArgumentException("Expected positive value");
+        Transposition.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Транспонирование <code>rows x columns</code> матрицы <code>src</code>
+     * в <code>dst</code>. Массивы не должны совпадать
+     */
+    static void transpose(double[] src, int rows, int columns, double[] dst) {
+        if ((long) rows * columns < parallelThreshold)
+            transposeRange(src, rows, columns, dst, 0, rows, 0, columns);
+        else
+            ForkJoinPool.commonPool().invoke(
+                    new TransposeTask(src, rows, columns, dst, 0, rows, 0, columns));
+    }
+
+    /**
+     * Транспонирование квадратной матрицы <code>n x n</code> на месте
+     */
+    static void transposeSquare(double[] data, int n) {
+        if ((long) n * n < parallelThreshold)
+            transposeDiagonal(data, n, 0, n);
+        else
+            ForkJoinPool.commonPool().invoke(new DiagonalTask(data, n, 0, n));
+    }
+
+    /**
+     * Транспонирование матрицы одинарной точности, аналог
+     * {@link #transpose(double[], int, int, double[])}
+     */
+    static void transpose(float[] src, int rows, int columns, float[] dst) {
+        if ((long) rows * columns < parallelThreshold)
+            transposeRange(src, rows, columns, dst, 0, rows, 0, columns);
+        else
+            ForkJoinPool.commonPool().invoke(
+                    new TransposeTask(src, rows, columns, dst, 0, rows, 0, columns));
+    }
+
+    /**
+     * Транспонирование квадратной матрицы одинарной точности на месте
+     */
+    static void transposeSquare(float[] data, int n) {
+        if ((long) n * n < parallelThreshold)
+            transposeDiagonal(data, n, 0, n);
+        else
+            ForkJoinPool.commonPool().invoke(new DiagonalTask(data, n, 0, n));
+    }
+
+    /**
+     * Последовательная рекурсия для прямоугольника исходной матрицы
+     * <code>[rowFrom, rowTo) x [colFrom, colTo)</code>
+     */
+    static void transposeRange(double[] src, int rows, int columns, double[] dst,
+                               int rowFrom, int rowTo, int colFrom, int colTo) {
+        int rowCount = rowTo - rowFrom;
+        int colCount = colTo - colFrom;
+        if (rowCount <= BLOCK_SIZE && colCount <= BLOCK_SIZE) {
+            for (int i = rowFrom; i < rowTo; i++) {
+                int from = i * columns;
+                for (int j = colFrom; j < colTo; j++)
+                    dst[j * rows + i] = src[from + j];
+            }
+        } else if (rowCount >= colCount) {
+            int mid = rowFrom + rowCount / 2;
+            transposeRange(src, rows, columns, dst, rowFrom, mid, colFrom, colTo);
+            transposeRange(src, rows, columns, dst, mid, rowTo, colFrom, colTo);
+        } else {
+            int mid = colFrom + colCount / 2;
+            transposeRange(src, rows, columns, dst, rowFrom, rowTo, colFrom, mid);
+            transposeRange(src, rows, columns, dst, rowFrom, rowTo, mid, colTo);
+        }
+    }
+
+    /**
+     * Транспонирование на месте диагонального блока <code>[from, to)^2</code>:
+     * два диагональных подблока и обмен внедиагонального с его отражением
+     */
+    static void transposeDiagonal(double[] data, int n, int from, int to) {
+        if (to - from <= BLOCK_SIZE) {
+            for (int i = from; i < to; i++)
+                for (int j = i + 1; j < to; j++) {
+                    double value = data[i * n + j];
+                    data[i * n + j] = data[j * n + i];
+                    data[j * n + i] = value;
+                }
+            return;
+        }
+        int mid = from + (to - from) / 2;
+        transposeDiagonal(data, n, from, mid);
+        transposeDiagonal(data, n, mid, to);
+        swapMirrored(data, n, from, mid, mid, to);
+    }
+
+    /**
+     * Обмен блока <code>[rowFrom, rowTo) x [colFrom, colTo)</code>, лежащего
+     * над диагональю, с его отражением относительно диагонали
+     */
+    static void swapMirrored(double[] data, int n, int rowFrom, int rowTo, int colFrom, int colTo) {
+        int rowCount = rowTo - rowFrom;
+        int colCount = colTo - colFrom;
+        if (rowCount <= BLOCK_SIZE && colCount <= BLOCK_SIZE) {
+            for (int i = rowFrom; i < rowTo; i++)
+                for (int j = colFrom; j < colTo; j++) {
+                    double value = data[i * n + j];
+                    data[i * n + j] = data[j * n + i];
+                    data[j * n + i] = value;
+                }
+        } else if (rowCount >= colCount) {
+            int mid = rowFrom + rowCount / 2;
+            swapMirrored(data, n, rowFrom, mid, colFrom, colTo);
+            swapMirrored(data, n, mid, rowTo, colFrom, colTo);
+        } else {
+            int mid = colFrom + colCount / 2;
+            swapMirrored(data, n, rowFrom, rowTo, colFrom, mid);
+            swapMirrored(data, n, rowFrom, rowTo, mid, colTo);
+        }
+    }
+
+    static void transposeRange(float[] src, int rows, int columns, float[] dst,
+                               int rowFrom, int rowTo, int colFrom, int colTo) {
+        int rowCount = rowTo - rowFrom;
+        int colCount = colTo - colFrom;
+        if (rowCount <= BLOCK_SIZE && colCount <= BLOCK_SIZE) {
+            for (int i = rowFrom; i < rowTo; i++) {
+                int from = i * columns;
+                for (int j = colFrom; j < colTo; j++)
+                    dst[j * rows + i] = src[from + j];
+            }
+        } else if (rowCount >= colCount) {
+            int mid = rowFrom + rowCount / 2;
+            transposeRange(src, rows, columns, dst, rowFrom, mid, colFrom, colTo);
+            transposeRange(src, rows, columns, dst, mid, rowTo, colFrom, colTo);
+        } else {
+            int mid = colFrom + colCount / 2;
+            transposeRange(src, rows, columns, dst, rowFrom, rowTo, colFrom, mid);
+            transposeRange(src, rows, columns, dst, rowFrom, rowTo, mid, colTo);
+        }
+    }
+
+    static void transposeDiagonal(float[] data, int n, int from, int to) {
+        if (to - from <= BLOCK_SIZE) {
+            for (int i = from; i < to; i++)
+                for (int j = i + 1; j < to; j++) {
+                    float value = data[i * n + j];
+                    data[i * n + j] = data[j * n + i];
+                    data[j * n + i] = value;
+                }
+            return;
+        }
+        int mid = from + (to - from) / 2;
+        transposeDiagonal(data, n, from, mid);
+        transposeDiagonal(data, n, mid, to);
+        swapMirrored(data, n, from, mid, mid, to);
+    }
+
+    static void swapMirrored(float[] data, int n, int rowFrom, int rowTo, int colFrom, int colTo) {
+        int rowCount = rowTo - rowFrom;
+        int colCount = colTo - colFrom;
+        if (rowCount <= BLOCK_SIZE && colCount <= BLOCK_SIZE) {
+            for (int i = rowFrom; i < rowTo; i++)
+                for (int j = colFrom; j < colTo; j++) {
+                    float value = data[i * n + j];
+                    data[i * n + j] = data[j * n + i];
+                    data[j * n + i] = value;
+                }
+        } else if (rowCount >= colCount) {
+            int mid = rowFrom + rowCount / 2;
+            swapMirrored(data, n, rowFrom, mid, colFrom, colTo);
+            swapMirrored(data, n, mid, rowTo, colFrom, colTo);
+        } else {
+            int mid = colFrom + colCount / 2;
+            swapMirrored(data, n, rowFrom, rowTo, colFrom, mid);
+            swapMirrored(data, n, rowFrom, rowTo, mid, colTo);
+        }
+    }
+
+    private static void transposeRangeOf(Object src, int rows, int columns, Object dst,
+                                         int rowFrom, int rowTo, int colFrom, int colTo) {
+        if (src instanceof double[])
+            transposeRange((double[]) src, rows, columns, (double[]) dst, rowFrom, rowTo, colFrom, colTo);
+        else
+            transposeRange((float[]) src, rows, columns, (float[]) dst, rowFrom, rowTo, colFrom, colTo);
+    }
+
+    private static void transposeDiagonalOf(Object data, int n, int from, int to) {
+        if (data instanceof double[])
+            transposeDiagonal((double[]) data, n, from, to);
+        else
+            transposeDiagonal((float[]) data, n, from, to);
+    }
+
+    private static void swapMirroredOf(Object data, int n, int rowFrom, int rowTo, int colFrom, int colTo) {
+        if (data instanceof double[])
+            swapMirrored((double[]) data, n, rowFrom, rowTo, colFrom, colTo);
+        else
+            swapMirrored((float[]) data, n, rowFrom, rowTo, colFrom, colTo);
+    }
+
+    /**
+     * Параллельная версия {@link #transposeRange}
+     */
+    private static final class TransposeTask extends RecursiveAction {
+        private final Object src;  // double[] или float[]
+        private final int rows;
+        private final int columns;
+        private final Object dst;
+        private final int rowFrom;
+        private final int rowTo;
+        private final int colFrom;
+        private final int colTo;
+
+        TransposeTask(Object src, int rows, int columns, Object dst,
+                      int rowFrom, int rowTo, int colFrom, int colTo) {
+            this.src = src;
+            this.rows = rows;
+            this.columns = columns;
+            this.dst = dst;
+            this.rowFrom = rowFrom;
+            this.rowTo = rowTo;
+            this.colFrom = colFrom;
+            this.colTo = colTo;
+        }
+
+        @Override
+        protected void compute() {
+            int rowCount = rowTo - rowFrom;
+            int colCount = colTo - colFrom;
+            if ((long) rowCount * colCount < parallelThreshold
+                    || (rowCount <= BLOCK_SIZE && colCount <= BLOCK_SIZE)) {
+                transposeRangeOf(src, rows, columns, dst, rowFrom, rowTo, colFrom, colTo);
+            } else if (rowCount >= colCount) {
+                int mid = rowFrom + rowCount / 2;
+                invokeAll(new TransposeTask(src, rows, columns, dst, rowFrom, mid, colFrom, colTo),
+                        new TransposeTask(src, rows, columns, dst, mid, rowTo, colFrom, colTo));
+            } else {
+                int mid = colFrom + colCount / 2;
+                invokeAll(new TransposeTask(src, rows, columns, dst, rowFrom, rowTo, colFrom, mid),
+                        new TransposeTask(src, rows, columns, dst, rowFrom, rowTo, mid, colTo));
+            }
+        }
+    }
+
+    /**
+     * Параллельная версия {@link #transposeDiagonal}. Подзадачи затрагивают
+     * непересекающиеся части матрицы
+     */
+    private static final class DiagonalTask extends RecursiveAction {
+        private final Object data;  // double[] или float[]
+        private final int n;
+        private final int from;
+        private final int to;
+
+        DiagonalTask(Object data, int n, int from, int to) {
+            this.data = data;
+            this.n = n;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            long size = to - from;
+            if (size * size < parallelThreshold || size <= BLOCK_SIZE) {
+                transposeDiagonalOf(data, n, from, to);
+                return;
+            }
+            int mid = from + (to - from) / 2;
+            invokeAll(new DiagonalTask(data, n, from, mid),
+                    new DiagonalTask(data, n, mid, to),
+                    new MirrorTask(data, n, from, mid, mid, to));
+        }
+    }
+
+    /**
+     * Параллельная версия {@link #swapMirrored}
+     */
+    private static final class MirrorTask extends RecursiveAction {
+        private final Object data;  // double[] или float[]
+        private final int n;
+        private final int rowFrom;
+        private final int rowTo;
+        private final int colFrom;
+        private final int colTo;
+
+        MirrorTask(Object data, int n, int rowFrom, int rowTo, int colFrom, int colTo) {
+            this.data = data;
+            this.n = n;
+            this.rowFrom = rowFrom;
+            this.rowTo = rowTo;
+            this.colFrom = colFrom;
+            this.colTo = colTo;
+        }
+
+        @Override
+        protected void compute() {
+            int rowCount = rowTo - rowFrom;
+            int colCount = colTo - colFrom;
+            if ((long) rowCount * colCount < parallelThreshold
+                    || (rowCount <= BLOCK_SIZE && colCount <= BLOCK_SIZE)) {
+                swapMirroredOf(data, n, rowFrom, rowTo, colFrom, colTo);
+            } else if (rowCount >= colCount) {
+                int mid = rowFrom + rowCount / 2;
+                invokeAll(new MirrorTask(data, n, rowFrom, mid, colFrom, colTo),
+                        new MirrorTask(data, n, mid, rowTo, colFrom, colTo));
+            } else {
+                int mid = colFrom + colCount / 2;
+                invokeAll(new MirrorTask(data, n, rowFrom, rowTo, colFrom, mid),
+                        new MirrorTask(data, n, rowFrom, rowTo, mid, colTo));
+            }
+        }
+    }
+}
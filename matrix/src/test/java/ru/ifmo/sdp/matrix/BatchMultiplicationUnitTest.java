@@ -0,0 +1,87 @@
+package ru.ifmo.sdp.matrix;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class BatchMultiplicationUnitTest extends Assert {
+
+    /**
+     * Проверка развёрнутых ядер и общего случая против <code>Matrix</code>
+     */
+    @Test
+    public void kernelsMatchMatrix() {
+        Random random = new Random(1);
+        int[][] shapes = {{2, 2, 2}, {3, 3, 3}, {4, 4, 4}, {8, 8, 8}, {5, 5, 5}, {3, 3, 1}, {1, 4, 2}};
+        for (int[] shape : shapes) {
+            Matrix[] left = new Matrix[10];
+            Matrix[] right = new Matrix[10];
+            for (int i = 0; i < left.length; i++) {
+                left[i] = TestMatrices.randomMatrix(random, shape[0], shape[1]);
+                right[i] = TestMatrices.randomMatrix(random, shape[1], shape[2]);
+            }
+            for (boolean parallel : new boolean[]{false, true}) {
+                Matrix[] result = BatchMultiplication.multiply(left, right, parallel);
+                for (int i = 0; i < left.length; i++)
+                    assertArrayEquals(left[i].mulMatrix(right[i]).getDataClone(), result[i].getDataClone());
+            }
+        }
+    }
+
+    /**
+     * Проверка упакованных буферов со смещениями, в т.ч. параллельно на
+     * пакете, разбиваемом на несколько задач
+     */
+    @Test
+    public void packedBuffers() {
+        Random random = new Random(2);
+        int count = 5000;
+        int size = 4;
+        int elements = size * size;
+        double[] a = new double[3 + count * elements];
+        double[] b = new double[count * elements];
+        for (int i = 0; i < a.length; i++)
+            a[i] = random.nextDouble();
+        for (int i = 0; i < b.length; i++)
+            b[i] = random.nextDouble();
+        double[] serial = new double[1 + count * elements];
+        double[] parallel = new double[1 + count * elements];
+        BatchMultiplication.multiply(count, size, size, size, a, 3, b, 0, serial, 1, false);
+        BatchMultiplication.multiply(count, size, size, size, a, 3, b, 0, parallel, 1, true);
+        assertArrayEquals(serial, parallel, 0);
+        for (int p = 0; p < count; p += 997) {
+            double[] c = new double[elements];
+            BlockedMultiplication.multiply(size, size, size, a, 3 + p * elements, size, false,
+                    b, p * elements, size, false, c, 0, size);
+            for (int i = 0; i < elements; i++)
+                assertEquals(c[i], serial[1 + p * elements + i], 0);
+        }
+    }
+
+    /**
+     * Проверка пустого пакета
+     */
+    @Test
+    public void emptyBatch() {
+        assertEquals(0, BatchMultiplication.multiply(new Matrix[0], new Matrix[0], true).length);
+        BatchMultiplication.multiply(0, 3, 3, 3, new double[0], 0, new double[0], 0, new double[0], 0, false);
+    }
+
+    /**
+     * Проверка матриц разной формы в одном пакете
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectMixedShapes() {
+        BatchMultiplication.multiply(new Matrix[]{new Matrix(3, 3), new Matrix(4, 4)},
+                new Matrix[]{new Matrix(3, 3), new Matrix(4, 4)}, false);
+    }
+
+    /**
+     * Проверка слишком короткого буфера
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectShortBuffer() {
+        BatchMultiplication.multiply(2, 3, 3, 3, new double[18], 0, new double[18], 0, new double[17], 0, false);
+    }
+}
@@ -0,0 +1,105 @@
+package ru.ifmo.sdp.matrix;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class CholeskyDecompositionUnitTest extends Assert {
+    private double equalsDelta;
+
+    @Before
+    public void setUp() {
+        equalsDelta = Matrix.equalsDelta();
+        Matrix.setEqualsDelta(1e-9);
+    }
+
+    @After
+    public void tearDown() {
+        Matrix.setEqualsDelta(equalsDelta);
+    }
+
+    /**
+     * @return симметричная положительно определённая матрица
+     * <code>B^T B + size I</code>
+     */
+    private static Matrix positiveDefinite(Random random, int size) {
+        Matrix b = TestMatrices.randomMatrix(random, size, size);
+        Matrix a = Matrix.matrixMultiply(b, true, b, false);
+        for (int i = 0; i < size; i++)
+            a.setElement(i, i, a.getElement(i, i) + size);
+        return a;
+    }
+
+    /**
+     * Проверка тождества A = L L^T последовательно и параллельно для
+     * размеров меньше полосы, кратных ей и не кратных
+     */
+    @Test
+    public void factorization() {
+        Random random = new Random(1);
+        long threshold = BlockedMultiplication.parallelThreshold();
+        try {
+            BlockedMultiplication.setParallelThreshold(0);
+            for (int size : new int[]{1, 5, LUDecomposition.PANEL_SIZE,
+                    LUDecomposition.PANEL_SIZE * 2 + 7, 200})
+                for (boolean parallel : new boolean[]{false, true}) {
+                    Matrix a = positiveDefinite(random, size);
+                    Matrix l = CholeskyDecomposition.of(a, parallel).getL();
+                    for (int i = 0; i < size; i++) {
+                        assertTrue(l.getElement(i, i) > 0);
+                        for (int j = i + 1; j < size; j++)
+                            assertEquals(0, l.getElement(i, j), 0);
+                    }
+                    assertEquals("size " + size, a, l.mulMatrix(l.transpose()));
+                }
+        } finally {
+            BlockedMultiplication.setParallelThreshold(threshold);
+        }
+    }
+
+    /**
+     * Проверка повторного использования разложения для разных правых частей
+     */
+    @Test
+    public void solve() {
+        Random random = new Random(2);
+        int size = 150;
+        Matrix a = positiveDefinite(random, size);
+        CholeskyDecomposition cholesky = a.cholesky();
+        for (int columns : new int[]{1, 4}) {
+            Matrix x = TestMatrices.randomMatrix(random, size, columns, 0, 1);
+            assertEquals(x, cholesky.solve(a.mulMatrix(x)));
+        }
+        assertEquals(a.determinant(), cholesky.determinant(), Math.abs(a.determinant()) * 1e-9);
+    }
+
+    /**
+     * Проверка матриц, не являющихся положительно определёнными
+     */
+    @Test
+    public void notPositiveDefinite() {
+        try {
+            new Matrix(new double[][]{{1, 2}, {2, 1}}).cholesky();
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+        try {
+            new Matrix(new double[][]{{0, 0}, {0, 1}}).cholesky();
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+        try {
+            new Matrix(2, 3).cholesky();
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+        try {
+            CholeskyDecomposition.of(null);
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+}
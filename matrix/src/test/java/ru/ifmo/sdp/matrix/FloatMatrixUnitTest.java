@@ -0,0 +1,147 @@
+package ru.ifmo.sdp.matrix;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class FloatMatrixUnitTest extends Assert {
+
+    /**
+     * Проверка преобразования между точностями: целые значения переносятся точно
+     */
+    @Test
+    public void convertFromAndToMatrix() {
+        Matrix m = TestMatrices.randomIntegerMatrix(new Random(1), 13, 7);
+        FloatMatrix f = FloatMatrix.fromMatrix(m);
+        assertEquals(m.rows(), f.rows());
+        assertEquals(m.columns(), f.columns());
+        assertArrayEquals(m.getDataClone(), f.toMatrix().getDataClone());
+    }
+
+    /**
+     * Проверка округления при переходе к одинарной точности
+     */
+    @Test
+    public void fromMatrixRoundsToFloat() {
+        Matrix m = new Matrix(new double[][]{{0.1, 1e-50}});
+        FloatMatrix f = FloatMatrix.fromMatrix(m);
+        assertEquals(0.1f, f.getElement(0, 0), 0);
+        assertEquals(0f, f.getElement(0, 1), 0);
+    }
+
+    /**
+     * Проверка перемножения: на целых значениях результат совпадает
+     * с матрицей двойной точности, в т.ч. в параллельном режиме
+     */
+    @Test
+    public void multiplyMatchesDoublePrecision() {
+        Random random = new Random(2);
+        long threshold = BlockedMultiplication.parallelThreshold();
+        try {
+            for (long limit : new long[]{threshold, 1}) {
+                BlockedMultiplication.setParallelThreshold(limit);
+                Matrix a = TestMatrices.randomIntegerMatrix(random, 70, 131);
+                Matrix b = TestMatrices.randomIntegerMatrix(random, 131, 67);
+                FloatMatrix product = FloatMatrix.matrixMultiply(
+                        FloatMatrix.fromMatrix(a), FloatMatrix.fromMatrix(b));
+                assertArrayEquals(Matrix.matrixMultiply(a, b).getDataClone(),
+                        product.toMatrix().getDataClone());
+            }
+        } finally {
+            BlockedMultiplication.setParallelThreshold(threshold);
+        }
+    }
+
+    /**
+     * Проверка перемножения с транспонированными представлениями операндов
+     */
+    @Test
+    public void multiplyTransposedView() {
+        Random random = new Random(3);
+        Matrix a = TestMatrices.randomIntegerMatrix(random, 40, 75);
+        FloatMatrix f = FloatMatrix.fromMatrix(a);
+        assertArrayEquals(Matrix.matrixMultiply(a, true, a, false).getDataClone(),
+                FloatMatrix.matrixMultiply(f, true, f, false).toMatrix().getDataClone());
+        assertArrayEquals(Matrix.matrixMultiply(a, false, a, true).getDataClone(),
+                FloatMatrix.matrixMultiply(f, false, f, true).toMatrix().getDataClone());
+    }
+
+    /**
+     * Проверка поэлементных и скалярных операций, в т.ч. на месте
+     */
+    @Test
+    public void elementWiseAndScalarOperations() {
+        Random random = new Random(4);
+        Matrix a = TestMatrices.randomIntegerMatrix(random, 9, 11);
+        Matrix b = TestMatrices.randomIntegerMatrix(random, 9, 11);
+        FloatMatrix fa = FloatMatrix.fromMatrix(a);
+        FloatMatrix fb = FloatMatrix.fromMatrix(b);
+        assertArrayEquals(a.addMatrix(b).getDataClone(), fa.addMatrix(fb).toMatrix().getDataClone());
+        assertArrayEquals(a.subMatrix(b).getDataClone(), fa.subMatrix(fb).toMatrix().getDataClone());
+        assertArrayEquals(a.mulMatrixElementWise(b).getDataClone(),
+                fa.mulMatrixElementWise(fb).toMatrix().getDataClone());
+        assertArrayEquals(a.mulScalar(3).getDataClone(), fa.mulScalar(3).toMatrix().getDataClone());
+
+        FloatMatrix destination = fa.addScalarInPlace(2);
+        assertSame(fa, destination);
+        assertArrayEquals(a.addScalar(2).getDataClone(), fa.toMatrix().getDataClone());
+    }
+
+    /**
+     * Проверка деления на нулевую матрицу
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void divideByZeroMatrix() {
+        FloatMatrix a = new FloatMatrix(3);
+        a.divMatrixElementWise(new FloatMatrix(3));
+    }
+
+    /**
+     * Проверка транспонирования, в т.ч. на месте
+     */
+    @Test
+    public void transpose() {
+        Random random = new Random(5);
+        Matrix a = TestMatrices.randomIntegerMatrix(random, 37, 53);
+        assertArrayEquals(a.transpose().getDataClone(),
+                FloatMatrix.fromMatrix(a).transpose().toMatrix().getDataClone());
+
+        Matrix square = TestMatrices.randomIntegerMatrix(random, 45, 45);
+        FloatMatrix f = FloatMatrix.fromMatrix(square);
+        assertSame(f, f.transpose(f));
+        assertArrayEquals(square.transpose().getDataClone(), f.toMatrix().getDataClone());
+    }
+
+    /**
+     * Проверка сравнения с допустимой дельтой
+     */
+    @Test
+    public void equalsWithDelta() {
+        FloatMatrix a = new FloatMatrix(new float[][]{{1f, 2f}});
+        FloatMatrix b = new FloatMatrix(new float[][]{{1f, 2.001f}});
+        assertNotEquals(a, b);
+        float delta = FloatMatrix.equalsDelta();
+        try {
+            FloatMatrix.setEqualsDelta(0.01f);
+            assertEquals(a, b);
+            assertEquals(a.hashCode(), b.hashCode());
+        } finally {
+            FloatMatrix.setEqualsDelta(delta);
+        }
+    }
+
+    /**
+     * Проверка согласованности хэш-кода с точным сравнением
+     */
+    @Test
+    public void hashCodeConsistentWithEquals() {
+        FloatMatrix a = new FloatMatrix(new float[][]{{1f, 0f}, {-3f, 2f}});
+        FloatMatrix b = new FloatMatrix(new float[][]{{1f, -0f}, {-3f, 2f}});
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        b.setElement(1, 1, 2.5f);
+        assertNotEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a.hashCode(), a.transpose().hashCode());
+    }
+}
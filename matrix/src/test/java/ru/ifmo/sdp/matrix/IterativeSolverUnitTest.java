@@ -0,0 +1,245 @@
+package ru.ifmo.sdp.matrix;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class IterativeSolverUnitTest extends Assert {
+    private static final int GRID = 20;
+    private static final int SIZE = GRID * GRID;
+
+    private double equalsDelta;
+
+    @Before
+    public void setUp() {
+        equalsDelta = Matrix.equalsDelta();
+        Matrix.setEqualsDelta(1e-9);
+    }
+
+    @After
+    public void tearDown() {
+        Matrix.setEqualsDelta(equalsDelta);
+    }
+
+    /**
+     * Пятиточечная разностная схема на сетке <code>GRID x GRID</code>:
+     * при <code>convection = 0</code> - симметричная положительно определённая
+     * матрица уравнения Пуассона, иначе - несимметричная матрица уравнения
+     * конвекции-диффузии
+     */
+    private static SparseMatrix grid(double convection, SparseMatrix.Layout layout) {
+        List<int[]> positions = new ArrayList<>();
+        List<Double> values = new ArrayList<>();
+        for (int i = 0; i < GRID; i++)
+            for (int j = 0; j < GRID; j++) {
+                int row = i * GRID + j;
+                positions.add(new int[]{row, row});
+                values.add(4.0);
+                int[][] neighbours = {{i - 1, j}, {i + 1, j}, {i, j - 1}, {i, j + 1}};
+                for (int n = 0; n < neighbours.length; n++) {
+                    int[] neighbour = neighbours[n];
+                    if (neighbour[0] < 0 || neighbour[0] >= GRID || neighbour[1] < 0 || neighbour[1] >= GRID)
+                        continue;
+                    positions.add(new int[]{row, neighbour[0] * GRID + neighbour[1]});
+                    values.add(-1 + (n % 2 == 0 ? convection : -convection));
+                }
+            }
+        int[] rows = new int[values.size()];
+        int[] columns = new int[values.size()];
+        double[] data = new double[values.size()];
+        for (int p = 0; p < data.length; p++) {
+            rows[p] = positions.get(p)[0];
+            columns[p] = positions.get(p)[1];
+            data[p] = values.get(p);
+        }
+        return SparseMatrix.fromTriplets(SIZE, SIZE, rows, columns, data, layout);
+    }
+
+    private static Matrix randomVector(long seed) {
+        return TestMatrices.randomMatrix(new Random(seed), SIZE, 1);
+    }
+
+    /**
+     * Проверка метода сопряжённых градиентов: без предобуславливания и с
+     * обоими предобуславливателями решение совпадает с прямым методом, а
+     * неполное LU-разложение сокращает число итераций
+     */
+    @Test
+    public void conjugateGradient() {
+        SparseMatrix a = grid(0, SparseMatrix.Layout.CSR);
+        Matrix b = randomVector(1);
+        Matrix expected = a.toMatrix().solve(b);
+
+        ConjugateGradient solver = new ConjugateGradient(a);
+        assertEquals(expected, solver.solve(b));
+        assertTrue(solver.converged());
+        int plain = solver.iterations();
+
+        solver.setPreconditioner(Preconditioner.jacobi(a));
+        assertEquals(expected, solver.solve(b));
+        assertTrue(solver.converged());
+
+        solver.setPreconditioner(Preconditioner.incompleteLU(a));
+        assertEquals(expected, solver.solve(b));
+        assertTrue(solver.converged());
+        assertTrue(solver.iterations() + " < " + plain, solver.iterations() < plain);
+    }
+
+    /**
+     * Проверка GMRES на несимметричной матрице, в т.ч. с частыми перезапусками
+     * и в формате CSC
+     */
+    @Test
+    public void gmres() {
+        SparseMatrix a = grid(0.4, SparseMatrix.Layout.CSR);
+        Matrix b = randomVector(2);
+        Matrix expected = a.toMatrix().solve(b);
+
+        GMRES solver = new GMRES(a);
+        assertEquals(expected, solver.solve(b));
+        assertTrue(solver.converged());
+        int plain = solver.iterations();
+
+        solver.setPreconditioner(Preconditioner.incompleteLU(a));
+        assertEquals(expected, solver.solve(b));
+        assertTrue(solver.iterations() + " < " + plain, solver.iterations() < plain);
+
+        GMRES restarted = new GMRES(LinearOperator.of(a.toLayout(SparseMatrix.Layout.CSC)), 5);
+        restarted.setPreconditioner(Preconditioner.jacobi(a));
+        assertEquals(expected, restarted.solve(b));
+        assertTrue(restarted.converged());
+    }
+
+    /**
+     * Проверка, что точность по умолчанию согласована с
+     * {@link Matrix#equals(Object)}: найденное решение удовлетворяет
+     * <code>A x = b</code> в смысле сравнения матриц
+     */
+    @Test
+    public void toleranceFromEqualsDelta() {
+        Matrix a = grid(0.2, SparseMatrix.Layout.CSR).toMatrix();
+        Matrix b = randomVector(3);
+        GMRES solver = new GMRES(a);
+        assertEquals(Matrix.equalsDelta(), solver.tolerance(), 0);
+        Matrix x = solver.solve(b);
+        assertTrue(solver.residual() <= Matrix.equalsDelta());
+        assertEquals(b, a.mulVector(x));
+
+        solver.setTolerance(1e-3);
+        solver.solve(b);
+        assertTrue(solver.residual() <= 1e-3);
+        assertTrue(solver.residual() > Matrix.equalsDelta());
+    }
+
+    /**
+     * Проверка, что результат решения относится к настоящей невязке
+     * <code>b - A x</code>, а не к её рекуррентной оценке, в том числе при
+     * точности, близкой к пределу округления
+     */
+    @Test
+    public void trueResidualOnStop() {
+        Matrix spd = grid(0, SparseMatrix.Layout.CSR).toMatrix();
+        Matrix general = grid(0.4, SparseMatrix.Layout.CSR).toMatrix();
+        Matrix b = randomVector(4);
+        for (double tolerance : new double[]{1e-6, 1e-12, 1e-14}) {
+            IterativeSolver[] solvers = {
+                    new ConjugateGradient(spd).setTolerance(tolerance),
+                    new GMRES(general).setTolerance(tolerance)};
+            Matrix[] matrices = {spd, general};
+            for (int s = 0; s < solvers.length; s++) {
+                Matrix x = solvers[s].solve(b);
+                double actual = b.subMatrix(matrices[s].mulVector(x)).norm();
+                assertEquals(actual, solvers[s].residual(), 1e-15);
+                assertEquals(actual <= tolerance, solvers[s].converged());
+            }
+        }
+    }
+
+    /**
+     * Проверка наблюдателя и ограничения числа итераций
+     */
+    @Test
+    public void listener() {
+        SparseMatrix a = grid(0, SparseMatrix.Layout.CSR);
+        final List<Double> residuals = new ArrayList<>();
+        ConjugateGradient solver = new ConjugateGradient(a);
+        solver.setListener(new ResidualListener() {
+            @Override
+            public void iteration(int iteration, double residual) {
+                assertEquals(residuals.size() + 1, iteration);
+                residuals.add(residual);
+            }
+        });
+        solver.solve(randomVector(4));
+        assertEquals(solver.iterations(), residuals.size());
+        // наблюдатель получает рекуррентную оценку, а результат - настоящую
+        // невязку; они близки, но не совпадают побитово
+        double last = residuals.get(residuals.size() - 1);
+        assertEquals(solver.residual(), last, 1e-3 * last);
+
+        residuals.clear();
+        solver.setMaxIterations(3).solve(randomVector(5));
+        assertEquals(3, residuals.size());
+        assertFalse(solver.converged());
+    }
+
+    /**
+     * Проверка начального приближения: точное решение не требует итераций
+     */
+    @Test
+    public void initialGuess() {
+        SparseMatrix a = grid(0, SparseMatrix.Layout.CSR);
+        Matrix x = randomVector(6);
+        Matrix b = a.mulMatrix(x);
+        Matrix guess = new Matrix(SIZE).addInPlace(x);
+        ConjugateGradient solver = new ConjugateGradient(a);
+        assertSame(guess, solver.solve(b, guess));
+        assertEquals(0, solver.iterations());
+        assertTrue(solver.converged());
+        assertEquals(x, guess);
+    }
+
+    /**
+     * Проверка аргументов
+     */
+    @Test
+    public void wrongArguments() {
+        try {
+            new ConjugateGradient(new Matrix(2, 3));
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+        try {
+            new GMRES((LinearOperator) null);
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+        GMRES solver = new GMRES(new Matrix(new double[][]{{1, 0}, {0, 1}}));
+        try {
+            solver.solve(new Matrix(3));
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+        Matrix b = new Matrix(2);
+        try {
+            solver.solve(b, b);
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            Preconditioner.jacobi(new Matrix(new double[][]{{0, 1}, {1, 0}}));
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            Preconditioner.incompleteLU(new Matrix(new double[][]{{0, 1}, {1, 0}}));
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package ru.ifmo.sdp.matrix;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class LUDecompositionUnitTest extends Assert {
+
+    private static double maxDifference(Matrix m1, Matrix m2) {
+        double result = 0;
+        for (int i = 0; i < m1.rows(); i++)
+            for (int j = 0; j < m1.columns(); j++)
+                result = Math.max(result, Math.abs(m1.getElement(i, j) - m2.getElement(i, j)));
+        return result;
+    }
+
+    /**
+     * Проверка тождества P A = L U для размеров меньше полосы, кратных ей
+     * и не кратных, последовательно и с параллельным обновлением остатка
+     */
+    @Test
+    public void factorization() {
+        Random random = new Random(1);
+        long threshold = BlockedMultiplication.parallelThreshold();
+        try {
+            BlockedMultiplication.setParallelThreshold(0);
+            for (int size : new int[]{1, 2, 7, LUDecomposition.PANEL_SIZE,
+                    LUDecomposition.PANEL_SIZE * 2 + 5, 200})
+                for (boolean parallel : new boolean[]{false, true}) {
+                    Matrix a = TestMatrices.randomMatrix(random, size, size);
+                    LUDecomposition lu = LUDecomposition.of(a, parallel);
+                    assertFalse(lu.isSingular());
+                    int[] pivot = lu.getPivot();
+                    Matrix permuted = new Matrix(size, size);
+                    for (int i = 0; i < size; i++)
+                        for (int j = 0; j < size; j++)
+                            permuted.setElement(i, j, a.getElement(pivot[i], j));
+                    Matrix l = lu.getL();
+                    Matrix u = lu.getU();
+                    for (int i = 0; i < size; i++) {
+                        assertEquals(1, l.getElement(i, i), 0);
+                        for (int j = 0; j < i; j++) {
+                            assertEquals(0, u.getElement(i, j), 0);
+                            // частичный выбор ведущего элемента
+                            assertTrue(Math.abs(l.getElement(i, j)) <= 1);
+                        }
+                    }
+                    assertTrue("size " + size, maxDifference(permuted, l.mulMatrix(u)) < 1e-12 * size);
+                }
+        } finally {
+            BlockedMultiplication.setParallelThreshold(threshold);
+        }
+    }
+
+    /**
+     * Проверка решения системы с вектором и с несколькими правыми частями
+     */
+    @Test
+    public void solve() {
+        Random random = new Random(2);
+        int size = 150;
+        Matrix a = TestMatrices.randomMatrix(random, size, size);
+        Matrix x = TestMatrices.randomMatrix(random, size, 1, 0, 1);
+        Matrix b = a.mulMatrix(x);
+        Matrix solution = a.solve(b);
+        assertEquals(1, solution.columns());
+        assertTrue(maxDifference(x, solution) < 1e-9);
+
+        Matrix xs = TestMatrices.randomMatrix(random, size, 5);
+        assertTrue(maxDifference(xs, a.solve(a.mulMatrix(xs))) < 1e-9);
+    }
+
+    /**
+     * Проверка системы, требующей перестановки строк
+     */
+    @Test
+    public void solveWithPivoting() {
+        Matrix a = new Matrix(new double[][]{{0, 1}, {1, 0}});
+        Matrix b = new Matrix(2);
+        b.setElement(0, 3);
+        b.setElement(1, 4);
+        Matrix x = a.solve(b);
+        assertEquals(4, x.getElement(0), 0);
+        assertEquals(3, x.getElement(1), 0);
+        assertEquals(-1, a.determinant(), 0);
+    }
+
+    /**
+     * Проверка определителя: треугольная матрица, перестановка и
+     * мультипликативность
+     */
+    @Test
+    public void determinant() {
+        Matrix a = new Matrix(new double[][]{{2, 1, 3}, {0, 4, 5}, {0, 0, -1}});
+        assertEquals(-8, a.determinant(), 1e-12);
+        assertEquals(1, TestMatrices.identity(100).determinant(), 0);
+
+        Random random = new Random(3);
+        Matrix m1 = TestMatrices.randomMatrix(random, 90, 90);
+        Matrix m2 = TestMatrices.randomMatrix(random, 90, 90);
+        double expected = m1.determinant() * m2.determinant();
+        assertEquals(expected, m1.mulMatrix(m2).determinant(), Math.abs(expected) * 1e-9);
+    }
+
+    /**
+     * Проверка обратной матрицы
+     */
+    @Test
+    public void inverse() {
+        Random random = new Random(4);
+        int size = LUDecomposition.PANEL_SIZE + 30;
+        Matrix a = TestMatrices.randomMatrix(random, size, size);
+        Matrix inverse = a.inverse();
+        assertTrue(maxDifference(TestMatrices.identity(size), a.mulMatrix(inverse)) < 1e-9);
+        assertTrue(maxDifference(TestMatrices.identity(size), inverse.mulMatrix(a)) < 1e-9);
+    }
+
+    /**
+     * Проверка вырожденной матрицы: определитель равен нулю, решение и
+     * обращение недоступны
+     */
+    @Test
+    public void singular() {
+        Matrix a = new Matrix(new double[][]{{1, 2, 3}, {2, 4, 6}, {1, 0, 1}});
+        LUDecomposition lu = a.lu();
+        assertTrue(lu.isSingular());
+        assertEquals(0, lu.determinant(), 0);
+        try {
+            lu.solve(new Matrix(3));
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+        try {
+            a.inverse();
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+    }
+
+    /**
+     * Проверка аргументов
+     */
+    @Test
+    public void wrongArguments() {
+        try {
+            new Matrix(2, 3).determinant();
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+        try {
+            LUDecomposition.of(null);
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+        Matrix a = TestMatrices.identity(3);
+        try {
+            a.solve(new Matrix(4));
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            a.solve(null);
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package ru.ifmo.sdp.matrix;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Профиль выделения памяти: операции над матрицами не должны выделять
+ * ничего, кроме результата. Использует счётчик выделенных потоком байт
+ * HotSpot; на других JVM тесты пропускаются. Тот же профиль в бенчмарках
+ * даёт <code>-prof gc</code> (<code>gc.alloc.rate.norm</code>)
+ */
+public class MatrixAllocationUnitTest extends Assert {
+    private static final int SIZE = 48;
+    private static final int WARMUP = 3000;
+    private static final int ITERATIONS = 200;
+    // заголовок массива и объект Matrix с запасом на выравнивание
+    private static final long OVERHEAD = 64;
+
+    private com.sun.management.ThreadMXBean threads;
+    private Matrix a;
+    private Matrix b;
+
+    @Before
+    public void setUp() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        Random random = new Random(1);
+        a = TestMatrices.randomMatrix(random, SIZE, SIZE, 0, 1);
+        b = TestMatrices.randomMatrix(random, SIZE, SIZE, 1, 2);
+    }
+
+    private interface Operation {
+        Object run();
+    }
+
+    /**
+     * @return среднее число байт, выделяемых одним вызовом операции
+     */
+    private long allocatedPerCall(Operation operation) {
+        for (int i = 0; i < WARMUP; i++)
+            operation.run();
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ITERATIONS; i++)
+            operation.run();
+        return (threads.getThreadAllocatedBytes(thread) - before) / ITERATIONS;
+    }
+
+    private static long resultBytes() {
+        return 16 + 8L * SIZE * SIZE;
+    }
+
+    /**
+     * Проверка, что перемножение выделяет только результат, обоими алгоритмами
+     */
+    @Test
+    public void multiplyAllocatesOnlyResult() {
+        for (final Matrix.Multiplication multiplication :
+                new Matrix.Multiplication[]{Matrix.Multiplication.NAIVE, Matrix.Multiplication.BLOCKED}) {
+            long allocated = allocatedPerCall(new Operation() {
+                @Override
+                public Object run() {
+                    return Matrix.matrixMultiply(a, b, multiplication);
+                }
+            });
+            assertTrue(multiplication + ": " + allocated, allocated <= resultBytes() + OVERHEAD);
+        }
+    }
+
+    /**
+     * Проверка, что поэлементные и скалярные операции выделяют только
+     * результат, а операции на месте и сравнение не выделяют ничего
+     */
+    @Test
+    public void elementWiseAllocatesOnlyResult() {
+        long allocated = allocatedPerCall(new Operation() {
+            @Override
+            public Object run() {
+                return a.addMatrix(b);
+            }
+        });
+        assertTrue("addMatrix: " + allocated, allocated <= resultBytes() + OVERHEAD);
+        allocated = allocatedPerCall(new Operation() {
+            @Override
+            public Object run() {
+                return a.mulScalar(3);
+            }
+        });
+        assertTrue("mulScalar: " + allocated, allocated <= resultBytes() + OVERHEAD);
+
+        final Matrix destination = new Matrix(SIZE, SIZE);
+        allocated = allocatedPerCall(new Operation() {
+            @Override
+            public Object run() {
+                return a.divMatrixElementWise(b, destination);
+            }
+        });
+        assertTrue("divMatrixElementWise: " + allocated, allocated <= OVERHEAD);
+        allocated = allocatedPerCall(new Operation() {
+            @Override
+            public Object run() {
+                return a.equals(b);
+            }
+        });
+        assertTrue("equals: " + allocated, allocated <= OVERHEAD);
+    }
+
+    /**
+     * Проверка, что транспонирование выделяет только результат
+     */
+    @Test
+    public void transposeAllocatesOnlyResult() {
+        long allocated = allocatedPerCall(new Operation() {
+            @Override
+            public Object run() {
+                return a.transpose();
+            }
+        });
+        assertTrue("transpose: " + allocated, allocated <= resultBytes() + OVERHEAD);
+    }
+
+    /**
+     * Проверка, что итерационные методы с предобуславливанием не выделяют
+     * память при решении с заданным начальным приближением
+     */
+    @Test
+    public void iterativeSolversDoNotAllocate() {
+        int size = SIZE * SIZE;
+        int[] rows = new int[3 * size - 2];
+        int[] columns = new int[rows.length];
+        double[] values = new double[rows.length];
+        int p = 0;
+        for (int i = 0; i < size; i++)
+            for (int j = Math.max(i - 1, 0); j <= Math.min(i + 1, size - 1); j++) {
+                rows[p] = i;
+                columns[p] = j;
+                values[p++] = i == j ? 4 : -1 + 0.1 * (j - i);
+            }
+        SparseMatrix sparse = SparseMatrix.fromTriplets(size, size, rows, columns, values,
+                SparseMatrix.Layout.CSR);
+        final Matrix b = new Matrix(size);
+        for (int i = 0; i < size; i++)
+            b.setElement(i, i % 5);
+        final Matrix x = new Matrix(size);
+        final IterativeSolver[] solvers = {
+                new ConjugateGradient(sparse).setPreconditioner(Preconditioner.jacobi(sparse)),
+                new GMRES(sparse).setPreconditioner(Preconditioner.incompleteLU(sparse))};
+        for (final IterativeSolver solver : solvers) {
+            solver.setTolerance(0).setMaxIterations(20);
+            long allocated = allocatedPerCall(new Operation() {
+                @Override
+                public Object run() {
+                    return solver.solve(b, x.mulScalarInPlace(0));
+                }
+            });
+            assertTrue(solver.getClass().getSimpleName() + ": " + allocated, allocated <= OVERHEAD);
+        }
+    }
+}
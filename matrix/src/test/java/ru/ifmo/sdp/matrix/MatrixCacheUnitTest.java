@@ -0,0 +1,119 @@
+package ru.ifmo.sdp.matrix;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class MatrixCacheUnitTest extends Assert {
+
+    /**
+     * Проверка повторного перемножения: второй запрос, в т.ч. с другими
+     * объектами того же содержимого, не выполняет вычислений и возвращает
+     * независимую копию результата
+     */
+    @Test
+    public void multiplyHit() {
+        Random random = new Random(1);
+        Matrix a = TestMatrices.randomMatrix(random, 30, 40, -0.5, 0.5);
+        Matrix b = TestMatrices.randomMatrix(random, 40, 20, -0.5, 0.5);
+        MatrixCache cache = new MatrixCache(1 << 20);
+        Matrix first = cache.matrixMultiply(a, b);
+        assertEquals(0, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(Matrix.matrixMultiply(a, b), first);
+
+        Matrix second = cache.matrixMultiply(new Matrix(a.getDataClone()), new Matrix(b.getDataClone()));
+        assertEquals(1, cache.hits());
+        assertNotSame(first, second);
+        assertEquals(first, second);
+
+        // изменение результата не портит кэш
+        second.setElement(0, 0, 100);
+        assertEquals(first, cache.matrixMultiply(a, b));
+
+        // изменённый операнд - новый ключ
+        a.setElement(1, 1, 7);
+        assertEquals(Matrix.matrixMultiply(a, b), cache.matrixMultiply(a, b));
+        assertEquals(2, cache.misses());
+        assertEquals(2, cache.size());
+    }
+
+    /**
+     * Проверка транспонирования и разложений
+     */
+    @Test
+    public void transposeAndDecompositions() {
+        Random random = new Random(2);
+        Matrix a = TestMatrices.randomMatrix(random, 20, 20, -0.5, 0.5);
+        MatrixCache cache = new MatrixCache(1 << 20);
+        assertEquals(a.transpose(), cache.transpose(a));
+        assertEquals(a.transpose(), cache.transpose(a));
+        LUDecomposition lu = cache.lu(a);
+        assertSame(lu, cache.lu(a));
+        QRDecomposition qr = cache.qr(a);
+        assertSame(qr, cache.qr(a));
+        Matrix spd = Matrix.matrixMultiply(a, true, a, false);
+        CholeskyDecomposition cholesky = cache.cholesky(spd);
+        assertSame(cholesky, cache.cholesky(spd));
+        assertEquals(4, cache.hits());
+        assertEquals(4, cache.misses());
+        assertEquals(4, cache.size());
+    }
+
+    /**
+     * Проверка вытеснения давно не использованных результатов по объёму
+     */
+    @Test
+    public void eviction() {
+        Random random = new Random(3);
+        Matrix a = TestMatrices.randomMatrix(random, 10, 10, -0.5, 0.5);
+        Matrix b = TestMatrices.randomMatrix(random, 10, 10, -0.5, 0.5);
+        Matrix c = TestMatrices.randomMatrix(random, 10, 10, -0.5, 0.5);
+        // места ровно на два результата 10x10
+        MatrixCache cache = new MatrixCache(2 * 8 * 100);
+        cache.transpose(a);
+        cache.transpose(b);
+        cache.transpose(a);
+        cache.transpose(c);
+        assertEquals(1, cache.evictions());
+        assertEquals(2, cache.size());
+        assertEquals(2 * 8 * 100, cache.bytes());
+        long hits = cache.hits();
+        cache.transpose(a);
+        assertEquals(hits + 1, cache.hits());
+        cache.transpose(b);
+        assertEquals(hits + 1, cache.hits());
+
+        // результат больше всего кэша не сохраняется
+        cache.transpose(TestMatrices.randomMatrix(random, 20, 20, -0.5, 0.5));
+        assertTrue(cache.bytes() <= cache.capacity());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+    }
+
+    /**
+     * Проверка аргументов
+     */
+    @Test
+    public void wrongArguments() {
+        try {
+            new MatrixCache(0);
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+        MatrixCache cache = new MatrixCache(100);
+        try {
+            cache.matrixMultiply(null, new Matrix(1));
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            cache.matrixMultiply(new Matrix(2, 3), new Matrix(2, 3));
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+}
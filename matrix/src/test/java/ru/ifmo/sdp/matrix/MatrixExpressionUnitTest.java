@@ -0,0 +1,88 @@
+package ru.ifmo.sdp.matrix;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class MatrixExpressionUnitTest extends Assert {
+
+    /**
+     * Проверка совпадения цепочки отложенных операций с немедленными
+     * на размере, не кратном размеру участка
+     */
+    @Test
+    public void chainEqualsEager() {
+        Random random = new Random(1);
+        Matrix a = TestMatrices.randomMatrix(random, 45, 51, 0.5, 1.5);
+        Matrix b = TestMatrices.randomMatrix(random, 45, 51, 0.5, 1.5);
+        Matrix c = TestMatrices.randomMatrix(random, 45, 51, 0.5, 1.5);
+        Matrix expected = a.addMatrix(b).mulScalar(2).subMatrix(c).divMatrixElementWise(b.addScalar(1));
+        Matrix actual = a.lazy().addMatrix(b).mulScalar(2).subMatrix(c)
+                .divMatrixElementWise(b.lazy().addScalar(1)).evaluate();
+        assertArrayEquals(expected.getDataClone(), actual.getDataClone());
+    }
+
+    /**
+     * Проверка, что листья выражения читаются в момент вычисления
+     */
+    @Test
+    public void leavesAreReadOnEvaluation() {
+        Matrix a = new Matrix(new double[][]{{1, 2}, {3, 4}});
+        MatrixExpression e = a.lazy().addScalar(1);
+        a.setElement(0, 0, 10);
+        assertEquals(11, e.evaluate().getElement(0, 0), 0);
+    }
+
+    /**
+     * Проверка перемножения как барьера внутри выражения
+     */
+    @Test
+    public void productBarrier() {
+        Random random = new Random(2);
+        Matrix a = TestMatrices.randomMatrix(random, 30, 20, 0.5, 1.5);
+        Matrix b = TestMatrices.randomMatrix(random, 20, 40, 0.5, 1.5);
+        Matrix c = TestMatrices.randomMatrix(random, 30, 40, 0.5, 1.5);
+        Matrix expected = a.addScalar(1).mulMatrix(b).addMatrix(c);
+        Matrix actual = a.lazy().addScalar(1).mulMatrix(b).addMatrix(c).evaluate();
+        assertArrayEquals(expected.getDataClone(), actual.getDataClone());
+    }
+
+    /**
+     * Проверка вычисления с записью в матрицу, являющуюся операндом
+     */
+    @Test
+    public void evaluateIntoOperand() {
+        Random random = new Random(3);
+        Matrix a = TestMatrices.randomMatrix(random, 70, 70, 0.5, 1.5);
+        Matrix b = TestMatrices.randomMatrix(random, 70, 70, 0.5, 1.5);
+        Matrix expected = b.subMatrix(a).mulScalar(3);
+        assertSame(a, b.lazy().subMatrix(a).mulScalar(3).evaluate(a));
+        assertArrayEquals(expected.getDataClone(), a.getDataClone());
+    }
+
+    /**
+     * Проверка на наличие исключения при операции над матрицами разного размера
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void differentSizes() {
+        new Matrix(2, 3).lazy().addMatrix(new Matrix(3, 2));
+    }
+
+    /**
+     * Проверка на наличие исключения при делении на нулевой скаляр
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void divideByZeroScalar() {
+        new Matrix(2, 3).lazy().divScalar(0);
+    }
+
+    /**
+     * Проверка на наличие исключения при делении на матрицу с нулевыми элементами
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void divideByZeroElement() {
+        Matrix a = new Matrix(new double[][]{{1, 2}, {3, 4}});
+        a.lazy().divMatrixElementWise(a.lazy().subScalar(4)).evaluate();
+    }
+}
@@ -0,0 +1,180 @@
+package ru.ifmo.sdp.matrix;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class MatrixFileUnitTest extends Assert {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Проверка заголовка и размера файла
+     */
+    @Test
+    public void writeHeader() throws IOException {
+        Path path = folder.newFile().toPath();
+        MatrixFile.write(TestMatrices.randomMatrix(new Random(1), 3, 5, -10, 10), path, MatrixFile.Layout.COLUMN_MAJOR);
+        MatrixFile.Header header = MatrixFile.readHeader(path);
+        assertEquals(3, header.rows());
+        assertEquals(5, header.columns());
+        assertEquals(MatrixFile.DataType.FLOAT64, header.dataType());
+        assertEquals(MatrixFile.Layout.COLUMN_MAJOR, header.layout());
+        assertEquals(MatrixFile.HEADER_SIZE + 15 * 8, Files.size(path));
+
+        ByteBuffer raw = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals('S', raw.get(0));
+        assertEquals('M', raw.get(3));
+        assertEquals(MatrixFile.VERSION, raw.getShort(4));
+    }
+
+    /**
+     * Проверка записи и чтения в обоих порядках хранения, в т.ч. через
+     * несколько блоков ввода-вывода
+     */
+    @Test
+    public void writeAndReadBothLayouts() throws IOException {
+        Matrix m = TestMatrices.randomMatrix(new Random(2), 131, 97, -10, 10);
+        for (MatrixFile.Layout layout : MatrixFile.Layout.values()) {
+            Path path = folder.newFile().toPath();
+            MatrixFile.write(m, path, layout);
+            assertArrayEquals(m.getDataClone(), MatrixFile.read(path).getDataClone());
+        }
+    }
+
+    /**
+     * Проверка записи одинарной точности и преобразования при чтении
+     */
+    @Test
+    public void writeAndReadFloat() throws IOException {
+        Matrix m = TestMatrices.randomMatrix(new Random(3), 40, 30, -10, 10);
+        FloatMatrix f = FloatMatrix.fromMatrix(m);
+        Path path = folder.newFile().toPath();
+        MatrixFile.write(f, path);
+        assertEquals(MatrixFile.DataType.FLOAT32, MatrixFile.readHeader(path).dataType());
+        assertEquals(f, MatrixFile.readFloat(path));
+        assertArrayEquals(f.toMatrix().getDataClone(), MatrixFile.read(path).getDataClone());
+    }
+
+    /**
+     * Проверка отображения в память только для чтения, в т.ч. с разбиением
+     * на несколько сегментов
+     */
+    @Test
+    public void mapReadOnly() throws IOException {
+        Matrix m = TestMatrices.randomMatrix(new Random(4), 17, 23, -10, 10);
+        Path path = folder.newFile().toPath();
+        MatrixFile.write(m, path);
+        for (int shift : new int[]{OffHeapMatrix.SEGMENT_SHIFT, 5}) {
+            try (OffHeapMatrix mapped = MatrixFile.map(path, MatrixFile.Access.READ_ONLY, shift)) {
+                assertEquals(17, mapped.rows());
+                assertEquals(23, mapped.columns());
+                assertTrue(mapped.isReadOnly());
+                for (int i = 0; i < m.rows(); i++)
+                    for (int j = 0; j < m.columns(); j++)
+                        assertEquals(m.getElement(i, j), mapped.getElement(i, j), 0);
+                assertArrayEquals(m.getDataClone(), mapped.toMatrix().getDataClone());
+                assertTrue(mapped.equalsMatrix(m));
+            }
+        }
+    }
+
+    /**
+     * Проверка отображения файла, хранящего значения по столбцам
+     */
+    @Test
+    public void mapColumnMajor() throws IOException {
+        Matrix m = TestMatrices.randomMatrix(new Random(5), 9, 14, -10, 10);
+        Path path = folder.newFile().toPath();
+        MatrixFile.write(m, path, MatrixFile.Layout.COLUMN_MAJOR);
+        try (OffHeapMatrix mapped = MatrixFile.map(path, MatrixFile.Access.READ_ONLY, 4)) {
+            assertEquals(m.getElement(8, 3), mapped.getElement(8, 3), 0);
+            assertArrayEquals(m.getDataClone(), mapped.toMatrix().getDataClone());
+        }
+    }
+
+    /**
+     * Проверка запрета записи в режиме только для чтения
+     */
+    @Test(expected = IllegalStateException.class)
+    public void readOnlyRejectsWrites() throws IOException {
+        Path path = folder.newFile().toPath();
+        MatrixFile.write(new Matrix(2, 2), path);
+        try (OffHeapMatrix mapped = MatrixFile.map(path, MatrixFile.Access.READ_ONLY)) {
+            mapped.setElement(0, 0, 1);
+        }
+    }
+
+    /**
+     * Проверка копирования при записи: изменения не попадают в файл,
+     * но могут быть сохранены в другой файл
+     */
+    @Test
+    public void copyOnWrite() throws IOException {
+        Matrix m = TestMatrices.randomMatrix(new Random(6), 5, 5, -10, 10);
+        Path path = folder.newFile().toPath();
+        MatrixFile.write(m, path);
+        Path changed = folder.newFile().toPath();
+        try (OffHeapMatrix mapped = MatrixFile.map(path, MatrixFile.Access.COPY_ON_WRITE)) {
+            assertEquals(m.getElement(2, 3), mapped.setElement(2, 3, 42), 0);
+            assertEquals(42, mapped.getElement(2, 3), 0);
+            MatrixFile.write(mapped, changed);
+        }
+        assertArrayEquals(m.getDataClone(), MatrixFile.read(path).getDataClone());
+        m.setElement(2, 3, 42);
+        assertArrayEquals(m.getDataClone(), MatrixFile.read(changed).getDataClone());
+    }
+
+    /**
+     * Проверка обращения к закрытой матрице
+     */
+    @Test
+    public void closedMatrixRejectsAccess() throws IOException {
+        Path path = folder.newFile().toPath();
+        MatrixFile.write(new Matrix(3, 3), path);
+        OffHeapMatrix mapped = MatrixFile.map(path, MatrixFile.Access.READ_ONLY);
+        mapped.close();
+        mapped.close();
+        assertTrue(mapped.isClosed());
+        try {
+            mapped.getElement(0, 0);
+            fail();
+        } catch (IllegalStateException expected) {
+            // ожидаемое исключение
+        }
+    }
+
+    /**
+     * Проверка отказа на файлах, не являющихся файлами матриц или повреждённых
+     */
+    @Test
+    public void rejectCorruptedFiles() throws IOException {
+        Path path = folder.newFile().toPath();
+        Files.write(path, new byte[MatrixFile.HEADER_SIZE]);
+        try {
+            MatrixFile.read(path);
+            fail();
+        } catch (IOException expected) {
+            // ожидаемое исключение
+        }
+        MatrixFile.write(new Matrix(4, 4), path);
+        byte[] truncated = new byte[MatrixFile.HEADER_SIZE + 8];
+        System.arraycopy(Files.readAllBytes(path), 0, truncated, 0, truncated.length);
+        Files.write(path, truncated);
+        try {
+            MatrixFile.map(path, MatrixFile.Access.READ_ONLY);
+            fail();
+        } catch (IOException expected) {
+            // ожидаемое исключение
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package ru.ifmo.sdp.matrix;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class MatrixStreamUnitTest extends Assert {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String toCsv(Matrix m) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (MatrixStream stream = MatrixStream.of(RowSource.of(m));
+             RowSink sink = RowSink.csv(writer)) {
+            stream.writeTo(sink);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Проверка чтения и записи CSV без потери точности
+     */
+    @Test
+    public void csvRoundTrip() throws IOException {
+        Matrix m = TestMatrices.randomMatrix(new Random(1), 25, 7, -10, 10);
+        String csv = toCsv(m);
+        assertEquals(25, csv.split("\n").length);
+        try (MatrixStream stream = MatrixStream.of(RowSource.csv(new StringReader("\n" + csv + "\n")))) {
+            assertEquals(7, stream.columns());
+            assertArrayEquals(m.getDataClone(), stream.toMatrix().getDataClone());
+        }
+    }
+
+    /**
+     * Проверка сообщений об ошибках формата CSV
+     */
+    @Test
+    public void csvFormatErrors() throws IOException {
+        for (String csv : new String[]{"1,2\n3\n", "1,2\n3,4,5\n", "1,2\nx,4\n"}) {
+            try (RowSource source = RowSource.csv(new StringReader(csv))) {
+                MatrixStream.of(source).toMatrix();
+                fail(csv);
+            } catch (IOException expected) {
+                assertTrue(expected.getMessage().startsWith("Line 2"));
+            }
+        }
+    }
+
+    /**
+     * Проверка потокового чтения и записи двоичного формата, совместимого
+     * с {@link MatrixFile}
+     */
+    @Test
+    public void binaryRoundTrip() throws IOException {
+        Matrix m = TestMatrices.randomMatrix(new Random(2), 3000, 30, -10, 10);
+        Path path = folder.newFile().toPath();
+        try (MatrixStream stream = MatrixStream.of(RowSource.of(m));
+             RowSink sink = RowSink.binary(path)) {
+            assertEquals(3000, stream.writeTo(sink));
+        }
+        assertArrayEquals(m.getDataClone(), MatrixFile.read(path).getDataClone());
+        try (MatrixStream stream = MatrixStream.of(RowSource.binary(path))) {
+            assertArrayEquals(m.getDataClone(), stream.toMatrix().getDataClone());
+        }
+
+        FloatMatrix f = FloatMatrix.fromMatrix(m);
+        MatrixFile.write(f, path);
+        try (MatrixStream stream = MatrixStream.of(RowSource.binary(Files.newInputStream(path)))) {
+            assertArrayEquals(f.toMatrix().getDataClone(), stream.toMatrix().getDataClone());
+        }
+    }
+
+    /**
+     * Проверка отказа от потокового чтения файла, хранящего значения по столбцам
+     */
+    @Test(expected = IOException.class)
+    public void rejectColumnMajor() throws IOException {
+        Path path = folder.newFile().toPath();
+        MatrixFile.write(new Matrix(2, 3), path, MatrixFile.Layout.COLUMN_MAJOR);
+        RowSource.binary(path).close();
+    }
+
+    /**
+     * Проверка конвейера из поэлементной, скалярной операций и перемножения
+     * вне памяти против <code>Matrix</code>, в т.ч. через много порций
+     */
+    @Test
+    public void pipelineMatchesMatrix() throws IOException {
+        Random random = new Random(3);
+        Matrix a = TestMatrices.randomMatrix(random, 5000, 40, -10, 10);
+        Matrix b = TestMatrices.randomMatrix(random, 5000, 40, -10, 10);
+        Matrix right = TestMatrices.randomMatrix(random, 40, 9, -10, 10);
+        Matrix expected = a.subMatrix(b).mulScalar(0.5).mulMatrix(right);
+
+        Path input = folder.newFile().toPath();
+        MatrixFile.write(a, input);
+        Path output = folder.newFile().toPath();
+        try (MatrixStream stream = MatrixStream.of(RowSource.binary(input))
+                .elementWise(RowSource.csv(new StringReader(toCsv(b))), Matrix.Operation.SUBTRACT)
+                .scalar(0.5, Matrix.Operation.MULTIPLY)
+                .multiply(right);
+             RowSink sink = RowSink.binary(output)) {
+            assertEquals(9, stream.columns());
+            assertTrue(stream.chunkRows() < a.rows());
+            assertEquals(a.rows(), stream.writeTo(sink));
+        }
+        assertArrayEquals(expected.getDataClone(), MatrixFile.read(output).getDataClone());
+    }
+
+    /**
+     * Проверка поэлементной операции, когда правый источник отдаёт строки
+     * меньшими порциями, чем левый
+     */
+    @Test
+    public void elementWiseShortRightReads() throws IOException {
+        Random random = new Random(5);
+        Matrix a = TestMatrices.randomMatrix(random, 1000, 7, -10, 10);
+        Matrix b = TestMatrices.randomMatrix(random, 1000, 7, -10, 10);
+        final RowSource full = RowSource.of(b);
+        RowSource shortReads = new RowSource() {
+            @Override
+            public int columns() {
+                return full.columns();
+            }
+
+            @Override
+            public int read(double[] buffer, int maxRows) throws IOException {
+                return full.read(buffer, Math.min(maxRows, 3));
+            }
+
+            @Override
+            public void close() throws IOException {
+                full.close();
+            }
+        };
+        try (MatrixStream stream = MatrixStream.of(RowSource.of(a))
+                .elementWise(shortReads, Matrix.Operation.SUM)) {
+            assertArrayEquals(a.addMatrix(b).getDataClone(), stream.toMatrix().getDataClone());
+        }
+    }
+
+    /**
+     * Проверка несовпадения числа строк операндов
+     */
+    @Test(expected = IOException.class)
+    public void rejectDifferentRowCounts() throws IOException {
+        Random random = new Random(4);
+        try (MatrixStream stream = MatrixStream.of(RowSource.of(TestMatrices.randomMatrix(random, 5, 3, -10, 10)))
+                .elementWise(RowSource.of(TestMatrices.randomMatrix(random, 6, 3, -10, 10)), Matrix.Operation.SUM)) {
+            stream.toMatrix();
+        }
+    }
+
+    /**
+     * Проверка деления на ноль в потоке
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void divideByZero() throws IOException {
+        try (MatrixStream stream = MatrixStream.of(RowSource.of(new Matrix(new double[][]{{1, 2}})))
+                .elementWise(RowSource.of(new Matrix(new double[][]{{1, 0}})), Matrix.Operation.DIVIDE)) {
+            stream.toMatrix();
+        }
+    }
+
+    /**
+     * Проверка повреждённого двоичного потока
+     */
+    @Test(expected = IOException.class)
+    public void rejectTruncatedBinary() throws IOException {
+        Path path = folder.newFile().toPath();
+        MatrixFile.write(new Matrix(4, 4), path);
+        byte[] bytes = Files.readAllBytes(path);
+        byte[] truncated = new byte[bytes.length - 8];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        try (MatrixStream stream = MatrixStream.of(RowSource.binary(new ByteArrayInputStream(truncated)))) {
+            stream.toMatrix();
+        }
+    }
+}
@@ -5,6 +5,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
 
 /**
@@ -91,6 +93,15 @@ public class MatrixUnitTest extends Assert {
         assertEquals(expectedY, m.getDataClone()[0].length);
     }
 
+    /**
+     * Проверка на наличие исключения при создании матрицы, число элементов
+     * которой не помещается в массив
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void constructMatrixTooLarge() {
+        new Matrix(100000, 100000);
+    }
+
     /**
      * Проверка на наличие исключения при создании матрицы от массива неверного размера
      */
@@ -365,6 +376,58 @@ public class MatrixUnitTest extends Assert {
         assertArrayEquals(m.getDataClone(), m1.getDataClone());
     }
 
+    /**
+     * Проверка корректности поэлементных операций на месте
+     */
+    @Test
+    public void elementWiseInPlace() {
+        Matrix m = new Matrix(testData);
+        Matrix other = new Matrix(testDataTransposed).transpose();
+        Matrix expected = m.addMatrix(other).mulMatrixElementWise(other)
+                .subMatrix(other).divMatrixElementWise(other);
+        Matrix result = m.addInPlace(other).mulElementWiseInPlace(other)
+                .subInPlace(other).divElementWiseInPlace(other);
+        assertSame(m, result);
+        assertArrayEquals(expected.getDataClone(), m.getDataClone());
+    }
+
+    /**
+     * Проверка записи результата поэлементной операции в матрицу-приёмник
+     */
+    @Test
+    public void elementWiseToDestination() {
+        Matrix m = new Matrix(testData);
+        Matrix destination = new Matrix(testData.length, testData[0].length);
+        assertSame(destination, m.addMatrix(m, destination));
+        assertArrayEquals(m.addMatrix(m).getDataClone(), destination.getDataClone());
+        assertArrayEquals(testData, m.getDataClone());
+    }
+
+    /**
+     * Проверка на наличие исключения при записи результата в матрицу другого размера
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void elementWiseToBadSizedDestination() {
+        Matrix m = new Matrix(testData);
+        m.addMatrix(m, new Matrix(testDataTransposed));
+    }
+
+    /**
+     * Проверка неизменности приёмника при делении на матрицу с нулевыми элементами
+     */
+    @Test
+    public void divideInPlaceByZeroKeepsDestination() {
+        Matrix m = new Matrix(testData);
+        Matrix divider = new Matrix(testData);
+        divider.setElement(1, 3, 0);
+        try {
+            m.divElementWiseInPlace(divider);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertArrayEquals(testData, m.getDataClone());
+        }
+    }
+
     /**
      * Проверка на наличие исключения при перемножении матриц с недопустимыми размера
      */
@@ -395,6 +458,39 @@ public class MatrixUnitTest extends Assert {
         assertArrayEquals(m2.getDataClone(), testDataTransposedMulBase);
     }
 
+    /**
+     * Проверка совпадения результатов блочного и наивного алгоритмов умножения
+     * на размерах, не кратных размеру блока
+     */
+    @Test
+    public void multiplyBlockedEqualsNaive() {
+        Random random = new Random(42);
+        Matrix m1 = TestMatrices.randomMatrix(random, 131, 77, -0.5, 0.5);
+        Matrix m2 = TestMatrices.randomMatrix(random, 77, 150, -0.5, 0.5);
+        Matrix expected = Matrix.matrixMultiply(m1, m2, Matrix.Multiplication.NAIVE);
+        assertArrayEquals(expected.getDataClone(),
+                Matrix.matrixMultiply(m1, m2, Matrix.Multiplication.BLOCKED).getDataClone());
+    }
+
+    /**
+     * Проверка корректности параллельного блочного умножения
+     */
+    @Test
+    public void multiplyBlockedParallel() {
+        long threshold = BlockedMultiplication.parallelThreshold();
+        try {
+            BlockedMultiplication.setParallelThreshold(0);
+            Random random = new Random(7);
+            Matrix m1 = TestMatrices.randomMatrix(random, 200, 130, -0.5, 0.5);
+            Matrix m2 = TestMatrices.randomMatrix(random, 130, 190, -0.5, 0.5);
+            Matrix expected = Matrix.matrixMultiply(m1, m2, Matrix.Multiplication.NAIVE);
+            assertArrayEquals(expected.getDataClone(),
+                    Matrix.matrixMultiply(m1, m2, Matrix.Multiplication.BLOCKED).getDataClone());
+        } finally {
+            BlockedMultiplication.setParallelThreshold(threshold);
+        }
+    }
+
     /**
      * Проверка корректности суммирования (вычетания) матрицы со скаляром статическим методом
      */
@@ -459,6 +555,22 @@ public class MatrixUnitTest extends Assert {
         assertArrayEquals(m.getDataClone(), m1.getDataClone());
     }
 
+    /**
+     * Проверка корректности скалярных операций на месте и с матрицей-приёмником
+     */
+    @Test
+    public void scalarInPlaceAndToDestination() {
+        Matrix m = new Matrix(testData);
+        Matrix expected = m.addScalar(3).mulScalar(2).subScalar(1).divScalar(4);
+        Matrix destination = new Matrix(testData.length, testData[0].length);
+        assertSame(destination, m.addScalar(3, destination));
+        assertArrayEquals(m.addScalar(3).getDataClone(), destination.getDataClone());
+        Matrix result = m.addScalarInPlace(3).mulScalarInPlace(2)
+                .subScalarInPlace(1).divScalarInPlace(4);
+        assertSame(m, result);
+        assertArrayEquals(expected.getDataClone(), m.getDataClone());
+    }
+
     /**
      * Проверка корректности сравнения матриц
      */
@@ -483,9 +595,143 @@ public class MatrixUnitTest extends Assert {
         assertArrayEquals(mT.getDataClone(), testDataTransposed);
     }
 
+    /**
+     * Проверка рекурсивного транспонирования прямоугольной матрицы, в т.ч. параллельного
+     */
+    @Test
+    public void transposeLarge() {
+        Matrix m = TestMatrices.randomMatrix(new Random(11), 131, 70, -0.5, 0.5);
+        double[][] expected = new double[70][131];
+        for (int i = 0; i < 131; i++)
+            for (int j = 0; j < 70; j++)
+                expected[j][i] = m.getElement(i, j);
+        assertArrayEquals(expected, m.transpose().getDataClone());
+        long threshold = Transposition.parallelThreshold();
+        try {
+            Transposition.setParallelThreshold(0);
+            assertArrayEquals(expected, m.transpose(new Matrix(70, 131)).getDataClone());
+        } finally {
+            Transposition.setParallelThreshold(threshold);
+        }
+    }
+
+    /**
+     * Проверка транспонирования квадратной матрицы на месте, в т.ч. параллельного
+     */
+    @Test
+    public void transposeInPlace() {
+        Matrix m = TestMatrices.randomMatrix(new Random(12), 97, 97, -0.5, 0.5);
+        Matrix expected = m.transpose();
+        assertSame(m, m.transposeInPlace());
+        assertArrayEquals(expected.getDataClone(), m.getDataClone());
+        long threshold = Transposition.parallelThreshold();
+        try {
+            Transposition.setParallelThreshold(0);
+            assertSame(m, m.transpose(m));
+            assertArrayEquals(expected.transpose().getDataClone(), m.getDataClone());
+        } finally {
+            Transposition.setParallelThreshold(threshold);
+        }
+    }
+
+    /**
+     * Проверка на наличие исключения при транспонировании на месте неквадратной матрицы
+     */
+    @Test(expected = IllegalStateException.class)
+    public void transposeInPlaceNotSquare() {
+        new Matrix(testData).transposeInPlace();
+    }
+
+    /**
+     * Проверка умножения с транспонированными представлениями операндов
+     */
+    @Test
+    public void multiplyTransposedViews() {
+        Random random = new Random(13);
+        Matrix a = TestMatrices.randomMatrix(random, 83, 70, -0.5, 0.5);
+        Matrix b = TestMatrices.randomMatrix(random, 70, 91, -0.5, 0.5);
+        Matrix expected = Matrix.matrixMultiply(a, b, Matrix.Multiplication.NAIVE);
+        Matrix aT = a.transpose();
+        Matrix bT = b.transpose();
+        assertArrayEquals(expected.getDataClone(),
+                Matrix.matrixMultiply(a, false, b, false).getDataClone());
+        assertArrayEquals(expected.getDataClone(),
+                Matrix.matrixMultiply(aT, true, b, false).getDataClone());
+        assertArrayEquals(expected.getDataClone(),
+                Matrix.matrixMultiply(a, false, bT, true).getDataClone());
+        assertArrayEquals(expected.getDataClone(),
+                Matrix.matrixMultiply(aT, true, bT, true).getDataClone());
+    }
+
     @Test
     public void get() {
 
     }
 
+    /**
+     * Проверка отпечатка: совпадает для одинакового содержимого, не различает
+     * знак нуля, обновляется при setElement и при операциях на месте
+     */
+    @Test
+    public void fingerprint() {
+        Random random = new Random(14);
+        Matrix a = TestMatrices.randomMatrix(random, 20, 30, -0.5, 0.5);
+        Matrix b = new Matrix(a.getDataClone());
+        assertEquals(a.fingerprint(), b.fingerprint());
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a.fingerprint(), a.transpose().fingerprint());
+        assertNotEquals(new Matrix(2, 3).fingerprint(), new Matrix(3, 2).fingerprint());
+
+        double previous = b.setElement(3, 4, 1.5);
+        assertNotEquals(a.fingerprint(), b.fingerprint());
+        assertFalse(a.equals(b));
+        b.setElement(3, 4, previous);
+        assertEquals(a.fingerprint(), b.fingerprint());
+        assertEquals(a, b);
+
+        // инкрементальное значение совпадает с полным пересчётом
+        b.setElement(0, 0, 0.0);
+        b.setElement(1, 1, -0.0);
+        b.setElement(2, 2, Double.NaN);
+        assertEquals(new Matrix(b.getDataClone()).fingerprint(), b.fingerprint());
+
+        Matrix zero = new Matrix(3);
+        Matrix negativeZero = new Matrix(3);
+        negativeZero.setElement(1, -0.0);
+        assertEquals(zero.fingerprint(), negativeZero.fingerprint());
+        assertEquals(zero.hashCode(), negativeZero.hashCode());
+
+        long before = a.fingerprint();
+        a.addScalarInPlace(1);
+        assertNotEquals(before, a.fingerprint());
+        a.subScalarInPlace(1);
+        assertEquals(new Matrix(a.getDataClone()).fingerprint(), a.fingerprint());
+        Matrix square = TestMatrices.randomMatrix(random, 5, 5, -0.5, 0.5);
+        before = square.fingerprint();
+        square.transposeInPlace();
+        assertNotEquals(before, square.fingerprint());
+    }
+
+    /**
+     * Проверка, что матрицы можно использовать как ключи хэш-таблиц, в т.ч.
+     * при неточном сравнении
+     */
+    @Test
+    public void hashCodeConsistentWithEquals() {
+        Map<Matrix, String> map = new HashMap<>();
+        Matrix key = new Matrix(new double[][]{{1, 2}, {3, 4}});
+        map.put(key, "value");
+        assertEquals("value", map.get(new Matrix(new double[][]{{1, 2}, {3, 4}})));
+        assertNull(map.get(new Matrix(new double[][]{{1, 2}, {3, 5}})));
+
+        double equalsDelta = Matrix.equalsDelta();
+        try {
+            Matrix.setEqualsDelta(1e-6);
+            Matrix close = new Matrix(new double[][]{{1, 2}, {3, 4 + 1e-9}});
+            assertEquals(key, close);
+            assertEquals(key.hashCode(), close.hashCode());
+        } finally {
+            Matrix.setEqualsDelta(equalsDelta);
+        }
+    }
 }
@@ -0,0 +1,121 @@
+package ru.ifmo.sdp.matrix;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class MatrixVectorUnitTest extends Assert {
+
+    /**
+     * Проверка, что умножение на вектор побитово совпадает с общим
+     * перемножением, последовательно и параллельно
+     */
+    @Test
+    public void matchesMatrixMultiply() {
+        Random random = new Random(1);
+        long threshold = MatrixVector.parallelThreshold();
+        try {
+            for (long parallelThreshold : new long[]{Long.MAX_VALUE, 0}) {
+                MatrixVector.setParallelThreshold(parallelThreshold);
+                for (int[] size : new int[][]{{1, 1}, {7, 3}, {300, 500}, {513, 129}}) {
+                    Matrix a = TestMatrices.randomMatrix(random, size[0], size[1]);
+                    Matrix x = TestMatrices.randomMatrix(random, size[1], 1);
+                    assertArrayEquals(
+                            Matrix.matrixMultiply(a, x, Matrix.Multiplication.BLOCKED).data,
+                            a.mulVector(x).data, 0);
+                    Matrix y = TestMatrices.randomMatrix(random, size[0], 1);
+                    assertArrayEquals(Matrix.matrixMultiply(a, true, y, false).data,
+                            a.mulVectorTransposed(y).data, 0);
+                }
+            }
+        } finally {
+            MatrixVector.setParallelThreshold(threshold);
+        }
+    }
+
+    /**
+     * Проверка записи в заданный вектор: предыдущее содержимое перезаписывается
+     */
+    @Test
+    public void destination() {
+        Matrix a = new Matrix(new double[][]{{1, 2}, {3, 4}, {5, 6}});
+        Matrix x = new Matrix(2);
+        x.setElement(0, 1);
+        x.setElement(1, -1);
+        Matrix y = new Matrix(3);
+        y.setElement(0, 100);
+        assertSame(y, a.mulVector(x, y));
+        assertEquals(-1, y.getElement(0), 0);
+        assertEquals(-1, y.getElement(1), 0);
+        assertEquals(-1, y.getElement(2), 0);
+
+        Matrix z = new Matrix(2);
+        z.setElement(1, 42);
+        assertSame(z, a.mulVectorTransposed(y, z));
+        assertEquals(-9, z.getElement(0), 0);
+        assertEquals(-12, z.getElement(1), 0);
+    }
+
+    /**
+     * Проверка скалярного произведения, нормы и axpy
+     */
+    @Test
+    public void vectorOperations() {
+        Matrix x = new Matrix(3);
+        Matrix y = new Matrix(3);
+        for (int i = 0; i < 3; i++) {
+            x.setElement(i, i + 1);
+            y.setElement(i, 2);
+        }
+        assertEquals(12, x.dot(y), 0);
+        assertEquals(Math.sqrt(14), x.norm(), 0);
+        assertSame(y, y.axpyInPlace(-2, x));
+        assertEquals(0, y.getElement(0), 0);
+        assertEquals(-2, y.getElement(1), 0);
+        assertEquals(-4, y.getElement(2), 0);
+        assertEquals(5, new Matrix(new double[][]{{3, 0}, {0, 4}}).norm(), 0);
+    }
+
+    /**
+     * Проверка аргументов
+     */
+    @Test
+    public void wrongArguments() {
+        Matrix a = new Matrix(3, 2);
+        Matrix[] wrong = {null, new Matrix(3), new Matrix(2, 2)};
+        for (Matrix x : wrong)
+            try {
+                a.mulVector(x);
+                fail();
+            } catch (IllegalArgumentException ignored) {
+            }
+        try {
+            a.mulVectorTransposed(new Matrix(2));
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            a.mulVector(new Matrix(2), new Matrix(2));
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+        Matrix square = new Matrix(2, 2);
+        Matrix x = new Matrix(2);
+        try {
+            square.mulVector(x, x);
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            x.dot(new Matrix(3));
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            x.axpyInPlace(1, null);
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+}
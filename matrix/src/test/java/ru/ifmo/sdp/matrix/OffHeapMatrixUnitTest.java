@@ -0,0 +1,185 @@
+package ru.ifmo.sdp.matrix;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class OffHeapMatrixUnitTest extends Assert {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Проверка создания и копирования, в т.ч. с разбиением на сегменты
+     */
+    @Test
+    public void allocateAndCopy() {
+        try (OffHeapMatrix zeros = OffHeapMatrix.allocate(3, 4, 2)) {
+            assertTrue(zeros.equalsMatrix(new Matrix(3, 4)));
+            zeros.setElement(2, 3, 5);
+            assertEquals(5, zeros.getElement(2, 3), 0);
+        }
+        Matrix m = TestMatrices.randomIntegerMatrix(new Random(1), 7, 9).addScalarInPlace(0.5);
+        try (OffHeapMatrix copy = OffHeapMatrix.copyOf(m);
+             OffHeapMatrix second = OffHeapMatrix.copyOf(copy)) {
+            assertArrayEquals(m.getDataClone(), copy.toMatrix().getDataClone());
+            assertEquals(copy, second);
+            second.setElement(0, 0, 100);
+            assertNotEquals(copy, second);
+        }
+    }
+
+    /**
+     * Проверка поэлементных и скалярных операций против <code>Matrix</code>
+     */
+    @Test
+    public void elementWiseAndScalarOperations() {
+        Random random = new Random(2);
+        Matrix a = TestMatrices.randomIntegerMatrix(random, 30, 170).addScalarInPlace(0.5);
+        Matrix b = TestMatrices.randomIntegerMatrix(random, 30, 170).addScalarInPlace(0.5);
+        try (OffHeapMatrix oa = OffHeapMatrix.copyOf(a);
+             OffHeapMatrix ob = OffHeapMatrix.copyOf(b)) {
+            for (Matrix.Operation operation : Matrix.Operation.values()) {
+                try (OffHeapMatrix result = OffHeapMatrix.matrixElementWiseOperation(oa, ob, operation)) {
+                    assertArrayEquals(Matrix.matrixElementWiseOperation(a, b, operation).getDataClone(),
+                            result.toMatrix().getDataClone());
+                }
+                try (OffHeapMatrix result = OffHeapMatrix.scalarOperation(oa, 1.5, operation)) {
+                    assertArrayEquals(Matrix.scalarOperation(a, 1.5, operation).getDataClone(),
+                            result.toMatrix().getDataClone());
+                }
+            }
+            assertSame(oa, oa.addInPlace(ob));
+            assertSame(oa, oa.mulScalarInPlace(2));
+            assertTrue(oa.equalsMatrix(a.addMatrix(b).mulScalar(2)));
+        }
+    }
+
+    /**
+     * Проверка, что деление на матрицу с нулями не изменяет приёмник
+     */
+    @Test
+    public void divideByZeroKeepsDestination() {
+        Matrix a = TestMatrices.randomIntegerMatrix(new Random(3), 4, 4).addScalarInPlace(0.5);
+        Matrix b = TestMatrices.randomIntegerMatrix(new Random(4), 4, 4).addScalarInPlace(0.5);
+        b.setElement(3, 3, 0);
+        try (OffHeapMatrix oa = OffHeapMatrix.copyOf(a);
+             OffHeapMatrix ob = OffHeapMatrix.copyOf(b)) {
+            try {
+                oa.divElementWiseInPlace(ob);
+                fail();
+            } catch (IllegalArgumentException expected) {
+                // ожидаемое исключение
+            }
+            assertTrue(oa.equalsMatrix(a));
+        }
+    }
+
+    /**
+     * Проверка перемножения через несколько плиток: результат побитово
+     * совпадает с <code>Matrix</code>
+     */
+    @Test
+    public void multiplyMatchesMatrix() {
+        Random random = new Random(5);
+        Matrix a = TestMatrices.randomMatrix(random, 600, 530, 0, 1);
+        Matrix b = TestMatrices.randomMatrix(random, 530, 70, 0, 1);
+        try (OffHeapMatrix oa = OffHeapMatrix.copyOf(a);
+             OffHeapMatrix ob = OffHeapMatrix.copyOf(b);
+             OffHeapMatrix product = oa.mulMatrix(ob)) {
+            assertArrayEquals(Matrix.matrixMultiply(a, b).getDataClone(),
+                    product.toMatrix().getDataClone());
+        }
+    }
+
+    /**
+     * Проверка транспонирования, в т.ч. на месте через несколько плиток
+     */
+    @Test
+    public void transpose() {
+        Random random = new Random(6);
+        Matrix a = TestMatrices.randomIntegerMatrix(random, 37, 530).addScalarInPlace(0.5);
+        try (OffHeapMatrix oa = OffHeapMatrix.copyOf(a);
+             OffHeapMatrix transposed = oa.transpose()) {
+            assertArrayEquals(a.transpose().getDataClone(), transposed.toMatrix().getDataClone());
+        }
+        Matrix square = TestMatrices.randomIntegerMatrix(random, 1100, 1100).addScalarInPlace(0.5);
+        try (OffHeapMatrix os = OffHeapMatrix.copyOf(square)) {
+            assertSame(os, os.transpose(os));
+            assertTrue(os.equalsMatrix(square.transpose()));
+        }
+    }
+
+    /**
+     * Проверка операций над отображённым файлом, хранящим значения по
+     * столбцам: результат записывается вне кучи без копирования операндов
+     */
+    @Test
+    public void operationsOnMappedFile() throws IOException {
+        Random random = new Random(7);
+        Matrix a = TestMatrices.randomIntegerMatrix(random, 20, 13).addScalarInPlace(0.5);
+        Matrix b = TestMatrices.randomIntegerMatrix(random, 13, 11).addScalarInPlace(0.5);
+        Path path = folder.newFile().toPath();
+        MatrixFile.write(a, path, MatrixFile.Layout.COLUMN_MAJOR);
+        try (OffHeapMatrix mapped = MatrixFile.map(path, MatrixFile.Access.READ_ONLY);
+             OffHeapMatrix ob = OffHeapMatrix.copyOf(b);
+             OffHeapMatrix product = mapped.mulMatrix(ob);
+             OffHeapMatrix sum = mapped.addMatrix(mapped);
+             OffHeapMatrix transposed = mapped.transpose()) {
+            assertArrayEquals(a.mulMatrix(b).getDataClone(), product.toMatrix().getDataClone());
+            assertArrayEquals(a.addMatrix(a).getDataClone(), sum.toMatrix().getDataClone());
+            assertArrayEquals(a.transpose().getDataClone(), transposed.toMatrix().getDataClone());
+            try {
+                mapped.addScalarInPlace(1);
+                fail();
+            } catch (IllegalStateException expected) {
+                // ожидаемое исключение
+            }
+        }
+    }
+
+    /**
+     * Проверка сравнения с дельтой и с закрытыми матрицами
+     */
+    @Test
+    public void equalsWithDelta() {
+        try (OffHeapMatrix a = OffHeapMatrix.allocate(2, 2);
+             OffHeapMatrix b = OffHeapMatrix.allocate(2, 2)) {
+            b.setElement(1, 1, 0.001);
+            assertNotEquals(a, b);
+            double delta = Matrix.equalsDelta();
+            try {
+                Matrix.setEqualsDelta(0.01);
+                assertEquals(a, b);
+                assertEquals(a.hashCode(), b.hashCode());
+            } finally {
+                Matrix.setEqualsDelta(delta);
+            }
+            b.close();
+            assertNotEquals(a, b);
+        }
+    }
+
+    /**
+     * Проверка согласованности хэш-кода с точным сравнением и с обычной матрицей
+     */
+    @Test
+    public void hashCodeConsistentWithEquals() {
+        Matrix m = new Matrix(new double[][]{{1, 0, -2}, {3.5, 4, 0}});
+        try (OffHeapMatrix a = OffHeapMatrix.copyOf(m);
+             OffHeapMatrix b = OffHeapMatrix.copyOf(m)) {
+            assertEquals(a, b);
+            assertEquals(a.hashCode(), b.hashCode());
+            assertEquals(m.hashCode(), a.hashCode());
+            b.setElement(0, 1, -0.0);
+            assertEquals(a.hashCode(), b.hashCode());
+            b.setElement(1, 2, 1);
+            assertNotEquals(a.hashCode(), b.hashCode());
+        }
+    }
+}
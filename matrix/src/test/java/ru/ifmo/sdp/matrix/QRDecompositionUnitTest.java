@@ -0,0 +1,106 @@
+package ru.ifmo.sdp.matrix;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class QRDecompositionUnitTest extends Assert {
+    private double equalsDelta;
+
+    @Before
+    public void setUp() {
+        equalsDelta = Matrix.equalsDelta();
+        Matrix.setEqualsDelta(1e-9);
+    }
+
+    @After
+    public void tearDown() {
+        Matrix.setEqualsDelta(equalsDelta);
+    }
+
+    /**
+     * Проверка Q^T Q = I, A = Q R и треугольности R последовательно и
+     * параллельно для квадратных и вытянутых матриц
+     */
+    @Test
+    public void factorization() {
+        Random random = new Random(1);
+        long threshold = BlockedMultiplication.parallelThreshold();
+        try {
+            BlockedMultiplication.setParallelThreshold(0);
+            int[][] sizes = {{1, 1}, {6, 3}, {LUDecomposition.PANEL_SIZE, LUDecomposition.PANEL_SIZE},
+                    {300, LUDecomposition.PANEL_SIZE * 2 + 9}, {150, 150}};
+            for (int[] size : sizes)
+                for (boolean parallel : new boolean[]{false, true}) {
+                    Matrix a = TestMatrices.randomMatrix(random, size[0], size[1]);
+                    QRDecomposition qr = QRDecomposition.of(a, parallel);
+                    Matrix q = qr.getQ();
+                    Matrix r = qr.getR();
+                    for (int i = 0; i < size[1]; i++)
+                        for (int j = 0; j < i; j++)
+                            assertEquals(0, r.getElement(i, j), 0);
+                    assertEquals(TestMatrices.identity(size[1]), Matrix.matrixMultiply(q.transpose(), q));
+                    assertEquals(a, Matrix.matrixMultiply(q, r));
+                }
+        } finally {
+            BlockedMultiplication.setParallelThreshold(threshold);
+        }
+    }
+
+    /**
+     * Проверка решения квадратной системы
+     */
+    @Test
+    public void solveSquare() {
+        Random random = new Random(2);
+        Matrix a = TestMatrices.randomMatrix(random, 100, 100);
+        Matrix x = TestMatrices.randomMatrix(random, 100, 3);
+        assertEquals(x, a.qr().solve(a.mulMatrix(x)));
+    }
+
+    /**
+     * Проверка метода наименьших квадратов: невязка ортогональна столбцам
+     * матрицы, а совместная система решается точно
+     */
+    @Test
+    public void leastSquares() {
+        Random random = new Random(3);
+        Matrix a = TestMatrices.randomMatrix(random, 200, 70);
+        QRDecomposition qr = a.qr();
+        assertTrue(qr.isFullRank());
+
+        Matrix x = TestMatrices.randomMatrix(random, 70, 2);
+        assertEquals(x, qr.solve(a.mulMatrix(x)));
+
+        Matrix b = TestMatrices.randomMatrix(random, 200, 2);
+        Matrix residual = b.subMatrix(a.mulMatrix(qr.solve(b)));
+        assertEquals(new Matrix(70, 2), Matrix.matrixMultiply(a, true, residual, false));
+    }
+
+    /**
+     * Проверка матрицы неполного ранга и неподходящих аргументов
+     */
+    @Test
+    public void wrongArguments() {
+        QRDecomposition qr = new Matrix(new double[][]{{1, 0}, {2, 0}, {3, 0}}).qr();
+        assertFalse(qr.isFullRank());
+        try {
+            qr.solve(new Matrix(3));
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+        try {
+            new Matrix(2, 3).qr();
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+        try {
+            TestMatrices.identity(3).qr().solve(new Matrix(2));
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package ru.ifmo.sdp.matrix;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class SparseMatrixUnitTest extends Assert {
+
+    /**
+     * Плотная матрица, в которой ненулевой только каждый <code>rarity</code>-й элемент
+     */
+    private static Matrix randomSparse(Random random, int rows, int columns, int rarity) {
+        Matrix m = new Matrix(rows, columns);
+        for (int i = 0; i < rows; i++)
+            for (int j = 0; j < columns; j++)
+                if (random.nextInt(rarity) == 0)
+                    m.setElement(i, j, random.nextInt(19) - 9);
+        return m;
+    }
+
+    /**
+     * Проверка преобразования в оба формата и обратно
+     */
+    @Test
+    public void convertFromAndToMatrix() {
+        Matrix m = randomSparse(new Random(1), 23, 17, 4);
+        for (SparseMatrix.Layout layout : SparseMatrix.Layout.values()) {
+            SparseMatrix s = SparseMatrix.fromMatrix(m, layout);
+            assertEquals(layout, s.layout());
+            assertArrayEquals(m.getDataClone(), s.toMatrix().getDataClone());
+            for (int i = 0; i < m.rows(); i++)
+                for (int j = 0; j < m.columns(); j++)
+                    assertEquals(m.getElement(i, j), s.getElement(i, j), 0);
+        }
+    }
+
+    /**
+     * Проверка построения из троек с повторами и нулями
+     */
+    @Test
+    public void fromTriplets() {
+        SparseMatrix s = SparseMatrix.fromTriplets(3, 4,
+                new int[]{2, 0, 2, 1, 0},
+                new int[]{3, 1, 3, 0, 2},
+                new double[]{1, 5, 2, 0, 7},
+                SparseMatrix.Layout.CSC);
+        assertEquals(3, s.nonZeros());
+        assertArrayEquals(new double[][]{{0, 5, 7, 0}, {0, 0, 0, 0}, {0, 0, 0, 3}},
+                s.toMatrix().getDataClone());
+    }
+
+    /**
+     * Проверка на наличие исключения при построении из тройки с неверным индексом
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void fromTripletsBadIndex() {
+        SparseMatrix.fromTriplets(2, 2, new int[]{2}, new int[]{0}, new double[]{1},
+                SparseMatrix.Layout.CSR);
+    }
+
+    /**
+     * Проверка, что матрица огромного размера строится за время и память,
+     * пропорциональные числу ненулевых элементов
+     */
+    @Test
+    public void hugeMatrix() {
+        int n = 100000;
+        int[] diagonal = new int[n];
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            diagonal[i] = i;
+            values[i] = i + 1;
+        }
+        SparseMatrix s = SparseMatrix.fromTriplets(n, n, diagonal, diagonal, values,
+                SparseMatrix.Layout.CSR);
+        SparseMatrix square = s.mulMatrix(s.transpose());
+        assertEquals(n, square.nonZeros());
+        assertEquals((double) n * n, square.getElement(n - 1, n - 1), 0);
+    }
+
+    /**
+     * Проверка транспонирования и смены формата
+     */
+    @Test
+    public void transposeAndLayout() {
+        Matrix m = randomSparse(new Random(2), 9, 14, 3);
+        SparseMatrix s = SparseMatrix.fromMatrix(m, SparseMatrix.Layout.CSR);
+        assertArrayEquals(m.transpose().getDataClone(), s.transpose().toMatrix().getDataClone());
+        assertArrayEquals(m.getDataClone(),
+                s.toLayout(SparseMatrix.Layout.CSC).toMatrix().getDataClone());
+        assertEquals(s, s.toLayout(SparseMatrix.Layout.CSC));
+    }
+
+    /**
+     * Проверка умножения разреженной на плотную и плотной на разреженную
+     */
+    @Test
+    public void multiplyWithDense() {
+        Random random = new Random(3);
+        Matrix a = randomSparse(random, 12, 15, 3);
+        Matrix b = randomSparse(random, 15, 8, 1);
+        Matrix expected = a.mulMatrix(b);
+        for (SparseMatrix.Layout layout : SparseMatrix.Layout.values()) {
+            assertArrayEquals(expected.getDataClone(),
+                    SparseMatrix.fromMatrix(a, layout).mulMatrix(b).getDataClone());
+            assertArrayEquals(expected.getDataClone(),
+                    SparseMatrix.matrixMultiply(a, SparseMatrix.fromMatrix(b, layout)).getDataClone());
+        }
+    }
+
+    /**
+     * Проверка умножения разреженных матриц во всех сочетаниях форматов
+     */
+    @Test
+    public void multiplySparse() {
+        Random random = new Random(4);
+        Matrix a = randomSparse(random, 20, 13, 4);
+        Matrix b = randomSparse(random, 13, 11, 4);
+        Matrix expected = a.mulMatrix(b);
+        for (SparseMatrix.Layout first : SparseMatrix.Layout.values())
+            for (SparseMatrix.Layout second : SparseMatrix.Layout.values()) {
+                SparseMatrix product = SparseMatrix.fromMatrix(a, first)
+                        .mulMatrix(SparseMatrix.fromMatrix(b, second));
+                assertEquals(first, product.layout());
+                assertArrayEquals(expected.getDataClone(), product.toMatrix().getDataClone());
+            }
+    }
+
+    /**
+     * Проверка поэлементных операций с сохранением разреженности
+     */
+    @Test
+    public void elementWise() {
+        Random random = new Random(5);
+        Matrix a = randomSparse(random, 10, 10, 3);
+        Matrix b = randomSparse(random, 10, 10, 3);
+        SparseMatrix sa = SparseMatrix.fromMatrix(a, SparseMatrix.Layout.CSR);
+        SparseMatrix sb = SparseMatrix.fromMatrix(b, SparseMatrix.Layout.CSC);
+        for (Matrix.Operation operation : new Matrix.Operation[]{
+                Matrix.Operation.SUM, Matrix.Operation.SUBTRACT, Matrix.Operation.MULTIPLY}) {
+            SparseMatrix result = SparseMatrix.matrixElementWiseOperation(sa, sb, operation);
+            assertEquals(Matrix.matrixElementWiseOperation(a, b, operation), result.toMatrix());
+        }
+        SparseMatrix difference = SparseMatrix.matrixElementWiseOperation(sa, sa,
+                Matrix.Operation.SUBTRACT);
+        assertEquals(0, difference.nonZeros());
+        assertEquals(0, sa.scalarOperation(0, Matrix.Operation.MULTIPLY).nonZeros());
+        assertArrayEquals(a.mulScalar(4).getDataClone(),
+                sa.scalarOperation(4, Matrix.Operation.MULTIPLY).toMatrix().getDataClone());
+    }
+
+    /**
+     * Проверка поэлементного умножения и деления на матрицу с
+     * бесконечностями и NaN там, где первая матрица нулевая
+     */
+    @Test
+    public void elementWiseNonFinite() {
+        Matrix a = new Matrix(new double[][]{{1, 0, 0}, {0, 0, 2}});
+        Matrix b = new Matrix(new double[][]{
+                {2, Double.POSITIVE_INFINITY, Double.NaN},
+                {Double.NaN, Double.NEGATIVE_INFINITY, 4}});
+        for (SparseMatrix.Layout layout : SparseMatrix.Layout.values()) {
+            SparseMatrix sa = SparseMatrix.fromMatrix(a, layout);
+            SparseMatrix sb = SparseMatrix.fromMatrix(b, SparseMatrix.Layout.CSR);
+            for (Matrix.Operation operation : new Matrix.Operation[]{
+                    Matrix.Operation.MULTIPLY, Matrix.Operation.DIVIDE}) {
+                double[][] expected = Matrix.matrixElementWiseOperation(a, b, operation).getDataClone();
+                double[][] actual = SparseMatrix.matrixElementWiseOperation(sa, sb, operation)
+                        .toMatrix().getDataClone();
+                for (int i = 0; i < expected.length; i++)
+                    assertArrayEquals(expected[i], actual[i], 0);
+            }
+        }
+    }
+
+    /**
+     * Проверка согласованности хэш-кода с равенством для разных форматов
+     */
+    @Test
+    public void hashCodeConsistentWithEquals() {
+        Matrix m = randomSparse(new Random(7), 15, 12, 4);
+        SparseMatrix csr = SparseMatrix.fromMatrix(m, SparseMatrix.Layout.CSR);
+        SparseMatrix csc = SparseMatrix.fromMatrix(m, SparseMatrix.Layout.CSC);
+        double delta = Matrix.equalsDelta();
+        try {
+            Matrix.setEqualsDelta(0);
+            assertEquals(csr, csc);
+            assertEquals(csr.hashCode(), csc.hashCode());
+            assertEquals(m.hashCode(), csr.hashCode());
+            SparseMatrix scaled = csr.scalarOperation(2, Matrix.Operation.MULTIPLY);
+            assertNotEquals(csr.hashCode(), scaled.hashCode());
+
+            Matrix.setEqualsDelta(1e-9);
+            Matrix perturbed = new Matrix(m);
+            perturbed.setElement(3, 4, m.getElement(3, 4) + 1e-12);
+            SparseMatrix close = SparseMatrix.fromMatrix(perturbed, SparseMatrix.Layout.CSR);
+            assertEquals(csr, close);
+            assertEquals(csr.hashCode(), close.hashCode());
+        } finally {
+            Matrix.setEqualsDelta(delta);
+        }
+    }
+
+    /**
+     * Проверка хэш-кода матриц, число элементов которых не помещается в
+     * <code>int</code>: позиции (0, 0) и (42949, 67296) совпадают по модулю 2^32
+     */
+    @Test
+    public void hashCodeOfHugeMatrix() {
+        int size = 100000;
+        double delta = Matrix.equalsDelta();
+        try {
+            Matrix.setEqualsDelta(0);
+            SparseMatrix first = SparseMatrix.fromTriplets(size, size, new int[]{0}, new int[]{0},
+                    new double[]{1}, SparseMatrix.Layout.CSR);
+            SparseMatrix second = SparseMatrix.fromTriplets(size, size, new int[]{42949}, new int[]{67296},
+                    new double[]{1}, SparseMatrix.Layout.CSR);
+            assertNotEquals(first, second);
+            assertNotEquals(first.hashCode(), second.hashCode());
+        } finally {
+            Matrix.setEqualsDelta(delta);
+        }
+    }
+
+    /**
+     * Проверка на наличие исключения при делении на разреженную матрицу
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void divideBySparse() {
+        SparseMatrix s = SparseMatrix.fromMatrix(new Matrix(new double[][]{{1, 0}, {0, 1}}),
+                SparseMatrix.Layout.CSR);
+        SparseMatrix.matrixElementWiseOperation(s, s, Matrix.Operation.DIVIDE);
+    }
+
+    /**
+     * Проверка на наличие исключения при сложении со скаляром
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void addNonZeroScalar() {
+        SparseMatrix.fromMatrix(new Matrix(2, 2), SparseMatrix.Layout.CSR)
+                .scalarOperation(1, Matrix.Operation.SUM);
+    }
+}
@@ -0,0 +1,145 @@
+package ru.ifmo.sdp.matrix;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class StrassenMultiplicationUnitTest extends Assert {
+    private int crossover;
+
+    @Before
+    public void setUp() {
+        crossover = StrassenMultiplication.crossover();
+        // несколько уровней рекурсии на небольших матрицах
+        StrassenMultiplication.setCrossover(16);
+    }
+
+    @After
+    public void tearDown() {
+        StrassenMultiplication.setCrossover(crossover);
+    }
+
+    private static double maxDifference(Matrix m1, Matrix m2) {
+        double result = 0;
+        for (int i = 0; i < m1.rows(); i++)
+            for (int j = 0; j < m1.columns(); j++)
+                result = Math.max(result, Math.abs(m1.getElement(i, j) - m2.getElement(i, j)));
+        return result;
+    }
+
+    /**
+     * Проверка на целых числах, где все промежуточные суммы точны:
+     * результат совпадает с классическим алгоритмом, в т.ч. для размеров,
+     * требующих дополнения нулями
+     */
+    @Test
+    public void exactOnIntegers() {
+        Random random = new Random(1);
+        int[][] sizes = {{128, 128, 128}, {100, 70, 129}, {17, 200, 3}, {1, 1, 1}, {16, 16, 16}};
+        for (int[] size : sizes) {
+            Matrix a = TestMatrices.randomIntegerMatrix(random, size[0], size[1]);
+            Matrix b = TestMatrices.randomIntegerMatrix(random, size[1], size[2]);
+            assertArrayEquals(Matrix.matrixMultiply(a, b, Matrix.Multiplication.BLOCKED).getDataClone(),
+                    Matrix.matrixMultiply(a, b, Matrix.Multiplication.STRASSEN).getDataClone());
+        }
+    }
+
+    /**
+     * Проверка, что фактическая погрешность не превышает документированной оценки
+     */
+    @Test
+    public void errorWithinBound() {
+        Random random = new Random(2);
+        Matrix a = TestMatrices.randomMatrix(random, 200, 200);
+        Matrix b = TestMatrices.randomMatrix(random, 200, 200);
+        double error = maxDifference(Matrix.matrixMultiply(a, b, Matrix.Multiplication.NAIVE),
+                Matrix.matrixMultiply(a, b, Matrix.Multiplication.STRASSEN));
+        double bound = StrassenMultiplication.errorBound(a, b);
+        assertTrue(error + " > " + bound, error <= bound);
+
+        double delta = Matrix.equalsDelta();
+        try {
+            Matrix.setEqualsDelta(bound);
+            assertEquals(Matrix.matrixMultiply(a, b, Matrix.Multiplication.BLOCKED),
+                    Matrix.matrixMultiply(a, b, Matrix.Multiplication.STRASSEN));
+        } finally {
+            Matrix.setEqualsDelta(delta);
+        }
+    }
+
+    /**
+     * Проверка роста оценки погрешности с глубиной рекурсии
+     */
+    @Test
+    public void boundGrowsWithRecursionDepth() {
+        Matrix a = TestMatrices.randomMatrix(new Random(3), 256, 256);
+        double deep = StrassenMultiplication.errorBound(a, a);
+        StrassenMultiplication.setCrossover(256);
+        double classic = StrassenMultiplication.errorBound(a, a);
+        assertTrue(deep > classic);
+        // оценка классического алгоритма и такая же оценка классического результата
+        assertEquals(2 * 256.0 * 256 * 0x1p-53, classic / Math.pow(maxAbs(a), 2), 1e-20);
+    }
+
+    private static double maxAbs(Matrix m) {
+        double result = 0;
+        for (double[] row : m.getDataClone())
+            for (double value : row)
+                result = Math.max(result, Math.abs(value));
+        return result;
+    }
+
+    /**
+     * Проверка сильно вытянутых операндов: дополнение до квадрата со стороной
+     * 50000 не помещается в массив, поэтому используется классический алгоритм
+     */
+    @Test
+    public void tallSkinnyOperands() {
+        Random random = new Random(5);
+        Matrix tall = TestMatrices.randomIntegerMatrix(random, 50000, 2);
+        Matrix small = TestMatrices.randomIntegerMatrix(random, 2, 2);
+        assertArrayEquals(Matrix.matrixMultiply(tall, small, Matrix.Multiplication.BLOCKED).getDataClone(),
+                Matrix.matrixMultiply(tall, small, Matrix.Multiplication.STRASSEN).getDataClone());
+        Matrix wide = tall.transpose();
+        assertArrayEquals(Matrix.matrixMultiply(wide, tall, Matrix.Multiplication.BLOCKED).getDataClone(),
+                Matrix.matrixMultiply(wide, tall, Matrix.Multiplication.STRASSEN).getDataClone());
+        // обе оценки классические
+        assertEquals(2 * 50000.0 * 50000 * 0x1p-53 * maxAbs(wide) * maxAbs(tall),
+                StrassenMultiplication.errorBound(wide, tall), 1e-15);
+    }
+
+    /**
+     * Проверка несогласованных размеров при оценке погрешности
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void errorBoundRejectsMismatchedSizes() {
+        StrassenMultiplication.errorBound(new Matrix(3, 2), new Matrix(3, 2));
+    }
+
+    /**
+     * Проверка выбора алгоритма по умолчанию
+     */
+    @Test
+    public void defaultMultiplication() {
+        Matrix.Multiplication multiplication = Matrix.multiplication();
+        try {
+            Matrix.setMultiplication(Matrix.Multiplication.STRASSEN);
+            Matrix a = TestMatrices.randomIntegerMatrix(new Random(4), 70, 70);
+            assertArrayEquals(Matrix.matrixMultiply(a, a, Matrix.Multiplication.BLOCKED).getDataClone(),
+                    a.mulMatrix(a).getDataClone());
+        } finally {
+            Matrix.setMultiplication(multiplication);
+        }
+    }
+
+    /**
+     * Проверка недопустимого значения порога
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectNonPositiveCrossover() {
+        StrassenMultiplication.setCrossover(0);
+    }
+}
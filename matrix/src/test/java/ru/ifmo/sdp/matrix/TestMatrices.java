@@ -0,0 +1,54 @@
+package ru.ifmo.sdp.matrix;
+
+import java.util.Random;
+
+/**
+ * Общие для тестов матрицы со случайными и заданными значениями
+ */
+final class TestMatrices {
+
+    private TestMatrices() {
+    }
+
+    /**
+     * @return матрица с равномерно распределёнными значениями из <code>[-1, 1)</code>
+     */
+    static Matrix randomMatrix(Random random, int rows, int columns) {
+        return randomMatrix(random, rows, columns, -1, 1);
+    }
+
+    /**
+     * @return матрица с равномерно распределёнными значениями из <code>[min, max)</code>
+     */
+    static Matrix randomMatrix(Random random, int rows, int columns, double min, double max) {
+        Matrix m = new Matrix(rows, columns);
+        for (int i = 0; i < rows; i++)
+            for (int j = 0; j < columns; j++)
+                m.setElement(i, j, min + random.nextDouble() * (max - min));
+        return m;
+    }
+
+    /**
+     * Значения целые, поэтому суммы и произведения небольших матриц точны
+     * и в <code>float</code>
+     *
+     * @return матрица с целыми значениями из <code>[-9, 9]</code>
+     */
+    static Matrix randomIntegerMatrix(Random random, int rows, int columns) {
+        Matrix m = new Matrix(rows, columns);
+        for (int i = 0; i < rows; i++)
+            for (int j = 0; j < columns; j++)
+                m.setElement(i, j, random.nextInt(19) - 9);
+        return m;
+    }
+
+    /**
+     * @return единичная матрица
+     */
+    static Matrix identity(int size) {
+        Matrix m = new Matrix(size, size);
+        for (int i = 0; i < size; i++)
+            m.setElement(i, i, 1);
+        return m;
+    }
+}